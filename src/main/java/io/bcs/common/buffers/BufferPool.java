@@ -0,0 +1,122 @@
+package io.bcs.common.buffers;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * This class implements the bounded pool of the equally sized IO buffers. The pool is striped by
+ * the available processors count, so that the concurrent threads mostly work with different
+ * stripes and don't contend with each other. The buffer is acquired from the stripe of the current
+ * thread, but it is released to its owning stripe, chosen by the buffer identity, because the
+ * asynchronous transfers release the buffers on the other threads, and the stripes of the
+ * releasing threads would overflow otherwise, while the stripes of the acquiring threads would stay
+ * empty. If the stripe is empty, the new buffer is allocated and if the owning stripe is full, the
+ * returned buffer is dropped, so the pool never holds more than the configured count of buffers.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class BufferPool {
+  @Getter
+  private final int bufferSize;
+  private final ArrayBlockingQueue<ByteBuffer>[] stripes;
+  private final AtomicLong hits = new AtomicLong(0L);
+  private final AtomicLong misses = new AtomicLong(0L);
+  private final AtomicLong drops = new AtomicLong(0L);
+
+  /**
+   * Create the buffer pool, striped by the available processors.
+   *
+   * @param bufferSize       The buffer size
+   * @param buffersPerStripe The max count of the pooled buffers per stripe
+   */
+  public BufferPool(int bufferSize, int buffersPerStripe) {
+    this(bufferSize, buffersPerStripe, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Create the buffer pool.
+   *
+   * @param bufferSize       The buffer size
+   * @param buffersPerStripe The max count of the pooled buffers per stripe
+   * @param stripesCount     The stripes count
+   */
+  @SuppressWarnings("unchecked")
+  public BufferPool(int bufferSize, int buffersPerStripe, int stripesCount) {
+    super();
+    this.bufferSize = bufferSize;
+    this.stripes = new ArrayBlockingQueue[Math.max(1, stripesCount)];
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new ArrayBlockingQueue<>(Math.max(1, buffersPerStripe));
+    }
+  }
+
+  /**
+   * Borrow the buffer from the pool. The buffer is cleared and must be returned to the pool by
+   * the {@link #release(ByteBuffer)} after use.
+   *
+   * @return The buffer
+   */
+  public ByteBuffer acquire() {
+    ByteBuffer buffer = getThreadStripe().poll();
+    if (buffer == null) {
+      misses.incrementAndGet();
+      return ByteBuffer.allocate(bufferSize);
+    }
+    hits.incrementAndGet();
+    buffer.clear();
+    return buffer;
+  }
+
+  /**
+   * Return the buffer to its owning stripe of the pool.
+   *
+   * @param buffer The buffer
+   */
+  public void release(ByteBuffer buffer) {
+    if (buffer.capacity() != bufferSize || !getOwningStripe(buffer).offer(buffer)) {
+      drops.incrementAndGet();
+    }
+  }
+
+  /**
+   * Get the pool usage statistic.
+   *
+   * @return The pool statistic
+   */
+  public Statistic getStatistic() {
+    int pooled = 0;
+    for (ArrayBlockingQueue<ByteBuffer> stripe : stripes) {
+      pooled += stripe.size();
+    }
+    return new Statistic(hits.get(), misses.get(), drops.get(), pooled);
+  }
+
+  private ArrayBlockingQueue<ByteBuffer> getThreadStripe() {
+    return stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+  }
+
+  private ArrayBlockingQueue<ByteBuffer> getOwningStripe(ByteBuffer buffer) {
+    return stripes[Math.floorMod(System.identityHashCode(buffer), stripes.length)];
+  }
+
+  /**
+   * This class represents the buffer pool usage statistic.
+   *
+   * @author Dmitry Mikhaylenko
+   *
+   */
+  @Getter
+  @ToString
+  @RequiredArgsConstructor
+  public static class Statistic {
+    private final long hits;
+    private final long misses;
+    private final long drops;
+    private final int pooled;
+  }
+}
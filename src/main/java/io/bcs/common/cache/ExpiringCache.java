@@ -0,0 +1,186 @@
+package io.bcs.common.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * This class implements the bounded in-memory cache, which values are expired after the time to
+ * live. The least recently used values are evicted first, when the cache size is exceeded. Every
+ * key has the generation, which is changed by the key invalidation, so the value, loaded before
+ * the invalidation, isn't put after it. The generations of the recently invalidated keys are kept
+ * in the bounded map too and the evicted ones are replaced by the latest evicted generation, so
+ * the value may be rejected needlessly, but the stale value is never put.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ * @param <K> The cache key type
+ * @param <V> The cache value type
+ */
+public class ExpiringCache<K, V> {
+  private final int maxSize;
+  private final long timeToLive;
+  private final LongSupplier clock;
+  private final Map<K, CacheEntry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<K, Long> invalidations = new LinkedHashMap<>();
+  private long generation = 0L;
+  private long evictedGeneration = 0L;
+  private final AtomicLong hits = new AtomicLong(0L);
+  private final AtomicLong misses = new AtomicLong(0L);
+
+  /**
+   * Create the expiring cache.
+   *
+   * @param maxSize    The max cached values count. Zero value disables caching.
+   * @param timeToLive The cached value time to live in milliseconds
+   */
+  public ExpiringCache(int maxSize, long timeToLive) {
+    this(maxSize, timeToLive, System::currentTimeMillis);
+  }
+
+  /**
+   * Create the expiring cache, using the specified clock.
+   *
+   * @param maxSize    The max cached values count. Zero value disables caching.
+   * @param timeToLive The cached value time to live in milliseconds
+   * @param clock      The current time in milliseconds supplier
+   */
+  public ExpiringCache(int maxSize, long timeToLive, LongSupplier clock) {
+    super();
+    this.maxSize = maxSize;
+    this.timeToLive = timeToLive;
+    this.clock = clock;
+  }
+
+  public boolean isEnabled() {
+    return maxSize > 0;
+  }
+
+  /**
+   * Get the cached value. The expired value is removed and isn't returned.
+   *
+   * @param key The cache key
+   * @return The cached value if it is present and isn't expired
+   */
+  public Optional<V> get(K key) {
+    if (!isEnabled()) {
+      return Optional.empty();
+    }
+    Optional<V> value = getNotExpired(key);
+    if (value.isPresent()) {
+      hits.incrementAndGet();
+    } else {
+      misses.incrementAndGet();
+    }
+    return value;
+  }
+
+  /**
+   * Get the key generation. It should be obtained before the value is loaded and passed to the
+   * {@link #put(Object, Object, long)}.
+   *
+   * @param key The cache key
+   * @return The key generation
+   */
+  public long getGeneration(K key) {
+    synchronized (entries) {
+      return invalidations.getOrDefault(key, evictedGeneration);
+    }
+  }
+
+  /**
+   * Put the value to the cache, if the key hasn't been invalidated since the value has been
+   * loaded.
+   *
+   * @param key        The cache key
+   * @param value      The cached value
+   * @param generation The key generation, obtained before the value has been loaded
+   */
+  public void put(K key, V value, long generation) {
+    if (!isEnabled()) {
+      return;
+    }
+    synchronized (entries) {
+      if (invalidations.getOrDefault(key, evictedGeneration) != generation) {
+        return;
+      }
+      entries.put(key, new CacheEntry<>(value, clock.getAsLong() + timeToLive));
+      Iterator<CacheEntry<V>> iterator = entries.values().iterator();
+      while (entries.size() > maxSize && iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Remove the cached value.
+   *
+   * @param key The cache key
+   */
+  public void invalidate(K key) {
+    synchronized (entries) {
+      entries.remove(key);
+      invalidations.remove(key);
+      invalidations.put(key, ++generation);
+      Iterator<Long> iterator = invalidations.values().iterator();
+      while (invalidations.size() > maxSize && iterator.hasNext()) {
+        evictedGeneration = iterator.next();
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Get the cache usage statistic.
+   *
+   * @return The cache statistic
+   */
+  public Statistic getStatistic() {
+    return new Statistic(hits.get(), misses.get());
+  }
+
+  private Optional<V> getNotExpired(K key) {
+    synchronized (entries) {
+      CacheEntry<V> entry = entries.get(key);
+      if (entry == null) {
+        return Optional.empty();
+      }
+      if (entry.isExpiredAt(clock.getAsLong())) {
+        entries.remove(key);
+        return Optional.empty();
+      }
+      return Optional.of(entry.value);
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class CacheEntry<V> {
+    private final V value;
+    private final long expirationTime;
+
+    private boolean isExpiredAt(long time) {
+      return time >= expirationTime;
+    }
+  }
+
+  /**
+   * This class represents the cache usage statistic.
+   *
+   * @author Dmitry Mikhaylenko
+   *
+   */
+  @Getter
+  @ToString
+  @RequiredArgsConstructor
+  public static class Statistic {
+    private final long hits;
+    private final long misses;
+  }
+}
@@ -0,0 +1,27 @@
+package io.bcs.common.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * This class implements the invalidation channel, which delivers the notifications to the
+ * listeners of the current process only. It is sufficient for the single node deployment and for
+ * the tests.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class InProcessInvalidationChannel implements InvalidationChannel {
+  private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void publish(String key) {
+    listeners.forEach(listener -> listener.accept(key));
+  }
+
+  @Override
+  public void subscribe(Consumer<String> listener) {
+    listeners.add(listener);
+  }
+}
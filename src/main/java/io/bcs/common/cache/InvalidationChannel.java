@@ -0,0 +1,27 @@
+package io.bcs.common.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * This interface describes the channel, which delivers the cache invalidation notifications to
+ * every application node, including the publishing one. The implementation, delivering the
+ * notifications between the cluster nodes, may be plugged instead of the in-process one.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public interface InvalidationChannel {
+  /**
+   * Notify all nodes, that the cached values of the key are no longer valid.
+   *
+   * @param key The invalidated key
+   */
+  void publish(String key);
+
+  /**
+   * Subscribe on the invalidation notifications.
+   *
+   * @param listener The invalidated key listener
+   */
+  void subscribe(Consumer<String> listener);
+}
@@ -0,0 +1,22 @@
+package io.bcs.common.config;
+
+import io.bcs.common.cache.InProcessInvalidationChannel;
+import io.bcs.common.cache.InvalidationChannel;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+
+/**
+ * This class configures the cache invalidation channel. The in-process channel is used by
+ * default, the channel, connecting the cluster nodes, may be provided as an alternative.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@ApplicationScoped
+public class CacheInvalidationConfiguration {
+  @Produces
+  @ApplicationScoped
+  public InvalidationChannel invalidationChannel() {
+    return new InProcessInvalidationChannel();
+  }
+}
@@ -0,0 +1,118 @@
+package io.bcs.common.logging;
+
+import io.bce.logging.ApplicationLogger;
+import io.bce.logging.Loggers;
+import io.bce.text.TextTemplate;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class wraps the application logger and checks the logging level before the message is
+ * passed to it. The application logger is backed by the JUL, so the level is resolved by the JUL
+ * logger, named by the logging class. The templates of the disabled levels are supplied lazily, so
+ * neither the template nor its parameters are created on the hot paths.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public final class GuardedLogger {
+  private final ApplicationLogger applicationLogger;
+  private final Logger levelLogger;
+
+  private GuardedLogger(ApplicationLogger applicationLogger, Logger levelLogger) {
+    super();
+    this.applicationLogger = applicationLogger;
+    this.levelLogger = levelLogger;
+  }
+
+  /**
+   * Create the guarded logger for the logging class.
+   *
+   * @param loggingClass The logging class
+   * @return The guarded logger
+   */
+  public static GuardedLogger of(Class<?> loggingClass) {
+    return new GuardedLogger(Loggers.applicationLogger(loggingClass),
+        Logger.getLogger(loggingClass.getName()));
+  }
+
+  public boolean isTraceEnabled() {
+    return levelLogger.isLoggable(Level.FINEST);
+  }
+
+  public boolean isDebugEnabled() {
+    return levelLogger.isLoggable(Level.FINE);
+  }
+
+  public boolean isInfoEnabled() {
+    return levelLogger.isLoggable(Level.INFO);
+  }
+
+  /**
+   * Log the trace message if the trace level is enabled.
+   *
+   * @param message The message
+   */
+  public void trace(String message) {
+    if (isTraceEnabled()) {
+      applicationLogger.trace(message);
+    }
+  }
+
+  /**
+   * Log the trace message template, created only if the trace level is enabled.
+   *
+   * @param template The message template supplier
+   */
+  public void trace(Supplier<TextTemplate> template) {
+    if (isTraceEnabled()) {
+      applicationLogger.trace(template.get());
+    }
+  }
+
+  /**
+   * Log the debug message if the debug level is enabled.
+   *
+   * @param message The message
+   */
+  public void debug(String message) {
+    if (isDebugEnabled()) {
+      applicationLogger.debug(message);
+    }
+  }
+
+  /**
+   * Log the debug message template, created only if the debug level is enabled.
+   *
+   * @param template The message template supplier
+   */
+  public void debug(Supplier<TextTemplate> template) {
+    if (isDebugEnabled()) {
+      applicationLogger.debug(template.get());
+    }
+  }
+
+  /**
+   * Log the info message if the info level is enabled.
+   *
+   * @param message The message
+   */
+  public void info(String message) {
+    if (isInfoEnabled()) {
+      applicationLogger.info(message);
+    }
+  }
+
+  public void warn(String message) {
+    applicationLogger.warn(message);
+  }
+
+  public void warn(TextTemplate template) {
+    applicationLogger.warn(template);
+  }
+
+  public void error(Throwable error) {
+    applicationLogger.error(error);
+  }
+}
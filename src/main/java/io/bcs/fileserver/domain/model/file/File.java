@@ -51,6 +51,12 @@ public class File {
   @Default
   private Long totalLength = 0L;
 
+  @Getter(value = AccessLevel.NONE)
+  private String contentDigest;
+
+  @Getter(value = AccessLevel.NONE)
+  private String contentFileName;
+
   @Default
   private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -72,6 +78,25 @@ public class File {
     this.totalLength = 0L;
   }
 
+  /**
+   * Create the detached copy of the file, so the copy state isn't shared with the original file.
+   *
+   * @param file The copied file
+   */
+  public File(File file) {
+    super();
+    this.storageFileName = file.storageFileName;
+    this.storageName = file.storageName;
+    this.status = file.status;
+    this.mediaType = file.mediaType;
+    this.fileName = file.fileName;
+    this.totalLength = file.totalLength;
+    this.contentDigest = file.contentDigest;
+    this.contentFileName = file.contentFileName;
+    this.createdAt = file.createdAt;
+    this.disposedAt = file.disposedAt;
+  }
+
   /**
    * Get the storage name value. This value is optional and may be not assigned.
    *
@@ -81,6 +106,26 @@ public class File {
     return Optional.ofNullable(storageName);
   }
 
+  /**
+   * Get the content digest value. This value is optional and is known for the whole content
+   * uploads only.
+   *
+   * @return The hex encoded content digest
+   */
+  public Optional<String> getContentDigest() {
+    return Optional.ofNullable(contentDigest);
+  }
+
+  /**
+   * Get the name of the shared content file, which the file refers to. This value is optional and
+   * is assigned only if the content is shared with the other files.
+   *
+   * @return The content file name
+   */
+  public Optional<String> getContentFileName() {
+    return Optional.ofNullable(contentFileName);
+  }
+
   /**
    * Check that the file was disposed.
    *
@@ -121,6 +166,26 @@ public class File {
     this.storageName = storageName;
   }
 
+  /**
+   * Specify the digest of the uploaded content.
+   *
+   * @param contentDigest The hex encoded content digest
+   */
+  public void specifyContentDigest(String contentDigest) {
+    this.contentDigest = contentDigest;
+  }
+
+  /**
+   * Link the file to the shared content, stored on the storage.
+   *
+   * @param storageName     The storage name of the shared content
+   * @param contentFileName The shared content file name
+   */
+  public void linkContent(String storageName, String contentFileName) {
+    this.storageName = storageName;
+    this.contentFileName = contentFileName;
+  }
+
   /**
    * Relocate file to another storage.
    *
@@ -136,6 +201,8 @@ public class File {
   public void clearContentPlacement() {
     this.storageName = null;
     this.totalLength = 0L;
+    this.contentDigest = null;
+    this.contentFileName = null;
   }
 
   /**
@@ -1,44 +1,95 @@
 package io.bcs.fileserver.domain.model.file;
 
-import io.bce.logging.ApplicationLogger;
-import io.bce.logging.Loggers;
 import io.bce.text.TextTemplates;
+import io.bcs.common.logging.GuardedLogger;
 import io.bcs.fileserver.domain.errors.UnsatisfiableRangeFormatException;
 import io.bcs.fileserver.domain.model.storage.ContentFragment;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import lombok.EqualsAndHashCode;
 
 /**
  * This class transforms parsed file ranges to the normalized file fragments, according to
- * multi-range content download specification.
+ * multi-range content download specification. The fragments are sorted by offset and the
+ * overlapping or close to each other fragments are merged, so the content is read sequentially
+ * and a range, merged to the single fragment, is responded as the single-range content.
  *
  * @author Dmitry Mikhaylenko
  *
  */
 public class FileFragments {
-  private static final ApplicationLogger log = Loggers.applicationLogger(FileFragments.class);
+  private static final GuardedLogger log = GuardedLogger.of(FileFragments.class);
 
   private final Collection<ContentFragment> fragments;
 
   public FileFragments(Collection<Range> ranges, Long fileSize) {
+    this(ranges, fileSize, FragmentsPolicy.DEFAULT);
+  }
+
+  /**
+   * Create the normalized file fragments.
+   *
+   * @param ranges          The requested ranges
+   * @param fileSize        The file size
+   * @param fragmentsPolicy The fragments normalization policy
+   */
+  public FileFragments(Collection<Range> ranges, Long fileSize, FragmentsPolicy fragmentsPolicy) {
     super();
-    this.fragments = createFragments(ranges, fileSize);
+    this.fragments = createFragments(ranges, fileSize, fragmentsPolicy);
   }
 
   public Collection<ContentFragment> getParts() {
     return fragments;
   }
 
-  private Collection<ContentFragment> createFragments(Collection<Range> ranges, Long fileSize) {
-    return createFragmentsFromRanges(ranges, fileSize);
+  private Collection<ContentFragment> createFragments(Collection<Range> ranges, Long fileSize,
+      FragmentsPolicy fragmentsPolicy) {
+    List<FileFragment> mergedFragments = mergeFragments(
+        createFragmentsFromRanges(ranges, fileSize), fragmentsPolicy.getMergeGapThreshold());
+    checkThatPartsCountIsAcceptable(mergedFragments, fragmentsPolicy.getMaxPartsCount());
+    return Collections.unmodifiableList(mergedFragments);
   }
 
-  private Collection<ContentFragment> createFragmentsFromRanges(Collection<Range> ranges,
+  private List<FileFragment> createFragmentsFromRanges(Collection<Range> ranges,
       Long fileSize) {
     return ranges.stream().map(range -> new FileFragment(range, fileSize)).distinct()
-        .collect(Collectors.toList());
+        .sorted(Comparator.comparing(FileFragment::getOffset)).collect(Collectors.toList());
+  }
+
+  private List<FileFragment> mergeFragments(List<FileFragment> sortedFragments,
+      Long mergeGapThreshold) {
+    List<FileFragment> mergedFragments = new ArrayList<>(sortedFragments.size());
+    FileFragment current = null;
+    for (FileFragment fragment : sortedFragments) {
+      if (current != null && current.isCloseTo(fragment, mergeGapThreshold)) {
+        current = current.mergeWith(fragment);
+        continue;
+      }
+      if (current != null) {
+        mergedFragments.add(current);
+      }
+      current = fragment;
+    }
+    if (current != null) {
+      mergedFragments.add(current);
+    }
+    return mergedFragments;
+  }
+
+  private void checkThatPartsCountIsAcceptable(List<FileFragment> fragments, int maxPartsCount) {
+    if (fragments.size() > maxPartsCount) {
+      log.debug(() -> TextTemplates
+          .createBy("The range format is unsatisfiable. The {{partsCount}} parts are requested, "
+              + "but only {{maxPartsCount}} are allowed.")
+          .withParameter("partsCount", fragments.size())
+          .withParameter("maxPartsCount", maxPartsCount));
+      throw new UnsatisfiableRangeFormatException();
+    }
   }
 
   @EqualsAndHashCode(onlyExplicitlyIncluded = true)
@@ -53,6 +104,12 @@ public class FileFragments {
       checkRangeFormat();
     }
 
+    private FileFragment(Long start, Long end) {
+      super();
+      this.start = start;
+      this.end = end;
+    }
+
     @Override
     @EqualsAndHashCode.Include
     public Long getOffset() {
@@ -65,9 +122,17 @@ public class FileFragments {
       return end - start + 1;
     }
 
+    private boolean isCloseTo(FileFragment next, Long mergeGapThreshold) {
+      return next.start - end - 1 <= mergeGapThreshold;
+    }
+
+    private FileFragment mergeWith(FileFragment next) {
+      return new FileFragment(start, Math.max(end, next.end));
+    }
+
     private Long normalizeStartPosition(Optional<Long> startOfRange, Optional<Long> endOfRange,
         Long fileSize) {
-      log.debug(TextTemplates
+      log.debug(() -> TextTemplates
           .createBy("Normalize start of range fragment position for [start: {{startOfRange}}, "
               + "end: {{endOfRange}}, fileSize: {{fileSize}}]")
           .withParameter("startOfRange", startOfRange).withParameter("endOfRange", endOfRange)
@@ -84,7 +149,7 @@ public class FileFragments {
 
     private Long normalizeEndPosition(Optional<Long> startOfRange, Optional<Long> endOfRange,
         Long fileSize) {
-      log.debug(TextTemplates
+      log.debug(() -> TextTemplates
           .createBy("Normalize end of range fragment position for [start: {{startOfRange}}, "
               + "end: {{endOfRange}}, fileSize: {{fileSize}}]")
           .withParameter("startOfRange", startOfRange).withParameter("endOfRange", endOfRange)
@@ -110,14 +175,20 @@ public class FileFragments {
     }
 
     private boolean isFragmentSizeUnsatisfiable() {
-      log.debug("The range format is unsatisfiable. Fragment size is negative.");
-      return getLength().compareTo(0L) <= 0;
+      boolean unsatisfiable = getLength().compareTo(0L) <= 0;
+      if (unsatisfiable) {
+        log.debug("The range format is unsatisfiable. Fragment size is negative.");
+      }
+      return unsatisfiable;
     }
 
     private boolean isStartValueUnsatisfiable() {
-      log.debug("The range format is unsatisfiable. Start of range value is negative "
-          + "or greater than end of range.");
-      return start.compareTo(0L) < 0;
+      boolean unsatisfiable = start.compareTo(0L) < 0;
+      if (unsatisfiable) {
+        log.debug("The range format is unsatisfiable. Start of range value is negative "
+            + "or greater than end of range.");
+      }
+      return unsatisfiable;
     }
   }
 }
@@ -2,6 +2,7 @@ package io.bcs.fileserver.domain.model.file;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 /**
  * This interface describes the {@link File} entity repository.
@@ -15,4 +16,14 @@ public interface FileRepository {
   public Collection<File> findNotRemovedDisposedFiles();
   
   public void save(File file);
+
+  /**
+   * Update the file exclusively. The file is locked until the update is stored, so the concurrent
+   * updates of the same file are applied one after another, every one to the actual file state.
+   *
+   * @param storageFileName The storage file name
+   * @param update          The file update, returning true if the file has been changed
+   * @return The updated file or empty if the file doesn't exist or hasn't been changed
+   */
+  public Optional<File> updateExclusively(String storageFileName, Predicate<File> update);
 }
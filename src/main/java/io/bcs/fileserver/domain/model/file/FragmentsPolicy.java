@@ -0,0 +1,26 @@
+package io.bcs.fileserver.domain.model.file;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * This class describes how the requested file fragments are normalized. The fragments, separated
+ * by the gap not greater than the merge gap threshold, are merged to the single fragment, because
+ * it is cheaper to send the gap than to read and send the separate part. The number of fragments,
+ * left after merge, is limited to protect the server from the range amplification.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class FragmentsPolicy {
+  public static final FragmentsPolicy DEFAULT = new FragmentsPolicy(0L, 64);
+
+  private final Long mergeGapThreshold;
+  private final int maxPartsCount;
+}
@@ -0,0 +1,45 @@
+package io.bcs.fileserver.domain.model.file.content;
+
+import io.bcs.fileserver.domain.model.storage.ContentFragment;
+import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import java.util.Collection;
+import lombok.Getter;
+
+/**
+ * This class implements the statistic of the chunked upload. The total length is the length of
+ * the content, which has been received by all chunks so far.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class ChunkedUploadStatistic implements FileUploadStatistic {
+  @Getter
+  private final ContentLocator locator;
+  private final ReceivedFragments receivedFragments;
+  @Getter
+  private final boolean completed;
+
+  /**
+   * Create the chunked upload statistic.
+   *
+   * @param locator           The content locator
+   * @param receivedFragments The received content fragments
+   * @param completed         The content completion flag
+   */
+  public ChunkedUploadStatistic(ContentLocator locator, ReceivedFragments receivedFragments,
+      boolean completed) {
+    super();
+    this.locator = locator;
+    this.receivedFragments = receivedFragments;
+    this.completed = completed;
+  }
+
+  @Override
+  public Long getTotalLength() {
+    return receivedFragments.getReceivedLength();
+  }
+
+  public Collection<ContentFragment> getReceivedFragments() {
+    return receivedFragments.getFragments();
+  }
+}
@@ -0,0 +1,19 @@
+package io.bcs.fileserver.domain.model.file.content;
+
+import io.bcs.fileserver.domain.model.storage.ContentFragment;
+
+/**
+ * This interface describes the chunk of the file content, which is uploaded separately from the
+ * other chunks.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public interface ContentChunk extends ContentFragment {
+  /**
+   * Get the total length of the file content, which the chunk belongs to.
+   *
+   * @return The total content length
+   */
+  public Long getTotalLength();
+}
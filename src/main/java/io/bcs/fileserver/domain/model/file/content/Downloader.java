@@ -2,25 +2,28 @@ package io.bcs.fileserver.domain.model.file.content;
 
 import io.bce.interaction.streaming.Source;
 import io.bce.interaction.streaming.binary.BinaryChunk;
-import io.bce.logging.ApplicationLogger;
-import io.bce.logging.Loggers;
 import io.bce.promises.Promise;
 import io.bce.promises.Promises;
+import io.bcs.common.logging.GuardedLogger;
 import io.bcs.fileserver.domain.errors.ContentNotUploadedException;
 import io.bcs.fileserver.domain.errors.FileDisposedException;
 import io.bcs.fileserver.domain.model.file.File;
 import io.bcs.fileserver.domain.model.file.FileContentLocator;
 import io.bcs.fileserver.domain.model.file.FileFragments;
 import io.bcs.fileserver.domain.model.file.FileStatus;
+import io.bcs.fileserver.domain.model.file.FragmentsPolicy;
 import io.bcs.fileserver.domain.model.file.Range;
 import io.bcs.fileserver.domain.model.file.content.FileContent.ContentType;
 import io.bcs.fileserver.domain.model.storage.ContentFragment;
 import io.bcs.fileserver.domain.model.storage.ContentLocator;
 import io.bcs.fileserver.domain.model.storage.FileStorage;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -33,10 +36,15 @@ import lombok.RequiredArgsConstructor;
  */
 @RequiredArgsConstructor
 public class Downloader {
-  private static final ApplicationLogger log = Loggers.applicationLogger(Downloader.class);
+  private static final GuardedLogger log = GuardedLogger.of(Downloader.class);
 
   private final File file;
   private final FileStorage fileStorage;
+  private final FragmentsPolicy fragmentsPolicy;
+
+  public Downloader(File file, FileStorage fileStorage) {
+    this(file, fileStorage, FragmentsPolicy.DEFAULT);
+  }
 
   /**
    * Receive file content.
@@ -47,7 +55,7 @@ public class Downloader {
    */
   public Promise<Void> receiveContent(Collection<Range> ranges, ContentReceiver contentReceiver) {
     return Promises.of(deferred -> {
-      FileFragments fragments = new FileFragments(ranges, file.getTotalLength());
+      FileFragments fragments = new FileFragments(ranges, file.getTotalLength(), fragmentsPolicy);
       getFileDownloadState().receiveContent(fragments.getParts(), contentReceiver)
           .delegate(deferred);
     });
@@ -149,13 +157,17 @@ public class Downloader {
 
     private Collection<ContentPart> getContentParts(FileStorage storage,
         Collection<ContentFragment> fragments) {
-      return normalizeFragments(fragments).stream().collect(Collectors.mapping(
-          fragment -> new StorageContentPart(fragment, fileStorage.getAccessOnRead(file, fragment)),
-          Collectors.toList()));
+      List<ContentFragment> normalizedFragments = normalizeFragments(fragments);
+      List<Source<BinaryChunk>> sources = storage.getAccessOnRead(file, normalizedFragments);
+      return IntStream.range(0, normalizedFragments.size())
+          .mapToObj(index -> new StorageContentPart(normalizedFragments.get(index),
+              sources.get(index)))
+          .collect(Collectors.toList());
     }
 
-    private Collection<ContentFragment> normalizeFragments(Collection<ContentFragment> fragments) {
+    private List<ContentFragment> normalizeFragments(Collection<ContentFragment> fragments) {
       return Optional.of(fragments).filter(collection -> !collection.isEmpty())
+          .<List<ContentFragment>>map(ArrayList::new)
           .orElse(Arrays.asList(new FullSizeFragment(file.getTotalLength())));
     }
 
@@ -1,6 +1,7 @@
 package io.bcs.fileserver.domain.model.file.content;
 
 import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import java.util.Optional;
 
 /**
  * This interface describes the file upload statistic.
@@ -12,4 +13,13 @@ public interface FileUploadStatistic {
   ContentLocator getLocator();
 
   Long getTotalLength();
+
+  /**
+   * Get the uploaded content digest. The digest is computed for the whole content uploads only.
+   *
+   * @return The hex encoded content digest
+   */
+  default Optional<String> getContentDigest() {
+    return Optional.empty();
+  }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package io.bcs.fileserver.domain.model.file.content;
+
+import io.bcs.fileserver.domain.model.storage.ContentFragment;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This class merges the received content chunks to the continuous content fragments, so it is
+ * possible to find out which part of the content has been received and whether the content has
+ * been received completely.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class ReceivedFragments {
+  private final List<ContentFragment> fragments;
+
+  public ReceivedFragments(Collection<? extends ContentFragment> chunks) {
+    super();
+    this.fragments = Collections.unmodifiableList(mergeChunks(chunks));
+  }
+
+  public Collection<ContentFragment> getFragments() {
+    return fragments;
+  }
+
+  /**
+   * Get the received content length.
+   *
+   * @return The received content length
+   */
+  public Long getReceivedLength() {
+    return fragments.stream().mapToLong(ContentFragment::getLength).sum();
+  }
+
+  /**
+   * Check that the content of the specified length has been received completely.
+   *
+   * @param totalLength The total content length
+   * @return True if the whole content has been received and false otherwise
+   */
+  public boolean isCompletedFor(Long totalLength) {
+    if (fragments.isEmpty()) {
+      return totalLength == 0L;
+    }
+    ContentFragment fragment = fragments.get(0);
+    return fragments.size() == 1 && fragment.getOffset() == 0L
+        && fragment.getLength().equals(totalLength);
+  }
+
+  private static List<ContentFragment> mergeChunks(Collection<? extends ContentFragment> chunks) {
+    List<ContentFragment> sortedChunks = new ArrayList<>(chunks);
+    sortedChunks.sort(Comparator.comparing(ContentFragment::getOffset));
+    List<ContentFragment> mergedFragments = new ArrayList<>();
+    Long start = null;
+    Long end = null;
+    for (ContentFragment chunk : sortedChunks) {
+      if (chunk.getLength() <= 0L) {
+        continue;
+      }
+      long chunkEnd = chunk.getOffset() + chunk.getLength();
+      if (start != null && chunk.getOffset() <= end) {
+        end = Math.max(end, chunkEnd);
+        continue;
+      }
+      if (start != null) {
+        mergedFragments.add(new ReceivedFragment(start, end - start));
+      }
+      start = chunk.getOffset();
+      end = chunkEnd;
+    }
+    if (start != null) {
+      mergedFragments.add(new ReceivedFragment(start, end - start));
+    }
+    return mergedFragments;
+  }
+
+  @Getter
+  @EqualsAndHashCode
+  @RequiredArgsConstructor
+  private static class ReceivedFragment implements ContentFragment {
+    private final Long offset;
+    private final Long length;
+  }
+}
@@ -0,0 +1,37 @@
+package io.bcs.fileserver.domain.model.file.content;
+
+import io.bcs.fileserver.domain.model.storage.ContentFragment;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * This class implements the entity of the received file content chunk.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@Getter
+@ToString
+@NoArgsConstructor
+@EqualsAndHashCode
+public class UploadedChunk implements ContentFragment {
+  private String storageFileName;
+  private Long offset;
+  private Long length;
+
+  /**
+   * Create the uploaded chunk.
+   *
+   * @param storageFileName The storage file name
+   * @param offset          The chunk offset
+   * @param length          The received chunk length
+   */
+  public UploadedChunk(String storageFileName, Long offset, Long length) {
+    super();
+    this.storageFileName = storageFileName;
+    this.offset = offset;
+    this.length = length;
+  }
+}
@@ -0,0 +1,17 @@
+package io.bcs.fileserver.domain.model.file.content;
+
+import java.util.Collection;
+
+/**
+ * This interface describes the {@link UploadedChunk} entity repository.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public interface UploadedChunksRepository {
+  public Collection<UploadedChunk> findByStorageFileName(String storageFileName);
+
+  public void save(UploadedChunk uploadedChunk);
+
+  public void deleteByStorageFileName(String storageFileName);
+}
@@ -2,13 +2,14 @@ package io.bcs.fileserver.domain.model.file.content;
 
 import io.bce.interaction.streaming.Destination;
 import io.bce.interaction.streaming.binary.BinaryChunk;
-import io.bce.logging.ApplicationLogger;
-import io.bce.logging.Loggers;
 import io.bce.promises.Promise;
 import io.bce.promises.Promises;
+import io.bcs.common.logging.GuardedLogger;
 import io.bcs.fileserver.domain.errors.ContentUploadedException;
 import io.bcs.fileserver.domain.errors.FileDisposedException;
+import io.bcs.fileserver.domain.errors.UnsatisfiableRangeFormatException;
 import io.bcs.fileserver.domain.model.file.File;
+import io.bcs.fileserver.domain.model.file.FileContentLocator;
 import io.bcs.fileserver.domain.model.file.FileStatus;
 import io.bcs.fileserver.domain.model.storage.ContentLocator;
 import io.bcs.fileserver.domain.model.storage.FileStorage;
@@ -22,7 +23,7 @@ import lombok.RequiredArgsConstructor;
  */
 @RequiredArgsConstructor
 public class Uploader {
-  private static final ApplicationLogger log = Loggers.applicationLogger(Uploader.class);
+  private static final GuardedLogger log = GuardedLogger.of(Uploader.class);
 
   private final File file;
   private final FileStorage fileStorage;
@@ -41,6 +42,35 @@ public class Uploader {
     });
   }
 
+  /**
+   * Prepare the file to the chunked content upload. The content placement is allocated for the
+   * whole content, if it hasn't been allocated by the previous chunks yet.
+   *
+   * @param totalLength The total content length
+   * @return The content locator promise
+   */
+  public Promise<ContentLocator> prepareChunkedUpload(Long totalLength) {
+    return Promises.of(deferred -> {
+      deferred.resolve(getFileUploadState(file).prepareChunkedUpload(totalLength));
+    });
+  }
+
+  /**
+   * Upload content chunk to the specified file. The chunk is written at its offset, so the chunks
+   * may be uploaded in any order and in parallel. The partially received content is kept on the
+   * storage if the chunk upload fails.
+   *
+   * @param contentSource The chunk content source
+   * @param chunk         The uploaded content chunk
+   * @return The chunk upload statistic promise
+   */
+  public Promise<FileUploadStatistic> uploadContentChunk(ContentSource contentSource,
+      ContentChunk chunk) {
+    return Promises.of(deferred -> {
+      getFileUploadState(file).uploadContentChunk(contentSource, chunk).delegate(deferred);
+    });
+  }
+
   private FileUploadState getFileUploadState(File file) {
     FileStatus status = file.getStatus();
     if (status == FileStatus.DRAFT) {
@@ -73,6 +103,11 @@ public class Uploader {
 
   private interface FileUploadState {
     Promise<FileUploadStatistic> uploadContent(ContentSource contentSource, Long contentLength);
+
+    ContentLocator prepareChunkedUpload(Long totalLength);
+
+    Promise<FileUploadStatistic> uploadContentChunk(ContentSource contentSource,
+        ContentChunk chunk);
   }
 
   @RequiredArgsConstructor
@@ -87,6 +122,8 @@ public class Uploader {
         file.specifyContentPlacement(contentLocator.getStorageName(), contentLength);
         Destination<BinaryChunk> destination = fileStorage.getAccessOnWrite(file);
         contentSource.sendContent(contentLocator, destination).then(statistic -> {
+          statistic.getContentDigest().ifPresent(file::specifyContentDigest);
+          fileStorage.completeUpload(file);
           file.startFileDistribution();
         }).then(deferred).error(err -> {
           try {
@@ -97,6 +134,43 @@ public class Uploader {
         });
       });
     }
+
+    @Override
+    public ContentLocator prepareChunkedUpload(Long totalLength) {
+      if (file.getStorageName().isPresent()) {
+        checkThatTotalLengthIsNotChanged(totalLength);
+        return new FileContentLocator(file);
+      }
+      ContentLocator contentLocator = fileStorage.createChunked(file, totalLength);
+      file.specifyContentPlacement(contentLocator.getStorageName(), totalLength);
+      return contentLocator;
+    }
+
+    @Override
+    public Promise<FileUploadStatistic> uploadContentChunk(ContentSource contentSource,
+        ContentChunk chunk) {
+      return Promises.<FileUploadStatistic>of(deferred -> {
+        ContentLocator contentLocator = prepareChunkedUpload(chunk.getTotalLength());
+        checkThatChunkIsInsideContent(chunk);
+        Destination<BinaryChunk> destination = fileStorage.getAccessOnWrite(file, chunk);
+        contentSource.sendContent(contentLocator, destination).delegate(deferred);
+      });
+    }
+
+    private void checkThatTotalLengthIsNotChanged(Long totalLength) {
+      if (!file.getTotalLength().equals(totalLength)) {
+        log.debug("The chunk total length doesn't match the length of the uploading content");
+        throw new UnsatisfiableRangeFormatException();
+      }
+    }
+
+    private void checkThatChunkIsInsideContent(ContentChunk chunk) {
+      if (chunk.getOffset() < 0L || chunk.getLength() <= 0L
+          || chunk.getOffset() + chunk.getLength() > file.getTotalLength()) {
+        log.debug("The chunk is out of the uploading content bounds");
+        throw new UnsatisfiableRangeFormatException();
+      }
+    }
   }
 
   private class DistributingUploadState implements FileUploadState {
@@ -106,6 +180,19 @@ public class Uploader {
       log.debug("The file content upload is going to be performed from distributed file");
       return Promises.rejectedBy(new ContentUploadedException());
     }
+
+    @Override
+    public ContentLocator prepareChunkedUpload(Long totalLength) {
+      log.debug("The chunked upload is going to be prepared for distributed file");
+      throw new ContentUploadedException();
+    }
+
+    @Override
+    public Promise<FileUploadStatistic> uploadContentChunk(ContentSource contentSource,
+        ContentChunk chunk) {
+      log.debug("The file content chunk upload is going to be performed from distributed file");
+      return Promises.rejectedBy(new ContentUploadedException());
+    }
   }
 
   private class DisposedUploadState implements FileUploadState {
@@ -115,5 +202,18 @@ public class Uploader {
       log.debug("The file content upload is going to be performed from disposed file");
       return Promises.rejectedBy(new FileDisposedException());
     }
+
+    @Override
+    public ContentLocator prepareChunkedUpload(Long totalLength) {
+      log.debug("The chunked upload is going to be prepared for disposed file");
+      throw new FileDisposedException();
+    }
+
+    @Override
+    public Promise<FileUploadStatistic> uploadContentChunk(ContentSource contentSource,
+        ContentChunk chunk) {
+      log.debug("The file content chunk upload is going to be performed from disposed file");
+      return Promises.rejectedBy(new FileDisposedException());
+    }
   }
 }
@@ -1,5 +1,9 @@
 package io.bcs.fileserver.domain.model.file.metadata;
 
+import io.bcs.fileserver.domain.model.file.FileStatus;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 /**
  * This class describes the file metadata.
  *
@@ -7,6 +11,8 @@ package io.bcs.fileserver.domain.model.file.metadata;
  *
  */
 public interface FileMetadata {
+  FileStatus getStatus();
+
   String getMediaType();
 
   String getFileName();
@@ -14,4 +20,8 @@ public interface FileMetadata {
   Long getTotalLength();
 
   Disposition getContentDisposition();
+
+  Optional<String> getContentDigest();
+
+  LocalDateTime getCreatedAt();
 }
\ No newline at end of file
@@ -1,5 +1,9 @@
 package io.bcs.fileserver.domain.model.file.metadata;
 
+import io.bcs.fileserver.domain.model.file.FileStatus;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -20,8 +24,17 @@ import lombok.experimental.SuperBuilder;
 public class FileMetadataView implements FileMetadata {
   @EqualsAndHashCode.Include
   private String storageFileName;
+  private FileStatus status;
   private String fileName;
   private Long totalLength;
   private String mediaType;
   private Disposition contentDisposition;
+  @Getter(AccessLevel.NONE)
+  private String contentDigest;
+  private LocalDateTime createdAt;
+
+  @Override
+  public Optional<String> getContentDigest() {
+    return Optional.ofNullable(contentDigest);
+  }
 }
@@ -5,6 +5,9 @@ import io.bce.interaction.streaming.Source;
 import io.bce.interaction.streaming.binary.BinaryChunk;
 import io.bcs.fileserver.domain.errors.FileStorageException;
 import io.bcs.fileserver.domain.model.file.File;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * This interface describes the file storage.
@@ -18,18 +21,85 @@ public interface FileStorage {
         new UnsupportedOperationException("Operation not supported for current storage type."));
   }
 
+  /**
+   * Create the file content, which is uploaded by the chunks. The chunks are written at their
+   * offsets, so the content has to be placed into the storage, supporting the fragment writes.
+   *
+   * @param file          The file
+   * @param contentLength The total content length
+   * @return The created content locator
+   * @throws FileStorageException Throws if the content couldn't be created
+   */
+  default ContentLocator createChunked(File file, Long contentLength)
+      throws FileStorageException {
+    return create(file, contentLength);
+  }
+
   default Destination<BinaryChunk> getAccessOnWrite(File file)
       throws FileStorageException {
     throw new FileStorageException(
         new UnsupportedOperationException("Operation not supported for current storage type."));
   }
 
+  /**
+   * Get access on write to the file fragment. The content is written at the fragment offset, so
+   * the fragments may be written independently from each other.
+   *
+   * @param file     The file
+   * @param fragment The written file fragment
+   * @return The fragment destination
+   * @throws FileStorageException Throws if the access couldn't be obtained
+   */
+  default Destination<BinaryChunk> getAccessOnWrite(File file, ContentFragment fragment)
+      throws FileStorageException {
+    throw new FileStorageException(
+        new UnsupportedOperationException("Operation not supported for current storage type."));
+  }
+
   default Source<BinaryChunk> getAccessOnRead(File file,
       ContentFragment fragment) throws FileStorageException {
     throw new FileStorageException(
         new UnsupportedOperationException("Operation not supported for current storage type."));
   }
 
+  /**
+   * Get access on read to the several file fragments at once. The storage may share the opened
+   * resources between the fragment sources.
+   *
+   * @param file      The file
+   * @param fragments The file fragments
+   * @return The fragment sources in the order of the fragments
+   * @throws FileStorageException Throws if the access couldn't be obtained
+   */
+  default List<Source<BinaryChunk>> getAccessOnRead(File file, List<ContentFragment> fragments)
+      throws FileStorageException {
+    return fragments.stream().map(fragment -> getAccessOnRead(file, fragment))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Complete the whole content upload. The storage may link the file to the same content, which
+   * has been already stored, and remove the uploaded duplicate.
+   *
+   * @param file The uploaded file
+   * @throws FileStorageException Throws if the upload couldn't be completed
+   */
+  default void completeUpload(File file) throws FileStorageException {
+  }
+
+  /**
+   * Compute the digest of the stored content. It is used for the content, which has been uploaded
+   * by the chunks, because the chunks may arrive in any order, so the content can't be digested
+   * while it is being received.
+   *
+   * @param file The file
+   * @return The content digest if the storage is able to read the content back
+   * @throws FileStorageException Throws if the content couldn't be read
+   */
+  default Optional<String> digestContent(File file) throws FileStorageException {
+    return Optional.empty();
+  }
+
   default void delete(File file) throws FileStorageException {
     throw new FileStorageException(
         new UnsupportedOperationException("Operation not supported for current storage type."));
@@ -7,5 +7,6 @@ package io.bcs.fileserver.domain.model.storage;
  *
  */
 public enum StorageType {
-  LOCAL;
+  LOCAL,
+  OBJECT;
 }
@@ -0,0 +1,22 @@
+package io.bcs.fileserver.domain.model.storage.descriptor;
+
+/**
+ * This class enumerates the strategies of the disk space allocation for the new files of the local
+ * storage. The full extent reservation isn't supported, because the JDK has no portable
+ * preallocation call and writing the file blocks would delay the upload request by the whole
+ * content write.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public enum AllocationStrategy {
+  /**
+   * The file is created empty and grows while the content is written.
+   */
+  NONE,
+  /**
+   * The file is extended to the content length on creation, without writing the blocks, so the
+   * filesystem may keep it sparse until the content is written.
+   */
+  EXTEND;
+}
@@ -26,7 +26,16 @@ public class LocalStorageDescriptor extends StorageDescriptor {
 
   @Default
   private Long diskQuote = 0L;
-  
+
+  @Default
+  private AllocationStrategy allocationStrategy = AllocationStrategy.NONE;
+
+  @Default
+  private Integer directoryDepth = 0;
+
+  @Default
+  private Integer directoryWidth = 2;
+
   @Override
   public StorageType getType() {
     return StorageType.LOCAL;
@@ -1,5 +1,6 @@
 package io.bcs.fileserver.domain.model.storage.descriptor;
 
+import java.util.Collection;
 import java.util.Optional;
 
 /**
@@ -11,5 +12,6 @@ import java.util.Optional;
 public interface LocalStorageDescriptorRepository {
   
   public Optional<LocalStorageDescriptor> findByName(String storageName);
-  
+
+  public Collection<LocalStorageDescriptor> findAll();
 }
@@ -0,0 +1,35 @@
+package io.bcs.fileserver.domain.model.storage.descriptor;
+
+import io.bcs.fileserver.domain.model.storage.StorageType;
+import lombok.Builder.Default;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * This class inherits the {@link StorageDescriptor} and represents the file storage type, which
+ * stores files as the objects into the bucket of the S3-compatible object store.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@Getter
+@SuperBuilder
+@NoArgsConstructor
+@ToString(callSuper = true)
+public class ObjectStorageDescriptor extends StorageDescriptor {
+  static final String DEFAULT_ENDPOINT = "";
+  static final String DEFAULT_BUCKET_NAME = "";
+
+  @Default
+  private String endpoint = DEFAULT_ENDPOINT;
+
+  @Default
+  private String bucketName = DEFAULT_BUCKET_NAME;
+
+  @Override
+  public StorageType getType() {
+    return StorageType.OBJECT;
+  }
+}
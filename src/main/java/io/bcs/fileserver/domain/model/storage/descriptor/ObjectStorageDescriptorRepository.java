@@ -0,0 +1,17 @@
+package io.bcs.fileserver.domain.model.storage.descriptor;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * This interface describes the {@link ObjectStorageDescriptor} entity repository.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public interface ObjectStorageDescriptorRepository {
+
+  public Optional<ObjectStorageDescriptor> findByName(String storageName);
+
+  public Collection<ObjectStorageDescriptor> findAll();
+}
@@ -4,11 +4,10 @@ import io.bce.domain.EventBus;
 import io.bce.domain.EventPublisher;
 import io.bce.domain.EventType;
 import io.bce.interaction.polling.Polling;
-import io.bce.logging.ApplicationLogger;
-import io.bce.logging.Loggers;
 import io.bce.promises.Promise;
 import io.bce.promises.Promises;
 import io.bce.text.TextTemplates;
+import io.bcs.common.logging.GuardedLogger;
 import io.bcs.fileserver.domain.Constants;
 import io.bcs.fileserver.domain.errors.FileNotDisposedException;
 import io.bcs.fileserver.domain.errors.FileNotExistsException;
@@ -16,12 +15,20 @@ import io.bcs.fileserver.domain.errors.FileNotSpecifiedException;
 import io.bcs.fileserver.domain.model.file.File;
 import io.bcs.fileserver.domain.model.file.FileDistributionHasBeenStarted;
 import io.bcs.fileserver.domain.model.file.FileRepository;
+import io.bcs.fileserver.domain.model.file.FileStatus;
+import io.bcs.fileserver.domain.model.file.FragmentsPolicy;
 import io.bcs.fileserver.domain.model.file.Range;
+import io.bcs.fileserver.domain.model.file.content.ChunkedUploadStatistic;
+import io.bcs.fileserver.domain.model.file.content.ContentChunk;
 import io.bcs.fileserver.domain.model.file.content.Downloader;
 import io.bcs.fileserver.domain.model.file.content.Downloader.ContentReceiver;
 import io.bcs.fileserver.domain.model.file.content.FileUploadStatistic;
+import io.bcs.fileserver.domain.model.file.content.ReceivedFragments;
+import io.bcs.fileserver.domain.model.file.content.UploadedChunk;
+import io.bcs.fileserver.domain.model.file.content.UploadedChunksRepository;
 import io.bcs.fileserver.domain.model.file.content.Uploader;
 import io.bcs.fileserver.domain.model.file.content.Uploader.ContentSource;
+import io.bcs.fileserver.domain.model.storage.ContentLocator;
 import io.bcs.fileserver.domain.model.storage.FileStorage;
 import java.util.Collection;
 import java.util.Optional;
@@ -35,11 +42,28 @@ import lombok.RequiredArgsConstructor;
  */
 @RequiredArgsConstructor
 public class ContentService {
-  private static final ApplicationLogger log = Loggers.applicationLogger(ContentService.class);
+  private static final GuardedLogger log = GuardedLogger.of(ContentService.class);
 
   private final FileRepository fileRepository;
+  private final UploadedChunksRepository uploadedChunksRepository;
   private final FileStorage fileStorage;
   private final EventBus eventBus;
+  private final FragmentsPolicy fragmentsPolicy;
+
+  /**
+   * Create the content service with the default fragments policy.
+   *
+   * @param fileRepository           The file repository
+   * @param uploadedChunksRepository The uploaded chunks repository
+   * @param fileStorage              The file storage
+   * @param eventBus                 The event bus
+   */
+  public ContentService(FileRepository fileRepository,
+      UploadedChunksRepository uploadedChunksRepository, FileStorage fileStorage,
+      EventBus eventBus) {
+    this(fileRepository, uploadedChunksRepository, fileStorage, eventBus,
+        FragmentsPolicy.DEFAULT);
+  }
 
   /**
    * Upload file content.
@@ -65,6 +89,69 @@ public class ContentService {
     });
   }
 
+  /**
+   * Start the chunked file content upload or get the state of the started one. The content
+   * placement is allocated for the whole content on the first call. The placement is allocated
+   * exclusively, so only one of the concurrent calls creates the content.
+   *
+   * @param storageFileName The storage file name
+   * @param totalLength     The total content length
+   * @return The chunked upload statistic promise
+   */
+  public Promise<ChunkedUploadStatistic> startChunkedUpload(Optional<String> storageFileName,
+      Long totalLength) {
+    return Promises.of(deferred -> {
+      log.info("Use-case: Start chunked file upload.");
+      File file = placeChunkedContent(
+          retrieveExistingFile(extractStorageFileName(storageFileName)), totalLength);
+      Uploader uploader = new Uploader(file, fileStorage);
+      uploader.prepareChunkedUpload(totalLength).then(contentLocator -> {
+        deferred.resolve(new ChunkedUploadStatistic(contentLocator,
+            getReceivedFragments(file), false));
+      }).error(deferred);
+    });
+  }
+
+  /**
+   * Upload file content chunk. The chunk is written at its offset, so several chunks of the same
+   * file may be uploaded in parallel. The file distribution is started, when the last missing
+   * chunk is received. The distribution start is the conditional transition of the draft file, so
+   * it is started and published once, even if the last chunks are received concurrently. The
+   * assembled content is digested and the upload is completed by the storage before the
+   * distribution is started, so the chunked file gets the validators and may be deduplicated as the
+   * file, uploaded at once.
+   *
+   * @param storageFileName The storage file name
+   * @param chunk           The uploaded content chunk
+   * @param contentSender   The chunk content sender
+   * @return The chunked upload statistic promise
+   */
+  public Promise<ChunkedUploadStatistic> uploadChunk(Optional<String> storageFileName,
+      ContentChunk chunk, ContentSource contentSender) {
+    EventPublisher<FileDistributionHasBeenStarted> eventPublisher =
+        createPublisher(FileDistributionHasBeenStarted.EVENT_TYPE);
+    return Promises.of(deferred -> {
+      log.info("Use-case: Upload file chunk.");
+      File file = placeChunkedContent(
+          retrieveExistingFile(extractStorageFileName(storageFileName)), chunk.getTotalLength());
+      Uploader uploader = new Uploader(file, fileStorage);
+      uploader.uploadContentChunk(contentSender, chunk).then(statistic -> {
+        uploadedChunksRepository.save(new UploadedChunk(file.getStorageFileName(),
+            chunk.getOffset(), statistic.getTotalLength()));
+        ReceivedFragments receivedFragments = getReceivedFragments(file);
+        boolean completed = receivedFragments.isCompletedFor(file.getTotalLength());
+        if (completed) {
+          startChunkedFileDistribution(file).ifPresent(distributedFile -> {
+            uploadedChunksRepository.deleteByStorageFileName(file.getStorageFileName());
+            eventPublisher.publish(new FileDistributionHasBeenStarted(distributedFile));
+          });
+        }
+        deferred.resolve(
+            new ChunkedUploadStatistic(statistic.getLocator(), receivedFragments, completed));
+      }).error(deferred);
+    });
+  }
+
   /**
    * Download file content.
    *
@@ -75,7 +162,7 @@ public class ContentService {
   public Promise<Void> download(DownloadCommand command, ContentReceiver contentReceiver) {
     return Promises.of(deferred -> {
       File file = retrieveExistingFile(extractStorageFileName(command.getStorageFileName()));
-      Downloader downloader = new Downloader(file, fileStorage);
+      Downloader downloader = new Downloader(file, fileStorage, fragmentsPolicy);
       downloader.receiveContent(command.getRanges(), contentReceiver).delegate(deferred);
     });
   }
@@ -91,6 +178,7 @@ public class ContentService {
   private void removeDisposedFile(File file) {
     checkThatFileHasNotBeenDisposed(file);
     fileStorage.delete(file);
+    uploadedChunksRepository.deleteByStorageFileName(file.getStorageFileName());
     file.clearContentPlacement();
     fileRepository.save(file);
   }
@@ -101,6 +189,37 @@ public class ContentService {
     }
   }
 
+  private File placeChunkedContent(File file, Long totalLength) {
+    if (file.getStorageName().isPresent()) {
+      return file;
+    }
+    return fileRepository.updateExclusively(file.getStorageFileName(), lockedFile -> {
+      if (lockedFile.getStatus() != FileStatus.DRAFT || lockedFile.getStorageName().isPresent()) {
+        return false;
+      }
+      ContentLocator contentLocator = fileStorage.createChunked(lockedFile, totalLength);
+      lockedFile.specifyContentPlacement(contentLocator.getStorageName(), totalLength);
+      return true;
+    }).orElseGet(() -> retrieveExistingFile(file.getStorageFileName()));
+  }
+
+  private Optional<File> startChunkedFileDistribution(File file) {
+    return fileRepository.updateExclusively(file.getStorageFileName(), lockedFile -> {
+      if (lockedFile.getStatus() != FileStatus.DRAFT) {
+        return false;
+      }
+      fileStorage.digestContent(lockedFile).ifPresent(lockedFile::specifyContentDigest);
+      fileStorage.completeUpload(lockedFile);
+      lockedFile.startFileDistribution();
+      return true;
+    });
+  }
+
+  private ReceivedFragments getReceivedFragments(File file) {
+    return new ReceivedFragments(
+        uploadedChunksRepository.findByStorageFileName(file.getStorageFileName()));
+  }
+
   private <E> EventPublisher<E> createPublisher(EventType<E> eventType) {
     return eventBus.getPublisher(Constants.CONTEXT, eventType);
   }
@@ -8,6 +8,8 @@ package io.bcs.fileserver.infrastructure;
  */
 public interface FileServerConfigurationProperties {
   int getBufferSize();
+
+  int getBufferPoolStripeSize();
   
   String getDistributionPointName();
 
@@ -16,4 +18,60 @@ public interface FileServerConfigurationProperties {
   String getPrivateBaseUrlAddress();
 
   Long getSyncOperationTimeout();
+
+  boolean isNonBlockingDownloadEnabled();
+
+  boolean isNonBlockingUploadEnabled();
+
+  int getOpenFilesCacheSize();
+
+  Long getOpenFilesCacheIdleTimeout();
+
+  Long getMappedFileSizeThreshold();
+
+  Long getMappedFilesMaxFootprint();
+
+  Long getRangesMergeGapThreshold();
+
+  int getMaxRangesCount();
+
+  int getMetadataCacheSize();
+
+  Long getMetadataCacheTimeToLive();
+
+  int getFilesCacheSize();
+
+  Long getFilesCacheTimeToLive();
+
+  boolean isSpaceSummaryEnabled();
+
+  boolean isLoadBalancedStorageSelection();
+
+  Long getAllocationBatchWindow();
+
+  int getAllocationBatchSize();
+
+  Long getSpaceHistoryRetention();
+
+  int getSpaceHistoryCompactionBatchSize();
+
+  boolean isContentDeduplicationEnabled();
+
+  boolean isStorageCompressionEnabled();
+
+  String getCompressibleMediaTypes();
+
+  int getCompressionBlockSize();
+
+  /**
+   * Check that the experimental object storage is enabled. It requires the object store client
+   * factory bean, provided by the deployment.
+   *
+   * @return True if the object storage is enabled
+   */
+  boolean isObjectStorageEnabled();
+
+  int getObjectStoragePartSize();
+
+  Long getLayoutMigrationGracePeriod();
 }
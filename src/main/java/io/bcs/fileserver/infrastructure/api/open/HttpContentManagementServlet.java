@@ -8,28 +8,39 @@ import io.bce.logging.Loggers;
 import io.bce.promises.Promise.ErrorHandler;
 import io.bce.promises.Promise.ResponseHandler;
 import io.bce.promises.Promises;
+import io.bcs.common.buffers.BufferPool;
 import io.bcs.fileserver.domain.errors.ContentNotUploadedException;
 import io.bcs.fileserver.domain.errors.ContentUploadedException;
 import io.bcs.fileserver.domain.errors.FileDisposedException;
 import io.bcs.fileserver.domain.errors.FileNotExistsException;
 import io.bcs.fileserver.domain.errors.FileNotSpecifiedException;
 import io.bcs.fileserver.domain.errors.UnsatisfiableRangeFormatException;
+import io.bcs.fileserver.domain.model.file.content.ChunkedUploadStatistic;
+import io.bcs.fileserver.domain.model.file.content.ContentChunk;
 import io.bcs.fileserver.domain.model.file.content.Downloader.ContentReceiver;
 import io.bcs.fileserver.domain.model.file.content.FileUploadStatistic;
 import io.bcs.fileserver.domain.model.file.content.Uploader.ContentSource;
+import io.bcs.fileserver.domain.model.file.metadata.FileMetadata;
 import io.bcs.fileserver.domain.services.ContentService;
 import io.bcs.fileserver.infrastructure.FileServerConfigurationProperties;
 import io.bcs.fileserver.infrastructure.api.HttpAsyncExecutor;
 import io.bcs.fileserver.infrastructure.api.HttpResponseContext;
+import io.bcs.fileserver.infrastructure.file.HttpContentRange;
 import io.bcs.fileserver.infrastructure.file.HttpRanges;
 import io.bcs.fileserver.infrastructure.file.content.FileMetadataProvider;
+import io.bcs.fileserver.infrastructure.file.content.HttpAcceptedEncodings;
 import io.bcs.fileserver.infrastructure.file.content.HttpDownloadCommand;
 import io.bcs.fileserver.infrastructure.file.content.HttpFileContentSource;
 import io.bcs.fileserver.infrastructure.file.content.HttpFileDataReceiver;
 import io.bcs.fileserver.infrastructure.file.content.HttpHeadersReceiver;
+import io.bcs.fileserver.infrastructure.file.content.HttpNonBlockingFileContentSource;
+import io.bcs.fileserver.infrastructure.file.content.HttpNonBlockingFileDataReceiver;
+import io.bcs.fileserver.infrastructure.file.content.HttpPreconditions;
+import io.bcs.fileserver.infrastructure.storage.CompressibleMediaTypes;
 import java.io.IOException;
 import java.util.Optional;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
@@ -49,8 +60,12 @@ public class HttpContentManagementServlet extends HttpServlet {
 
   private static final long serialVersionUID = 2026798739467262029L;
   private static final String HTTP_RANGES_HEADER = "Ranges";
+  private static final String CONTENT_RANGE_HEADER = "Content-Range";
+  private static final String RECEIVED_RANGES_HEADER = "Range";
   private static final String FILE_STORAGE_NAME_PARAMETER = "fileStorageName";
   private static final String UPLOADED_SIZE_HEADER = "X-BC-UPLOADED-SIZE";
+  private static final String VARY_HEADER = "Vary";
+  private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
 
   @Inject
   private Streamer streamer;
@@ -64,12 +79,18 @@ public class HttpContentManagementServlet extends HttpServlet {
   @Inject
   private FileMetadataProvider metadataProvider;
 
+  @Inject
+  private BufferPool bufferPool;
+
+  @Inject
+  private CompressibleMediaTypes compressibleMediaTypes;
+
   @Override
   protected void doHead(HttpServletRequest request, HttpServletResponse response)
       throws ServletException, IOException {
     HttpAsyncExecutor.of(request, response).executeAsynchronously(asyncContext -> {
       downloadContent(asyncContext, request, response,
-          () -> createHeadersOnlyContentReceiver(response));
+          () -> createHeadersOnlyContentReceiver(request, response));
     });
 
   }
@@ -79,7 +100,7 @@ public class HttpContentManagementServlet extends HttpServlet {
       throws ServletException, IOException {
     HttpAsyncExecutor.of(request, response).executeAsynchronously(asyncContext -> {
       downloadContent(asyncContext, request, response,
-          () -> createFileDataContentReceiver(response));
+          () -> createFileDataContentReceiver(request, response));
     });
   }
 
@@ -93,6 +114,11 @@ public class HttpContentManagementServlet extends HttpServlet {
 
   private void uploadContent(AsyncContext asyncContext, HttpServletRequest request,
       HttpServletResponse response) {
+    Optional<String> contentRange = getContentRangeHeader(request);
+    if (contentRange.isPresent()) {
+      uploadContentChunk(asyncContext, request, response, contentRange.get());
+      return;
+    }
     Promises.<FileUploadStatistic>of(deferred -> {
       contentService.upload(getStorageFileNameParam(request), request.getContentLengthLong(),
           createSender(request)).delegate(deferred);
@@ -108,11 +134,48 @@ public class HttpContentManagementServlet extends HttpServlet {
         .error(unrecognizedErrorHandler(response)).finalize(() -> asyncContext.complete());
   }
 
+  private void uploadContentChunk(AsyncContext asyncContext, HttpServletRequest request,
+      HttpServletResponse response, String contentRangeValue) {
+    Promises.<ChunkedUploadStatistic>of(deferred -> {
+      HttpContentRange contentRange = new HttpContentRange(contentRangeValue);
+      Optional<ContentChunk> chunk = contentRange.getChunk();
+      if (!chunk.isPresent()) {
+        contentService.startChunkedUpload(getStorageFileNameParam(request),
+            contentRange.getTotalLength()).delegate(deferred);
+        return;
+      }
+      checkThatChunkContentLengthIsDeclared(request, chunk.get());
+      contentService.uploadChunk(getStorageFileNameParam(request), chunk.get(),
+          createSender(request)).delegate(deferred);
+    }).then(chunkUploadSuccessHandler(response))
+        .error(FileNotSpecifiedException.class,
+            applicationError(response, HttpServletResponse.SC_BAD_REQUEST))
+        .error(FileNotExistsException.class,
+            applicationError(response, HttpServletResponse.SC_NOT_FOUND))
+        .error(UnsatisfiableRangeFormatException.class,
+            applicationError(response, HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE))
+        .error(ContentUploadedException.class,
+            applicationError(response, HttpServletResponse.SC_CONFLICT))
+        .error(FileDisposedException.class,
+            applicationError(response, HttpServletResponse.SC_NOT_FOUND))
+        .error(unrecognizedErrorHandler(response)).finalize(() -> asyncContext.complete());
+  }
+
   private void downloadContent(AsyncContext asyncContext, HttpServletRequest request,
       HttpServletResponse response, Supplier<ContentReceiver> receiverProvider) {
     Promises.<Void>of(deferred -> {
-      contentService.download(new HttpServletDownloadCommand(request), receiverProvider.get())
-          .delegate(deferred);
+      HttpPreconditions preconditions = new HttpPreconditions(request);
+      Optional<FileMetadata> metadata = getConditionalRequestMetadata(request, preconditions);
+      if (metadata.map(preconditions::isNotModified).orElse(false)) {
+        HttpPreconditions.writeValidators(response, metadata.get());
+        writeNotModifiedVaryHeader(response, metadata.get());
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        deferred.resolve(null);
+        return;
+      }
+      boolean rangesApplicable = metadata.map(preconditions::isRangeApplicable).orElse(true);
+      contentService.download(new HttpServletDownloadCommand(request, rangesApplicable),
+          receiverProvider.get()).delegate(deferred);
     }).error(FileNotSpecifiedException.class,
         applicationError(response, HttpServletResponse.SC_BAD_REQUEST))
         .error(FileNotExistsException.class,
@@ -126,6 +189,20 @@ public class HttpContentManagementServlet extends HttpServlet {
         .error(unrecognizedErrorHandler(response)).finalize(() -> asyncContext.complete());
   }
 
+  private Optional<FileMetadata> getConditionalRequestMetadata(HttpServletRequest request,
+      HttpPreconditions preconditions) {
+    if (!preconditions.isConditional()) {
+      return Optional.empty();
+    }
+    return getStorageFileNameParam(request).flatMap(metadataProvider::findMetadataFor);
+  }
+
+  private void writeNotModifiedVaryHeader(HttpServletResponse response, FileMetadata metadata) {
+    if (compressibleMediaTypes.isCompressible(metadata.getMediaType())) {
+      response.setHeader(VARY_HEADER, ACCEPT_ENCODING_HEADER);
+    }
+  }
+
   private ResponseHandler<FileUploadStatistic> uploadSuccessHandler(HttpServletResponse response) {
     return result -> {
       response.setHeader(UPLOADED_SIZE_HEADER, result.getTotalLength().toString());
@@ -133,6 +210,20 @@ public class HttpContentManagementServlet extends HttpServlet {
     };
   }
 
+  private ResponseHandler<ChunkedUploadStatistic> chunkUploadSuccessHandler(
+      HttpServletResponse response) {
+    return result -> {
+      response.setHeader(UPLOADED_SIZE_HEADER, result.getTotalLength().toString());
+      if (!result.getReceivedFragments().isEmpty()) {
+        response.setHeader(RECEIVED_RANGES_HEADER, formatReceivedRanges(result));
+      }
+      HttpResponseContext.of(response).writeSuccessContext();
+      if (!result.isCompleted()) {
+        response.setStatus(HttpServletResponse.SC_ACCEPTED);
+      }
+    };
+  }
+
   private ErrorHandler<Throwable> unrecognizedErrorHandler(HttpServletResponse response) {
     ErrorHandler<UnexpectedErrorException> unexpectedErrorHandler =
         applicationError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -147,13 +238,20 @@ public class HttpContentManagementServlet extends HttpServlet {
     };
   }
 
-  private ContentReceiver createHeadersOnlyContentReceiver(HttpServletResponse response) {
-    return new HttpHeadersReceiver(response, metadataProvider);
+  private ContentReceiver createHeadersOnlyContentReceiver(HttpServletRequest request,
+      HttpServletResponse response) {
+    return new HttpHeadersReceiver(response, metadataProvider, new HttpAcceptedEncodings(request));
   }
 
-  private ContentReceiver createFileDataContentReceiver(HttpServletResponse response) {
+  private ContentReceiver createFileDataContentReceiver(HttpServletRequest request,
+      HttpServletResponse response) {
+    HttpAcceptedEncodings acceptedEncodings = new HttpAcceptedEncodings(request);
     try {
-      return new HttpFileDataReceiver(streamer, response, metadataProvider);
+      if (contentLoadingProperties.isNonBlockingDownloadEnabled()) {
+        return new HttpNonBlockingFileDataReceiver(streamer, response, metadataProvider,
+            acceptedEncodings, bufferPool);
+      }
+      return new HttpFileDataReceiver(streamer, response, metadataProvider, acceptedEncodings);
     } catch (IOException error) {
       throw new UnexpectedErrorException(error);
     }
@@ -161,6 +259,9 @@ public class HttpContentManagementServlet extends HttpServlet {
 
   private ContentSource createSender(HttpServletRequest request) {
     try {
+      if (contentLoadingProperties.isNonBlockingUploadEnabled()) {
+        return new HttpNonBlockingFileContentSource(streamer, request, bufferPool);
+      }
       return new HttpFileContentSource(streamer, request, contentLoadingProperties.getBufferSize());
     } catch (IOException error) {
       throw new UnexpectedErrorException(error);
@@ -172,6 +273,25 @@ public class HttpContentManagementServlet extends HttpServlet {
         Optional.ofNullable(request.getParameter(FILE_STORAGE_NAME_PARAMETER)));
   }
 
+  private static Optional<String> getContentRangeHeader(HttpServletRequest request) {
+    return normalizeParameterValue(Optional.ofNullable(request.getHeader(CONTENT_RANGE_HEADER)));
+  }
+
+  private static void checkThatChunkContentLengthIsDeclared(HttpServletRequest request,
+      ContentChunk chunk) {
+    if (request.getContentLengthLong() != chunk.getLength()) {
+      log.debug("The chunk request content length doesn't match the content range");
+      throw new UnsatisfiableRangeFormatException();
+    }
+  }
+
+  private static String formatReceivedRanges(ChunkedUploadStatistic statistic) {
+    return statistic.getReceivedFragments().stream()
+        .map(fragment -> String.format("%s-%s", fragment.getOffset(),
+            fragment.getOffset() + fragment.getLength() - 1))
+        .collect(Collectors.joining(",", "bytes=", ""));
+  }
+
   private static HttpRanges getHttpRanges(HttpServletRequest request) {
     return new HttpRanges(
         normalizeParameterValue(Optional.ofNullable(request.getHeader(HTTP_RANGES_HEADER))));
@@ -182,8 +302,9 @@ public class HttpContentManagementServlet extends HttpServlet {
   }
 
   private static class HttpServletDownloadCommand extends HttpDownloadCommand {
-    public HttpServletDownloadCommand(HttpServletRequest request) {
-      super(getStorageFileNameParam(request), getHttpRanges(request));
+    public HttpServletDownloadCommand(HttpServletRequest request, boolean rangesApplicable) {
+      super(getStorageFileNameParam(request),
+          rangesApplicable ? getHttpRanges(request) : new HttpRanges(Optional.empty()));
     }
   }
 }
@@ -2,8 +2,17 @@ package io.bcs.fileserver.infrastructure.config;
 
 import io.bce.Generator;
 import io.bce.domain.EventBus;
+import io.bce.logging.ApplicationLogger;
+import io.bce.logging.Loggers;
+import io.bce.text.TextTemplates;
 import io.bce.validation.ValidationService;
+import io.bcs.common.cache.ExpiringCache.Statistic;
+import io.bcs.common.cache.InvalidationChannel;
+import io.bcs.fileserver.domain.Constants;
+import io.bcs.fileserver.domain.model.file.FileHasBeenDisposed;
 import io.bcs.fileserver.domain.model.file.FileRepository;
+import io.bcs.fileserver.domain.model.file.FragmentsPolicy;
+import io.bcs.fileserver.domain.model.file.content.UploadedChunksRepository;
 import io.bcs.fileserver.domain.model.file.metadata.FileMetadataRepository;
 import io.bcs.fileserver.domain.model.storage.FileStorage;
 import io.bcs.fileserver.domain.services.ContentService;
@@ -11,8 +20,13 @@ import io.bcs.fileserver.domain.services.FileService;
 import io.bcs.fileserver.infrastructure.FileServerConfigurationProperties;
 import io.bcs.fileserver.infrastructure.file.StorageFileNameGenerator;
 import io.bcs.fileserver.infrastructure.file.content.FileMetadataProvider;
+import io.bcs.fileserver.infrastructure.repositories.CachedFileMetadataRepository;
+import io.bcs.fileserver.infrastructure.repositories.CachedFileRepository;
 import io.bcs.fileserver.infrastructure.repositories.JpaFileMetadataRepository;
 import io.bcs.fileserver.infrastructure.repositories.JpaFileRepository;
+import io.bcs.fileserver.infrastructure.repositories.JpaUploadedChunksRepository;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Produces;
 import javax.inject.Inject;
@@ -28,6 +42,9 @@ import javax.transaction.TransactionManager;
  */
 @ApplicationScoped
 public class ApplicationServicesConfig {
+  private static final ApplicationLogger log =
+      Loggers.applicationLogger(ApplicationServicesConfig.class);
+
   @PersistenceContext(unitName = "central")
   private EntityManager entityManager;
 
@@ -47,6 +64,51 @@ public class ApplicationServicesConfig {
   @Inject
   private FileServerConfigurationProperties fileServerConfigurationProperties;
 
+  @Inject
+  private InvalidationChannel invalidationChannel;
+
+  private CachedFileMetadataRepository fileMetadataRepository;
+
+  private CachedFileRepository downloadedFileRepository;
+
+  /**
+   * Initialize the file metadata and the downloaded files caches. The caches are invalidated on
+   * every node, when the file is disposed.
+   */
+  @PostConstruct
+  public void initRepositoryCaches() {
+    this.fileMetadataRepository = new CachedFileMetadataRepository(
+        new JpaFileMetadataRepository(entityManager),
+        fileServerConfigurationProperties.getMetadataCacheSize(),
+        fileServerConfigurationProperties.getMetadataCacheTimeToLive());
+    this.downloadedFileRepository = new CachedFileRepository(fileRepository(),
+        fileServerConfigurationProperties.getFilesCacheSize(),
+        fileServerConfigurationProperties.getFilesCacheTimeToLive());
+    invalidationChannel.subscribe(storageFileName -> {
+      fileMetadataRepository.invalidate(storageFileName);
+      downloadedFileRepository.invalidate(storageFileName);
+    });
+    eventBus.subscribeOn(Constants.CONTEXT, FileHasBeenDisposed.EVENT_TYPE, event -> {
+      invalidationChannel.publish(event.getContentLocator().getStorageFileName());
+    });
+  }
+
+  /**
+   * Report the repository caches usage statistic.
+   */
+  @PreDestroy
+  public void reportRepositoryCachesStatistic() {
+    reportCacheStatistic("File metadata", fileMetadataRepository.getStatistic());
+    reportCacheStatistic("Downloaded files", downloadedFileRepository.getStatistic());
+  }
+
+  private void reportCacheStatistic(String cacheName, Statistic statistic) {
+    log.info(TextTemplates
+        .createBy("{{cacheName}} cache usage: hits={{hits}}, misses={{misses}}")
+        .withParameter("cacheName", cacheName).withParameter("hits", statistic.getHits())
+        .withParameter("misses", statistic.getMisses()));
+  }
+
   /**
    * File name generator configuration.
    *
@@ -68,6 +130,16 @@ public class ApplicationServicesConfig {
     return new JpaFileRepository(entityManager, transactionManager);
   }
 
+  /**
+   * The uploaded chunks repository configuration.
+   *
+   * @return The uploaded chunks repository
+   */
+  @Produces
+  public UploadedChunksRepository uploadedChunksRepository() {
+    return new JpaUploadedChunksRepository(entityManager, transactionManager);
+  }
+
   /**
    * The file metadata repository configuration.
    *
@@ -75,7 +147,7 @@ public class ApplicationServicesConfig {
    */
   @Produces
   public FileMetadataRepository fileMetadataRepository() {
-    return new JpaFileMetadataRepository(entityManager);
+    return fileMetadataRepository;
   }
 
   /**
@@ -85,8 +157,8 @@ public class ApplicationServicesConfig {
    */
   @Produces
   public FileMetadataProvider fileMetadataProvider() {
-    return contentLocator -> {
-      return fileMetadataRepository().findById(contentLocator.getStorageFileName()).get();
+    return storageFileName -> {
+      return fileMetadataRepository().findById(storageFileName).map(metadata -> metadata);
     };
   }
 
@@ -98,7 +170,13 @@ public class ApplicationServicesConfig {
   @Produces
   @SuppressWarnings("cdi-ambiguous-dependency")
   public ContentService contentService() {
-    return new ContentService(fileRepository(), fileStorage, eventBus);
+    return new ContentService(downloadedFileRepository, uploadedChunksRepository(), fileStorage,
+        eventBus, fragmentsPolicy());
+  }
+
+  private FragmentsPolicy fragmentsPolicy() {
+    return new FragmentsPolicy(fileServerConfigurationProperties.getRangesMergeGapThreshold(),
+        fileServerConfigurationProperties.getMaxRangesCount());
   }
 
   /**
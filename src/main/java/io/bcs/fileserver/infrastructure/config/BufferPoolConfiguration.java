@@ -0,0 +1,41 @@
+package io.bcs.fileserver.infrastructure.config;
+
+import io.bcs.common.buffers.BufferPool;
+import io.bcs.fileserver.infrastructure.FileServerConfigurationProperties;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+
+/**
+ * This class configures the IO buffers pool, shared by the upload and download pipelines.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@ApplicationScoped
+public class BufferPoolConfiguration {
+  @Inject
+  private FileServerConfigurationProperties contentLoadingProperties;
+
+  private BufferPool bufferPool;
+
+  /**
+   * Initialize the buffers pool.
+   */
+  @PostConstruct
+  public void initBufferPool() {
+    this.bufferPool = new BufferPool(contentLoadingProperties.getBufferSize(),
+        contentLoadingProperties.getBufferPoolStripeSize());
+  }
+
+  /**
+   * The IO buffers pool configuration.
+   *
+   * @return The buffers pool
+   */
+  @Produces
+  public BufferPool bufferPool() {
+    return bufferPool;
+  }
+}
@@ -1,6 +1,7 @@
 package io.bcs.fileserver.infrastructure.config;
 
 import io.bcs.fileserver.infrastructure.FileServerConfigurationProperties;
+import java.util.Optional;
 import javax.enterprise.context.ApplicationScoped;
 
 /**
@@ -12,10 +13,55 @@ import javax.enterprise.context.ApplicationScoped;
 @ApplicationScoped
 public class EnvFileServerConfiguration implements FileServerConfigurationProperties {
   private static final String BUFFER_SIZE_VAR = "BC_IO_BUFFER_SIZE";
+  private static final String BUFFER_POOL_STRIPE_SIZE_VAR = "BC_IO_BUFFER_POOL_STRIPE_SIZE";
+  private static final Integer DEFAULT_BUFFER_POOL_STRIPE_SIZE = 64;
   private static final String BASE_PUBLIC_URL_VAR = "BC_BASE_PUBLIC_URL";
   private static final String BASE_PRIVATE_URL_VAR = "BC_BASE_PRIVATE_URL";
   private static final String DISTRIBUTION_POINT_NAME_VAR = "BC_DISTRIBUTION_POINT";
   private static final String SYNC_OPERATION_TIMEOUT_VAR = "BC_SYNC_OPERATION_TIMEOUT";
+  private static final String NON_BLOCKING_DOWNLOAD_VAR = "BC_NON_BLOCKING_DOWNLOAD";
+  private static final String NON_BLOCKING_UPLOAD_VAR = "BC_NON_BLOCKING_UPLOAD";
+  private static final String OPEN_FILES_CACHE_SIZE_VAR = "BC_OPEN_FILES_CACHE_SIZE";
+  private static final String OPEN_FILES_CACHE_IDLE_TIMEOUT_VAR =
+      "BC_OPEN_FILES_CACHE_IDLE_TIMEOUT";
+  private static final Long DEFAULT_OPEN_FILES_CACHE_IDLE_TIMEOUT = 60000L;
+  private static final String MAPPED_FILE_SIZE_THRESHOLD_VAR = "BC_MAPPED_FILE_SIZE_THRESHOLD";
+  private static final String MAPPED_FILES_MAX_FOOTPRINT_VAR = "BC_MAPPED_FILES_MAX_FOOTPRINT";
+  private static final Long DEFAULT_MAPPED_FILES_MAX_FOOTPRINT = 268435456L;
+  private static final String RANGES_MERGE_GAP_THRESHOLD_VAR = "BC_RANGES_MERGE_GAP_THRESHOLD";
+  private static final String MAX_RANGES_COUNT_VAR = "BC_MAX_RANGES_COUNT";
+  private static final int DEFAULT_MAX_RANGES_COUNT = 64;
+  private static final String METADATA_CACHE_SIZE_VAR = "BC_METADATA_CACHE_SIZE";
+  private static final int DEFAULT_METADATA_CACHE_SIZE = 1024;
+  private static final String METADATA_CACHE_TTL_VAR = "BC_METADATA_CACHE_TTL";
+  private static final Long DEFAULT_METADATA_CACHE_TTL = 60000L;
+  private static final String FILES_CACHE_SIZE_VAR = "BC_FILES_CACHE_SIZE";
+  private static final int DEFAULT_FILES_CACHE_SIZE = 1024;
+  private static final String FILES_CACHE_TTL_VAR = "BC_FILES_CACHE_TTL";
+  private static final Long DEFAULT_FILES_CACHE_TTL = 60000L;
+  private static final String SPACE_SUMMARY_VAR = "BC_SPACE_SUMMARY";
+  private static final String LOAD_BALANCED_SELECTION_VAR = "BC_LOAD_BALANCED_STORAGE_SELECTION";
+  private static final String ALLOCATION_BATCH_WINDOW_VAR = "BC_ALLOCATION_BATCH_WINDOW";
+  private static final Long DEFAULT_ALLOCATION_BATCH_WINDOW = 0L;
+  private static final String ALLOCATION_BATCH_SIZE_VAR = "BC_ALLOCATION_BATCH_SIZE";
+  private static final int DEFAULT_ALLOCATION_BATCH_SIZE = 64;
+  private static final String SPACE_HISTORY_RETENTION_VAR = "BC_SPACE_HISTORY_RETENTION";
+  private static final Long DEFAULT_SPACE_HISTORY_RETENTION = 604800000L;
+  private static final String SPACE_HISTORY_BATCH_VAR = "BC_SPACE_HISTORY_COMPACTION_BATCH";
+  private static final int DEFAULT_SPACE_HISTORY_BATCH = 1000;
+  private static final String CONTENT_DEDUPLICATION_VAR = "BC_CONTENT_DEDUPLICATION";
+  private static final String STORAGE_COMPRESSION_VAR = "BC_STORAGE_COMPRESSION";
+  private static final String COMPRESSIBLE_MEDIA_TYPES_VAR = "BC_COMPRESSIBLE_MEDIA_TYPES";
+  private static final String DEFAULT_COMPRESSIBLE_MEDIA_TYPES =
+      "text/*,application/json,application/xml,application/javascript";
+  private static final String COMPRESSION_BLOCK_SIZE_VAR = "BC_COMPRESSION_BLOCK_SIZE";
+  private static final int DEFAULT_COMPRESSION_BLOCK_SIZE = 65536;
+  private static final String OBJECT_STORAGE_VAR = "BC_EXPERIMENTAL_OBJECT_STORAGE";
+  private static final String OBJECT_STORAGE_PART_SIZE_VAR = "BC_OBJECT_STORAGE_PART_SIZE";
+  private static final int DEFAULT_OBJECT_STORAGE_PART_SIZE = 8388608;
+  private static final String LAYOUT_MIGRATION_GRACE_PERIOD_VAR =
+      "BC_LAYOUT_MIGRATION_GRACE_PERIOD";
+  private static final Long DEFAULT_LAYOUT_MIGRATION_GRACE_PERIOD = 3600000L;
 
   @Override
   public String getPublicBaseUrlAddress() {
@@ -32,6 +78,12 @@ public class EnvFileServerConfiguration implements FileServerConfigurationProper
     return Integer.valueOf(System.getenv(BUFFER_SIZE_VAR));
   }
 
+  @Override
+  public int getBufferPoolStripeSize() {
+    return Optional.ofNullable(System.getenv(BUFFER_POOL_STRIPE_SIZE_VAR)).map(Integer::valueOf)
+        .orElse(DEFAULT_BUFFER_POOL_STRIPE_SIZE);
+  }
+
   @Override
   public String getDistributionPointName() {
     return System.getenv(DISTRIBUTION_POINT_NAME_VAR);
@@ -41,4 +93,159 @@ public class EnvFileServerConfiguration implements FileServerConfigurationProper
   public Long getSyncOperationTimeout() {
     return Long.valueOf(System.getenv(SYNC_OPERATION_TIMEOUT_VAR));
   }
+
+  @Override
+  public boolean isNonBlockingDownloadEnabled() {
+    return Boolean.valueOf(System.getenv(NON_BLOCKING_DOWNLOAD_VAR));
+  }
+
+  @Override
+  public boolean isNonBlockingUploadEnabled() {
+    return Boolean.valueOf(System.getenv(NON_BLOCKING_UPLOAD_VAR));
+  }
+
+  @Override
+  public int getOpenFilesCacheSize() {
+    return Optional.ofNullable(System.getenv(OPEN_FILES_CACHE_SIZE_VAR)).map(Integer::valueOf)
+        .orElse(0);
+  }
+
+  @Override
+  public Long getOpenFilesCacheIdleTimeout() {
+    return Optional.ofNullable(System.getenv(OPEN_FILES_CACHE_IDLE_TIMEOUT_VAR))
+        .map(Long::valueOf).orElse(DEFAULT_OPEN_FILES_CACHE_IDLE_TIMEOUT);
+  }
+
+  @Override
+  public Long getMappedFileSizeThreshold() {
+    return Optional.ofNullable(System.getenv(MAPPED_FILE_SIZE_THRESHOLD_VAR)).map(Long::valueOf)
+        .orElse(0L);
+  }
+
+  @Override
+  public Long getMappedFilesMaxFootprint() {
+    return Optional.ofNullable(System.getenv(MAPPED_FILES_MAX_FOOTPRINT_VAR)).map(Long::valueOf)
+        .orElse(DEFAULT_MAPPED_FILES_MAX_FOOTPRINT);
+  }
+
+  @Override
+  public Long getRangesMergeGapThreshold() {
+    return Optional.ofNullable(System.getenv(RANGES_MERGE_GAP_THRESHOLD_VAR)).map(Long::valueOf)
+        .orElse(0L);
+  }
+
+  @Override
+  public int getMaxRangesCount() {
+    return Optional.ofNullable(System.getenv(MAX_RANGES_COUNT_VAR)).map(Integer::valueOf)
+        .orElse(DEFAULT_MAX_RANGES_COUNT);
+  }
+
+  @Override
+  public int getMetadataCacheSize() {
+    return Optional.ofNullable(System.getenv(METADATA_CACHE_SIZE_VAR)).map(Integer::valueOf)
+        .orElse(DEFAULT_METADATA_CACHE_SIZE);
+  }
+
+  @Override
+  public Long getMetadataCacheTimeToLive() {
+    return Optional.ofNullable(System.getenv(METADATA_CACHE_TTL_VAR)).map(Long::valueOf)
+        .orElse(DEFAULT_METADATA_CACHE_TTL);
+  }
+
+  @Override
+  public int getFilesCacheSize() {
+    return Optional.ofNullable(System.getenv(FILES_CACHE_SIZE_VAR)).map(Integer::valueOf)
+        .orElse(DEFAULT_FILES_CACHE_SIZE);
+  }
+
+  @Override
+  public Long getFilesCacheTimeToLive() {
+    return Optional.ofNullable(System.getenv(FILES_CACHE_TTL_VAR)).map(Long::valueOf)
+        .orElse(DEFAULT_FILES_CACHE_TTL);
+  }
+
+  @Override
+  public boolean isSpaceSummaryEnabled() {
+    return Optional.ofNullable(System.getenv(SPACE_SUMMARY_VAR)).map(Boolean::valueOf)
+        .orElse(true);
+  }
+
+  @Override
+  public boolean isLoadBalancedStorageSelection() {
+    return Optional.ofNullable(System.getenv(LOAD_BALANCED_SELECTION_VAR)).map(Boolean::valueOf)
+        .orElse(true);
+  }
+
+  @Override
+  public Long getAllocationBatchWindow() {
+    return Optional.ofNullable(System.getenv(ALLOCATION_BATCH_WINDOW_VAR)).map(Long::valueOf)
+        .orElse(DEFAULT_ALLOCATION_BATCH_WINDOW);
+  }
+
+  @Override
+  public int getAllocationBatchSize() {
+    return Optional.ofNullable(System.getenv(ALLOCATION_BATCH_SIZE_VAR)).map(Integer::valueOf)
+        .orElse(DEFAULT_ALLOCATION_BATCH_SIZE);
+  }
+
+  @Override
+  public Long getSpaceHistoryRetention() {
+    return Optional.ofNullable(System.getenv(SPACE_HISTORY_RETENTION_VAR)).map(Long::valueOf)
+        .orElse(DEFAULT_SPACE_HISTORY_RETENTION);
+  }
+
+  @Override
+  public int getSpaceHistoryCompactionBatchSize() {
+    return Optional.ofNullable(System.getenv(SPACE_HISTORY_BATCH_VAR)).map(Integer::valueOf)
+        .orElse(DEFAULT_SPACE_HISTORY_BATCH);
+  }
+
+  @Override
+  public boolean isContentDeduplicationEnabled() {
+    return Optional.ofNullable(System.getenv(CONTENT_DEDUPLICATION_VAR)).map(Boolean::valueOf)
+        .orElse(false);
+  }
+
+  @Override
+  public boolean isStorageCompressionEnabled() {
+    return Optional.ofNullable(System.getenv(STORAGE_COMPRESSION_VAR)).map(Boolean::valueOf)
+        .orElse(false);
+  }
+
+  @Override
+  public String getCompressibleMediaTypes() {
+    return Optional.ofNullable(System.getenv(COMPRESSIBLE_MEDIA_TYPES_VAR))
+        .orElse(DEFAULT_COMPRESSIBLE_MEDIA_TYPES);
+  }
+
+  @Override
+  public int getCompressionBlockSize() {
+    return Optional.ofNullable(System.getenv(COMPRESSION_BLOCK_SIZE_VAR)).map(Integer::valueOf)
+        .orElse(DEFAULT_COMPRESSION_BLOCK_SIZE);
+  }
+
+  /**
+   * Check that the experimental object storage is enabled. The object store client isn't shipped
+   * with the file server, so the object storage is disabled by default and can be enabled only by
+   * the deployment, which provides the object store client factory bean.
+   *
+   * @return True if the object storage is enabled
+   */
+  @Override
+  public boolean isObjectStorageEnabled() {
+    return Optional.ofNullable(System.getenv(OBJECT_STORAGE_VAR)).map(Boolean::valueOf)
+        .orElse(false);
+  }
+
+  @Override
+  public int getObjectStoragePartSize() {
+    return Optional.ofNullable(System.getenv(OBJECT_STORAGE_PART_SIZE_VAR))
+        .map(Integer::valueOf).orElse(DEFAULT_OBJECT_STORAGE_PART_SIZE);
+  }
+
+  @Override
+  public Long getLayoutMigrationGracePeriod() {
+    return Optional.ofNullable(System.getenv(LAYOUT_MIGRATION_GRACE_PERIOD_VAR))
+        .map(Long::valueOf).orElse(DEFAULT_LAYOUT_MIGRATION_GRACE_PERIOD);
+  }
 }
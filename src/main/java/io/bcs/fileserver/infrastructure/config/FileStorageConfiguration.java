@@ -1,15 +1,43 @@
 package io.bcs.fileserver.infrastructure.config;
 
 import io.bcs.fileserver.domain.model.storage.FileStorage;
-import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptorRepository;
 import io.bcs.fileserver.infrastructure.FileServerConfigurationProperties;
 import io.bcs.fileserver.infrastructure.repositories.JpaLocalStorageDescriptorRepository;
+import io.bcs.fileserver.infrastructure.repositories.JpaObjectStorageDescriptorRepository;
+import io.bcs.fileserver.infrastructure.repositories.LocalStorageDescriptorsRegistry;
+import io.bcs.fileserver.infrastructure.repositories.ObjectStorageDescriptorsRegistry;
+import io.bcs.fileserver.infrastructure.storage.BatchingFilesystemSpaceManager;
+import io.bcs.fileserver.infrastructure.storage.BestFitSelectionStrategy;
+import io.bcs.fileserver.infrastructure.storage.BlockIndexCache;
+import io.bcs.fileserver.infrastructure.storage.CompressedPhysicalFile;
+import io.bcs.fileserver.infrastructure.storage.CompressibleMediaTypes;
+import io.bcs.fileserver.infrastructure.storage.ContentBlobsRegistry;
+import io.bcs.fileserver.infrastructure.storage.DeduplicatingFileStorage;
+import io.bcs.fileserver.infrastructure.storage.DirectoryLayoutMigrator;
+import io.bcs.fileserver.infrastructure.storage.FileChannelCache;
 import io.bcs.fileserver.infrastructure.storage.FilesystemPhysicalFile;
 import io.bcs.fileserver.infrastructure.storage.FilesystemSpaceManager;
 import io.bcs.fileserver.infrastructure.storage.JdbcFilesystemSpaceManager;
+import io.bcs.fileserver.infrastructure.storage.LayoutMigrationState;
+import io.bcs.fileserver.infrastructure.storage.LoadBalancedSelectionStrategy;
 import io.bcs.fileserver.infrastructure.storage.LocalFileSystemStorage;
+import io.bcs.fileserver.infrastructure.storage.MappedFilesCache;
+import io.bcs.fileserver.infrastructure.storage.MemoryMappedPhysicalFile;
+import io.bcs.fileserver.infrastructure.storage.ObjectFileStorage;
+import io.bcs.fileserver.infrastructure.storage.ObjectStoreClient;
+import io.bcs.fileserver.infrastructure.storage.PhysicalFile;
+import io.bcs.fileserver.infrastructure.storage.RoutingFileStorage;
+import io.bcs.fileserver.infrastructure.storage.SpaceAllocationsHistoryCompactor;
+import io.bcs.fileserver.infrastructure.storage.StorageSelectionStrategy;
+import io.bcs.fileserver.infrastructure.storage.StorageWriteLoad;
+import io.bcs.fileserver.infrastructure.storage.SummaryFilesystemSpaceManager;
+import io.bcs.fileserver.infrastructure.storage.UsableSpaceProbe;
+import java.io.IOException;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Instance;
 import javax.enterprise.inject.Produces;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
@@ -24,6 +52,8 @@ import javax.sql.DataSource;
  */
 @ApplicationScoped
 public class FileStorageConfiguration {
+  private static final int MIN_OBJECT_STORAGE_PART_SIZE = 5 * 1024 * 1024;
+
   @PersistenceContext(unitName = "central")
   private EntityManager entityManager;
 
@@ -33,9 +63,82 @@ public class FileStorageConfiguration {
   @Inject
   private FileServerConfigurationProperties contentLoadingProperties;
 
+  private FileChannelCache fileChannelCache;
+
+  private MappedFilesCache mappedFilesCache;
+
+  private final BlockIndexCache blockIndexCache = new BlockIndexCache();
+
+  private LocalStorageDescriptorsRegistry localStorageDescriptorsRegistry;
+
+  private ObjectStorageDescriptorsRegistry objectStorageDescriptorsRegistry;
+
+  @Inject
+  private Instance<ObjectStoreClient.Factory> objectStoreClientFactory;
+
+  private FilesystemSpaceManager filesystemSpaceManager;
+
+  private final StorageWriteLoad storageWriteLoad = new StorageWriteLoad();
+
+  private final LayoutMigrationState layoutMigrationState = new LayoutMigrationState();
+
+  /**
+   * Initialize the file storages infrastructure, shared by all file storage instances: the local
+   * and object storages registries, the filesystem space manager and the opened and mapped files
+   * caches. The local storage, which configured directory layout differs from the layout of its
+   * stored files, is refused, because its files would be lost for the reads. The object store
+   * client and the multipart upload part size, which can't be less than 5 MiB by the S3 protocol,
+   * are checked at the startup, if the object storage is enabled. The mapped file size threshold
+   * can't exceed the max size of the single mapping.
+   */
+  @PostConstruct
+  public void initFileStorages() {
+    this.localStorageDescriptorsRegistry =
+        new LocalStorageDescriptorsRegistry(new JpaLocalStorageDescriptorRepository(entityManager));
+    this.localStorageDescriptorsRegistry.refresh();
+    loadLayoutMigrationState();
+    this.objectStorageDescriptorsRegistry = new ObjectStorageDescriptorsRegistry(
+        new JpaObjectStorageDescriptorRepository(entityManager));
+    this.objectStorageDescriptorsRegistry.refresh();
+    if (contentLoadingProperties.isObjectStorageEnabled()) {
+      objectStoreClientFactory();
+      checkObjectStoragePartSize();
+    }
+    checkMappedFileSizeThreshold();
+    this.filesystemSpaceManager = createFilesystemSpaceManager();
+    this.fileChannelCache = new FileChannelCache(contentLoadingProperties.getOpenFilesCacheSize(),
+        contentLoadingProperties.getOpenFilesCacheIdleTimeout());
+    this.mappedFilesCache = new MappedFilesCache(
+        contentLoadingProperties.getMappedFileSizeThreshold(),
+        contentLoadingProperties.getMappedFilesMaxFootprint());
+  }
+
+  /**
+   * Close the cached opened files.
+   */
+  @PreDestroy
+  public void releaseFileChannelCache() {
+    fileChannelCache.clear();
+  }
+
+  /**
+   * The local storage descriptors registry configuration.
+   *
+   * @return The local storage descriptors registry
+   */
+  @Produces
+  public LocalStorageDescriptorsRegistry localStorageDescriptorsRegistry() {
+    return localStorageDescriptorsRegistry;
+  }
+
+  /**
+   * The object storage descriptors registry configuration.
+   *
+   * @return The object storage descriptors registry
+   */
   @Produces
-  public LocalStorageDescriptorRepository localStorageDescriptorRepository() {
-    return new JpaLocalStorageDescriptorRepository(entityManager);
+  public ObjectStorageDescriptorsRegistry objectStorageDescriptorsRegistry() {
+    return objectStorageDescriptorsRegistry;
   }
 
   /**
@@ -45,17 +148,149 @@ public class FileStorageConfiguration {
    */
   @Produces
   public FilesystemSpaceManager fileSpaceManager() {
+    return filesystemSpaceManager;
+  }
+
+  /**
+   * The space allocations history compactor configuration.
+   *
+   * @return The history compactor
+   */
+  @Produces
+  public SpaceAllocationsHistoryCompactor spaceAllocationsHistoryCompactor() {
+    return new SpaceAllocationsHistoryCompactor(dataSource,
+        contentLoadingProperties.getSpaceHistoryRetention(),
+        contentLoadingProperties.getSpaceHistoryCompactionBatchSize());
+  }
+
+  /**
+   * The local storages directory layout migrator configuration.
+   *
+   * @return The directory layout migrator
+   */
+  @Produces
+  public DirectoryLayoutMigrator directoryLayoutMigrator() {
+    return new DirectoryLayoutMigrator(localStorageDescriptorsRegistry(),
+        contentLoadingProperties.getLayoutMigrationGracePeriod(), layoutMigrationState);
+  }
+
+  private FilesystemSpaceManager createFilesystemSpaceManager() {
+    FilesystemSpaceManager spaceManager = createStorageSpaceManager();
+    if (contentLoadingProperties.getAllocationBatchWindow() > 0) {
+      return new BatchingFilesystemSpaceManager(spaceManager,
+          contentLoadingProperties.getAllocationBatchWindow(),
+          contentLoadingProperties.getAllocationBatchSize());
+    }
+    return spaceManager;
+  }
+
+  private FilesystemSpaceManager createStorageSpaceManager() {
+    if (contentLoadingProperties.isSpaceSummaryEnabled()) {
+      SummaryFilesystemSpaceManager spaceManager =
+          new SummaryFilesystemSpaceManager(dataSource, storageSelectionStrategy());
+      spaceManager.reconcile();
+      return spaceManager;
+    }
     return new JdbcFilesystemSpaceManager(dataSource);
   }
 
+  private StorageSelectionStrategy storageSelectionStrategy() {
+    if (contentLoadingProperties.isLoadBalancedStorageSelection()) {
+      return new LoadBalancedSelectionStrategy(storageWriteLoad, new UsableSpaceProbe());
+    }
+    return new BestFitSelectionStrategy();
+  }
+
   /**
-   * The file storage configuration.
+   * The file storage configuration. The files are routed to the object storages, registered for
+   * their media types, if the experimental object storage is enabled. It is disabled by default,
+   * because the object store client isn't shipped, and requires the object store clients factory
+   * bean of the deployment, so the configuration fails, if there isn't one.
    *
    * @return The file storage
    */
   @Produces
   public FileStorage fileStorage() {
-    return new LocalFileSystemStorage(fileSpaceManager(), localStorageDescriptorRepository(),
-        FilesystemPhysicalFile.factory(), contentLoadingProperties.getBufferSize());
+    FileStorage fileStorage = localFileStorage();
+    if (contentLoadingProperties.isObjectStorageEnabled()) {
+      return new RoutingFileStorage(fileStorage,
+          new ObjectFileStorage(objectStorageDescriptorsRegistry(), objectStoreClientFactory(),
+              contentLoadingProperties.getObjectStoragePartSize(),
+              contentLoadingProperties.getBufferSize()),
+          objectStorageDescriptorsRegistry());
+    }
+    return fileStorage;
+  }
+
+  private void checkObjectStoragePartSize() {
+    if (contentLoadingProperties.getObjectStoragePartSize() < MIN_OBJECT_STORAGE_PART_SIZE) {
+      throw new IllegalStateException(String.format("The object storage part size %d is less "
+          + "than the minimal multipart upload part size %d.",
+          contentLoadingProperties.getObjectStoragePartSize(), MIN_OBJECT_STORAGE_PART_SIZE));
+    }
+  }
+
+  private void loadLayoutMigrationState() {
+    try {
+      layoutMigrationState.load(localStorageDescriptorsRegistry.findAll());
+    } catch (IOException error) {
+      throw new IllegalStateException("The directory layout markers couldn't be read", error);
+    }
+  }
+
+  private void checkMappedFileSizeThreshold() {
+    if (contentLoadingProperties.getMappedFileSizeThreshold() > Integer.MAX_VALUE) {
+      throw new IllegalStateException(String.format("The mapped file size threshold %d exceeds "
+          + "the max mapping size %d.", contentLoadingProperties.getMappedFileSizeThreshold(),
+          Integer.MAX_VALUE));
+    }
+  }
+
+  private ObjectStoreClient.Factory objectStoreClientFactory() {
+    if (objectStoreClientFactory.isUnsatisfied() || objectStoreClientFactory.isAmbiguous()) {
+      throw new IllegalStateException(
+          "The experimental object storage is enabled, but the deployment doesn't provide "
+              + "the object store client factory.");
+    }
+    return objectStoreClientFactory.get();
+  }
+
+  private FileStorage localFileStorage() {
+    FileStorage fileStorage = new LocalFileSystemStorage(fileSpaceManager(),
+        localStorageDescriptorsRegistry(), physicalFileFactory(),
+        contentLoadingProperties.getBufferSize());
+    if (contentLoadingProperties.isContentDeduplicationEnabled()) {
+      return new DeduplicatingFileStorage(fileStorage, new ContentBlobsRegistry(dataSource),
+          fileSpaceManager());
+    }
+    return fileStorage;
+  }
+
+  private PhysicalFile.Factory physicalFileFactory() {
+    return CompressedPhysicalFile.factory(rawPhysicalFileFactory(), compressibleMediaTypes(),
+        contentLoadingProperties.getCompressionBlockSize(), blockIndexCache);
+  }
+
+  /**
+   * The compressible media types configuration. No media type is compressible, if the storage
+   * compression is disabled.
+   *
+   * @return The compressible media types
+   */
+  @Produces
+  public CompressibleMediaTypes compressibleMediaTypes() {
+    if (contentLoadingProperties.isStorageCompressionEnabled()) {
+      return new CompressibleMediaTypes(contentLoadingProperties.getCompressibleMediaTypes());
+    }
+    return CompressibleMediaTypes.none();
+  }
+
+  private PhysicalFile.Factory rawPhysicalFileFactory() {
+    if (contentLoadingProperties.getMappedFileSizeThreshold() > 0) {
+      return MemoryMappedPhysicalFile.factory(fileChannelCache, mappedFilesCache,
+          storageWriteLoad, layoutMigrationState);
+    }
+    return FilesystemPhysicalFile.factory(fileChannelCache, storageWriteLoad,
+        layoutMigrationState);
   }
 }
@@ -1,6 +1,10 @@
 package io.bcs.fileserver.infrastructure.config;
 
+import io.bcs.fileserver.infrastructure.jobs.BufferPoolStatisticJob.BufferPoolStatisticTimer;
 import io.bcs.fileserver.infrastructure.jobs.FilesCleanJob.FilesCleanTimer;
+import io.bcs.fileserver.infrastructure.jobs.HistoryCompactionJob.HistoryCompactionTimer;
+import io.bcs.fileserver.infrastructure.jobs.LayoutMigrationJob.LayoutMigrationTimer;
+import io.bcs.fileserver.infrastructure.jobs.StoragesRefreshJob.StoragesRefreshTimer;
 import javax.annotation.Resource;
 import javax.ejb.ScheduleExpression;
 import javax.enterprise.context.ApplicationScoped;
@@ -44,4 +48,56 @@ public class SchedulersConfig {
         .hour("*")
         .minute("*/20");
   }
+
+  /**
+   * Storages refresh job expression config.
+   *
+   * @return Schedule expression
+   */
+  @Produces
+  @StoragesRefreshTimer
+  public ScheduleExpression storagesRefreshJobExpression() {
+    return new ScheduleExpression()
+        .hour("*")
+        .minute("*");
+  }
+
+  /**
+   * Space allocations history compaction job expression config.
+   *
+   * @return Schedule expression
+   */
+  @Produces
+  @HistoryCompactionTimer
+  public ScheduleExpression historyCompactionJobExpression() {
+    return new ScheduleExpression()
+        .hour("3")
+        .minute("0");
+  }
+
+  /**
+   * Local storages directory layout migration job expression config.
+   *
+   * @return Schedule expression
+   */
+  @Produces
+  @LayoutMigrationTimer
+  public ScheduleExpression layoutMigrationJobExpression() {
+    return new ScheduleExpression()
+        .hour("*")
+        .minute("*/10");
+  }
+
+  /**
+   * IO buffers pool statistic job expression config.
+   *
+   * @return Schedule expression
+   */
+  @Produces
+  @BufferPoolStatisticTimer
+  public ScheduleExpression bufferPoolStatisticJobExpression() {
+    return new ScheduleExpression()
+        .hour("*")
+        .minute("*/15");
+  }
 }
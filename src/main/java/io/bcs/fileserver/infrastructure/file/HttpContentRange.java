@@ -0,0 +1,78 @@
+package io.bcs.fileserver.infrastructure.file;
+
+import io.bcs.fileserver.domain.errors.UnsatisfiableRangeFormatException;
+import io.bcs.fileserver.domain.model.file.content.ContentChunk;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This class implements the http content range parser from the header value of the chunk upload
+ * request. The "bytes start-end/total" value describes the uploaded chunk and the
+ * "bytes *&#47;total" value describes the chunked upload state request without any content. The
+ * values, which don't fit the long type, are unsatisfiable as well.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@EqualsAndHashCode
+public final class HttpContentRange {
+  static final Pattern CONTENT_RANGE_PATTERN =
+      Pattern.compile("^bytes\\s+(?:(\\d+)-(\\d+)|\\*)/(\\d+)$");
+
+  @Getter
+  private final Long totalLength;
+  private final Optional<ContentChunk> chunk;
+
+  /**
+   * Create the http content range.
+   *
+   * @param contentRangeValue The content range header value
+   */
+  public HttpContentRange(String contentRangeValue) {
+    super();
+    Matcher parser = CONTENT_RANGE_PATTERN.matcher(contentRangeValue.trim());
+    checkThatHeaderValueIsWellFormatted(parser);
+    Long total = parseValue(parser.group(3));
+    this.totalLength = total;
+    this.chunk = Optional.ofNullable(parser.group(1))
+        .map(start -> createChunk(parseValue(start), parseValue(parser.group(2)), total));
+  }
+
+  public Optional<ContentChunk> getChunk() {
+    return chunk;
+  }
+
+  private static ContentChunk createChunk(Long start, Long end, Long totalLength) {
+    if (end < start || end >= totalLength) {
+      throw new UnsatisfiableRangeFormatException();
+    }
+    return new HttpContentChunk(start, end - start + 1, totalLength);
+  }
+
+  private static Long parseValue(String value) {
+    try {
+      return Long.valueOf(value);
+    } catch (NumberFormatException error) {
+      throw new UnsatisfiableRangeFormatException();
+    }
+  }
+
+  private static void checkThatHeaderValueIsWellFormatted(Matcher parser) {
+    if (!parser.matches()) {
+      throw new UnsatisfiableRangeFormatException();
+    }
+  }
+
+  @Getter
+  @EqualsAndHashCode
+  @RequiredArgsConstructor
+  private static final class HttpContentChunk implements ContentChunk {
+    private final Long offset;
+    private final Long length;
+    private final Long totalLength;
+  }
+}
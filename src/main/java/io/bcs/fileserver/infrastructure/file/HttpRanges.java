@@ -2,19 +2,19 @@ package io.bcs.fileserver.infrastructure.file;
 
 import io.bcs.fileserver.domain.errors.UnsatisfiableRangeFormatException;
 import io.bcs.fileserver.domain.model.file.Range;
+import java.util.AbstractList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import lombok.EqualsAndHashCode;
-import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 /**
- * This class implements the http-ranges parser from header value.
+ * This class implements the http-ranges parser from header value. The header value is parsed by
+ * the single pass to the array of range bounds, where the range start and end are stored one after
+ * another and the missing bound is stored as {@link #MISSING_BOUND}. The accepted format is
+ * "bytes=start-end(,start-end)*", where any of bounds may be missing.
  *
  * @author Dmitry Mikhaylenko
  *
@@ -22,52 +22,108 @@ import lombok.RequiredArgsConstructor;
 @EqualsAndHashCode
 @RequiredArgsConstructor
 public final class HttpRanges {
-  static final String RANGES_HEADER_PATTERN = "^bytes=\\d*-\\d*(,\\d*-\\d*)*$";
+  static final long MISSING_BOUND = -1L;
+  private static final String BYTES_UNIT_PREFIX = "bytes=";
+  private static final int INITIAL_BOUNDS_CAPACITY = 8;
 
   private final Optional<String> rangesHeaderValue;
 
   public Collection<Range> getRanges() {
-    return rangesHeaderValue.map(value -> parseRanges(value)).orElse(Collections.emptyList());
+    return rangesHeaderValue.map(value -> createRanges(parseBounds(value)))
+        .orElse(Collections.emptyList());
   }
 
-  private Collection<Range> parseRanges(String value) {
-    return Arrays.stream(parseRangesEnumeration(value).split(",")).map(String::trim)
-        .map(HttpRange::new).collect(Collectors.toList());
+  private static Collection<Range> createRanges(long[] bounds) {
+    return new ParsedRanges(bounds);
   }
 
-  private String parseRangesEnumeration(String value) {
-    checkThatHeaderValueIsWellFormatted(value);
-    return value.substring(6);
+  static long[] parseBounds(String value) {
+    checkThatHeaderValueIsWellFormatted(value.startsWith(BYTES_UNIT_PREFIX));
+    int length = value.length();
+    int position = BYTES_UNIT_PREFIX.length();
+    long[] bounds = new long[INITIAL_BOUNDS_CAPACITY];
+    int boundsCount = 0;
+    while (true) {
+      if (boundsCount + 2 > bounds.length) {
+        bounds = Arrays.copyOf(bounds, bounds.length * 2);
+      }
+      int startEnd = skipDigits(value, position);
+      bounds[boundsCount++] = parseBound(value, position, startEnd);
+      checkThatHeaderValueIsWellFormatted(startEnd < length && value.charAt(startEnd) == '-');
+      position = startEnd + 1;
+      int endEnd = skipDigits(value, position);
+      bounds[boundsCount++] = parseBound(value, position, endEnd);
+      if (endEnd == length) {
+        return Arrays.copyOf(bounds, boundsCount);
+      }
+      checkThatHeaderValueIsWellFormatted(value.charAt(endEnd) == ',');
+      position = endEnd + 1;
+    }
   }
 
-  private void checkThatHeaderValueIsWellFormatted(String value) {
-    if (!value.matches(RANGES_HEADER_PATTERN)) {
+  private static int skipDigits(String value, int position) {
+    int length = value.length();
+    while (position < length && isDigit(value.charAt(position))) {
+      position++;
+    }
+    return position;
+  }
+
+  private static long parseBound(String value, int from, int to) {
+    if (from == to) {
+      return MISSING_BOUND;
+    }
+    long bound = 0L;
+    for (int index = from; index < to; index++) {
+      int digit = value.charAt(index) - '0';
+      checkThatHeaderValueIsWellFormatted(bound <= (Long.MAX_VALUE - digit) / 10);
+      bound = bound * 10 + digit;
+    }
+    return bound;
+  }
+
+  private static boolean isDigit(char character) {
+    return character >= '0' && character <= '9';
+  }
+
+  private static void checkThatHeaderValueIsWellFormatted(boolean wellFormatted) {
+    if (!wellFormatted) {
       throw new UnsatisfiableRangeFormatException();
     }
   }
 
-  @Getter
+  @RequiredArgsConstructor
+  private static final class ParsedRanges extends AbstractList<Range> {
+    private final long[] bounds;
+
+    @Override
+    public Range get(int index) {
+      return new HttpRange(bounds[index * 2], bounds[index * 2 + 1]);
+    }
+
+    @Override
+    public int size() {
+      return bounds.length / 2;
+    }
+  }
+
+  @RequiredArgsConstructor
   private static final class HttpRange implements Range {
-    static final Pattern RANGE_PARSING_PATTERN = Pattern.compile("(\\d*)?-(\\d*)?");
-    private Optional<Long> start;
-    private Optional<Long> end;
-
-    public HttpRange(String range) {
-      super();
-      Matcher parser = parseRangeString(range);
-      this.start = getParsedValue(parser, 1);
-      this.end = getParsedValue(parser, 2);
+    private final long start;
+    private final long end;
+
+    @Override
+    public Optional<Long> getStart() {
+      return getBound(start);
     }
 
-    private Optional<Long> getParsedValue(Matcher parser, int group) {
-      return Optional.ofNullable(parser.group(group)).filter(value -> !value.isEmpty())
-          .map(Long::valueOf);
+    @Override
+    public Optional<Long> getEnd() {
+      return getBound(end);
     }
 
-    private Matcher parseRangeString(String rangeString) {
-      Matcher rangeMatcher = RANGE_PARSING_PATTERN.matcher(rangeString);
-      rangeMatcher.find();
-      return rangeMatcher;
+    private static Optional<Long> getBound(long bound) {
+      return bound == MISSING_BOUND ? Optional.empty() : Optional.of(bound);
     }
   }
-}
\ No newline at end of file
+}
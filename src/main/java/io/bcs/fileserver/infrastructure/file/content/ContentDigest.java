@@ -0,0 +1,109 @@
+package io.bcs.fileserver.infrastructure.file.content;
+
+import io.bce.domain.errors.UnexpectedErrorException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * This class computes the uploaded content digest incrementally, while the content is being
+ * received, so the stored file is never read again to obtain it. The content, uploaded by the
+ * chunks, is digested by the file storage, when the last chunk is received, by the same digest.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class ContentDigest {
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final MessageDigest messageDigest;
+
+  /**
+   * Create the content digest.
+   */
+  public ContentDigest() {
+    super();
+    try {
+      this.messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException error) {
+      throw new UnexpectedErrorException(error);
+    }
+  }
+
+  /**
+   * Update the digest by the received data.
+   *
+   * @param data   The data array
+   * @param offset The received data offset
+   * @param length The received data length
+   */
+  public void update(byte[] data, int offset, int length) {
+    messageDigest.update(data, offset, length);
+  }
+
+  /**
+   * Wrap the input stream, so the read data updates the digest.
+   *
+   * @param inputStream The content input stream
+   * @return The digesting input stream
+   */
+  public InputStream digesting(InputStream inputStream) {
+    return new DigestingInputStream(inputStream);
+  }
+
+  /**
+   * Complete the digest computation.
+   *
+   * @return The hex encoded digest value
+   */
+  public String getValue() {
+    byte[] digest = messageDigest.digest();
+    char[] value = new char[digest.length * 2];
+    for (int i = 0; i < digest.length; i++) {
+      value[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0x0F];
+      value[i * 2 + 1] = HEX_DIGITS[digest[i] & 0x0F];
+    }
+    return new String(value);
+  }
+
+  private class DigestingInputStream extends FilterInputStream {
+    private DigestingInputStream(InputStream inputStream) {
+      super(inputStream);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int value = in.read();
+      if (value >= 0) {
+        messageDigest.update((byte) value);
+      }
+      return value;
+    }
+
+    @Override
+    public int read(byte[] data) throws IOException {
+      int length = in.read(data);
+      if (length > 0) {
+        update(data, 0, length);
+      }
+      return length;
+    }
+
+    @Override
+    public int read(byte[] data, int offset, int length) throws IOException {
+      int readLength = in.read(data, offset, length);
+      if (readLength > 0) {
+        update(data, offset, readLength);
+      }
+      return readLength;
+    }
+
+    @Override
+    public long skip(long length) throws IOException {
+      throw new IOException("The digested content can't be skipped");
+    }
+  }
+}
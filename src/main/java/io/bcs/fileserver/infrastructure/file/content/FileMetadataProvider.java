@@ -2,6 +2,7 @@ package io.bcs.fileserver.infrastructure.file.content;
 
 import io.bcs.fileserver.domain.model.file.metadata.FileMetadata;
 import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import java.util.Optional;
 
 /**
  * This interface describes the component, obtaining file metadata by a content locator.
@@ -10,5 +11,21 @@ import io.bcs.fileserver.domain.model.storage.ContentLocator;
  *
  */
 public interface FileMetadataProvider {
-  public FileMetadata getMetadataFor(ContentLocator contentLocator);
+  /**
+   * Find the file metadata by the storage file name.
+   *
+   * @param storageFileName The storage file name
+   * @return The file metadata if the file exists
+   */
+  public Optional<FileMetadata> findMetadataFor(String storageFileName);
+
+  /**
+   * Get the file metadata by the content locator.
+   *
+   * @param contentLocator The content locator
+   * @return The file metadata
+   */
+  public default FileMetadata getMetadataFor(ContentLocator contentLocator) {
+    return findMetadataFor(contentLocator.getStorageFileName()).get();
+  }
 }
@@ -0,0 +1,93 @@
+package io.bcs.fileserver.infrastructure.file.content;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * This class recognizes the content encodings, accepted by the client, from the "Accept-Encoding"
+ * header value. The encoding is accepted if it is listed explicitly or matched by the "*" with
+ * the non-zero quality value.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class HttpAcceptedEncodings {
+  private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+  private static final String ANY_ENCODING = "*";
+  private static final String QUALITY_PARAMETER = "q=";
+
+  private final Map<String, Boolean> encodings = new HashMap<>();
+
+  /**
+   * Create the accepted encodings of the request.
+   *
+   * @param request The http servlet request
+   */
+  public HttpAcceptedEncodings(HttpServletRequest request) {
+    this(Optional.ofNullable(request.getHeader(ACCEPT_ENCODING_HEADER)));
+  }
+
+  /**
+   * Create the accepted encodings.
+   *
+   * @param headerValue The "Accept-Encoding" header value
+   */
+  public HttpAcceptedEncodings(Optional<String> headerValue) {
+    super();
+    headerValue.ifPresent(value -> {
+      for (String element : value.split(",")) {
+        parseElement(element);
+      }
+    });
+  }
+
+  /**
+   * Create the accepted encodings, accepting the identity encoding only.
+   *
+   * @return The accepted encodings
+   */
+  public static HttpAcceptedEncodings identity() {
+    return new HttpAcceptedEncodings(Optional.empty());
+  }
+
+  /**
+   * Check that the content encoding is accepted.
+   *
+   * @param encoding The content encoding
+   * @return True if the encoding is accepted
+   */
+  public boolean isAccepted(String encoding) {
+    Boolean accepted = encodings.get(encoding.toLowerCase(Locale.ROOT));
+    if (accepted != null) {
+      return accepted;
+    }
+    return encodings.getOrDefault(ANY_ENCODING, false);
+  }
+
+  private void parseElement(String element) {
+    String[] parts = element.split(";");
+    String encoding = parts[0].trim().toLowerCase(Locale.ROOT);
+    if (encoding.isEmpty()) {
+      return;
+    }
+    boolean accepted = true;
+    for (int i = 1; i < parts.length; i++) {
+      String parameter = parts[i].trim();
+      if (parameter.startsWith(QUALITY_PARAMETER)) {
+        accepted = isPositiveQuality(parameter.substring(QUALITY_PARAMETER.length()));
+      }
+    }
+    encodings.put(encoding, accepted);
+  }
+
+  private static boolean isPositiveQuality(String quality) {
+    try {
+      return Double.parseDouble(quality.trim()) > 0.0;
+    } catch (NumberFormatException error) {
+      return false;
+    }
+  }
+}
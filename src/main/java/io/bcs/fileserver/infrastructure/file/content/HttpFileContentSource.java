@@ -12,13 +12,16 @@ import io.bcs.fileserver.domain.model.file.content.FileUploadStatistic;
 import io.bcs.fileserver.domain.model.file.content.Uploader.ContentSource;
 import io.bcs.fileserver.domain.model.storage.ContentLocator;
 import java.io.IOException;
+import java.util.Optional;
 import javax.servlet.http.HttpServletRequest;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 /**
  * This class implements component, performing file content data uploading to the file storage.
+ * The content digest is computed from the request stream, while the content is being uploaded.
  *
  * @author Dmitry Mikhaylenko
  *
@@ -26,6 +29,7 @@ import lombok.RequiredArgsConstructor;
 public class HttpFileContentSource implements ContentSource {
   private final Streamer streamer;
   private final Source<BinaryChunk> source;
+  private final ContentDigest contentDigest;
 
   /**
    * Create file content uploader.
@@ -38,7 +42,9 @@ public class HttpFileContentSource implements ContentSource {
   public HttpFileContentSource(Streamer streamer, HttpServletRequest request, int bufferSize)
       throws IOException {
     super();
-    this.source = new InputStreamSource(request.getInputStream(), bufferSize);
+    this.contentDigest = new ContentDigest();
+    this.source = new InputStreamSource(contentDigest.digesting(request.getInputStream()),
+        bufferSize);
     this.streamer = streamer;
   }
 
@@ -53,15 +59,23 @@ public class HttpFileContentSource implements ContentSource {
   private Promise<FileUploadStatistic> uploadContent(ContentLocator locator,
       Stream<BinaryChunk> stream) {
     return stream.start().chain(stat -> {
-      return Promises.resolvedBy(new UploadStatistic(locator, stat.getSize()));
+      return Promises.resolvedBy(
+          new UploadStatistic(locator, stat.getSize(), contentDigest.getValue()));
     });
   }
 
   @Getter
   @EqualsAndHashCode
   @RequiredArgsConstructor
-  private static class UploadStatistic implements FileUploadStatistic {
+  static class UploadStatistic implements FileUploadStatistic {
     private final ContentLocator locator;
     private final Long totalLength;
+    @Getter(AccessLevel.NONE)
+    private final String contentDigest;
+
+    @Override
+    public Optional<String> getContentDigest() {
+      return Optional.ofNullable(contentDigest);
+    }
   }
 }
@@ -9,15 +9,20 @@ import io.bce.interaction.streaming.binary.BinaryChunk;
 import io.bce.interaction.streaming.binary.InputStreamSource;
 import io.bce.interaction.streaming.binary.OutputStreamDestination;
 import io.bce.promises.Promise;
+import io.bce.promises.Promises;
 import io.bcs.fileserver.domain.model.file.content.Downloader.ContentReceiver;
 import io.bcs.fileserver.domain.model.file.content.FileContent;
 import io.bcs.fileserver.domain.model.file.content.FileContent.ContentPart;
 import io.bcs.fileserver.domain.model.file.metadata.FileMetadata;
+import io.bcs.fileserver.infrastructure.storage.FileRegion;
+import io.bcs.fileserver.infrastructure.storage.MappedRegion;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.LinkedList;
+import java.util.Optional;
 import java.util.Queue;
 import javax.servlet.http.HttpServletResponse;
+import lombok.SneakyThrows;
 
 /**
  * This class implements content receiver, which sets http headers and transfers data.
@@ -30,7 +35,7 @@ public class HttpFileDataReceiver extends HttpHeadersReceiver implements Content
   private static final String MULTIPART_ENDING = MULTIPART_SEPARATOR + "--";
   private final Streamer streamer;
   private final Destination<BinaryChunk> destination;
-  private final FileMetadataProvider metadataProvider;
+  private final Optional<ZeroCopyTransfer> zeroCopyTransfer;
 
   /**
    * Create file data receiver.
@@ -42,59 +47,156 @@ public class HttpFileDataReceiver extends HttpHeadersReceiver implements Content
    */
   public HttpFileDataReceiver(Streamer streamer, HttpServletResponse servletResponse,
       FileMetadataProvider metadataProvider) throws IOException {
-    super(servletResponse, metadataProvider);
+    this(streamer, servletResponse, metadataProvider, HttpAcceptedEncodings.identity());
+  }
+
+  /**
+   * Create file data receiver, sending the encoded content if the client accepts it.
+   *
+   * @param streamer          A data streamer
+   * @param servletResponse   A servlet response instance.
+   * @param metadataProvider  A metadata provider
+   * @param acceptedEncodings The content encodings, accepted by the client
+   * @throws IOException Throws if servlet output stream couldn't be obtained.
+   */
+  public HttpFileDataReceiver(Streamer streamer, HttpServletResponse servletResponse,
+      FileMetadataProvider metadataProvider, HttpAcceptedEncodings acceptedEncodings)
+      throws IOException {
+    super(servletResponse, metadataProvider, acceptedEncodings);
     this.destination = new OutputStreamDestination(servletResponse.getOutputStream());
-    this.metadataProvider = metadataProvider;
+    this.zeroCopyTransfer = ZeroCopyTransfer.of(servletResponse.getOutputStream());
     this.streamer = streamer;
   }
 
   @Override
   public Promise<Void> receiveFullContent(FileContent content) {
     return HttpFileDataReceiver.super.receiveFullContent(content).chain((v, deferred) -> {
-      transferContent(new SingleRangeContentSource(content)).then(s -> deferred.resolve(null));
+      transferSinglePartContent(content).then(s -> deferred.resolve(null));
     });
   }
 
   @Override
   public Promise<Void> receiveContentRange(FileContent content) {
     return HttpFileDataReceiver.super.receiveContentRange(content).chain((v, deferred) -> {
-      transferContent(new SingleRangeContentSource(content)).then(s -> deferred.resolve(null));
+      transferSinglePartContent(content).then(s -> deferred.resolve(null));
     });
   }
 
   @Override
   public Promise<Void> receiveContentRanges(FileContent content) {
     return HttpFileDataReceiver.super.receiveContentRanges(content).chain((v, deferred) -> {
-      transferContent(new MultiRangeContentSource(content, metadataProvider))
-          .then(s -> deferred.resolve(null));
+      transferMultiplePartsContent(content).then(s -> deferred.resolve(null));
+    });
+  }
+
+  /**
+   * Transfer the content, consisting of the single part.
+   *
+   * @param content The file content
+   * @return The transfer completion promise
+   */
+  protected Promise<Void> transferSinglePartContent(FileContent content) {
+    Source<BinaryChunk> partSource = content.getParts().iterator().next().getContentSource();
+    return Promises.of(deferred -> {
+      if (isZeroCopyTransferable(partSource)) {
+        transferFileRegion((FileRegion) partSource);
+        deferred.resolve(null);
+      } else if (isMappedTransferable(partSource)) {
+        transferMappedRegion((MappedRegion) partSource);
+        deferred.resolve(null);
+      } else {
+        transferContent(new SingleRangeContentSource(partSource))
+            .then(stat -> deferred.resolve(null));
+      }
     });
   }
 
+  private boolean isZeroCopyTransferable(Source<BinaryChunk> partSource) {
+    return partSource instanceof FileRegion && zeroCopyTransfer.isPresent();
+  }
+
+  private boolean isMappedTransferable(Source<BinaryChunk> partSource) {
+    return partSource instanceof MappedRegion && zeroCopyTransfer.isPresent();
+  }
+
+  @SneakyThrows
+  private void transferMappedRegion(MappedRegion region) {
+    try {
+      zeroCopyTransfer.get().transfer(region);
+    } finally {
+      region.close();
+    }
+  }
+
+  @SneakyThrows
+  private void transferFileRegion(FileRegion region) {
+    try {
+      zeroCopyTransfer.get().transfer(region);
+    } finally {
+      region.close();
+    }
+  }
+
+  /**
+   * Transfer the content, consisting of the multiple parts, as the multipart byte ranges.
+   *
+   * @param content The file content
+   * @return The transfer completion promise
+   */
+  protected Promise<Void> transferMultiplePartsContent(FileContent content) {
+    return Promises.of(deferred -> {
+      transferContent(new MultiRangeContentSource(content, getMetadata(content)))
+          .then(stat -> deferred.resolve(null));
+    });
+  }
+
+  /**
+   * Create the multipart byte ranges part head.
+   *
+   * @param fileMetadata The file metadata
+   * @param contentPart  The content part
+   * @return The part head bytes
+   */
+  static final byte[] createRangeHead(FileMetadata fileMetadata, ContentPart contentPart) {
+    return new StringBuilder().append("\n").append(MULTIPART_SEPARATOR + "\n")
+        .append(String.format("Content-Type: %s\n", fileMetadata.getMediaType()))
+        .append(String.format("Content-Range: %s\n", new ContentRange(fileMetadata, contentPart)))
+        .toString().getBytes();
+  }
+
+  /**
+   * Create the multipart byte ranges ending.
+   *
+   * @return The ending bytes
+   */
+  static final byte[] createContentEnding() {
+    return new StringBuilder().append("\n").append(MULTIPART_ENDING + "\n").toString().getBytes();
+  }
+
   private Promise<Stat> transferContent(Source<BinaryChunk> contentSource) {
     return streamer.createStream(contentSource, destination).start();
   }
 
   private static class SingleRangeContentSource extends RechargeableSource<BinaryChunk> {
-    public SingleRangeContentSource(FileContent content) {
-      super(createSourcesQueue(content));
+    public SingleRangeContentSource(Source<BinaryChunk> partSource) {
+      super(createSourcesQueue(partSource));
     }
 
-    private static Queue<Source<BinaryChunk>> createSourcesQueue(FileContent content) {
+    private static Queue<Source<BinaryChunk>> createSourcesQueue(Source<BinaryChunk> partSource) {
       LinkedList<Source<BinaryChunk>> queue = new LinkedList<Source<BinaryChunk>>();
-      queue.add(content.getParts().iterator().next().getContentSource());
+      queue.add(partSource);
       return queue;
     }
   }
 
   private static class MultiRangeContentSource extends RechargeableSource<BinaryChunk> {
-    public MultiRangeContentSource(FileContent content, FileMetadataProvider fileMetadataProvider) {
-      super(createSourcesQueue(content, fileMetadataProvider));
+    public MultiRangeContentSource(FileContent content, FileMetadata metadata) {
+      super(createSourcesQueue(content, metadata));
     }
 
     private static Queue<Source<BinaryChunk>> createSourcesQueue(FileContent content,
-        FileMetadataProvider fileMetadataProvider) {
+        FileMetadata metadata) {
       LinkedList<Source<BinaryChunk>> queue = new LinkedList<Source<BinaryChunk>>();
-      FileMetadata metadata = fileMetadataProvider.getMetadataFor(content.getLocator());
       content.getParts().forEach(part -> queue.add(createPartSource(metadata, part)));
       byte[] contentEnding = createContentEnding();
       queue.add(
@@ -109,17 +211,5 @@ public class HttpFileDataReceiver extends HttpHeadersReceiver implements Content
       queue.add(part.getContentSource());
       return new RechargeableSource<>(queue);
     }
-
-    private static final byte[] createRangeHead(FileMetadata fileMetadata,
-        ContentPart contentPart) {
-      return new StringBuilder().append("\n").append(MULTIPART_SEPARATOR + "\n")
-          .append(String.format("Content-Type: %s\n", fileMetadata.getMediaType()))
-          .append(String.format("Content-Range: %s\n", new ContentRange(fileMetadata, contentPart)))
-          .toString().getBytes();
-    }
-
-    private static final byte[] createContentEnding() {
-      return new StringBuilder().append("\n").append(MULTIPART_ENDING + "\n").toString().getBytes();
-    }
   }
 }
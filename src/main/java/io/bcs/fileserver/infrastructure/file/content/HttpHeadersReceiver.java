@@ -7,22 +7,54 @@ import io.bcs.fileserver.domain.model.file.content.FileContent;
 import io.bcs.fileserver.domain.model.file.content.FileContent.ContentPart;
 import io.bcs.fileserver.domain.model.file.metadata.Disposition;
 import io.bcs.fileserver.domain.model.file.metadata.FileMetadata;
+import io.bcs.fileserver.infrastructure.storage.EncodedContent;
+import java.util.Optional;
 import javax.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 
 /**
- * This class implements content receiver, which sets http headers only.
+ * This class implements content receiver, which sets http headers only. The receiver is created
+ * for a single request, so the file metadata is obtained once and is reused for the headers and
+ * for the transferred parts. The whole content, encoded by the storage, is sent encoded as is, if
+ * the client accepts the content encoding.
  *
  * @author Dmitry Mikhaylenko
  *
  */
-@RequiredArgsConstructor
 public class HttpHeadersReceiver implements ContentReceiver {
   protected static final String MULTIPART_BOUNDARY = "MULTIPART_BYTERANGES";
   protected static final String MULTIPART_MEDIA_TYPE =
       "multipart/byteranges; boundary=" + MULTIPART_BOUNDARY;
   private final HttpServletResponse servletResponse;
   private final FileMetadataProvider metadataProvider;
+  private final HttpAcceptedEncodings acceptedEncodings;
+  private FileMetadata fileMetadata;
+
+  /**
+   * Create the headers receiver, sending the content without encoding.
+   *
+   * @param servletResponse  The servlet response
+   * @param metadataProvider The file metadata provider
+   */
+  public HttpHeadersReceiver(HttpServletResponse servletResponse,
+      FileMetadataProvider metadataProvider) {
+    this(servletResponse, metadataProvider, HttpAcceptedEncodings.identity());
+  }
+
+  /**
+   * Create the headers receiver.
+   *
+   * @param servletResponse   The servlet response
+   * @param metadataProvider  The file metadata provider
+   * @param acceptedEncodings The content encodings, accepted by the client
+   */
+  public HttpHeadersReceiver(HttpServletResponse servletResponse,
+      FileMetadataProvider metadataProvider, HttpAcceptedEncodings acceptedEncodings) {
+    super();
+    this.servletResponse = servletResponse;
+    this.metadataProvider = metadataProvider;
+    this.acceptedEncodings = acceptedEncodings;
+  }
 
   @Override
   public Promise<Void> receiveFullContent(FileContent content) {
@@ -31,7 +63,17 @@ public class HttpHeadersReceiver implements ContentReceiver {
       setFileContentTypeHeader(fileMetadata);
       setDispositionHeader(content, fileMetadata);
       setAcceptRangesHeader();
-      setFullContentLengthHeader(fileMetadata);
+      Optional<EncodedContent> encodedContent = getEncodedContent(content);
+      if (encodedContent.isPresent()) {
+        setVaryHeader();
+      }
+      if (encodedContent.filter(this::isAccepted).isPresent()) {
+        setEncodedContentHeaders(encodedContent.get());
+        HttpPreconditions.writeEncodedValidators(servletResponse, fileMetadata);
+      } else {
+        setFullContentLengthHeader(fileMetadata);
+        HttpPreconditions.writeValidators(servletResponse, fileMetadata);
+      }
       setSuccessResponseCode();
       deferred.resolve(null);
     });
@@ -46,6 +88,7 @@ public class HttpHeadersReceiver implements ContentReceiver {
       setAcceptRangesHeader();
       setRangeContentLengthHeader(content);
       setContentRangeHeader(content, fileMetadata);
+      HttpPreconditions.writeValidators(servletResponse, fileMetadata);
       setPartialContentResponseCode();
       deferred.resolve(null);
     });
@@ -58,13 +101,43 @@ public class HttpHeadersReceiver implements ContentReceiver {
       setMultipartContentTypeHeader();
       setDispositionHeader(content, fileMetadata);
       setAcceptRangesHeader();
+      HttpPreconditions.writeValidators(servletResponse, fileMetadata);
       setPartialContentResponseCode();
       deferred.resolve(null);
     });
   }
 
-  private FileMetadata getMetadata(FileContent fileContent) {
-    return metadataProvider.getMetadataFor(fileContent.getLocator());
+  /**
+   * Get the metadata of the received file. The metadata is obtained on the first call only.
+   *
+   * @param fileContent The file content
+   * @return The file metadata
+   */
+  protected FileMetadata getMetadata(FileContent fileContent) {
+    if (fileMetadata == null) {
+      fileMetadata = metadataProvider.getMetadataFor(fileContent.getLocator());
+    }
+    return fileMetadata;
+  }
+
+  private Optional<EncodedContent> getEncodedContent(FileContent content) {
+    return Optional.of(content.getParts().iterator().next().getContentSource())
+        .filter(source -> source instanceof EncodedContent).map(source -> (EncodedContent) source);
+  }
+
+  private boolean isAccepted(EncodedContent encodedContent) {
+    return acceptedEncodings.isAccepted(encodedContent.getContentEncoding());
+  }
+
+  @SneakyThrows
+  private void setEncodedContentHeaders(EncodedContent encodedContent) {
+    encodedContent.switchToEncoded();
+    servletResponse.setHeader("Content-Encoding", encodedContent.getContentEncoding());
+    setContetLengthHeader(encodedContent.getEncodedLength());
+  }
+
+  private void setVaryHeader() {
+    servletResponse.setHeader("Vary", "Accept-Encoding");
   }
 
   private void setContentRangeHeader(FileContent content, FileMetadata fileMetadata) {
@@ -0,0 +1,66 @@
+package io.bcs.fileserver.infrastructure.file.content;
+
+import io.bce.interaction.streaming.Destination;
+import io.bce.interaction.streaming.Streamer;
+import io.bce.interaction.streaming.binary.BinaryChunk;
+import io.bce.promises.Promise;
+import io.bce.promises.Promises;
+import io.bcs.common.buffers.BufferPool;
+import io.bcs.fileserver.domain.model.file.content.FileUploadStatistic;
+import io.bcs.fileserver.domain.model.file.content.Uploader.ContentSource;
+import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import io.bcs.fileserver.infrastructure.file.content.HttpFileContentSource.UploadStatistic;
+import io.bcs.fileserver.infrastructure.storage.WritableFileChannel;
+import java.io.IOException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * This class implements component, performing file content data uploading to the file storage
+ * through the servlet input stream read listener. The data is read from the request only when it
+ * is available, so the thread isn't held while the client is sending content slowly. If the
+ * storage destination couldn't be written through the file channel, the content is uploaded by
+ * the streamer. The content digest is updated by every received portion.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class HttpNonBlockingFileContentSource implements ContentSource {
+  private final ServletInputStream inputStream;
+  private final ContentSource streamingContentSource;
+  private final BufferPool bufferPool;
+
+  /**
+   * Create the non-blocking file content uploader.
+   *
+   * @param streamer   A data stremer
+   * @param request    The servlet request instance
+   * @param bufferPool The IO buffers pool
+   * @throws IOException Throws if input stream couldn't be obtained from request
+   */
+  public HttpNonBlockingFileContentSource(Streamer streamer, HttpServletRequest request,
+      BufferPool bufferPool) throws IOException {
+    super();
+    this.inputStream = request.getInputStream();
+    this.streamingContentSource =
+        new HttpFileContentSource(streamer, request, bufferPool.getBufferSize());
+    this.bufferPool = bufferPool;
+  }
+
+  @Override
+  public Promise<FileUploadStatistic> sendContent(ContentLocator contentLocator,
+      Destination<BinaryChunk> destination) {
+    if (!(destination instanceof WritableFileChannel)) {
+      return streamingContentSource.sendContent(contentLocator, destination);
+    }
+    WritableFileChannel fileChannel = (WritableFileChannel) destination;
+    ContentDigest contentDigest = new ContentDigest();
+    return Promises.of(deferred -> {
+      inputStream.setReadListener(new NonBlockingContentReader(inputStream,
+          fileChannel, bufferPool, contentDigest,
+          length -> deferred.resolve(
+              new UploadStatistic(contentLocator, length, contentDigest.getValue())),
+          error -> deferred.reject(error)));
+    });
+  }
+}
@@ -0,0 +1,112 @@
+package io.bcs.fileserver.infrastructure.file.content;
+
+import io.bce.interaction.streaming.Streamer;
+import io.bce.promises.Promise;
+import io.bce.promises.Promises;
+import io.bcs.common.buffers.BufferPool;
+import io.bcs.fileserver.domain.model.file.content.FileContent;
+import io.bcs.fileserver.domain.model.file.content.FileContent.ContentPart;
+import io.bcs.fileserver.domain.model.file.metadata.FileMetadata;
+import io.bcs.fileserver.infrastructure.file.content.NonBlockingContentWriter.ByteArraySegment;
+import io.bcs.fileserver.infrastructure.file.content.NonBlockingContentWriter.ContentSegment;
+import io.bcs.fileserver.infrastructure.file.content.NonBlockingContentWriter.FileRegionSegment;
+import io.bcs.fileserver.infrastructure.storage.FileRegion;
+import io.bcs.fileserver.infrastructure.storage.MappedRegion;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.Queue;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * This class implements content receiver, which transfers data through the servlet output stream
+ * write listener. The content parts, backed by the physical file regions or by the memory mapped
+ * regions, are written only when the output stream is ready, so the thread is not held while the
+ * client is reading slowly. The content, which isn't backed by the regions, is transferred by the
+ * streamer.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class HttpNonBlockingFileDataReceiver extends HttpFileDataReceiver {
+  private final ServletOutputStream outputStream;
+  private final BufferPool bufferPool;
+
+  /**
+   * Create the non-blocking file data receiver.
+   *
+   * @param streamer         A data streamer
+   * @param servletResponse  A servlet response instance.
+   * @param metadataProvider A metadata provider
+   * @param bufferPool       The write buffers pool
+   * @throws IOException Throws if servlet output stream couldn't be obtained.
+   */
+  public HttpNonBlockingFileDataReceiver(Streamer streamer, HttpServletResponse servletResponse,
+      FileMetadataProvider metadataProvider, BufferPool bufferPool) throws IOException {
+    this(streamer, servletResponse, metadataProvider, HttpAcceptedEncodings.identity(), bufferPool);
+  }
+
+  /**
+   * Create the non-blocking file data receiver, sending the encoded content if the client accepts
+   * it.
+   *
+   * @param streamer          A data streamer
+   * @param servletResponse   A servlet response instance.
+   * @param metadataProvider  A metadata provider
+   * @param acceptedEncodings The content encodings, accepted by the client
+   * @param bufferPool        The write buffers pool
+   * @throws IOException Throws if servlet output stream couldn't be obtained.
+   */
+  public HttpNonBlockingFileDataReceiver(Streamer streamer, HttpServletResponse servletResponse,
+      FileMetadataProvider metadataProvider, HttpAcceptedEncodings acceptedEncodings,
+      BufferPool bufferPool) throws IOException {
+    super(streamer, servletResponse, metadataProvider, acceptedEncodings);
+    this.outputStream = servletResponse.getOutputStream();
+    this.bufferPool = bufferPool;
+  }
+
+  @Override
+  protected Promise<Void> transferSinglePartContent(FileContent content) {
+    if (!isBackedByFileRegions(content)) {
+      return super.transferSinglePartContent(content);
+    }
+    Queue<ContentSegment> segments = new LinkedList<>();
+    segments.add(createRegionSegment(content.getParts().iterator().next()));
+    return writeSegments(segments);
+  }
+
+  @Override
+  protected Promise<Void> transferMultiplePartsContent(FileContent content) {
+    if (!isBackedByFileRegions(content)) {
+      return super.transferMultiplePartsContent(content);
+    }
+    Queue<ContentSegment> segments = new LinkedList<>();
+    FileMetadata metadata = getMetadata(content);
+    content.getParts().forEach(part -> {
+      segments.add(new ByteArraySegment(createRangeHead(metadata, part)));
+      segments.add(createRegionSegment(part));
+    });
+    segments.add(new ByteArraySegment(createContentEnding()));
+    return writeSegments(segments);
+  }
+
+  private Promise<Void> writeSegments(Queue<ContentSegment> segments) {
+    return Promises.of(deferred -> {
+      outputStream.setWriteListener(new NonBlockingContentWriter(outputStream, segments,
+          bufferPool, () -> deferred.resolve(null), error -> deferred.reject(error)));
+    });
+  }
+
+  private boolean isBackedByFileRegions(FileContent content) {
+    return content.getParts().stream()
+        .allMatch(part -> part.getContentSource() instanceof FileRegion
+            || part.getContentSource() instanceof MappedRegion);
+  }
+
+  private ContentSegment createRegionSegment(ContentPart part) {
+    if (part.getContentSource() instanceof MappedRegion) {
+      return new ByteArraySegment(((MappedRegion) part.getContentSource()).getContent());
+    }
+    return new FileRegionSegment((FileRegion) part.getContentSource());
+  }
+}
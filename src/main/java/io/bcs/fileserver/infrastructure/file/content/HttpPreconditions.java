@@ -0,0 +1,162 @@
+package io.bcs.fileserver.infrastructure.file.content;
+
+import io.bcs.fileserver.domain.model.file.FileStatus;
+import io.bcs.fileserver.domain.model.file.metadata.FileMetadata;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Optional;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * This class evaluates the conditional download request headers against the file metadata. The
+ * entity tag is the uploaded content digest and the last modification time is the file creation
+ * time. The validators are used only if the content digest is known, because the content of the
+ * file without digest may be still uploaded by the chunks after the file creation. The content,
+ * uploaded by the chunks, is digested, when the last chunk is received. The content is
+ * reported as not modified only for the distributed file, the other files are downloaded as usual
+ * and fail by their status.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class HttpPreconditions {
+  private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+  private static final String IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
+  private static final String IF_RANGE_HEADER = "If-Range";
+  private static final String ETAG_HEADER = "ETag";
+  private static final String LAST_MODIFIED_HEADER = "Last-Modified";
+  private static final String ANY_ENTITY_TAG = "*";
+  private static final String WEAK_ENTITY_TAG_PREFIX = "W/";
+  private static final long UNKNOWN_DATE = -1L;
+  private static final long MILLIS_PER_SECOND = 1000L;
+
+  private final Optional<String> ifNoneMatch;
+  private final Optional<Long> ifModifiedSince;
+  private final Optional<String> ifRange;
+  private final HttpServletRequest request;
+
+  /**
+   * Create the download request preconditions.
+   *
+   * @param request The http servlet request
+   */
+  public HttpPreconditions(HttpServletRequest request) {
+    super();
+    this.request = request;
+    this.ifNoneMatch = getHeader(request, IF_NONE_MATCH_HEADER);
+    this.ifModifiedSince = getDateHeader(request, IF_MODIFIED_SINCE_HEADER);
+    this.ifRange = getHeader(request, IF_RANGE_HEADER);
+  }
+
+  /**
+   * Check that the request contains any of the conditional headers.
+   *
+   * @return True if the request is conditional
+   */
+  public boolean isConditional() {
+    return ifNoneMatch.isPresent() || ifModifiedSince.isPresent() || ifRange.isPresent();
+  }
+
+  /**
+   * Check that the content, cached by the client, hasn't been modified. The "If-None-Match" header
+   * takes precedence over the "If-Modified-Since" header.
+   *
+   * @param metadata The file metadata
+   * @return True if the "Not Modified" response should be sent
+   */
+  public boolean isNotModified(FileMetadata metadata) {
+    Optional<String> entityTag = getEntityTag(metadata);
+    if (metadata.getStatus() != FileStatus.DISTRIBUTING || !entityTag.isPresent()) {
+      return false;
+    }
+    if (ifNoneMatch.isPresent()) {
+      return Arrays.stream(ifNoneMatch.get().split(",")).map(String::trim)
+          .map(HttpPreconditions::toStrongEntityTag)
+          .anyMatch(tag -> tag.equals(ANY_ENTITY_TAG) || tag.equals(entityTag.get()));
+    }
+    return ifModifiedSince.map(since -> getLastModified(metadata) <= since).orElse(false);
+  }
+
+  /**
+   * Check that the requested ranges may be sent. The ranges are ignored and the full content is
+   * sent, if the "If-Range" validator doesn't match the current content.
+   *
+   * @param metadata The file metadata
+   * @return True if the requested ranges should be sent
+   */
+  public boolean isRangeApplicable(FileMetadata metadata) {
+    if (!ifRange.isPresent()) {
+      return true;
+    }
+    Optional<String> entityTag = getEntityTag(metadata);
+    if (!entityTag.isPresent()) {
+      return false;
+    }
+    String validator = ifRange.get();
+    if (validator.startsWith("\"") || validator.startsWith(WEAK_ENTITY_TAG_PREFIX)) {
+      return validator.equals(entityTag.get());
+    }
+    return getDateHeader(request, IF_RANGE_HEADER)
+        .map(date -> date == getLastModified(metadata)).orElse(false);
+  }
+
+  /**
+   * Write the "ETag" and "Last-Modified" headers, if the file content digest is known.
+   *
+   * @param response The http servlet response
+   * @param metadata The file metadata
+   */
+  public static void writeValidators(HttpServletResponse response, FileMetadata metadata) {
+    getEntityTag(metadata).ifPresent(entityTag -> {
+      response.setHeader(ETAG_HEADER, entityTag);
+      response.setDateHeader(LAST_MODIFIED_HEADER, getLastModified(metadata));
+    });
+  }
+
+  /**
+   * Write the weak "ETag" and the "Last-Modified" headers of the encoded content, if the file
+   * content digest is known. The entity tag is weak, because the content digest is computed from
+   * the not encoded content.
+   *
+   * @param response The http servlet response
+   * @param metadata The file metadata
+   */
+  public static void writeEncodedValidators(HttpServletResponse response,
+      FileMetadata metadata) {
+    getEntityTag(metadata).ifPresent(entityTag -> {
+      response.setHeader(ETAG_HEADER, WEAK_ENTITY_TAG_PREFIX + entityTag);
+      response.setDateHeader(LAST_MODIFIED_HEADER, getLastModified(metadata));
+    });
+  }
+
+  private static Optional<String> getEntityTag(FileMetadata metadata) {
+    return metadata.getContentDigest().map(digest -> "\"" + digest + "\"");
+  }
+
+  private static long getLastModified(FileMetadata metadata) {
+    long lastModified =
+        metadata.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    return lastModified - lastModified % MILLIS_PER_SECOND;
+  }
+
+  private static String toStrongEntityTag(String entityTag) {
+    if (entityTag.startsWith(WEAK_ENTITY_TAG_PREFIX)) {
+      return entityTag.substring(WEAK_ENTITY_TAG_PREFIX.length());
+    }
+    return entityTag;
+  }
+
+  private static Optional<String> getHeader(HttpServletRequest request, String headerName) {
+    return Optional.ofNullable(request.getHeader(headerName)).map(String::trim)
+        .filter(value -> !value.isEmpty());
+  }
+
+  private static Optional<Long> getDateHeader(HttpServletRequest request, String headerName) {
+    try {
+      return Optional.of(request.getDateHeader(headerName)).filter(date -> date != UNKNOWN_DATE);
+    } catch (IllegalArgumentException error) {
+      return Optional.empty();
+    }
+  }
+}
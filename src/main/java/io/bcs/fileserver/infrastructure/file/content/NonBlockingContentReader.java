@@ -0,0 +1,105 @@
+package io.bcs.fileserver.infrastructure.file.content;
+
+import io.bcs.common.buffers.BufferPool;
+import io.bcs.fileserver.infrastructure.storage.WritableFileChannel;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+
+/**
+ * This class implements the read listener, which receives the uploaded content from the servlet
+ * input stream in the non-blocking mode. The data is read only while it is available and every
+ * portion is written to the target channel before the next one is read, so the reading pace is
+ * limited by the target and nothing is accumulated in memory. The read buffer is borrowed from
+ * the pool for the transfer time and is returned once, after the target is closed, whichever of
+ * the completion and the error comes first. The target destination is closed itself, not its
+ * channel, so the destination completes the written file on close.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+class NonBlockingContentReader implements ReadListener {
+  private final ServletInputStream inputStream;
+  private final WritableFileChannel target;
+  private final BufferPool bufferPool;
+  private final ByteBuffer buffer;
+  private final AtomicBoolean bufferReleased = new AtomicBoolean();
+  private final ContentDigest contentDigest;
+  private final Consumer<Long> completionHandler;
+  private final Consumer<Throwable> errorHandler;
+  private long receivedLength = 0L;
+
+  /**
+   * Create the non-blocking content reader.
+   *
+   * @param inputStream       The servlet input stream
+   * @param target            The target file channel destination
+   * @param bufferPool        The read buffers pool
+   * @param contentDigest     The received content digest
+   * @param completionHandler The handler, accepting the received content length
+   * @param errorHandler      The receiving error handler
+   */
+  NonBlockingContentReader(ServletInputStream inputStream, WritableFileChannel target,
+      BufferPool bufferPool, ContentDigest contentDigest, Consumer<Long> completionHandler,
+      Consumer<Throwable> errorHandler) {
+    super();
+    this.inputStream = inputStream;
+    this.target = target;
+    this.bufferPool = bufferPool;
+    this.buffer = bufferPool.acquire();
+    this.contentDigest = contentDigest;
+    this.completionHandler = completionHandler;
+    this.errorHandler = errorHandler;
+  }
+
+  @Override
+  public void onDataAvailable() throws IOException {
+    while (!bufferReleased.get() && inputStream.isReady()) {
+      int length = inputStream.read(buffer.array(), buffer.arrayOffset(), buffer.capacity());
+      if (length < 0) {
+        return;
+      }
+      contentDigest.update(buffer.array(), buffer.arrayOffset(), length);
+      buffer.clear().limit(length);
+      writeFully(buffer);
+      receivedLength += length;
+    }
+  }
+
+  @Override
+  public void onAllDataRead() throws IOException {
+    try {
+      target.close();
+    } finally {
+      releaseBuffer();
+    }
+    completionHandler.accept(receivedLength);
+  }
+
+  @Override
+  public void onError(Throwable error) {
+    try {
+      target.close();
+    } catch (IOException closeError) {
+      // The receiving error is more significant
+    } finally {
+      releaseBuffer();
+    }
+    errorHandler.accept(error);
+  }
+
+  private void releaseBuffer() {
+    if (bufferReleased.compareAndSet(false, true)) {
+      bufferPool.release(buffer);
+    }
+  }
+
+  private void writeFully(ByteBuffer data) throws IOException {
+    while (data.hasRemaining()) {
+      target.getChannel().write(data);
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package io.bcs.fileserver.infrastructure.file.content;
+
+import io.bcs.common.buffers.BufferPool;
+import io.bcs.fileserver.infrastructure.storage.FileRegion;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+/**
+ * This class implements the write listener, which sends the content segments to the servlet
+ * output stream in the non-blocking mode. The next data portion is read only when the output
+ * stream is ready to accept it, so that the slow client doesn't hold a thread during the whole
+ * transfer. The write buffer is borrowed from the pool for the transfer time and is returned once,
+ * after the transfer is completed or failed.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+class NonBlockingContentWriter implements WriteListener {
+  private final ServletOutputStream outputStream;
+  private final Queue<ContentSegment> segments;
+  private final BufferPool bufferPool;
+  private final ByteBuffer buffer;
+  private final AtomicBoolean bufferReleased = new AtomicBoolean();
+  private final Runnable completionHandler;
+  private final Consumer<Throwable> errorHandler;
+
+  /**
+   * Create the non-blocking content writer.
+   *
+   * @param outputStream      The servlet output stream
+   * @param segments          The content segments
+   * @param bufferPool        The write buffers pool
+   * @param completionHandler The transfer completion handler
+   * @param errorHandler      The transfer error handler
+   */
+  NonBlockingContentWriter(ServletOutputStream outputStream, Queue<ContentSegment> segments,
+      BufferPool bufferPool, Runnable completionHandler, Consumer<Throwable> errorHandler) {
+    super();
+    this.outputStream = outputStream;
+    this.segments = new LinkedList<>(segments);
+    this.bufferPool = bufferPool;
+    this.buffer = bufferPool.acquire();
+    this.completionHandler = completionHandler;
+    this.errorHandler = errorHandler;
+  }
+
+  @Override
+  public void onWritePossible() throws IOException {
+    while (!bufferReleased.get() && outputStream.isReady()) {
+      if (!fillBuffer()) {
+        try {
+          completionHandler.run();
+        } finally {
+          releaseBuffer();
+        }
+        return;
+      }
+      outputStream.write(buffer.array(), buffer.arrayOffset(), buffer.limit());
+    }
+  }
+
+  @Override
+  public void onError(Throwable error) {
+    while (!segments.isEmpty()) {
+      closeSegment(segments.poll());
+    }
+    try {
+      errorHandler.accept(error);
+    } finally {
+      releaseBuffer();
+    }
+  }
+
+  private void releaseBuffer() {
+    if (bufferReleased.compareAndSet(false, true)) {
+      bufferPool.release(buffer);
+    }
+  }
+
+  private boolean fillBuffer() throws IOException {
+    buffer.clear();
+    while (!segments.isEmpty()) {
+      ContentSegment segment = segments.peek();
+      if (segment.read(buffer) > 0) {
+        buffer.flip();
+        return true;
+      }
+      closeSegment(segments.poll());
+    }
+    return false;
+  }
+
+  private void closeSegment(ContentSegment segment) {
+    try {
+      segment.close();
+    } catch (IOException error) {
+      // The segment is not needed anymore
+    }
+  }
+
+  /**
+   * This interface describes the content segment, transferred by the writer.
+   *
+   * @author Dmitry Mikhaylenko
+   *
+   */
+  interface ContentSegment {
+    /**
+     * Read the next segment data portion into the buffer.
+     *
+     * @param buffer The target buffer
+     * @return The read bytes count or zero if the segment is exhausted
+     * @throws IOException Throws if something went wrong during read
+     */
+    int read(ByteBuffer buffer) throws IOException;
+
+    /**
+     * Release the segment resources.
+     *
+     * @throws IOException Throws if something went wrong during release
+     */
+    void close() throws IOException;
+  }
+
+  /**
+   * This class implements the segment, containing the in-memory data. The data may be either the
+   * byte array or the byte buffer, such as the memory mapping slice.
+   *
+   * @author Dmitry Mikhaylenko
+   *
+   */
+  static class ByteArraySegment implements ContentSegment {
+    private final ByteBuffer data;
+
+    ByteArraySegment(byte[] data) {
+      this(ByteBuffer.wrap(data));
+    }
+
+    ByteArraySegment(ByteBuffer data) {
+      super();
+      this.data = data;
+    }
+
+    @Override
+    public int read(ByteBuffer target) {
+      int length = Math.min(data.remaining(), target.remaining());
+      ByteBuffer portion = data.duplicate();
+      portion.limit(portion.position() + length);
+      target.put(portion);
+      data.position(data.position() + length);
+      return length;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  /**
+   * This class implements the segment, reading the physical file region.
+   *
+   * @author Dmitry Mikhaylenko
+   *
+   */
+  static class FileRegionSegment implements ContentSegment {
+    private final FileRegion region;
+    private long position;
+    private long remaining;
+
+    FileRegionSegment(FileRegion region) {
+      super();
+      this.region = region;
+      this.position = region.getOffset();
+      this.remaining = region.getLength();
+    }
+
+    @Override
+    public int read(ByteBuffer target) throws IOException {
+      if (remaining == 0) {
+        return 0;
+      }
+      ByteBuffer window = target.duplicate();
+      window.limit(window.position() + (int) Math.min(remaining, target.remaining()));
+      int length = region.getChannel().read(window, position);
+      if (length < 0) {
+        throw new EOFException("The file region is out of the file bounds");
+      }
+      target.position(window.position());
+      position += length;
+      remaining -= length;
+      return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+      region.close();
+    }
+  }
+}
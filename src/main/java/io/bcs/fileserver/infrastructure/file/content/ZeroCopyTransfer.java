@@ -0,0 +1,61 @@
+package io.bcs.fileserver.infrastructure.file.content;
+
+import io.bcs.fileserver.infrastructure.storage.FileRegion;
+import io.bcs.fileserver.infrastructure.storage.MappedRegion;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.Optional;
+
+/**
+ * This class transfers file regions to the servlet output stream through the file channel, so
+ * that the content is sent by the kernel without copying it over the user space buffers. It is
+ * available only if the container output stream is the writable byte channel itself. The region
+ * is transferred by the positional channel transfer, so the position of the cached file channel,
+ * shared between the concurrent downloads, is never changed. The memory mapped regions are written
+ * to the channel directly from the mapping.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+final class ZeroCopyTransfer {
+  private final WritableByteChannel target;
+
+  private ZeroCopyTransfer(WritableByteChannel target) {
+    super();
+    this.target = target;
+  }
+
+  /**
+   * Resolve the zero-copy transfer for the output stream.
+   *
+   * @param outputStream The container output stream
+   * @return The zero-copy transfer if the output stream is channel-capable
+   */
+  static Optional<ZeroCopyTransfer> of(OutputStream outputStream) {
+    if (outputStream instanceof WritableByteChannel) {
+      return Optional.of(new ZeroCopyTransfer((WritableByteChannel) outputStream));
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Transfer the file region.
+   *
+   * @param region The file region
+   * @throws IOException Throws if something went wrong during transfer
+   */
+  void transfer(FileRegion region) throws IOException {
+    region.transferTo(target);
+  }
+
+  /**
+   * Transfer the memory mapped region.
+   *
+   * @param region The mapped region
+   * @throws IOException Throws if something went wrong during transfer
+   */
+  void transfer(MappedRegion region) throws IOException {
+    region.transferTo(target);
+  }
+}
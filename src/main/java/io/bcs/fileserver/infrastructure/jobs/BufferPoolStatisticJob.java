@@ -0,0 +1,95 @@
+package io.bcs.fileserver.infrastructure.jobs;
+
+import io.bce.logging.ApplicationLogger;
+import io.bce.logging.Loggers;
+import io.bce.text.TextTemplates;
+import io.bcs.common.buffers.BufferPool;
+import io.bcs.common.buffers.BufferPool.Statistic;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.ScheduleExpression;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+
+/**
+ * This class implements daemon job, reporting the IO buffers pool usage statistic, so the pool
+ * stripe size can be tuned by the hits, misses and drops of the running node. Every node has its
+ * own pool, so the job isn't locked between the nodes. The statistic is reported on the shutdown
+ * as well.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@Startup
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class BufferPoolStatisticJob {
+  private static final ApplicationLogger log =
+      Loggers.applicationLogger(BufferPoolStatisticJob.class);
+  private static final String JOB_NAME = "BUFFER_POOL_STATISTIC_JOB";
+  @Resource
+  private TimerService timerService;
+
+  @Inject
+  @BufferPoolStatisticTimer
+  private ScheduleExpression schedulerExpression;
+
+  @Inject
+  private BufferPool bufferPool;
+
+  @PostConstruct
+  public void initTimer() {
+    timerService.createCalendarTimer(schedulerExpression, new TimerConfig(JOB_NAME, false));
+  }
+
+  /**
+   * React on timer event.
+   *
+   * @param timer The created timer
+   */
+  @Timeout
+  public void onTimeout(Timer timer) {
+    if (timer.getInfo() == JOB_NAME) {
+      reportStatistic();
+    }
+  }
+
+  /**
+   * Report the buffers pool usage statistic.
+   */
+  @PreDestroy
+  public void reportStatistic() {
+    Statistic statistic = bufferPool.getStatistic();
+    log.info(TextTemplates
+        .createBy("IO buffers pool usage: hits={{hits}}, misses={{misses}}, drops={{drops}}, "
+            + "pooled={{pooled}}")
+        .withParameter("hits", statistic.getHits()).withParameter("misses", statistic.getMisses())
+        .withParameter("drops", statistic.getDrops())
+        .withParameter("pooled", statistic.getPooled()));
+  }
+
+  /**
+   * This annotation qualifies scheduler expression bean.
+   *
+   * @author Dmitry Mikhaylenko
+   *
+   */
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ ElementType.FIELD, ElementType.METHOD })
+  public @interface BufferPoolStatisticTimer {
+  }
+}
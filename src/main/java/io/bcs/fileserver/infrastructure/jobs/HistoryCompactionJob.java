@@ -0,0 +1,96 @@
+package io.bcs.fileserver.infrastructure.jobs;
+
+import io.bcs.fileserver.infrastructure.storage.SpaceAllocationsHistoryCompactor;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.ScheduleExpression;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
+
+/**
+ * This class implements daemon job, compacting the space allocations history. The compactor
+ * commits every batch by itself, so the job doesn't run in the container transaction.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@Startup
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class HistoryCompactionJob {
+  private static final String JOB_NAME = "HISTORY_COMPACTION_JOB";
+  @Resource
+  private TimerService timerService;
+
+  @Inject
+  @HistoryCompactionTimer
+  private ScheduleExpression schedulerExpression;
+
+  @Inject
+  private LockProvider jobLockProvider;
+
+  @Inject
+  private SpaceAllocationsHistoryCompactor historyCompactor;
+
+  @PostConstruct
+  public void initTimer() {
+    timerService.createCalendarTimer(schedulerExpression, new TimerConfig(JOB_NAME, false));
+  }
+
+  /**
+   * React on timer event.
+   *
+   * @param timer The created timer
+   */
+  @Timeout
+  @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+  public void onTimeout(Timer timer) {
+    if (timer.getInfo() == JOB_NAME) {
+      getLock().ifPresent(lock -> {
+        try {
+          historyCompactor.compact();
+        } finally {
+          lock.unlock();
+        }
+      });
+    }
+  }
+
+  private Optional<SimpleLock> getLock() {
+    LockConfiguration lockConfiguration =
+        new LockConfiguration(Instant.now(), JOB_NAME, Duration.ofHours(1), Duration.ofSeconds(0));
+    return jobLockProvider.lock(lockConfiguration);
+  }
+
+  /**
+   * This annotation qualifies scheduler expression bean.
+   *
+   * @author Dmitry Mikhaylenko
+   *
+   */
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ ElementType.FIELD, ElementType.METHOD })
+  public @interface HistoryCompactionTimer {
+  }
+}
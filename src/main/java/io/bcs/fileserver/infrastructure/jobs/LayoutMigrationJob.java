@@ -0,0 +1,76 @@
+package io.bcs.fileserver.infrastructure.jobs;
+
+import io.bcs.fileserver.infrastructure.storage.DirectoryLayoutMigrator;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.ScheduleExpression;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+
+/**
+ * This class implements daemon job, relocating the local storages files to the hashed directory
+ * layout. Every node relocates the files of its own filesystem, so the job isn't locked between
+ * the nodes.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@Startup
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class LayoutMigrationJob {
+  private static final String JOB_NAME = "LAYOUT_MIGRATION_JOB";
+  @Resource
+  private TimerService timerService;
+
+  @Inject
+  @LayoutMigrationTimer
+  private ScheduleExpression schedulerExpression;
+
+  @Inject
+  private DirectoryLayoutMigrator layoutMigrator;
+
+  @PostConstruct
+  public void initTimer() {
+    timerService.createCalendarTimer(schedulerExpression, new TimerConfig(JOB_NAME, false));
+  }
+
+  /**
+   * React on timer event.
+   *
+   * @param timer The created timer
+   */
+  @Timeout
+  @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+  public void onTimeout(Timer timer) {
+    if (timer.getInfo() == JOB_NAME) {
+      layoutMigrator.migrate();
+    }
+  }
+
+  /**
+   * This annotation qualifies scheduler expression bean.
+   *
+   * @author Dmitry Mikhaylenko
+   *
+   */
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ ElementType.FIELD, ElementType.METHOD })
+  public @interface LayoutMigrationTimer {
+  }
+}
@@ -0,0 +1,77 @@
+package io.bcs.fileserver.infrastructure.jobs;
+
+import io.bcs.fileserver.infrastructure.repositories.LocalStorageDescriptorsRegistry;
+import io.bcs.fileserver.infrastructure.repositories.ObjectStorageDescriptorsRegistry;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.ScheduleExpression;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+
+/**
+ * This class implements daemon job, refreshing the local and the object storages registries.
+ * Every node keeps its own registry snapshots, so the job isn't locked between the nodes.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@Startup
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class StoragesRefreshJob {
+  private static final String JOB_NAME = "STORAGES_REFRESH_JOB";
+  @Resource
+  private TimerService timerService;
+
+  @Inject
+  @StoragesRefreshTimer
+  private ScheduleExpression schedulerExpression;
+
+  @Inject
+  private LocalStorageDescriptorsRegistry localStorageDescriptorsRegistry;
+
+  @Inject
+  private ObjectStorageDescriptorsRegistry objectStorageDescriptorsRegistry;
+
+  @PostConstruct
+  public void initTimer() {
+    timerService.createCalendarTimer(schedulerExpression, new TimerConfig(JOB_NAME, false));
+  }
+
+  /**
+   * React on timer event.
+   *
+   * @param timer The created timer
+   */
+  @Timeout
+  public void onTimeout(Timer timer) {
+    if (timer.getInfo() == JOB_NAME) {
+      localStorageDescriptorsRegistry.refresh();
+      objectStorageDescriptorsRegistry.refresh();
+    }
+  }
+
+  /**
+   * This annotation qualifies scheduler expression bean.
+   *
+   * @author Dmitry Mikhaylenko
+   *
+   */
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ ElementType.FIELD, ElementType.METHOD })
+  public @interface StoragesRefreshTimer {
+  }
+}
@@ -0,0 +1,84 @@
+package io.bcs.fileserver.infrastructure.repositories;
+
+import io.bcs.common.cache.ExpiringCache;
+import io.bcs.common.cache.ExpiringCache.Statistic;
+import io.bcs.fileserver.domain.model.file.FileStatus;
+import io.bcs.fileserver.domain.model.file.metadata.FileMetadataRepository;
+import io.bcs.fileserver.domain.model.file.metadata.FileMetadataView;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * This class implements the file metadata repository, keeping the recently found metadata in
+ * memory. The metadata of the distributed file doesn't change until the file is disposed, so only
+ * the metadata of the files in the {@link FileStatus#DISTRIBUTING} status is cached and the draft
+ * files metadata is always obtained from the original repository. The cached metadata is
+ * invalidated when the file is disposed and is expired after the time to live otherwise. The cache
+ * size is bounded, the least recently used metadata is evicted first. The missing metadata isn't
+ * cached.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class CachedFileMetadataRepository implements FileMetadataRepository {
+  private final FileMetadataRepository delegate;
+  private final ExpiringCache<String, FileMetadataView> cache;
+
+  /**
+   * Create the cached file metadata repository.
+   *
+   * @param delegate   The original file metadata repository
+   * @param maxSize    The max cached metadata count. Zero value disables caching.
+   * @param timeToLive The cached metadata time to live in milliseconds
+   */
+  public CachedFileMetadataRepository(FileMetadataRepository delegate, int maxSize,
+      long timeToLive) {
+    this(delegate, maxSize, timeToLive, System::currentTimeMillis);
+  }
+
+  CachedFileMetadataRepository(FileMetadataRepository delegate, int maxSize, long timeToLive,
+      LongSupplier clock) {
+    super();
+    this.delegate = delegate;
+    this.cache = new ExpiringCache<>(maxSize, timeToLive, clock);
+  }
+
+  @Override
+  public Optional<FileMetadataView> findById(String storageFileName) {
+    if (!cache.isEnabled()) {
+      return delegate.findById(storageFileName);
+    }
+
+    Optional<FileMetadataView> cached = cache.get(storageFileName);
+    if (cached.isPresent()) {
+      return cached;
+    }
+    long generation = cache.getGeneration(storageFileName);
+    Optional<FileMetadataView> metadata = delegate.findById(storageFileName);
+    metadata.filter(this::isCacheable)
+        .ifPresent(value -> cache.put(storageFileName, value, generation));
+    return metadata;
+  }
+
+  /**
+   * Invalidate the cached metadata of the file.
+   *
+   * @param storageFileName The storage file name
+   */
+  public void invalidate(String storageFileName) {
+    cache.invalidate(storageFileName);
+  }
+
+  /**
+   * Get the cache usage statistic.
+   *
+   * @return The cache statistic
+   */
+  public Statistic getStatistic() {
+    return cache.getStatistic();
+  }
+
+  private boolean isCacheable(FileMetadataView metadata) {
+    return metadata.getStatus() == FileStatus.DISTRIBUTING;
+  }
+}
@@ -0,0 +1,102 @@
+package io.bcs.fileserver.infrastructure.repositories;
+
+import io.bcs.common.cache.ExpiringCache;
+import io.bcs.common.cache.ExpiringCache.Statistic;
+import io.bcs.fileserver.domain.model.file.File;
+import io.bcs.fileserver.domain.model.file.FileRepository;
+import io.bcs.fileserver.domain.model.file.FileStatus;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.LongSupplier;
+
+/**
+ * This class implements the file repository, keeping the recently found distributed files in
+ * memory. The distributed file doesn't change until it is disposed, so only the files in the
+ * {@link FileStatus#DISTRIBUTING} status are cached and the draft files are always obtained from
+ * the original repository. The cached file is invalidated, when the file is saved, updated or
+ * disposed, and is expired after the time to live otherwise. The file entity is mutable, so the
+ * detached copy of the found file is cached and every cache hit returns its own copy, so the
+ * concurrent requests never share the same file instance.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class CachedFileRepository implements FileRepository {
+  private final FileRepository delegate;
+  private final ExpiringCache<String, File> cache;
+
+  /**
+   * Create the cached file repository.
+   *
+   * @param delegate   The original file repository
+   * @param maxSize    The max cached files count. Zero value disables caching.
+   * @param timeToLive The cached file time to live in milliseconds
+   */
+  public CachedFileRepository(FileRepository delegate, int maxSize, long timeToLive) {
+    this(delegate, maxSize, timeToLive, System::currentTimeMillis);
+  }
+
+  CachedFileRepository(FileRepository delegate, int maxSize, long timeToLive,
+      LongSupplier clock) {
+    super();
+    this.delegate = delegate;
+    this.cache = new ExpiringCache<>(maxSize, timeToLive, clock);
+  }
+
+  @Override
+  public Optional<File> findById(String storageFileName) {
+    if (!cache.isEnabled()) {
+      return delegate.findById(storageFileName);
+    }
+
+    Optional<File> cached = cache.get(storageFileName);
+    if (cached.isPresent()) {
+      return cached.map(File::new);
+    }
+    long generation = cache.getGeneration(storageFileName);
+    Optional<File> file = delegate.findById(storageFileName);
+    file.filter(this::isCacheable)
+        .ifPresent(value -> cache.put(storageFileName, new File(value), generation));
+    return file;
+  }
+
+  @Override
+  public Collection<File> findNotRemovedDisposedFiles() {
+    return delegate.findNotRemovedDisposedFiles();
+  }
+
+  @Override
+  public void save(File file) {
+    cache.invalidate(file.getStorageFileName());
+    delegate.save(file);
+  }
+
+  @Override
+  public Optional<File> updateExclusively(String storageFileName, Predicate<File> update) {
+    cache.invalidate(storageFileName);
+    return delegate.updateExclusively(storageFileName, update);
+  }
+
+  /**
+   * Invalidate the cached file.
+   *
+   * @param storageFileName The storage file name
+   */
+  public void invalidate(String storageFileName) {
+    cache.invalidate(storageFileName);
+  }
+
+  /**
+   * Get the cache usage statistic.
+   *
+   * @return The cache statistic
+   */
+  public Statistic getStatistic() {
+    return cache.getStatistic();
+  }
+
+  private boolean isCacheable(File file) {
+    return file.getStatus() == FileStatus.DISTRIBUTING;
+  }
+}
@@ -6,8 +6,11 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Optional;
+import java.util.function.Predicate;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.TypedQuery;
+import javax.transaction.Status;
 import javax.transaction.TransactionManager;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
@@ -44,4 +47,26 @@ public class JpaFileRepository implements FileRepository {
     entityManager.merge(file);
     transactionManager.commit();
   }
+
+  @Override
+  @SneakyThrows
+  public Optional<File> updateExclusively(String storageFileName, Predicate<File> update) {
+    transactionManager.begin();
+    try {
+      Optional<File> file = Optional.ofNullable(
+          entityManager.find(File.class, storageFileName, LockModeType.PESSIMISTIC_WRITE))
+          .filter(update);
+      if (file.isPresent()) {
+        transactionManager.commit();
+      } else {
+        transactionManager.rollback();
+      }
+      return file;
+    } catch (Throwable error) {
+      if (transactionManager.getStatus() != Status.STATUS_NO_TRANSACTION) {
+        transactionManager.rollback();
+      }
+      throw error;
+    }
+  }
 }
@@ -2,6 +2,8 @@ package io.bcs.fileserver.infrastructure.repositories;
 
 import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptor;
 import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptorRepository;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Optional;
 import javax.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
@@ -20,4 +22,11 @@ public class JpaLocalStorageDescriptorRepository implements LocalStorageDescript
   public Optional<LocalStorageDescriptor> findByName(String storageName) {
     return Optional.ofNullable(entityManager.find(LocalStorageDescriptor.class, storageName));
   }
+
+  @Override
+  public Collection<LocalStorageDescriptor> findAll() {
+    return Collections.unmodifiableList(entityManager
+        .createNamedQuery("LocalStorageDescriptor.findAll", LocalStorageDescriptor.class)
+        .getResultList());
+  }
 }
@@ -0,0 +1,32 @@
+package io.bcs.fileserver.infrastructure.repositories;
+
+import io.bcs.fileserver.domain.model.storage.descriptor.ObjectStorageDescriptor;
+import io.bcs.fileserver.domain.model.storage.descriptor.ObjectStorageDescriptorRepository;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This class implements the object storage descriptors repository, using JPA framework.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@RequiredArgsConstructor
+public class JpaObjectStorageDescriptorRepository implements ObjectStorageDescriptorRepository {
+  private final EntityManager entityManager;
+
+  @Override
+  public Optional<ObjectStorageDescriptor> findByName(String storageName) {
+    return Optional.ofNullable(entityManager.find(ObjectStorageDescriptor.class, storageName));
+  }
+
+  @Override
+  public Collection<ObjectStorageDescriptor> findAll() {
+    return Collections.unmodifiableList(entityManager
+        .createNamedQuery("ObjectStorageDescriptor.findAll", ObjectStorageDescriptor.class)
+        .getResultList());
+  }
+}
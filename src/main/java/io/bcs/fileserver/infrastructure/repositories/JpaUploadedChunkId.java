@@ -0,0 +1,23 @@
+package io.bcs.fileserver.infrastructure.repositories;
+
+import java.io.Serializable;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * This class implements the composite identifier of the uploaded chunk entity. The chunk is
+ * identified by the file and its offset, so the retransmitted chunk replaces the previous one.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@Getter
+@NoArgsConstructor
+@EqualsAndHashCode
+public class JpaUploadedChunkId implements Serializable {
+  private static final long serialVersionUID = 4126735912330478915L;
+
+  private String storageFileName;
+  private Long offset;
+}
@@ -0,0 +1,48 @@
+package io.bcs.fileserver.infrastructure.repositories;
+
+import io.bcs.fileserver.domain.model.file.content.UploadedChunk;
+import io.bcs.fileserver.domain.model.file.content.UploadedChunksRepository;
+import java.util.Collection;
+import java.util.Collections;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.transaction.TransactionManager;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+
+/**
+ * This class implements the uploaded chunks repository, using JPA framework.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@RequiredArgsConstructor
+public class JpaUploadedChunksRepository implements UploadedChunksRepository {
+  private final EntityManager entityManager;
+  private final TransactionManager transactionManager;
+
+  @Override
+  public Collection<UploadedChunk> findByStorageFileName(String storageFileName) {
+    TypedQuery<UploadedChunk> query =
+        entityManager.createNamedQuery("UploadedChunk.findByStorageFileName", UploadedChunk.class);
+    query.setParameter("storageFileName", storageFileName);
+    return Collections.unmodifiableList(query.getResultList());
+  }
+
+  @Override
+  @SneakyThrows
+  public void save(UploadedChunk uploadedChunk) {
+    transactionManager.begin();
+    entityManager.merge(uploadedChunk);
+    transactionManager.commit();
+  }
+
+  @Override
+  @SneakyThrows
+  public void deleteByStorageFileName(String storageFileName) {
+    transactionManager.begin();
+    entityManager.createNamedQuery("UploadedChunk.deleteByStorageFileName")
+        .setParameter("storageFileName", storageFileName).executeUpdate();
+    transactionManager.commit();
+  }
+}
@@ -0,0 +1,59 @@
+package io.bcs.fileserver.infrastructure.repositories;
+
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptor;
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptorRepository;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * This class keeps the snapshot of the registered local storages. The storages are changed by the
+ * administrator only, so the descriptors are resolved from the immutable map without locks and
+ * the snapshot is replaced as a whole, when it is refreshed. The storage, which isn't found in the
+ * snapshot, is looked up in the original repository, so the storage, registered after the last
+ * refresh, is still resolved.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class LocalStorageDescriptorsRegistry implements LocalStorageDescriptorRepository {
+  private final LocalStorageDescriptorRepository delegate;
+  private final AtomicReference<Map<String, LocalStorageDescriptor>> snapshot =
+      new AtomicReference<>(Collections.emptyMap());
+
+  /**
+   * Create the local storage descriptors registry. The registry is empty until it is refreshed.
+   *
+   * @param delegate The original local storage descriptors repository
+   */
+  public LocalStorageDescriptorsRegistry(LocalStorageDescriptorRepository delegate) {
+    super();
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Optional<LocalStorageDescriptor> findByName(String storageName) {
+    LocalStorageDescriptor descriptor = snapshot.get().get(storageName);
+    if (descriptor != null) {
+      return Optional.of(descriptor);
+    }
+    return delegate.findByName(storageName);
+  }
+
+  @Override
+  public Collection<LocalStorageDescriptor> findAll() {
+    return snapshot.get().values();
+  }
+
+  /**
+   * Reload the registered local storages and replace the snapshot.
+   */
+  public void refresh() {
+    snapshot.set(Collections.unmodifiableMap(delegate.findAll().stream()
+        .collect(Collectors.toMap(LocalStorageDescriptor::getStorageName, Function.identity()))));
+  }
+}
@@ -0,0 +1,55 @@
+package io.bcs.fileserver.infrastructure.repositories;
+
+import io.bcs.fileserver.domain.model.storage.descriptor.ObjectStorageDescriptor;
+import io.bcs.fileserver.domain.model.storage.descriptor.ObjectStorageDescriptorRepository;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * This class keeps the snapshot of the registered object storages. Unlike the local storages
+ * registry, the storage, which isn't found in the snapshot, isn't looked up in the original
+ * repository, because the files of the local storages are routed by the missing object storage
+ * on every access. The object storage, registered after the last refresh, is resolved after the
+ * next refresh.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class ObjectStorageDescriptorsRegistry implements ObjectStorageDescriptorRepository {
+  private final ObjectStorageDescriptorRepository delegate;
+  private final AtomicReference<Map<String, ObjectStorageDescriptor>> snapshot =
+      new AtomicReference<>(Collections.emptyMap());
+
+  /**
+   * Create the object storage descriptors registry. The registry is empty until it is refreshed.
+   *
+   * @param delegate The original object storage descriptors repository
+   */
+  public ObjectStorageDescriptorsRegistry(ObjectStorageDescriptorRepository delegate) {
+    super();
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Optional<ObjectStorageDescriptor> findByName(String storageName) {
+    return Optional.ofNullable(snapshot.get().get(storageName));
+  }
+
+  @Override
+  public Collection<ObjectStorageDescriptor> findAll() {
+    return snapshot.get().values();
+  }
+
+  /**
+   * Reload the registered object storages and replace the snapshot.
+   */
+  public void refresh() {
+    snapshot.set(Collections.unmodifiableMap(delegate.findAll().stream()
+        .collect(Collectors.toMap(ObjectStorageDescriptor::getStorageName, Function.identity()))));
+  }
+}
@@ -0,0 +1,147 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * This class coalesces the concurrent single space allocations into the batches. The request,
+ * which comes when no other allocation is in progress, is dispatched immediately, so the single
+ * allocations aren't delayed by the batching window. Otherwise the first request, which doesn't
+ * find the open batch, opens it and waits for the batching window or until the batch is full. The
+ * requests, coming during the window, join the batch and wait for its result. Then the opening
+ * request allocates the whole batch by the original space manager in one round trip and hands out
+ * the results, so there are no extra threads. The request, which hasn't been allocated by the
+ * batch, is allocated alone, so it fails by its own reason and doesn't fail the others.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class BatchingFilesystemSpaceManager implements FilesystemSpaceManager {
+  private final FilesystemSpaceManager delegate;
+  private final long batchWindow;
+  private final int maxBatchSize;
+  private final Object batchLock = new Object();
+  private List<PendingAllocation> openBatch;
+  private int activeAllocations;
+
+  /**
+   * Create the batching filesystem space manager.
+   *
+   * @param delegate     The original filesystem space manager
+   * @param batchWindow  The batching window in milliseconds
+   * @param maxBatchSize The max requests count of the batch
+   */
+  public BatchingFilesystemSpaceManager(FilesystemSpaceManager delegate, long batchWindow,
+      int maxBatchSize) {
+    super();
+    this.delegate = delegate;
+    this.batchWindow = TimeUnit.MILLISECONDS.toNanos(batchWindow);
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  @Override
+  public String allocateSpace(String mediaType, String storageFileName, Long contentLength) {
+    PendingAllocation allocation = new PendingAllocation(
+        new SpaceAllocationRequest(mediaType, storageFileName, contentLength));
+    List<PendingAllocation> openedBatch = null;
+    boolean dispatchImmediately;
+    synchronized (batchLock) {
+      dispatchImmediately = ++activeAllocations == 1;
+      if (!dispatchImmediately) {
+        if (openBatch == null) {
+          openBatch = new ArrayList<>(maxBatchSize);
+          openedBatch = openBatch;
+        }
+        openBatch.add(allocation);
+        if (openBatch.size() >= maxBatchSize) {
+          openBatch = null;
+          batchLock.notifyAll();
+        }
+      }
+    }
+
+    try {
+      if (dispatchImmediately) {
+        return delegate.allocateSpace(mediaType, storageFileName, contentLength);
+      }
+      if (openedBatch != null) {
+        awaitBatch(openedBatch);
+        allocateBatch(openedBatch);
+      }
+      return allocation.getStorageName().orElseGet(() -> {
+        return delegate.allocateSpace(mediaType, storageFileName, contentLength);
+      });
+    } finally {
+      synchronized (batchLock) {
+        activeAllocations--;
+      }
+    }
+  }
+
+  @Override
+  public List<Optional<String>> allocateSpace(List<SpaceAllocationRequest> requests) {
+    return delegate.allocateSpace(requests);
+  }
+
+  @Override
+  public void releaseSpace(String storageName, String storageFileName) {
+    delegate.releaseSpace(storageName, storageFileName);
+  }
+
+  private void awaitBatch(List<PendingAllocation> batch) {
+    synchronized (batchLock) {
+      long deadline = System.nanoTime() + batchWindow;
+      long remaining;
+      try {
+        while (batch.size() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+          TimeUnit.NANOSECONDS.timedWait(batchLock, remaining);
+        }
+      } catch (InterruptedException error) {
+        Thread.currentThread().interrupt();
+      }
+      if (openBatch == batch) {
+        openBatch = null;
+      }
+    }
+  }
+
+  private void allocateBatch(List<PendingAllocation> batch) {
+    List<Optional<String>> storageNames;
+    try {
+      storageNames = delegate.allocateSpace(
+          batch.stream().map(PendingAllocation::getRequest).collect(Collectors.toList()));
+    } catch (Exception error) {
+      storageNames = Collections.nCopies(batch.size(), Optional.empty());
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      batch.get(i).complete(storageNames.get(i));
+    }
+  }
+
+  private static final class PendingAllocation {
+    private final SpaceAllocationRequest request;
+    private final CompletableFuture<Optional<String>> result = new CompletableFuture<>();
+
+    private PendingAllocation(SpaceAllocationRequest request) {
+      super();
+      this.request = request;
+    }
+
+    private SpaceAllocationRequest getRequest() {
+      return request;
+    }
+
+    private void complete(Optional<String> storageName) {
+      result.complete(storageName);
+    }
+
+    private Optional<String> getStorageName() {
+      return result.join();
+    }
+  }
+}
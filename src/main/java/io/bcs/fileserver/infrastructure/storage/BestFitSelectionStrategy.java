@@ -0,0 +1,22 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * This class implements the storage selection strategy, choosing the storage, which has the least
+ * available quote space, enough for the requested size, the same way as the allocation history
+ * function does.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class BestFitSelectionStrategy implements StorageSelectionStrategy {
+  @Override
+  public List<String> rank(List<StorageCandidate> candidates, long size) {
+    return candidates.stream().filter(candidate -> candidate.getAvailableSpace() >= size)
+        .sorted(Comparator.comparingLong(StorageCandidate::getAvailableSpace))
+        .map(StorageCandidate::getStorageName).collect(Collectors.toList());
+  }
+}
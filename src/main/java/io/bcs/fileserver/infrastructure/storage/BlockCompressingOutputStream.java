@@ -0,0 +1,153 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * This class implements the output stream, compressing the content by the blocks of the fixed
+ * size. Every block is flushed with the dictionary reset, so it could be decompressed
+ * independently from the previous blocks, but all blocks together make the single deflate stream.
+ * The stream is wrapped by the gzip header and trailer, so the whole compressed file is a valid
+ * gzip member, which may be sent to the client as is. The block index is written on close.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+class BlockCompressingOutputStream extends OutputStream {
+  private static final byte[] GZIP_HEADER =
+      new byte[] {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+  private static final int GZIP_TRAILER_SIZE = 8;
+  private static final int INITIAL_OFFSETS_CAPACITY = 16;
+
+  private final FileChannel channel;
+  private final Path indexPath;
+  private final Runnable closeListener;
+  private final byte[] block;
+  private final byte[] compressed;
+  private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+  private final CRC32 checksum = new CRC32();
+  private long[] offsets = new long[INITIAL_OFFSETS_CAPACITY];
+  private int blocksCount = 0;
+  private int blockLength = 0;
+  private long contentLength = 0L;
+  private boolean closed = false;
+
+  /**
+   * Create the block compressing output stream.
+   *
+   * @param channel       The compressed data file channel
+   * @param indexPath     The block index file path
+   * @param blockSize     The content block size
+   * @param closeListener The close listener
+   * @throws IOException Throws if the gzip header couldn't be written
+   */
+  BlockCompressingOutputStream(FileChannel channel, Path indexPath, int blockSize,
+      Runnable closeListener) throws IOException {
+    super();
+    this.channel = channel;
+    this.indexPath = indexPath;
+    this.closeListener = closeListener;
+    this.block = new byte[blockSize];
+    this.compressed = new byte[blockSize];
+    writeFully(ByteBuffer.wrap(GZIP_HEADER));
+  }
+
+  @Override
+  public void write(int value) throws IOException {
+    write(new byte[] {(byte) value}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] data, int offset, int length) throws IOException {
+    int position = offset;
+    int remaining = length;
+    while (remaining > 0) {
+      int portion = Math.min(remaining, block.length - blockLength);
+      System.arraycopy(data, position, block, blockLength, portion);
+      blockLength += portion;
+      position += portion;
+      remaining -= portion;
+      if (blockLength == block.length) {
+        compressBlock(false);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      compressBlock(true);
+      addOffset(channel.position());
+      writeTrailer();
+      channel.truncate(channel.position());
+      new BlockIndex(block.length, contentLength, Arrays.copyOf(offsets, blocksCount + 1))
+          .write(indexPath);
+    } finally {
+      deflater.end();
+      try {
+        channel.close();
+      } finally {
+        closeListener.run();
+      }
+    }
+  }
+
+  private void compressBlock(boolean finish) throws IOException {
+    if (blockLength > 0) {
+      addOffset(channel.position());
+      blocksCount++;
+      checksum.update(block, 0, blockLength);
+      contentLength += blockLength;
+      deflater.setInput(block, 0, blockLength);
+    }
+    if (finish) {
+      deflater.finish();
+      while (!deflater.finished()) {
+        writeCompressed(deflater.deflate(compressed));
+      }
+    } else {
+      int length;
+      do {
+        length = deflater.deflate(compressed, 0, compressed.length, Deflater.FULL_FLUSH);
+        writeCompressed(length);
+      } while (length == compressed.length);
+    }
+    blockLength = 0;
+  }
+
+  private void writeTrailer() throws IOException {
+    ByteBuffer trailer = ByteBuffer.allocate(GZIP_TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    trailer.putInt((int) checksum.getValue());
+    trailer.putInt((int) contentLength);
+    trailer.flip();
+    writeFully(trailer);
+  }
+
+  private void addOffset(long offset) {
+    if (blocksCount == offsets.length) {
+      offsets = Arrays.copyOf(offsets, offsets.length * 2);
+    }
+    offsets[blocksCount] = offset;
+  }
+
+  private void writeCompressed(int length) throws IOException {
+    writeFully(ByteBuffer.wrap(compressed, 0, length));
+  }
+
+  private void writeFully(ByteBuffer data) throws IOException {
+    while (data.hasRemaining()) {
+      channel.write(data);
+    }
+  }
+}
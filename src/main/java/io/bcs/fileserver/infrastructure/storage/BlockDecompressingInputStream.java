@@ -0,0 +1,139 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bcs.fileserver.infrastructure.storage.SharedFileChannel.Lease;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * This class implements the input stream, reading the content region of the block compressed
+ * file. Only the blocks, touched by the region, are read and decompressed. The file is read by
+ * the absolute positions, so the channel may be shared between streams. The whole content stream
+ * may be switched to the compressed data before it is read, so the compressed file is read as is.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+class BlockDecompressingInputStream extends InputStream {
+  private final Lease lease;
+  private final BlockIndex index;
+  private final Inflater inflater = new Inflater(true);
+  private byte[] block = new byte[0];
+  private byte[] compressed = new byte[0];
+  private int blockPosition = 0;
+  private int blockLimit = 0;
+  private long position;
+  private long remaining;
+  private InputStream encodedStream;
+
+  /**
+   * Create the block decompressing input stream.
+   *
+   * @param lease  The compressed file channel lease
+   * @param index  The compressed file block index
+   * @param offset The content region offset
+   * @param length The content region length
+   */
+  BlockDecompressingInputStream(Lease lease, BlockIndex index, Long offset, Long length) {
+    super();
+    this.lease = lease;
+    this.index = index;
+    this.position = offset;
+    this.remaining = length;
+  }
+
+  /**
+   * Get the compressed file length.
+   *
+   * @return The compressed file length
+   * @throws IOException Throws if the file size couldn't be obtained
+   */
+  long getEncodedLength() throws IOException {
+    return lease.getChannel().size();
+  }
+
+  /**
+   * Switch the stream to the compressed data, so the whole compressed file is read.
+   *
+   * @throws IOException Throws if the file size couldn't be obtained
+   */
+  void switchToEncoded() throws IOException {
+    this.encodedStream = new FileRegionInputStream(lease, 0L, getEncodedLength());
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] data = new byte[1];
+    return read(data, 0, 1) < 0 ? -1 : data[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    if (encodedStream != null) {
+      return encodedStream.read(buffer, offset, length);
+    }
+    if (remaining <= 0) {
+      return -1;
+    }
+    if (blockPosition == blockLimit) {
+      decompressBlock(index.getBlockOf(position));
+      blockPosition = (int) (position % index.getBlockSize());
+    }
+    int portion = (int) Math.min(Math.min(length, blockLimit - blockPosition), remaining);
+    System.arraycopy(block, blockPosition, buffer, offset, portion);
+    blockPosition += portion;
+    position += portion;
+    remaining -= portion;
+    return portion;
+  }
+
+  @Override
+  public int available() {
+    return encodedStream == null ? blockLimit - blockPosition : 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    inflater.end();
+    lease.close();
+  }
+
+  private void decompressBlock(int blockNumber) throws IOException {
+    int compressedLength =
+        (int) (index.getBlockEnd(blockNumber) - index.getBlockStart(blockNumber));
+    if (compressed.length < compressedLength) {
+      compressed = new byte[compressedLength];
+    }
+    readFully(index.getBlockStart(blockNumber), compressedLength);
+    int blockLength = index.getBlockLength(blockNumber);
+    if (block.length < blockLength) {
+      block = new byte[index.getBlockSize()];
+    }
+    inflater.reset();
+    inflater.setInput(compressed, 0, compressedLength);
+    try {
+      int decompressed = 0;
+      while (decompressed < blockLength) {
+        int portion = inflater.inflate(block, decompressed, blockLength - decompressed);
+        if (portion == 0 && (inflater.finished() || inflater.needsInput())) {
+          throw new IOException("The compressed block is corrupted");
+        }
+        decompressed += portion;
+      }
+    } catch (DataFormatException error) {
+      throw new IOException(error);
+    }
+    blockLimit = blockLength;
+  }
+
+  private void readFully(long offset, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(compressed, 0, length);
+    while (buffer.hasRemaining()) {
+      if (lease.getChannel().read(buffer, offset + buffer.position()) < 0) {
+        throw new IOException("The compressed block is truncated");
+      }
+    }
+  }
+}
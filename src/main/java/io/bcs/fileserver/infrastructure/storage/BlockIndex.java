@@ -0,0 +1,132 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import lombok.Getter;
+
+/**
+ * This class represents the index of the independently compressed blocks of the physical file.
+ * The content is split into the blocks of the same size, except the last one, and the index keeps
+ * the compressed data offset of every block, followed by the compressed data end offset, so any
+ * content position is resolved to the block without reading the other blocks.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+final class BlockIndex {
+  private static final String INDEX_FILE_SUFFIX = ".blocks";
+  private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+  @Getter
+  private final int blockSize;
+  @Getter
+  private final long contentLength;
+  private final long[] offsets;
+
+  /**
+   * Create the block index.
+   *
+   * @param blockSize     The content block size
+   * @param contentLength The whole content length
+   * @param offsets       The compressed blocks offsets, followed by the compressed data end
+   */
+  BlockIndex(int blockSize, long contentLength, long[] offsets) {
+    super();
+    this.blockSize = blockSize;
+    this.contentLength = contentLength;
+    this.offsets = offsets;
+  }
+
+  /**
+   * Get the index file path of the compressed file.
+   *
+   * @param dataPath The compressed data file path
+   * @return The index file path
+   */
+  static Path getIndexPath(Path dataPath) {
+    return dataPath.resolveSibling(dataPath.getFileName() + INDEX_FILE_SUFFIX);
+  }
+
+  /**
+   * Check that the path is the block index path or the temporary block index path.
+   *
+   * @param path The checked path
+   * @return True if the path belongs to the block index
+   */
+  static boolean isIndexPath(Path path) {
+    String fileName = path.getFileName().toString();
+    return fileName.endsWith(INDEX_FILE_SUFFIX)
+        || fileName.endsWith(INDEX_FILE_SUFFIX + TEMPORARY_FILE_SUFFIX);
+  }
+
+  /**
+   * Read the block index.
+   *
+   * @param indexPath The index file path
+   * @return The block index if the index file exists
+   * @throws IOException Throws if the index couldn't be read
+   */
+  static Optional<BlockIndex> read(Path indexPath) throws IOException {
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+      int blockSize = input.readInt();
+      long contentLength = input.readLong();
+      long[] offsets = new long[input.readInt() + 1];
+      for (int i = 0; i < offsets.length; i++) {
+        offsets[i] = input.readLong();
+      }
+      return Optional.of(new BlockIndex(blockSize, contentLength, offsets));
+    } catch (NoSuchFileException error) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Write the block index. The index is written to the temporary file, which replaces the index
+   * file at once, so the readers never see the partially written index.
+   *
+   * @param indexPath The index file path
+   * @throws IOException Throws if the index couldn't be written
+   */
+  void write(Path indexPath) throws IOException {
+    Path temporaryPath = indexPath.resolveSibling(indexPath.getFileName() + TEMPORARY_FILE_SUFFIX);
+    try (DataOutputStream output =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+      output.writeInt(blockSize);
+      output.writeLong(contentLength);
+      output.writeInt(getBlockCount());
+      for (long offset : offsets) {
+        output.writeLong(offset);
+      }
+    }
+    Files.move(temporaryPath, indexPath, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  int getBlockCount() {
+    return offsets.length - 1;
+  }
+
+  int getBlockOf(long position) {
+    return (int) (position / blockSize);
+  }
+
+  long getBlockStart(int block) {
+    return offsets[block];
+  }
+
+  long getBlockEnd(int block) {
+    return offsets[block + 1];
+  }
+
+  int getBlockLength(int block) {
+    return (int) Math.min(blockSize, contentLength - (long) block * blockSize);
+  }
+}
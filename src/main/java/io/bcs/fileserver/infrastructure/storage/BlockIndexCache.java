@@ -0,0 +1,105 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * This class keeps the parsed block indexes of the physical files, so the index isn't read on
+ * every request. The absence of the index is kept as well, because most of the files aren't
+ * compressed. The least recently used indexes are evicted, when the cache size is exceeded. The
+ * index is invalidated, when the file is rewritten or removed. The index, which has been read
+ * while the cache has been invalidated, isn't kept, because it may be already stale.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class BlockIndexCache {
+  private static final int DEFAULT_MAX_SIZE = 4096;
+
+  private final Map<ContentLocatorKey, Optional<BlockIndex>> indexes;
+  private long generation = 0L;
+
+  /**
+   * Create the block index cache of the default size.
+   */
+  public BlockIndexCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Create the block index cache.
+   *
+   * @param maxSize The max cached indexes count
+   */
+  public BlockIndexCache(int maxSize) {
+    super();
+    this.indexes = new LinkedHashMap<ContentLocatorKey, Optional<BlockIndex>>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<ContentLocatorKey, Optional<BlockIndex>> e) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * Get the block index of the content, reading it by the loader, if it isn't cached yet.
+   *
+   * @param contentLocator The content locator
+   * @param loader         The block index loader
+   * @return The block index if the content is compressed
+   * @throws IOException Throws if the index couldn't be read
+   */
+  Optional<BlockIndex> getIndex(ContentLocator contentLocator, IndexLoader loader)
+      throws IOException {
+    ContentLocatorKey key = new ContentLocatorKey(contentLocator);
+    long loadGeneration;
+    synchronized (indexes) {
+      Optional<BlockIndex> index = indexes.get(key);
+      if (index != null) {
+        return index;
+      }
+      loadGeneration = generation;
+    }
+    Optional<BlockIndex> index = loader.load();
+    synchronized (indexes) {
+      if (loadGeneration == generation) {
+        indexes.put(key, index);
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Invalidate the cached block index of the content.
+   *
+   * @param contentLocator The content locator
+   */
+  public void invalidate(ContentLocator contentLocator) {
+    synchronized (indexes) {
+      generation++;
+      indexes.remove(new ContentLocatorKey(contentLocator));
+    }
+  }
+
+  /**
+   * This interface describes the block index loader.
+   *
+   * @author Dmitry Mikhaylenko
+   *
+   */
+  @FunctionalInterface
+  interface IndexLoader {
+    /**
+     * Read the block index.
+     *
+     * @return The block index if it exists
+     * @throws IOException Throws if the index couldn't be read
+     */
+    Optional<BlockIndex> load() throws IOException;
+  }
+}
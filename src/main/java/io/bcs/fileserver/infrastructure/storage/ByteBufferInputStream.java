@@ -0,0 +1,51 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * This class implements the input stream, reading the byte buffer content.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+class ByteBufferInputStream extends InputStream {
+  private final ByteBuffer buffer;
+
+  /**
+   * Create the byte buffer input stream.
+   *
+   * @param buffer The byte buffer, which remaining content is read
+   */
+  ByteBufferInputStream(ByteBuffer buffer) {
+    super();
+    this.buffer = buffer;
+  }
+
+  @Override
+  public int read() {
+    return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+  }
+
+  @Override
+  public int read(byte[] target, int offset, int length) {
+    if (!buffer.hasRemaining()) {
+      return -1;
+    }
+    int portion = Math.min(length, buffer.remaining());
+    buffer.get(target, offset, portion);
+    return portion;
+  }
+
+  @Override
+  public long skip(long count) {
+    int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+    buffer.position(buffer.position() + skipped);
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return buffer.remaining();
+  }
+}
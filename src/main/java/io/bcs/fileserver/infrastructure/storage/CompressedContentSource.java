@@ -0,0 +1,49 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bce.interaction.streaming.binary.InputStreamSource;
+import java.io.IOException;
+
+/**
+ * This class implements the binary source, reading the whole content of the block compressed
+ * file. The content is decompressed by default, but the source may be switched to the compressed
+ * data, which is the valid gzip stream.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+class CompressedContentSource extends InputStreamSource implements EncodedContent {
+  private static final String GZIP_ENCODING = "gzip";
+
+  private final BlockDecompressingInputStream inputStream;
+
+  /**
+   * Create the compressed content source.
+   *
+   * @param inputStream The block decompressing input stream
+   * @param bufferSize  The read buffer size
+   */
+  CompressedContentSource(BlockDecompressingInputStream inputStream, Integer bufferSize) {
+    super(inputStream, bufferSize);
+    this.inputStream = inputStream;
+  }
+
+  @Override
+  public String getContentEncoding() {
+    return GZIP_ENCODING;
+  }
+
+  @Override
+  public Long getEncodedLength() throws IOException {
+    return inputStream.getEncodedLength();
+  }
+
+  @Override
+  public void switchToEncoded() throws IOException {
+    inputStream.switchToEncoded();
+  }
+
+  @Override
+  public void close() throws IOException {
+    inputStream.close();
+  }
+}
@@ -0,0 +1,229 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bce.interaction.streaming.binary.BinaryDestination;
+import io.bce.interaction.streaming.binary.BinarySource;
+import io.bce.interaction.streaming.binary.InputStreamSource;
+import io.bce.interaction.streaming.binary.OutputStreamDestination;
+import io.bcs.fileserver.domain.model.storage.ContentFragment;
+import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptor;
+import io.bcs.fileserver.infrastructure.storage.SharedFileChannel.Lease;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * This class is responsible for physical file management, which content may be compressed by the
+ * independent blocks of the fixed size. The content is read through the block index, if the index
+ * exists, and is read by the raw physical file otherwise, so the stored content is read correctly
+ * regardless of the file media type and of the current compression settings. The compressible
+ * settings decide only how the new content is written. The whole written content is compressed,
+ * so the range reads decompress the touched blocks only and the whole content may be sent
+ * compressed as is. The content, written by the fragments, can't be compressed, so it is stored
+ * raw without the block index. The disk space isn't allocated before the compressed content is
+ * written, because the compressed content length isn't known. The block index, or its absence, is
+ * read once and kept by the block index cache, until the file is rewritten or removed.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class CompressedPhysicalFile implements PhysicalFile {
+  private final FilesystemPhysicalFile rawFile;
+  private final boolean compressedWrite;
+  private final int blockSize;
+  private final BlockIndexCache indexCache;
+
+  private CompressedPhysicalFile(FilesystemPhysicalFile rawFile, boolean compressedWrite,
+      int blockSize, BlockIndexCache indexCache) {
+    super();
+    this.rawFile = rawFile;
+    this.compressedWrite = compressedWrite;
+    this.blockSize = blockSize;
+    this.indexCache = indexCache;
+  }
+
+  /**
+   * Create the physical files factory, reading the compressed content through the block index.
+   * The new content of the compressible media types is written compressed, the content of the
+   * other media types is written by the raw physical files.
+   *
+   * @param rawFiles     The raw physical files factory
+   * @param compressible The media types, which new content is compressed
+   * @param blockSize    The compressed block size
+   * @return The physical files factory
+   */
+  public static Factory factory(Factory rawFiles, CompressibleMediaTypes compressible,
+      int blockSize) {
+    return factory(rawFiles, compressible, blockSize, new BlockIndexCache());
+  }
+
+  /**
+   * Create the physical files factory, reading the compressed content through the block index,
+   * kept by the block index cache.
+   *
+   * @param rawFiles     The raw physical files factory
+   * @param compressible The media types, which new content is compressed
+   * @param blockSize    The compressed block size
+   * @param indexCache   The block index cache
+   * @return The physical files factory
+   */
+  public static Factory factory(Factory rawFiles, CompressibleMediaTypes compressible,
+      int blockSize, BlockIndexCache indexCache) {
+    return new Factory() {
+      @Override
+      public PhysicalFile create(LocalStorageDescriptor storage, ContentLocator contentLocator) {
+        return wrap(rawFiles.create(storage, contentLocator), false, blockSize, indexCache);
+      }
+
+      @Override
+      public PhysicalFile create(LocalStorageDescriptor storage, ContentLocator contentLocator,
+          String mediaType) {
+        return wrap(rawFiles.create(storage, contentLocator, mediaType),
+            compressible.isCompressible(mediaType), blockSize, indexCache);
+      }
+    };
+  }
+
+  private static PhysicalFile wrap(PhysicalFile rawFile, boolean compressedWrite, int blockSize,
+      BlockIndexCache indexCache) {
+    if (rawFile instanceof FilesystemPhysicalFile) {
+      return new CompressedPhysicalFile((FilesystemPhysicalFile) rawFile, compressedWrite,
+          blockSize, indexCache);
+    }
+    return rawFile;
+  }
+
+  @Override
+  public void create(Long contentLength) throws IOException {
+    deleteIndex();
+    if (!compressedWrite) {
+      rawFile.create(contentLength);
+      return;
+    }
+    rawFile.createDirectories();
+    rawFile.getPath().toFile().createNewFile();
+  }
+
+  @Override
+  public BinarySource openForRead(Long offset, Long limit, Integer bufferSize) throws IOException {
+    Optional<BlockIndex> index = readIndex();
+    if (!index.isPresent()) {
+      return rawFile.openForRead(offset, limit, bufferSize);
+    }
+    try (Lease lease = rawFile.leaseChannel()) {
+      return createSource(lease.getSharedChannel(), index.get(), offset, limit, bufferSize);
+    }
+  }
+
+  @Override
+  public List<BinarySource> openForRead(List<ContentFragment> fragments, Integer bufferSize)
+      throws IOException {
+    Optional<BlockIndex> index = readIndex();
+    if (!index.isPresent()) {
+      return rawFile.openForRead(fragments, bufferSize);
+    }
+    try (Lease lease = rawFile.leaseChannel()) {
+      List<BinarySource> sources = new ArrayList<>(fragments.size());
+      for (ContentFragment fragment : fragments) {
+        sources.add(createSource(lease.getSharedChannel(), index.get(), fragment.getOffset(),
+            fragment.getLength(), bufferSize));
+      }
+      return sources;
+    }
+  }
+
+  @Override
+  public InputStream openInputStream() throws IOException {
+    Optional<BlockIndex> index = readIndex();
+    if (!index.isPresent()) {
+      return rawFile.openInputStream();
+    }
+    try (Lease lease = rawFile.leaseChannel()) {
+      return new BlockDecompressingInputStream(lease.getSharedChannel().lease(), index.get(), 0L,
+          index.get().getContentLength());
+    }
+  }
+
+  @Override
+  public BinaryDestination openForWrite() throws IOException {
+    deleteIndex();
+    if (!compressedWrite) {
+      return rawFile.openForWrite();
+    }
+    FileChannel channel = FileChannel.open(rawFile.getPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    Runnable finishWrite = rawFile.startWrite();
+    try {
+      return new CompressedFileDestination(new BlockCompressingOutputStream(channel,
+          getIndexPath(), blockSize, () -> {
+            indexCache.invalidate(rawFile.getContentLocator());
+            finishWrite.run();
+          }));
+    } catch (IOException error) {
+      finishWrite.run();
+      channel.close();
+      throw error;
+    }
+  }
+
+  @Override
+  public BinaryDestination openForWrite(Long offset) throws IOException {
+    deleteIndex();
+    return rawFile.openForWrite(offset);
+  }
+
+  @Override
+  public void delete() {
+    indexCache.invalidate(rawFile.getContentLocator());
+    rawFile.delete();
+  }
+
+  private Path getIndexPath() {
+    return BlockIndex.getIndexPath(rawFile.getPath());
+  }
+
+  private void deleteIndex() throws IOException {
+    indexCache.invalidate(rawFile.getContentLocator());
+    Files.deleteIfExists(getIndexPath());
+  }
+
+  private Optional<BlockIndex> readIndex() throws IOException {
+    return indexCache.getIndex(rawFile.getContentLocator(), () -> {
+      Optional<BlockIndex> index = BlockIndex.read(getIndexPath());
+      if (!index.isPresent() && rawFile.relocate()) {
+        return BlockIndex.read(getIndexPath());
+      }
+      return index;
+    });
+  }
+
+  private BinarySource createSource(SharedFileChannel channel, BlockIndex index, Long offset,
+      Long length, Integer bufferSize) {
+    BlockDecompressingInputStream inputStream =
+        new BlockDecompressingInputStream(channel.lease(), index, offset, length);
+    if (offset == 0L && length == index.getContentLength()) {
+      return new CompressedContentSource(inputStream, bufferSize);
+    }
+    return new InputStreamSource(inputStream, length, bufferSize);
+  }
+
+  private static final class CompressedFileDestination extends OutputStreamDestination {
+    private final BlockCompressingOutputStream outputStream;
+
+    private CompressedFileDestination(BlockCompressingOutputStream outputStream) {
+      super(outputStream);
+      this.outputStream = outputStream;
+    }
+
+    @Override
+    public void close() throws IOException {
+      outputStream.close();
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * This class recognizes the media types, which content is compressed by the storage. The media
+ * types are configured by the comma separated list, where the subtype may be the "*" wildcard,
+ * matching any subtype of the type. The media type parameters are ignored.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class CompressibleMediaTypes {
+  private static final String ANY_SUBTYPE = "/*";
+
+  private final Collection<String> mediaTypes;
+
+  /**
+   * Create the compressible media types.
+   *
+   * @param mediaTypes The comma separated compressible media types
+   */
+  public CompressibleMediaTypes(String mediaTypes) {
+    super();
+    this.mediaTypes = Arrays.stream(mediaTypes.split(",")).map(CompressibleMediaTypes::normalize)
+        .filter(mediaType -> !mediaType.isEmpty()).collect(Collectors.toSet());
+  }
+
+  /**
+   * Create the compressible media types, which don't match any media type.
+   *
+   * @return The compressible media types
+   */
+  public static CompressibleMediaTypes none() {
+    return new CompressibleMediaTypes("");
+  }
+
+  /**
+   * Check that the media type content should be compressed.
+   *
+   * @param mediaType The media type
+   * @return True if the media type is compressible
+   */
+  public boolean isCompressible(String mediaType) {
+    String normalizedMediaType = normalize(mediaType);
+    int subtypeSeparator = normalizedMediaType.indexOf('/');
+    return mediaTypes.contains(normalizedMediaType) || (subtypeSeparator > 0 && mediaTypes
+        .contains(normalizedMediaType.substring(0, subtypeSeparator) + ANY_SUBTYPE));
+  }
+
+  private static String normalize(String mediaType) {
+    int parametersSeparator = mediaType.indexOf(';');
+    String essence =
+        parametersSeparator < 0 ? mediaType : mediaType.substring(0, parametersSeparator);
+    return essence.trim().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,142 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+import javax.sql.DataSource;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+
+/**
+ * This class keeps the content-addressed blobs, shared by the files with the same content. The
+ * blob is identified by the content digest and counts the files, referring to it, so the blob
+ * file is removed only when the last reference is released. The blob row is locked for the
+ * reference counting time, so the blob can't be removed while the new reference is being added.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@RequiredArgsConstructor
+public class ContentBlobsRegistry {
+  private static final String INSERT_BLOB_QUERY =
+      "INSERT IGNORE INTO CONTENT_BLOBS(CONTENT_DIGEST, CONTENT_LENGTH, STORAGE_NAME, "
+          + "CONTENT_FILE_NAME, REFERENCES_COUNT) VALUES (?, ?, ?, ?, 0)";
+  private static final String SELECT_BLOB_QUERY =
+      "SELECT CONTENT_LENGTH, STORAGE_NAME, CONTENT_FILE_NAME FROM CONTENT_BLOBS "
+          + "WHERE CONTENT_DIGEST = ? FOR UPDATE";
+  private static final String ADD_REFERENCE_QUERY =
+      "UPDATE CONTENT_BLOBS SET REFERENCES_COUNT = REFERENCES_COUNT + 1 "
+          + "WHERE CONTENT_DIGEST = ?";
+  private static final String REMOVE_REFERENCE_QUERY =
+      "UPDATE CONTENT_BLOBS SET REFERENCES_COUNT = REFERENCES_COUNT - 1 "
+          + "WHERE CONTENT_DIGEST = ? AND STORAGE_NAME = ? AND CONTENT_FILE_NAME = ?";
+  private static final String DELETE_BLOB_QUERY =
+      "DELETE FROM CONTENT_BLOBS WHERE CONTENT_DIGEST = ? AND REFERENCES_COUNT <= 0";
+
+  private final DataSource dataSource;
+
+  /**
+   * Add the reference to the blob with the uploaded content. The uploaded content becomes the
+   * blob, if there isn't the blob with the same digest yet.
+   *
+   * @param contentDigest The uploaded content digest
+   * @param contentLength The uploaded content length
+   * @param uploaded      The uploaded content locator
+   * @return The referred blob locator. The empty value means that the blob with the same digest
+   *         has another length, so the uploaded content can't be shared.
+   */
+  @SneakyThrows
+  public Optional<ContentLocator> addReference(String contentDigest, Long contentLength,
+      ContentLocator uploaded) {
+    try (Connection connection = dataSource.getConnection()) {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try {
+        Optional<ContentLocator> blob = Optional.empty();
+        ResultSet resultSet;
+        do {
+          insertBlob(connection, contentDigest, contentLength, uploaded);
+          resultSet = selectBlob(connection, contentDigest);
+        } while (!resultSet.next());
+        if (resultSet.getLong("CONTENT_LENGTH") == contentLength) {
+          executeForDigest(connection, ADD_REFERENCE_QUERY, contentDigest);
+          blob = Optional.of(new BlobLocator(resultSet.getString("STORAGE_NAME"),
+              resultSet.getString("CONTENT_FILE_NAME")));
+        }
+        connection.commit();
+        return blob;
+      } catch (SQLException error) {
+        connection.rollback();
+        throw error;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+    }
+  }
+
+  /**
+   * Remove the reference to the blob.
+   *
+   * @param contentDigest The blob content digest
+   * @param blob          The blob locator
+   * @return True if the last reference has been removed, so the blob file should be deleted
+   */
+  @SneakyThrows
+  public boolean removeReference(String contentDigest, ContentLocator blob) {
+    try (Connection connection = dataSource.getConnection()) {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try {
+        PreparedStatement statement = connection.prepareStatement(REMOVE_REFERENCE_QUERY);
+        statement.setString(1, contentDigest);
+        statement.setString(2, blob.getStorageName());
+        statement.setString(3, blob.getStorageFileName());
+        boolean lastReference = statement.executeUpdate() == 0
+            || executeForDigest(connection, DELETE_BLOB_QUERY, contentDigest) > 0;
+        connection.commit();
+        return lastReference;
+      } catch (SQLException error) {
+        connection.rollback();
+        throw error;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+    }
+  }
+
+  private void insertBlob(Connection connection, String contentDigest, Long contentLength,
+      ContentLocator uploaded) throws SQLException {
+    PreparedStatement statement = connection.prepareStatement(INSERT_BLOB_QUERY);
+    statement.setString(1, contentDigest);
+    statement.setLong(2, contentLength);
+    statement.setString(3, uploaded.getStorageName());
+    statement.setString(4, uploaded.getStorageFileName());
+    statement.executeUpdate();
+  }
+
+  private ResultSet selectBlob(Connection connection, String contentDigest) throws SQLException {
+    PreparedStatement statement = connection.prepareStatement(SELECT_BLOB_QUERY);
+    statement.setString(1, contentDigest);
+    return statement.executeQuery();
+  }
+
+  private int executeForDigest(Connection connection, String query, String contentDigest)
+      throws SQLException {
+    PreparedStatement statement = connection.prepareStatement(query);
+    statement.setString(1, contentDigest);
+    return statement.executeUpdate();
+  }
+
+  @Getter
+  @EqualsAndHashCode
+  @RequiredArgsConstructor
+  private static final class BlobLocator implements ContentLocator {
+    private final String storageName;
+    private final String storageFileName;
+  }
+}
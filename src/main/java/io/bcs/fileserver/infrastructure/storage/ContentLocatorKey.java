@@ -0,0 +1,28 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import lombok.EqualsAndHashCode;
+
+/**
+ * This class represents the content locator cache key, which doesn't depend on the locator
+ * implementation.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@EqualsAndHashCode
+class ContentLocatorKey {
+  private final String storageName;
+  private final String storageFileName;
+
+  /**
+   * Create the content locator key.
+   *
+   * @param contentLocator The content locator
+   */
+  ContentLocatorKey(ContentLocator contentLocator) {
+    super();
+    this.storageName = contentLocator.getStorageName();
+    this.storageFileName = contentLocator.getStorageFileName();
+  }
+}
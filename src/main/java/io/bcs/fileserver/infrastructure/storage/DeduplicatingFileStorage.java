@@ -0,0 +1,134 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bce.interaction.streaming.Destination;
+import io.bce.interaction.streaming.Source;
+import io.bce.interaction.streaming.binary.BinaryChunk;
+import io.bce.logging.ApplicationLogger;
+import io.bce.logging.Loggers;
+import io.bce.text.TextTemplates;
+import io.bcs.fileserver.domain.errors.FileStorageException;
+import io.bcs.fileserver.domain.model.file.File;
+import io.bcs.fileserver.domain.model.file.FileContentLocator;
+import io.bcs.fileserver.domain.model.storage.ContentFragment;
+import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import io.bcs.fileserver.domain.model.storage.FileStorage;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This class implements the file storage, which shares the same content between the files. The
+ * uploaded file is linked to the content-addressed blob with the same digest, the uploaded
+ * duplicate is removed and its space allocation is released. The blob file is deleted, when the
+ * last file, referring to it, is deleted. The files without the content digest are stored as is.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@RequiredArgsConstructor
+public class DeduplicatingFileStorage implements FileStorage {
+  private static final ApplicationLogger log =
+      Loggers.applicationLogger(DeduplicatingFileStorage.class);
+
+  private final FileStorage delegate;
+  private final ContentBlobsRegistry blobsRegistry;
+  private final FilesystemSpaceManager filesystemSpaceManager;
+
+  @Override
+  public ContentLocator create(File file, Long contentLength) throws FileStorageException {
+    return delegate.create(file, contentLength);
+  }
+
+  @Override
+  public Destination<BinaryChunk> getAccessOnWrite(File file) throws FileStorageException {
+    return delegate.getAccessOnWrite(file);
+  }
+
+  @Override
+  public Destination<BinaryChunk> getAccessOnWrite(File file, ContentFragment fragment)
+      throws FileStorageException {
+    return delegate.getAccessOnWrite(file, fragment);
+  }
+
+  @Override
+  public Source<BinaryChunk> getAccessOnRead(File file, ContentFragment fragment)
+      throws FileStorageException {
+    return delegate.getAccessOnRead(file, fragment);
+  }
+
+  @Override
+  public List<Source<BinaryChunk>> getAccessOnRead(File file, List<ContentFragment> fragments)
+      throws FileStorageException {
+    return delegate.getAccessOnRead(file, fragments);
+  }
+
+  @Override
+  public void completeUpload(File file) throws FileStorageException {
+    Optional<String> contentDigest = file.getContentDigest();
+    if (!contentDigest.isPresent()) {
+      return;
+    }
+    ContentLocator uploaded = new FileContentLocator(file);
+    Optional<ContentLocator> blob =
+        blobsRegistry.addReference(contentDigest.get(), file.getTotalLength(), uploaded);
+    if (!blob.isPresent()) {
+      return;
+    }
+    if (!isSameContent(uploaded, blob.get())) {
+      removeDuplicate(file, uploaded);
+    }
+    file.linkContent(blob.get().getStorageName(), blob.get().getStorageFileName());
+  }
+
+  @Override
+  public Optional<String> digestContent(File file) throws FileStorageException {
+    return delegate.digestContent(file);
+  }
+
+  @Override
+  public void delete(File file) throws FileStorageException {
+    Optional<String> contentDigest = file.getContentDigest();
+    Optional<String> contentFileName = file.getContentFileName();
+    if (contentDigest.isPresent() && contentFileName.isPresent()
+        && !blobsRegistry.removeReference(contentDigest.get(), new BlobReference(file))) {
+      return;
+    }
+    delegate.delete(file);
+  }
+
+  private void removeDuplicate(File file, ContentLocator uploaded) {
+    try {
+      delegate.delete(file);
+      filesystemSpaceManager.releaseSpace(uploaded.getStorageName(),
+          uploaded.getStorageFileName());
+    } catch (RuntimeException error) {
+      log.warn(TextTemplates
+          .createBy("The duplicate content {{storageFileName}} hasn't been removed.")
+          .withParameter("storageFileName", uploaded.getStorageFileName()));
+    }
+  }
+
+  private static boolean isSameContent(ContentLocator uploaded, ContentLocator blob) {
+    return uploaded.getStorageName().equals(blob.getStorageName())
+        && uploaded.getStorageFileName().equals(blob.getStorageFileName());
+  }
+
+  private static final class BlobReference implements ContentLocator {
+    private final File file;
+
+    private BlobReference(File file) {
+      super();
+      this.file = file;
+    }
+
+    @Override
+    public String getStorageName() {
+      return file.getStorageName().get();
+    }
+
+    @Override
+    public String getStorageFileName() {
+      return file.getContentFileName().get();
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptor;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+/**
+ * This class describes the directory layout of the local storage files. The flat layout keeps all
+ * files directly in the storage base directory. The hashed layout fans the files out into the
+ * nested directories, named by the hex characters of the file name hash, so the directories stay
+ * small and the file lookups, creations and deletions don't slow down with the files count.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@Getter
+@EqualsAndHashCode
+public final class DirectoryLayout {
+  private static final String HASH_ALGORITHM = "SHA-256";
+  private static final int MAX_HASH_LENGTH = 64;
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final int depth;
+  private final int width;
+
+  /**
+   * Create the directory layout.
+   *
+   * @param depth The nested directories levels count. The zero depth means the flat layout
+   * @param width The hex characters count of the directory name on every level
+   */
+  public DirectoryLayout(int depth, int width) {
+    super();
+    if (depth < 0 || width < 1 || depth * width > MAX_HASH_LENGTH) {
+      throw new IllegalArgumentException(String
+          .format("The directory layout depth %d and width %d aren't supported", depth, width));
+    }
+    this.depth = depth;
+    this.width = width;
+  }
+
+  /**
+   * Get the directory layout of the local storage.
+   *
+   * @param storage The local storage descriptor
+   * @return The directory layout
+   */
+  public static DirectoryLayout of(LocalStorageDescriptor storage) {
+    return new DirectoryLayout(storage.getDirectoryDepth(), storage.getDirectoryWidth());
+  }
+
+  /**
+   * Check that the layout keeps the files directly in the base directory.
+   *
+   * @return True if the layout is flat
+   */
+  public boolean isFlat() {
+    return depth == 0;
+  }
+
+  /**
+   * Resolve the file path inside the storage base directory.
+   *
+   * @param baseDirectory   The storage base directory
+   * @param storageFileName The storage file name
+   * @return The file path
+   */
+  public Path resolve(Path baseDirectory, String storageFileName) {
+    Path directory = baseDirectory;
+    if (!isFlat()) {
+      String hash = hash(storageFileName);
+      for (int level = 0; level < depth; level++) {
+        directory = directory.resolve(hash.substring(level * width, (level + 1) * width));
+      }
+    }
+    return directory.resolve(storageFileName);
+  }
+
+  @SneakyThrows(NoSuchAlgorithmException.class)
+  private String hash(String storageFileName) {
+    byte[] digest = MessageDigest.getInstance(HASH_ALGORITHM)
+        .digest(storageFileName.getBytes(StandardCharsets.UTF_8));
+    char[] hex = new char[digest.length * 2];
+    for (int i = 0; i < digest.length; i++) {
+      hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0x0F];
+      hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0x0F];
+    }
+    return new String(hex);
+  }
+}
@@ -0,0 +1,182 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bce.logging.ApplicationLogger;
+import io.bce.logging.Loggers;
+import io.bce.text.TextTemplates;
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptor;
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptorRepository;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This class relocates the files, stored directly in the base directory, to the hashed directory
+ * layout of the local storage. The file locators are resolved to the file paths by the physical
+ * files, which still find the not relocated files in the base directory, so the files are
+ * relocated online, file by file. The files, modified during the grace period, may be written at
+ * the moment, so they are relocated by the next migration. The block index of the compressed file
+ * is copied before the file is moved and removed after, so the file is never found without its
+ * index. The base directory, shared by the storages with different layouts, isn't migrated,
+ * because the file storage can't be recognized by the file name. The storages, which base
+ * directory has no file left to relocate, are marked migrated by the layout marker, so their files
+ * aren't looked for in the base directory anymore. The files aren't relocated between the hashed
+ * layouts, so the base directory, which marker differs from the configured layout, is skipped.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@RequiredArgsConstructor
+public class DirectoryLayoutMigrator {
+  private static final ApplicationLogger log =
+      Loggers.applicationLogger(DirectoryLayoutMigrator.class);
+
+  private final LocalStorageDescriptorRepository localStorageDescriptorRepository;
+  private final Long gracePeriod;
+  private final LayoutMigrationState migrationState;
+
+  /**
+   * Relocate the files of the local storages with the hashed directory layout.
+   *
+   * @return The relocated files count
+   */
+  public long migrate() {
+    Map<Path, List<LocalStorageDescriptor>> baseDirectoryStorages =
+        localStorageDescriptorRepository.findAll().stream()
+            .collect(Collectors.groupingBy(this::getBaseDirectory));
+    long relocated = 0L;
+    for (Map.Entry<Path, List<LocalStorageDescriptor>> entry : baseDirectoryStorages.entrySet()) {
+      Set<DirectoryLayout> layouts = entry.getValue().stream().map(DirectoryLayout::of)
+          .collect(Collectors.toSet());
+      if (layouts.size() > 1) {
+        log.warn(TextTemplates.createBy("The {{baseDirectory}} directory isn't migrated, because "
+            + "it is shared by the storages with the different directory layouts.")
+            .withParameter("baseDirectory", entry.getKey()));
+        continue;
+      }
+      DirectoryLayout layout = layouts.iterator().next();
+      if (!isMarkedBy(entry.getKey(), layout)) {
+        log.warn(TextTemplates.createBy("The {{baseDirectory}} directory isn't migrated, because "
+            + "its files are stored in the other directory layout.")
+            .withParameter("baseDirectory", entry.getKey()));
+        continue;
+      }
+      if (!layout.isFlat()) {
+        relocated += migrate(entry.getKey(), layout, entry.getValue());
+      }
+    }
+    if (relocated > 0) {
+      log.info(TextTemplates
+          .createBy("{{relocated}} files have been relocated to the hashed directory layout.")
+          .withParameter("relocated", relocated));
+    }
+    return relocated;
+  }
+
+  private long migrate(Path baseDirectory, DirectoryLayout layout,
+      List<LocalStorageDescriptor> storages) {
+    long modifiedBefore = System.currentTimeMillis() - gracePeriod;
+    long relocated = 0L;
+    boolean finished = true;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(baseDirectory)) {
+      for (Path file : files) {
+        if (!isStoredFile(file)) {
+          continue;
+        }
+        if (relocate(baseDirectory, layout, file, modifiedBefore)) {
+          relocated++;
+        } else {
+          finished = false;
+        }
+      }
+    } catch (IOException error) {
+      finished = false;
+      log.warn(TextTemplates.createBy("The {{baseDirectory}} directory couldn't be migrated: "
+          + "{{error}}").withParameter("baseDirectory", baseDirectory)
+          .withParameter("error", error.getMessage()));
+    }
+    if (finished) {
+      markMigrated(baseDirectory, layout, storages);
+    }
+    return relocated;
+  }
+
+  private boolean isMarkedBy(Path baseDirectory, DirectoryLayout layout) {
+    try {
+      return migrationState.readLayout(baseDirectory).map(layout::equals).orElse(true);
+    } catch (IOException error) {
+      log.warn(TextTemplates.createBy("The {{baseDirectory}} directory layout marker couldn't be "
+          + "read: {{error}}").withParameter("baseDirectory", baseDirectory)
+          .withParameter("error", error.getMessage()));
+      return false;
+    }
+  }
+
+  private void markMigrated(Path baseDirectory, DirectoryLayout layout,
+      List<LocalStorageDescriptor> storages) {
+    try {
+      for (LocalStorageDescriptor storage : storages) {
+        migrationState.markMigrated(storage.getStorageName(), baseDirectory, layout);
+      }
+    } catch (IOException error) {
+      log.warn(TextTemplates.createBy("The {{baseDirectory}} directory couldn't be marked "
+          + "migrated: {{error}}").withParameter("baseDirectory", baseDirectory)
+          .withParameter("error", error.getMessage()));
+    }
+  }
+
+  private boolean relocate(Path baseDirectory, DirectoryLayout layout, Path file,
+      long modifiedBefore) throws IOException {
+    try {
+      if (!isRelocatable(file, modifiedBefore)) {
+        return false;
+      }
+      Path target = layout.resolve(baseDirectory, file.getFileName().toString());
+      Files.createDirectories(target.getParent());
+      Path index = BlockIndex.getIndexPath(file);
+      boolean indexed = Files.exists(index);
+      if (indexed) {
+        Files.copy(index, BlockIndex.getIndexPath(target), StandardCopyOption.REPLACE_EXISTING);
+      }
+      moveFile(file, target, indexed);
+      if (indexed) {
+        Files.deleteIfExists(index);
+      }
+      return true;
+    } catch (NoSuchFileException error) {
+      return false;
+    }
+  }
+
+  private boolean isStoredFile(Path file) {
+    return Files.isRegularFile(file) && !BlockIndex.isIndexPath(file)
+        && !LayoutMigrationState.isMarkerPath(file);
+  }
+
+  private boolean isRelocatable(Path file, long modifiedBefore) throws IOException {
+    return Files.getLastModifiedTime(file).toMillis() < modifiedBefore;
+  }
+
+  private void moveFile(Path file, Path target, boolean indexed) throws IOException {
+    try {
+      Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (NoSuchFileException error) {
+      if (indexed) {
+        Files.deleteIfExists(BlockIndex.getIndexPath(target));
+      }
+      throw error;
+    }
+  }
+
+  private Path getBaseDirectory(LocalStorageDescriptor storage) {
+    return Paths.get(storage.getBaseDirectory()).toAbsolutePath().normalize();
+  }
+}
@@ -0,0 +1,35 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import java.io.IOException;
+
+/**
+ * This interface describes the content source, which is able to transfer the content, encoded by
+ * the storage, as is. The consumer, accepting the content encoding, switches the source to the
+ * encoded content before it is read, so the content is neither decoded nor encoded again.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public interface EncodedContent {
+  /**
+   * Get the content encoding name.
+   *
+   * @return The content encoding, as it is named by the HTTP "Content-Encoding" header
+   */
+  String getContentEncoding();
+
+  /**
+   * Get the encoded content length.
+   *
+   * @return The encoded content length
+   * @throws IOException Throws if the encoded content length couldn't be obtained
+   */
+  Long getEncodedLength() throws IOException;
+
+  /**
+   * Switch the source to the encoded content.
+   *
+   * @throws IOException Throws if the encoded content couldn't be accessed
+   */
+  void switchToEncoded() throws IOException;
+}
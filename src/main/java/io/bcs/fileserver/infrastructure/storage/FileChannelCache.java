@@ -0,0 +1,162 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import io.bcs.fileserver.infrastructure.storage.SharedFileChannel.Lease;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class implements the cache of the opened read-only file channels. The cache holds its own
+ * lease on every cached channel, so the channel stays opened between requests and is closed only
+ * after it is evicted and all readers have released their leases. The channels are evicted when
+ * the cache size is exceeded (the least recently used first), when they haven't been accessed
+ * during the idle timeout or when the file is removed.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class FileChannelCache {
+  private final int maxSize;
+  private final long idleTimeout;
+  private final Map<ContentLocatorKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long lastIdleEvictionTime = System.currentTimeMillis();
+
+  /**
+   * Create the file channel cache.
+   *
+   * @param maxSize     The max cached channels count. Zero value disables caching.
+   * @param idleTimeout The idle timeout in milliseconds
+   */
+  public FileChannelCache(int maxSize, long idleTimeout) {
+    super();
+    this.maxSize = maxSize;
+    this.idleTimeout = idleTimeout;
+  }
+
+  /**
+   * Create the cache, which doesn't keep channels and opens the new one on every access.
+   *
+   * @return The disabled file channel cache
+   */
+  public static FileChannelCache disabled() {
+    return new FileChannelCache(0, 0L);
+  }
+
+  /**
+   * Lease the read-only file channel. The lease must be closed by the caller.
+   *
+   * @param contentLocator The content locator
+   * @param path           The physical file path
+   * @return The file channel lease
+   * @throws IOException Throws if the file couldn't be opened
+   */
+  public Lease lease(ContentLocator contentLocator, Path path) throws IOException {
+    if (maxSize <= 0) {
+      return openChannel(path).lease();
+    }
+
+    ContentLocatorKey key = new ContentLocatorKey(contentLocator);
+    synchronized (entries) {
+      evictIdleEntries();
+      CacheEntry entry = entries.get(key);
+      if (entry == null || !entry.isOpen()) {
+        entry = new CacheEntry(openChannel(path));
+        entries.put(key, entry);
+        evictExceededEntries();
+      }
+      return entry.lease();
+    }
+  }
+
+  /**
+   * Invalidate the cached channel of the content. The readers, which are already reading the
+   * content, keep their leases.
+   *
+   * @param contentLocator The content locator
+   */
+  public void invalidate(ContentLocator contentLocator) {
+    CacheEntry entry;
+    synchronized (entries) {
+      entry = entries.remove(new ContentLocatorKey(contentLocator));
+    }
+    release(entry);
+  }
+
+  /**
+   * Evict all cached channels.
+   */
+  public void clear() {
+    List<CacheEntry> evicted;
+    synchronized (entries) {
+      evicted = new ArrayList<>(entries.values());
+      entries.clear();
+    }
+    evicted.forEach(this::release);
+  }
+
+  private void evictIdleEntries() {
+    long now = System.currentTimeMillis();
+    if (now - lastIdleEvictionTime < idleTimeout) {
+      return;
+    }
+    lastIdleEvictionTime = now;
+    Iterator<CacheEntry> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      CacheEntry entry = iterator.next();
+      if (now - entry.lastAccessTime >= idleTimeout) {
+        iterator.remove();
+        release(entry);
+      }
+    }
+  }
+
+  private void evictExceededEntries() {
+    Iterator<CacheEntry> iterator = entries.values().iterator();
+    while (entries.size() > maxSize && iterator.hasNext()) {
+      CacheEntry eldest = iterator.next();
+      iterator.remove();
+      release(eldest);
+    }
+  }
+
+  private void release(CacheEntry entry) {
+    if (entry != null) {
+      try {
+        entry.cacheLease.close();
+      } catch (IOException error) {
+        // The channel is not available anymore
+      }
+    }
+  }
+
+  private static SharedFileChannel openChannel(Path path) throws IOException {
+    return new SharedFileChannel(FileChannel.open(path, StandardOpenOption.READ));
+  }
+
+  private static class CacheEntry {
+    private final Lease cacheLease;
+    private long lastAccessTime;
+
+    public CacheEntry(SharedFileChannel channel) {
+      super();
+      this.cacheLease = channel.lease();
+      this.lastAccessTime = System.currentTimeMillis();
+    }
+
+    public boolean isOpen() {
+      return cacheLease.getSharedChannel().isOpen();
+    }
+
+    public Lease lease() {
+      this.lastAccessTime = System.currentTimeMillis();
+      return cacheLease.getSharedChannel().lease();
+    }
+  }
+}
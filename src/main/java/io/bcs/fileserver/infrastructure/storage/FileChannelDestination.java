@@ -0,0 +1,106 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bce.interaction.streaming.binary.OutputStreamDestination;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import lombok.Getter;
+
+/**
+ * This class implements the binary destination, writing the physical file through the file
+ * channel. It is used as the regular output stream destination by the streamer, but also exposes
+ * the channel to the consumers, which are able to write data directly. Because the file may be
+ * allocated before the content is written, the whole content destination cuts the file to the
+ * written content length on close. The fragment destinations keep the file length. The close
+ * listener is notified, when the channel is closed, so the finished writes are counted.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class FileChannelDestination extends OutputStreamDestination
+    implements WritableFileChannel {
+  @Getter
+  private final FileChannel channel;
+  private final boolean cutOnClose;
+  private final Runnable closeListener;
+
+  /**
+   * Create the whole content file channel destination.
+   *
+   * @param channel The file channel, opened for write
+   */
+  public FileChannelDestination(FileChannel channel) {
+    this(channel, true);
+  }
+
+  /**
+   * Create the file channel destination.
+   *
+   * @param channel    The file channel, opened for write
+   * @param cutOnClose The flag, cutting the file to the written content length on close
+   */
+  public FileChannelDestination(FileChannel channel, boolean cutOnClose) {
+    this(channel, cutOnClose, () -> {
+    });
+  }
+
+  /**
+   * Create the file channel destination, notifying the listener on close.
+   *
+   * @param channel       The file channel, opened for write
+   * @param cutOnClose    The flag, cutting the file to the written content length on close
+   * @param closeListener The close listener. It may be notified more than once.
+   */
+  public FileChannelDestination(FileChannel channel, boolean cutOnClose,
+      Runnable closeListener) {
+    super(new ChannelOutputStream(channel, cutOnClose, closeListener));
+    this.channel = channel;
+    this.cutOnClose = cutOnClose;
+    this.closeListener = closeListener;
+  }
+
+  @Override
+  public void close() throws IOException {
+    closeWrittenChannel(channel, cutOnClose, closeListener);
+  }
+
+  private static void closeWrittenChannel(FileChannel channel, boolean cutOnClose,
+      Runnable closeListener) throws IOException {
+    try {
+      if (cutOnClose && channel.isOpen()) {
+        channel.truncate(channel.position());
+      }
+    } finally {
+      try {
+        channel.close();
+      } finally {
+        closeListener.run();
+      }
+    }
+  }
+
+  private static final class ChannelOutputStream extends FilterOutputStream {
+    private final FileChannel channel;
+    private final boolean cutOnClose;
+    private final Runnable closeListener;
+
+    private ChannelOutputStream(FileChannel channel, boolean cutOnClose,
+        Runnable closeListener) {
+      super(Channels.newOutputStream(channel));
+      this.channel = channel;
+      this.cutOnClose = cutOnClose;
+      this.closeListener = closeListener;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+      out.write(data, offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+      closeWrittenChannel(channel, cutOnClose, closeListener);
+    }
+  }
+}
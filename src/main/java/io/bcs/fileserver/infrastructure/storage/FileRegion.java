@@ -0,0 +1,76 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This interface describes the region of a physical file, which could be transferred directly
+ * through the file channel, without copying content over the user space buffers.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public interface FileRegion extends Closeable {
+  /**
+   * Get the file channel.
+   *
+   * @return The file channel
+   */
+  FileChannel getChannel();
+
+  /**
+   * Get the region offset.
+   *
+   * @return The region offset
+   */
+  Long getOffset();
+
+  /**
+   * Get the region length.
+   *
+   * @return The region length
+   */
+  Long getLength();
+
+  /**
+   * Transfer the whole region to the target channel. The region is transferred by the kernel
+   * until the channel stops transferring, and the rest of the region is copied through the buffer,
+   * so the transfer never spins on the target, which hasn't accepted anything. The transfer is
+   * stopped at the file end.
+   *
+   * @param target The target channel
+   * @return The transferred bytes count
+   * @throws IOException Throws if something went wrong during transfer or if the target channel
+   *                     doesn't accept the content
+   */
+  default long transferTo(WritableByteChannel target) throws IOException {
+    FileChannel channel = getChannel();
+    long position = getOffset();
+    long remaining = getLength();
+    long transferred;
+    while (remaining > 0 && (transferred = channel.transferTo(position, remaining, target)) > 0) {
+      position += transferred;
+      remaining -= transferred;
+    }
+    if (remaining > 0) {
+      ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(64 * 1024, remaining));
+      int read;
+      while (remaining > 0 && (read = channel.read(buffer, position)) > 0) {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          if (target.write(buffer) <= 0) {
+            throw new IOException("The target channel doesn't accept the file region content");
+          }
+        }
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), remaining - read));
+        position += read;
+        remaining -= read;
+      }
+    }
+    return getLength() - remaining;
+  }
+}
@@ -0,0 +1,71 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bcs.fileserver.infrastructure.storage.SharedFileChannel.Lease;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * This class implements the input stream, reading the file region by the absolute positions, so
+ * that the channel position is never changed and the channel could be shared between streams.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+class FileRegionInputStream extends InputStream {
+  private final Lease lease;
+  private long position;
+  private long remaining;
+
+  /**
+   * Create the file region input stream.
+   *
+   * @param lease  The file channel lease
+   * @param offset The region offset
+   * @param length The region length
+   */
+  FileRegionInputStream(Lease lease, Long offset, Long length) {
+    super();
+    this.lease = lease;
+    this.position = offset;
+    this.remaining = length;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] data = new byte[1];
+    return read(data, 0, 1) < 0 ? -1 : data[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    if (remaining <= 0) {
+      return -1;
+    }
+    int portion = (int) Math.min(length, remaining);
+    int read = lease.getChannel().read(ByteBuffer.wrap(buffer, offset, portion), position);
+    if (read > 0) {
+      position += read;
+      remaining -= read;
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(long count) {
+    long skipped = Math.max(0, Math.min(count, remaining));
+    position += skipped;
+    remaining -= skipped;
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return (int) Math.min(Integer.MAX_VALUE, remaining);
+  }
+
+  @Override
+  public void close() throws IOException {
+    lease.close();
+  }
+}
@@ -0,0 +1,66 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bce.interaction.streaming.binary.InputStreamSource;
+import io.bcs.fileserver.infrastructure.storage.SharedFileChannel.Lease;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import lombok.Getter;
+
+/**
+ * This class implements the binary source, reading the physical file region. It streams content
+ * as the regular input stream source, but also exposes the file region, so that the consumer
+ * is able to transfer it through the file channel directly. The region is read by the absolute
+ * positions, so the same channel may be shared between several region sources.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class FileRegionSource extends InputStreamSource implements FileRegion {
+  private final Lease lease;
+  @Getter
+  private final Long offset;
+  @Getter
+  private final Long length;
+
+  /**
+   * Create the file region source, owning the file channel.
+   *
+   * @param channel    The file channel
+   * @param offset     The region offset
+   * @param length     The region length
+   * @param bufferSize The read buffer size
+   */
+  public FileRegionSource(FileChannel channel, Long offset, Long length, Integer bufferSize) {
+    this(new SharedFileChannel(channel), offset, length, bufferSize);
+  }
+
+  /**
+   * Create the file region source, reading the shared file channel.
+   *
+   * @param channel    The shared file channel
+   * @param offset     The region offset
+   * @param length     The region length
+   * @param bufferSize The read buffer size
+   */
+  public FileRegionSource(SharedFileChannel channel, Long offset, Long length,
+      Integer bufferSize) {
+    this(channel.lease(), offset, length, bufferSize);
+  }
+
+  private FileRegionSource(Lease lease, Long offset, Long length, Integer bufferSize) {
+    super(new FileRegionInputStream(lease, offset, length), length, bufferSize);
+    this.lease = lease;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  @Override
+  public FileChannel getChannel() {
+    return lease.getChannel();
+  }
+
+  @Override
+  public void close() throws IOException {
+    lease.close();
+  }
+}
@@ -2,56 +2,251 @@ package io.bcs.fileserver.infrastructure.storage;
 
 import io.bce.interaction.streaming.binary.BinaryDestination;
 import io.bce.interaction.streaming.binary.BinarySource;
-import io.bce.interaction.streaming.binary.InputStreamSource;
-import io.bce.interaction.streaming.binary.OutputStreamDestination;
+import io.bcs.fileserver.domain.model.storage.ContentFragment;
 import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import io.bcs.fileserver.domain.model.storage.descriptor.AllocationStrategy;
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptor;
+import io.bcs.fileserver.infrastructure.storage.SharedFileChannel.Lease;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
- * This class is responsible for physical file management, stored on filesystem.
+ * This class is responsible for physical file management, stored on filesystem. The file is placed
+ * by the storage directory layout. The file, which hasn't been relocated to the hashed layout yet,
+ * is still found directly in the base directory, until the layout migration of the storage is
+ * finished. The file, relocated after its location has been resolved, is opened by the location,
+ * resolved again.
  *
  * @author Dmitry Mikhaylenko
  *
  */
 public class FilesystemPhysicalFile implements PhysicalFile {
-  private final File file;
+  private final Path baseDirectory;
+  private final DirectoryLayout layout;
+  private final boolean layoutMigrated;
+  private final AllocationStrategy allocationStrategy;
+  private final ContentLocator contentLocator;
+  private final FileChannelCache channelCache;
+  private final StorageWriteLoad writeLoad;
+  private volatile File file;
 
-  private FilesystemPhysicalFile(String baseDirectory, ContentLocator contentLocator) {
+  /**
+   * Create the filesystem physical file.
+   *
+   * @param storage        The local storage descriptor
+   * @param contentLocator The content locator
+   * @param channelCache   The opened files cache
+   * @param writeLoad      The storages write load
+   * @param migrationState The layout migration state
+   */
+  protected FilesystemPhysicalFile(LocalStorageDescriptor storage, ContentLocator contentLocator,
+      FileChannelCache channelCache, StorageWriteLoad writeLoad,
+      LayoutMigrationState migrationState) {
     super();
-    this.file = new File(getFileLocationPath(baseDirectory, contentLocator));
+    this.baseDirectory = Paths.get(storage.getBaseDirectory());
+    this.layout = DirectoryLayout.of(storage);
+    this.layoutMigrated = migrationState.isMigrated(storage.getStorageName(), layout);
+    this.file = getFileLocation(contentLocator).toFile();
+    this.allocationStrategy = storage.getAllocationStrategy();
+    this.contentLocator = contentLocator;
+    this.channelCache = channelCache;
+    this.writeLoad = writeLoad;
   }
 
   public static Factory factory() {
-    return FilesystemPhysicalFile::new;
+    return factory(FileChannelCache.disabled(), new StorageWriteLoad());
+  }
+
+  /**
+   * Create the physical files factory, reading files through the opened channels cache. The
+   * files are looked for in the base directory, while the layout migration isn't tracked.
+   *
+   * @param channelCache The file channel cache
+   * @param writeLoad    The storages write load, counting the opened for write files
+   * @return The physical files factory
+   */
+  public static Factory factory(FileChannelCache channelCache, StorageWriteLoad writeLoad) {
+    return factory(channelCache, writeLoad, new LayoutMigrationState());
+  }
+
+  /**
+   * Create the physical files factory, reading files through the opened channels cache. The files
+   * of the storage, which layout migration has been finished, aren't looked for in the base
+   * directory.
+   *
+   * @param channelCache   The file channel cache
+   * @param writeLoad      The storages write load, counting the opened for write files
+   * @param migrationState The layout migration state
+   * @return The physical files factory
+   */
+  public static Factory factory(FileChannelCache channelCache, StorageWriteLoad writeLoad,
+      LayoutMigrationState migrationState) {
+    return (storage, contentLocator) -> new FilesystemPhysicalFile(storage, contentLocator,
+        channelCache, writeLoad, migrationState);
   }
 
   @Override
-  public void create() throws IOException {
+  public void create(Long contentLength) throws IOException {
+    createDirectories();
     file.createNewFile();
+    if (allocationStrategy == AllocationStrategy.EXTEND) {
+      extend(contentLength);
+    }
   }
 
   @Override
   public BinarySource openForRead(Long offset, Long limit, Integer bufferSize) throws IOException {
-    FileInputStream stream = new FileInputStream(file);
-    stream.skip(offset);
-    return new InputStreamSource(stream, limit, bufferSize);
+    try (Lease lease = leaseChannel()) {
+      return new FileRegionSource(lease.getSharedChannel(), offset, limit, bufferSize);
+    }
+  }
+
+  @Override
+  public List<BinarySource> openForRead(List<ContentFragment> fragments, Integer bufferSize)
+      throws IOException {
+    try (Lease lease = leaseChannel()) {
+      SharedFileChannel channel = lease.getSharedChannel();
+      return fragments.stream().map(fragment -> new FileRegionSource(channel,
+          fragment.getOffset(), fragment.getLength(), bufferSize)).collect(Collectors.toList());
+    }
+  }
+
+  @Override
+  public InputStream openInputStream() throws IOException {
+    try (Lease lease = leaseChannel()) {
+      return new FileRegionInputStream(lease.getSharedChannel().lease(), 0L,
+          lease.getChannel().size());
+    }
   }
 
   @Override
   public BinaryDestination openForWrite() throws IOException {
-    FileOutputStream stream = new FileOutputStream(file);
-    return new OutputStreamDestination(stream);
+    FileChannel channel =
+        FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    return new FileChannelDestination(channel, true,
+        writeLoad.startWrite(contentLocator.getStorageName()));
+  }
+
+  @Override
+  public BinaryDestination openForWrite(Long offset) throws IOException {
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+    } catch (NoSuchFileException error) {
+      if (!relocate()) {
+        throw error;
+      }
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+    }
+    try {
+      channel.position(offset);
+    } catch (IOException error) {
+      channel.close();
+      throw error;
+    }
+    return new FileChannelDestination(channel, false,
+        writeLoad.startWrite(contentLocator.getStorageName()));
   }
 
   @Override
   public void delete() {
-    file.delete();
+    channelCache.invalidate(contentLocator);
+    if (!file.delete() && relocate()) {
+      file.delete();
+    }
+    BlockIndex.getIndexPath(file.toPath()).toFile().delete();
+  }
+
+  /**
+   * Get the physical file path.
+   *
+   * @return The file path
+   */
+  protected Path getPath() {
+    return file.toPath();
+  }
+
+  /**
+   * Get the physical file content locator.
+   *
+   * @return The content locator
+   */
+  protected ContentLocator getContentLocator() {
+    return contentLocator;
+  }
+
+  /**
+   * Create the physical file parent directories, if they don't exist.
+   *
+   * @throws IOException Throws if the directories couldn't be created
+   */
+  protected void createDirectories() throws IOException {
+    Files.createDirectories(file.toPath().getParent());
+  }
+
+  /**
+   * Lease the physical file channel, opened for read.
+   *
+   * @return The file channel lease
+   * @throws IOException Throws if the file couldn't be opened
+   */
+  protected Lease leaseChannel() throws IOException {
+    try {
+      return channelCache.lease(contentLocator, file.toPath());
+    } catch (NoSuchFileException error) {
+      if (!relocate()) {
+        throw error;
+      }
+      return channelCache.lease(contentLocator, file.toPath());
+    }
+  }
+
+  /**
+   * Resolve the physical file location again, because the file may have been relocated to the
+   * directory layout after its location has been resolved.
+   *
+   * @return True if the file location has been changed
+   */
+  protected boolean relocate() {
+    File location = getFileLocation(contentLocator).toFile();
+    if (location.equals(file)) {
+      return false;
+    }
+    this.file = location;
+    return true;
+  }
+
+  /**
+   * Count the write to the physical file storage.
+   *
+   * @return The callback, finishing the counted write
+   */
+  protected Runnable startWrite() {
+    return writeLoad.startWrite(contentLocator.getStorageName());
+  }
+
+  private void extend(Long contentLength) throws IOException {
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+      randomAccessFile.setLength(contentLength);
+    }
   }
 
-  private String getFileLocationPath(String baseDirectory, ContentLocator contentLocator) {
-    return String.format("%s/%s", baseDirectory, contentLocator.getStorageFileName());
+  private Path getFileLocation(ContentLocator contentLocator) {
+    Path layoutPath = layout.resolve(baseDirectory, contentLocator.getStorageFileName());
+    if (layout.isFlat() || layoutMigrated || Files.exists(layoutPath)) {
+      return layoutPath;
+    }
+    Path flatPath = baseDirectory.resolve(contentLocator.getStorageFileName());
+    return Files.exists(flatPath) ? flatPath : layoutPath;
   }
 }
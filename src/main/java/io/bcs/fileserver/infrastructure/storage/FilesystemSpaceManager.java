@@ -1,5 +1,9 @@
 package io.bcs.fileserver.infrastructure.storage;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
 /**
  * This interface describes the component which performs the free space management operations over
  * registered local storages.
@@ -18,6 +22,27 @@ public interface FilesystemSpaceManager {
    */
   String allocateSpace(String mediaType, String storageFileName, Long contentLength);
 
+  /**
+   * Allocate space on the storages for the batch of files. The space is allocated for every
+   * request independently, so the batch may be allocated partially. The failure of one request
+   * doesn't fail the others, so the unallocated request should be allocated alone to find out the
+   * failure reason.
+   *
+   * @param requests The space allocation requests
+   * @return The storage names, on which the space is allocated, in the requests order. The empty
+   *         value means that the space hasn't been allocated for the request.
+   */
+  default List<Optional<String>> allocateSpace(List<SpaceAllocationRequest> requests) {
+    return requests.stream().map(request -> {
+      try {
+        return Optional.of(allocateSpace(request.getMediaType(), request.getStorageFileName(),
+            request.getContentLength()));
+      } catch (RuntimeException error) {
+        return Optional.<String>empty();
+      }
+    }).collect(Collectors.toList());
+  }
+
   /**
    * Release space on the storage for requested file.
    *
@@ -25,5 +50,4 @@ public interface FilesystemSpaceManager {
    * @param storageFileName The file name
    */
   void releaseSpace(String storageName, String storageFileName);
-
 }
\ No newline at end of file
@@ -4,6 +4,9 @@ import io.bcs.fileserver.domain.errors.FileStorageException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import javax.sql.DataSource;
 import lombok.RequiredArgsConstructor;
@@ -41,6 +44,27 @@ public class JdbcFilesystemSpaceManager implements FilesystemSpaceManager {
     }
   }
 
+  @Override
+  @SneakyThrows
+  public List<Optional<String>> allocateSpace(List<SpaceAllocationRequest> requests) {
+    try (Connection connection = dataSource.getConnection()) {
+      PreparedStatement statement = connection.prepareStatement(ALLOCATE_SPACE_QUERY);
+      List<Optional<String>> allocations = new ArrayList<>(requests.size());
+      for (SpaceAllocationRequest request : requests) {
+        try {
+          statement.setString(1, request.getMediaType());
+          statement.setString(2, request.getStorageFileName());
+          statement.setLong(3, request.getContentLength());
+          allocations.add(Optional.of(statement.executeQuery()).filter(this::isDataReceived)
+              .map(this::extractAllocatedStorage));
+        } catch (SQLException error) {
+          allocations.add(Optional.empty());
+        }
+      }
+      return allocations;
+    }
+  }
+
   @Override
   @SneakyThrows
   public void releaseSpace(String storageName, String storageFileName) {
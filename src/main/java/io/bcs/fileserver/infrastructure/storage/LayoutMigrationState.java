@@ -0,0 +1,136 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptor;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class keeps the local storages, which files have been all relocated to the directory
+ * layout by the layout migration. The physical files of the migrated storage are resolved by the
+ * layout only, without looking for the file in the base directory. The finished migration is
+ * persisted by the layout marker file in the storage base directory, so it survives the restart
+ * and is shared by the nodes, mounting the same directory. The marker keeps the layout of the
+ * stored files, so the storage, which configured layout differs from the marked one, is refused
+ * at the startup: the files aren't migrated between the hashed layouts and they would be lost for
+ * the reads otherwise.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class LayoutMigrationState {
+  private static final String MARKER_FILE_NAME = ".layout";
+  private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+  private static final String DEPTH_PROPERTY = "depth";
+  private static final String WIDTH_PROPERTY = "width";
+
+  private final Map<String, DirectoryLayout> migratedStorages = new ConcurrentHashMap<>();
+
+  /**
+   * Load the persisted migration state of the local storages.
+   *
+   * @param storages The local storages
+   * @throws IllegalStateException Throws if the configured layout of the storage differs from the
+   *                               layout of its stored files
+   * @throws IOException           Throws if the layout marker couldn't be read
+   */
+  public void load(Collection<LocalStorageDescriptor> storages) throws IOException {
+    for (LocalStorageDescriptor storage : storages) {
+      DirectoryLayout layout = DirectoryLayout.of(storage);
+      Optional<DirectoryLayout> markedLayout =
+          readLayout(Paths.get(storage.getBaseDirectory()));
+      if (markedLayout.isPresent() && !markedLayout.get().equals(layout)) {
+        throw new IllegalStateException(String.format("The %s storage directory layout of the "
+            + "depth %d and width %d differs from the layout of the stored files of the depth "
+            + "%d and width %d.", storage.getStorageName(), layout.getDepth(), layout.getWidth(),
+            markedLayout.get().getDepth(), markedLayout.get().getWidth()));
+      }
+      markedLayout.ifPresent(marked -> migratedStorages.put(storage.getStorageName(), marked));
+    }
+  }
+
+  /**
+   * Check that all files of the storage have been relocated to the directory layout.
+   *
+   * @param storageName The storage name
+   * @param layout      The storage directory layout
+   * @return True if the storage has been migrated to the layout
+   */
+  public boolean isMigrated(String storageName, DirectoryLayout layout) {
+    return layout.equals(migratedStorages.get(storageName));
+  }
+
+  /**
+   * Mark the storage migrated, when there isn't any file left in the base directory. The layout
+   * marker is written to the base directory, if it isn't there yet.
+   *
+   * @param storageName   The storage name
+   * @param baseDirectory The storage base directory
+   * @param layout        The storage directory layout
+   * @throws IOException Throws if the layout marker couldn't be written
+   */
+  public void markMigrated(String storageName, Path baseDirectory, DirectoryLayout layout)
+      throws IOException {
+    if (!readLayout(baseDirectory).filter(layout::equals).isPresent()) {
+      writeLayout(baseDirectory, layout);
+    }
+    migratedStorages.put(storageName, layout);
+  }
+
+  /**
+   * Read the layout of the stored files from the layout marker.
+   *
+   * @param baseDirectory The storage base directory
+   * @return The marked directory layout if the marker exists
+   * @throws IOException Throws if the layout marker couldn't be read
+   */
+  public Optional<DirectoryLayout> readLayout(Path baseDirectory) throws IOException {
+    Properties properties = new Properties();
+    try (InputStream input = Files.newInputStream(baseDirectory.resolve(MARKER_FILE_NAME))) {
+      properties.load(input);
+    } catch (NoSuchFileException error) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(new DirectoryLayout(
+          Integer.parseInt(properties.getProperty(DEPTH_PROPERTY)),
+          Integer.parseInt(properties.getProperty(WIDTH_PROPERTY))));
+    } catch (IllegalArgumentException error) {
+      throw new IOException("The directory layout marker is corrupted", error);
+    }
+  }
+
+  /**
+   * Check that the path is the layout marker path or the temporary layout marker path.
+   *
+   * @param path The checked path
+   * @return True if the path belongs to the layout marker
+   */
+  static boolean isMarkerPath(Path path) {
+    String fileName = path.getFileName().toString();
+    return fileName.equals(MARKER_FILE_NAME)
+        || fileName.equals(MARKER_FILE_NAME + TEMPORARY_FILE_SUFFIX);
+  }
+
+  private void writeLayout(Path baseDirectory, DirectoryLayout layout) throws IOException {
+    Properties properties = new Properties();
+    properties.setProperty(DEPTH_PROPERTY, String.valueOf(layout.getDepth()));
+    properties.setProperty(WIDTH_PROPERTY, String.valueOf(layout.getWidth()));
+    Path temporaryPath = baseDirectory.resolve(MARKER_FILE_NAME + TEMPORARY_FILE_SUFFIX);
+    try (OutputStream output = Files.newOutputStream(temporaryPath)) {
+      properties.store(output, null);
+    }
+    Files.move(temporaryPath, baseDirectory.resolve(MARKER_FILE_NAME),
+        StandardCopyOption.REPLACE_EXISTING);
+  }
+}
@@ -0,0 +1,52 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This class implements the storage selection strategy, spreading the concurrent uploads across
+ * the disks. The storage is applicable, if both its quote and the real free space of its disk are
+ * enough for the requested size. The storage with the least write load is chosen first, and the
+ * storage with the most effective free space is preferred among the equally loaded ones. The write
+ * load counts the in-flight writes and the writes, which space has been reserved, but which
+ * haven't been started yet, so the allocations of the burst of uploads see each other.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@RequiredArgsConstructor
+public class LoadBalancedSelectionStrategy implements StorageSelectionStrategy {
+  private final StorageWriteLoad writeLoad;
+  private final UsableSpaceProbe usableSpaceProbe;
+
+  @Override
+  public List<String> rank(List<StorageCandidate> candidates, long size) {
+    return candidates.stream().map(RankedCandidate::new)
+        .filter(candidate -> candidate.freeSpace >= size)
+        .sorted(Comparator.comparingInt((RankedCandidate candidate) -> candidate.load)
+            .thenComparing(Comparator.comparingLong(
+                (RankedCandidate candidate) -> candidate.freeSpace).reversed()))
+        .map(candidate -> candidate.storageName).collect(Collectors.toList());
+  }
+
+  @Override
+  public void onSpaceReserved(String storageName) {
+    writeLoad.reserveWrite(storageName);
+  }
+
+  private final class RankedCandidate {
+    private final String storageName;
+    private final long freeSpace;
+    private final int load;
+
+    private RankedCandidate(StorageCandidate candidate) {
+      super();
+      this.storageName = candidate.getStorageName();
+      this.freeSpace = Math.min(candidate.getAvailableSpace(),
+          usableSpaceProbe.getUsableSpace(candidate.getBaseDirectory()));
+      this.load = writeLoad.getWriteLoad(storageName);
+    }
+  }
+}
@@ -10,8 +10,13 @@ import io.bcs.fileserver.domain.model.storage.ContentLocator;
 import io.bcs.fileserver.domain.model.storage.FileStorage;
 import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptor;
 import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptorRepository;
+import io.bcs.fileserver.infrastructure.file.content.ContentDigest;
 import io.bcs.fileserver.infrastructure.storage.PhysicalFile.Factory;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -36,7 +41,7 @@ public class LocalFileSystemStorage implements FileStorage {
           file.getStorageFileName(), contentLength);
       ContentLocator contentLocator =
           new DefaultFileLocator(storageName, file.getStorageFileName());
-      getPhysicalFile(contentLocator).create();
+      getPhysicalFile(contentLocator, file.getMediaType()).create(contentLength);
       return contentLocator;
     } catch (IOException error) {
       throw new FileStorageException(error);
@@ -52,6 +57,16 @@ public class LocalFileSystemStorage implements FileStorage {
     }
   }
 
+  @Override
+  public Destination<BinaryChunk> getAccessOnWrite(File file, ContentFragment fragment)
+      throws FileStorageException {
+    try {
+      return getPhysicalFile(file).openForWrite(fragment.getOffset());
+    } catch (IOException error) {
+      throw new FileStorageException(error);
+    }
+  }
+
   @Override
   public Source<BinaryChunk> getAccessOnRead(File file, ContentFragment fragment)
       throws FileStorageException {
@@ -63,6 +78,31 @@ public class LocalFileSystemStorage implements FileStorage {
     }
   }
 
+  @Override
+  public List<Source<BinaryChunk>> getAccessOnRead(File file, List<ContentFragment> fragments)
+      throws FileStorageException {
+    try {
+      return new ArrayList<>(getPhysicalFile(file).openForRead(fragments, bufferSize));
+    } catch (IOException error) {
+      throw new FileStorageException(error);
+    }
+  }
+
+  @Override
+  public Optional<String> digestContent(File file) throws FileStorageException {
+    ContentDigest contentDigest = new ContentDigest();
+    try (InputStream inputStream =
+        contentDigest.digesting(getPhysicalFile(file).openInputStream())) {
+      byte[] buffer = new byte[bufferSize];
+      while (inputStream.read(buffer) >= 0) {
+        continue;
+      }
+      return Optional.of(contentDigest.getValue());
+    } catch (IOException error) {
+      throw new FileStorageException(error);
+    }
+  }
+
   @Override
   public void delete(File file) throws FileStorageException {
     getPhysicalFile(file).delete();
@@ -70,13 +110,13 @@ public class LocalFileSystemStorage implements FileStorage {
 
   private PhysicalFile getPhysicalFile(File file) {
     ContentLocator contentLocator = new DefaultFileLocator(file);
-    return getPhysicalFile(contentLocator);
+    return getPhysicalFile(contentLocator, file.getMediaType());
   }
 
-  private PhysicalFile getPhysicalFile(ContentLocator contentLocator) {
+  private PhysicalFile getPhysicalFile(ContentLocator contentLocator, String mediaType) {
     LocalStorageDescriptor localStorage =
         findExistingStorageDescriptor(contentLocator.getStorageName());
-    return physicalFileFactory.create(localStorage.getBaseDirectory(), contentLocator);
+    return physicalFileFactory.create(localStorage, contentLocator, mediaType);
   }
 
   private LocalStorageDescriptor findExistingStorageDescriptor(String storageName) {
@@ -94,7 +134,7 @@ public class LocalFileSystemStorage implements FileStorage {
 
     public DefaultFileLocator(File file) {
       super();
-      this.storageFileName = file.getStorageFileName();
+      this.storageFileName = file.getContentFileName().orElse(file.getStorageFileName());
       this.storageName = file.getStorageName().get();
     }
   }
@@ -0,0 +1,146 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import io.bcs.fileserver.infrastructure.storage.SharedFileChannel.Lease;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * This class keeps the memory mappings of the small files. Only the files, which size doesn't
+ * exceed the threshold, are mapped and the total size of the kept mappings is bounded, the least
+ * recently used mappings are evicted first. The evicted mapping isn't unmapped explicitly, because
+ * the readers may still read its views, so it is released by the garbage collector after the last
+ * view becomes unreachable. The max footprint bounds the kept mappings only, the mapped memory of
+ * the process may exceed it until the evicted mappings are collected. The files, which are too
+ * large to be mapped, are remembered, so they aren't opened and sized on every read.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class MappedFilesCache {
+  private static final int MAX_NOT_MAPPABLE_ENTRIES = 65536;
+
+  private final long fileSizeThreshold;
+  private final long maxFootprint;
+  private final Map<ContentLocatorKey, MappedByteBuffer> mappings =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private final Set<ContentLocatorKey> notMappable =
+      Collections.newSetFromMap(new LinkedHashMap<ContentLocatorKey, Boolean>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ContentLocatorKey, Boolean> eldest) {
+          return size() > MAX_NOT_MAPPABLE_ENTRIES;
+        }
+      });
+  private long footprint = 0L;
+
+  /**
+   * Create the mapped files cache.
+   *
+   * @param fileSizeThreshold The max size of the mapped file
+   * @param maxFootprint      The max total size of the kept mappings
+   */
+  public MappedFilesCache(long fileSizeThreshold, long maxFootprint) {
+    super();
+    this.fileSizeThreshold = fileSizeThreshold;
+    this.maxFootprint = maxFootprint;
+  }
+
+  /**
+   * Get the file content mapping. The returned buffer is the independent view, so it could be
+   * positioned by the caller. The file channel is leased only if the file isn't mapped yet and
+   * isn't known as too large to be mapped.
+   *
+   * @param contentLocator The content locator
+   * @param channels       The physical file channel leases
+   * @return The file content mapping if the file is small enough to be mapped
+   * @throws IOException Throws if the file couldn't be mapped
+   */
+  public Optional<ByteBuffer> getMapping(ContentLocator contentLocator, ChannelLeases channels)
+      throws IOException {
+    ContentLocatorKey key = new ContentLocatorKey(contentLocator);
+    synchronized (mappings) {
+      MappedByteBuffer mapping = mappings.get(key);
+      if (mapping != null) {
+        return Optional.of(mapping.duplicate());
+      }
+      if (notMappable.contains(key)) {
+        return Optional.empty();
+      }
+    }
+    return map(key, channels).map(mapping -> keep(key, mapping).duplicate());
+  }
+
+  /**
+   * Release the file content mapping.
+   *
+   * @param contentLocator The content locator
+   */
+  public void invalidate(ContentLocator contentLocator) {
+    synchronized (mappings) {
+      ContentLocatorKey key = new ContentLocatorKey(contentLocator);
+      notMappable.remove(key);
+      Optional.ofNullable(mappings.remove(key))
+          .ifPresent(mapping -> footprint -= mapping.capacity());
+    }
+  }
+
+  private Optional<MappedByteBuffer> map(ContentLocatorKey key, ChannelLeases channels)
+      throws IOException {
+    try (Lease lease = channels.lease()) {
+      FileChannel channel = lease.getChannel();
+      long size = channel.size();
+      if (size > fileSizeThreshold || size > maxFootprint) {
+        synchronized (mappings) {
+          notMappable.add(key);
+        }
+        return Optional.empty();
+      }
+      return Optional.of(channel.map(MapMode.READ_ONLY, 0L, size));
+    }
+  }
+
+  private MappedByteBuffer keep(ContentLocatorKey key, MappedByteBuffer mapping) {
+    synchronized (mappings) {
+      MappedByteBuffer existing = mappings.get(key);
+      if (existing != null) {
+        return existing;
+      }
+      mappings.put(key, mapping);
+      footprint += mapping.capacity();
+      Iterator<MappedByteBuffer> iterator = mappings.values().iterator();
+      while (footprint > maxFootprint && iterator.hasNext()) {
+        footprint -= iterator.next().capacity();
+        iterator.remove();
+      }
+      return mapping;
+    }
+  }
+
+  /**
+   * This interface describes the source of the physical file channel leases.
+   *
+   * @author Dmitry Mikhaylenko
+   *
+   */
+  @FunctionalInterface
+  public interface ChannelLeases {
+    /**
+     * Lease the physical file channel, opened for read.
+     *
+     * @return The file channel lease
+     * @throws IOException Throws if the file couldn't be opened
+     */
+    Lease lease() throws IOException;
+  }
+}
@@ -0,0 +1,43 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This interface describes the region of a memory mapped physical file, which content could be
+ * written to the target channel directly from the mapping, without copying it over the user space
+ * buffers.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public interface MappedRegion extends Closeable {
+  /**
+   * Get the region content. The returned buffer is the independent view of the mapping, so it
+   * could be positioned by the caller.
+   *
+   * @return The region content
+   */
+  ByteBuffer getContent();
+
+  /**
+   * Write the whole region to the target channel.
+   *
+   * @param target The target channel
+   * @return The written bytes count
+   * @throws IOException Throws if something went wrong during write or if the target channel
+   *                     doesn't accept the content
+   */
+  default long transferTo(WritableByteChannel target) throws IOException {
+    ByteBuffer content = getContent();
+    long length = content.remaining();
+    while (content.hasRemaining()) {
+      if (target.write(content) <= 0) {
+        throw new IOException("The target channel doesn't accept the mapped region content");
+      }
+    }
+    return length;
+  }
+}
@@ -0,0 +1,36 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bce.interaction.streaming.binary.InputStreamSource;
+import java.nio.ByteBuffer;
+
+/**
+ * This class implements the binary source, reading the slice of the memory mapped file. It streams
+ * content as the regular input stream source, but also exposes the slice, so that the consumer is
+ * able to write it to the channel directly.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class MappedRegionSource extends InputStreamSource implements MappedRegion {
+  private final ByteBuffer slice;
+
+  /**
+   * Create the mapped region source.
+   *
+   * @param slice      The mapping slice
+   * @param bufferSize The read buffer size
+   */
+  public MappedRegionSource(ByteBuffer slice, Integer bufferSize) {
+    super(new ByteBufferInputStream(slice.duplicate()), (long) slice.remaining(), bufferSize);
+    this.slice = slice;
+  }
+
+  @Override
+  public ByteBuffer getContent() {
+    return slice.duplicate();
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,123 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bce.interaction.streaming.binary.BinarySource;
+import io.bcs.fileserver.domain.model.storage.ContentFragment;
+import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptor;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * This class is responsible for physical file management, stored on filesystem, which serves
+ * reads of the small files from the memory mappings. The fragment sources are reading the slices
+ * of the shared mapping, so there are neither system calls nor file descriptors per request. The
+ * slices are exposed as the mapped regions, so they are written to the response channel directly.
+ * The files, exceeding the mapping threshold, and the fragments, exceeding the mapped content, are
+ * read through the file channel.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class MemoryMappedPhysicalFile extends FilesystemPhysicalFile {
+  private final MappedFilesCache mappedFilesCache;
+
+  private MemoryMappedPhysicalFile(LocalStorageDescriptor storage, ContentLocator contentLocator,
+      FileChannelCache channelCache, MappedFilesCache mappedFilesCache,
+      StorageWriteLoad writeLoad, LayoutMigrationState migrationState) {
+    super(storage, contentLocator, channelCache, writeLoad, migrationState);
+    this.mappedFilesCache = mappedFilesCache;
+  }
+
+  /**
+   * Create the memory mapped physical files factory.
+   *
+   * @param channelCache     The opened files cache
+   * @param mappedFilesCache The mapped files cache
+   * @return The physical files factory
+   */
+  public static Factory factory(FileChannelCache channelCache,
+      MappedFilesCache mappedFilesCache) {
+    return factory(channelCache, mappedFilesCache, new StorageWriteLoad());
+  }
+
+  /**
+   * Create the memory mapped physical files factory, counting the opened for write files.
+   *
+   * @param channelCache     The opened files cache
+   * @param mappedFilesCache The mapped files cache
+   * @param writeLoad        The storages write load
+   * @return The physical files factory
+   */
+  public static Factory factory(FileChannelCache channelCache,
+      MappedFilesCache mappedFilesCache, StorageWriteLoad writeLoad) {
+    return factory(channelCache, mappedFilesCache, writeLoad, new LayoutMigrationState());
+  }
+
+  /**
+   * Create the memory mapped physical files factory, resolving the files of the migrated storages
+   * by the directory layout only.
+   *
+   * @param channelCache     The opened files cache
+   * @param mappedFilesCache The mapped files cache
+   * @param writeLoad        The storages write load
+   * @param migrationState   The layout migration state
+   * @return The physical files factory
+   */
+  public static Factory factory(FileChannelCache channelCache,
+      MappedFilesCache mappedFilesCache, StorageWriteLoad writeLoad,
+      LayoutMigrationState migrationState) {
+    return (storage, contentLocator) -> new MemoryMappedPhysicalFile(storage, contentLocator,
+        channelCache, mappedFilesCache, writeLoad, migrationState);
+  }
+
+  @Override
+  public BinarySource openForRead(Long offset, Long limit, Integer bufferSize) throws IOException {
+    Optional<ByteBuffer> mapping = getMapping();
+    if (mapping.isPresent() && isInside(mapping.get(), offset, limit)) {
+      return createSliceSource(mapping.get(), offset, limit, bufferSize);
+    }
+    return super.openForRead(offset, limit, bufferSize);
+  }
+
+  @Override
+  public List<BinarySource> openForRead(List<ContentFragment> fragments, Integer bufferSize)
+      throws IOException {
+    Optional<ByteBuffer> mapping = getMapping();
+    if (!mapping.isPresent() || !fragments.stream().allMatch(
+        fragment -> isInside(mapping.get(), fragment.getOffset(), fragment.getLength()))) {
+      return super.openForRead(fragments, bufferSize);
+    }
+    List<BinarySource> sources = new ArrayList<>(fragments.size());
+    for (ContentFragment fragment : fragments) {
+      sources.add(createSliceSource(mapping.get(), fragment.getOffset(), fragment.getLength(),
+          bufferSize));
+    }
+    return sources;
+  }
+
+  @Override
+  public void delete() {
+    mappedFilesCache.invalidate(getContentLocator());
+    super.delete();
+  }
+
+  private Optional<ByteBuffer> getMapping() throws IOException {
+    return mappedFilesCache.getMapping(getContentLocator(), this::leaseChannel);
+  }
+
+  private static boolean isInside(ByteBuffer mapping, Long offset, Long length) {
+    return offset >= 0L && length >= 0L && offset + length <= mapping.limit();
+  }
+
+  private BinarySource createSliceSource(ByteBuffer mapping, Long offset, Long length,
+      Integer bufferSize) {
+    ByteBuffer slice = mapping.duplicate();
+    slice.limit(offset.intValue() + length.intValue());
+    slice.position(offset.intValue());
+    return new MappedRegionSource(slice.slice(),
+        (int) Math.max(1L, Math.min(bufferSize, length)));
+  }
+}
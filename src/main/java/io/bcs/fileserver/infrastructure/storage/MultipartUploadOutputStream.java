@@ -0,0 +1,99 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class streams the written content to the object store by the multipart upload. The
+ * content is buffered until the part is filled, so the memory footprint is bounded by the part
+ * size. The upload is completed, when the stream is closed after the whole content length has been
+ * written. The upload is aborted, if any part couldn't be uploaded or if the stream is closed
+ * before the content has been written, so the partially written object never becomes visible.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+final class MultipartUploadOutputStream extends OutputStream {
+  private final ObjectStoreClient client;
+  private final String objectKey;
+  private final String uploadId;
+  private final byte[] partBuffer;
+  private final long contentLength;
+  private final List<String> partTags = new ArrayList<>();
+  private int partLength = 0;
+  private long writtenLength = 0L;
+  private boolean closed = false;
+
+  MultipartUploadOutputStream(ObjectStoreClient client, String objectKey, int partSize,
+      long contentLength) throws IOException {
+    super();
+    this.client = client;
+    this.objectKey = objectKey;
+    this.partBuffer = new byte[partSize];
+    this.contentLength = contentLength;
+    this.uploadId = client.startMultipartUpload(objectKey);
+  }
+
+  @Override
+  public void write(int value) throws IOException {
+    write(new byte[] {(byte) value}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] buffer, int offset, int length) throws IOException {
+    checkNotClosed();
+    int written = 0;
+    while (written < length) {
+      int copied = Math.min(length - written, partBuffer.length - partLength);
+      System.arraycopy(buffer, offset + written, partBuffer, partLength, copied);
+      partLength += copied;
+      written += copied;
+      writtenLength += copied;
+      if (partLength == partBuffer.length) {
+        uploadPart();
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (writtenLength != contentLength) {
+      client.abortMultipartUpload(objectKey, uploadId);
+      throw new IOException(String.format("The multipart upload has been aborted, because %d of "
+          + "%d bytes have been written", writtenLength, contentLength));
+    }
+    if (partLength > 0 || partTags.isEmpty()) {
+      uploadPart();
+    }
+    try {
+      client.completeMultipartUpload(objectKey, uploadId, partTags);
+    } catch (IOException error) {
+      client.abortMultipartUpload(objectKey, uploadId);
+      throw error;
+    }
+  }
+
+  private void uploadPart() throws IOException {
+    try {
+      partTags.add(
+          client.uploadPart(objectKey, uploadId, partTags.size() + 1, partBuffer, partLength));
+      partLength = 0;
+    } catch (IOException error) {
+      closed = true;
+      client.abortMultipartUpload(objectKey, uploadId);
+      throw error;
+    }
+  }
+
+  private void checkNotClosed() throws IOException {
+    if (closed) {
+      throw new IOException("The multipart upload stream is closed");
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bce.interaction.streaming.Destination;
+import io.bce.interaction.streaming.Source;
+import io.bce.interaction.streaming.binary.BinaryChunk;
+import io.bce.interaction.streaming.binary.InputStreamSource;
+import io.bce.interaction.streaming.binary.OutputStreamDestination;
+import io.bcs.fileserver.domain.errors.FileStorageException;
+import io.bcs.fileserver.domain.model.file.File;
+import io.bcs.fileserver.domain.model.storage.ContentFragment;
+import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import io.bcs.fileserver.domain.model.storage.FileStorage;
+import io.bcs.fileserver.domain.model.storage.descriptor.ObjectStorageDescriptor;
+import io.bcs.fileserver.domain.model.storage.descriptor.ObjectStorageDescriptorRepository;
+import java.io.IOException;
+import java.util.Optional;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This class implements the file storage, which stores the files as the objects into the bucket
+ * of the S3-compatible object store. The whole content is streamed by the multipart upload and
+ * the fragments are read by the ranged requests. The upload is completed only if the whole file
+ * content length has been written. The objects are written once, so the content, uploaded by the
+ * chunks, isn't supported. The object store capacity isn't accounted by the
+ * coordinator.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@RequiredArgsConstructor
+public class ObjectFileStorage implements FileStorage {
+  private final ObjectStorageDescriptorRepository objectStorageDescriptorRepository;
+  private final ObjectStoreClient.Factory objectStoreClientFactory;
+  private final int partSize;
+  private final int bufferSize;
+
+  @Override
+  public ContentLocator create(File file, Long contentLength) throws FileStorageException {
+    ObjectStorageDescriptor objectStorage = findStorageFor(file.getMediaType())
+        .orElseThrow(() -> new FileStorageException(String
+            .format("Object storage isn't registered for the %s media type", file.getMediaType())));
+    return new ObjectLocator(objectStorage.getStorageName(), file.getStorageFileName());
+  }
+
+  @Override
+  public Destination<BinaryChunk> getAccessOnWrite(File file) throws FileStorageException {
+    try {
+      return new ObjectUploadDestination(new MultipartUploadOutputStream(getClient(file),
+          getObjectKey(file), partSize, file.getTotalLength()));
+    } catch (IOException error) {
+      throw new FileStorageException(error);
+    }
+  }
+
+  @Override
+  public Source<BinaryChunk> getAccessOnRead(File file, ContentFragment fragment)
+      throws FileStorageException {
+    try {
+      return new InputStreamSource(
+          getClient(file).getObject(getObjectKey(file), fragment.getOffset(),
+              fragment.getLength()),
+          fragment.getLength(), bufferSize);
+    } catch (IOException error) {
+      throw new FileStorageException(error);
+    }
+  }
+
+  @Override
+  public void delete(File file) throws FileStorageException {
+    try {
+      getClient(file).deleteObject(getObjectKey(file));
+    } catch (IOException error) {
+      throw new FileStorageException(error);
+    }
+  }
+
+  /**
+   * Find the object storage of the media type.
+   *
+   * @param mediaType The file media type
+   * @return The object storage descriptor if it is registered
+   */
+  public Optional<ObjectStorageDescriptor> findStorageFor(String mediaType) {
+    return objectStorageDescriptorRepository.findAll().stream()
+        .filter(storage -> storage.getMediaType().equals(mediaType)).findFirst();
+  }
+
+  private ObjectStoreClient getClient(File file) {
+    String storageName = file.getStorageName().get();
+    return objectStoreClientFactory.create(objectStorageDescriptorRepository
+        .findByName(storageName).orElseThrow(() -> new FileStorageException(
+            String.format("Object storage %s isn't registered", storageName))));
+  }
+
+  private String getObjectKey(File file) {
+    return file.getContentFileName().orElse(file.getStorageFileName());
+  }
+
+  private static final class ObjectUploadDestination extends OutputStreamDestination {
+    private final MultipartUploadOutputStream outputStream;
+
+    private ObjectUploadDestination(MultipartUploadOutputStream outputStream) {
+      super(outputStream);
+      this.outputStream = outputStream;
+    }
+
+    @Override
+    public void close() throws IOException {
+      outputStream.close();
+    }
+  }
+
+  @Getter
+  @EqualsAndHashCode
+  @RequiredArgsConstructor
+  private static final class ObjectLocator implements ContentLocator {
+    private final String storageName;
+    private final String storageFileName;
+  }
+}
@@ -0,0 +1,90 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bcs.fileserver.domain.model.storage.descriptor.ObjectStorageDescriptor;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * This interface describes the client of the S3-compatible object store bucket. The objects are
+ * written by the multipart uploads, so the content is streamed to the store by the parts without
+ * knowing the whole content in advance, and are read by the ranged requests. The client isn't
+ * shipped with the file server: the object storage is experimental and the deployment, which
+ * enables it, provides the clients factory bean.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public interface ObjectStoreClient {
+  /**
+   * Start the object multipart upload.
+   *
+   * @param objectKey The object key
+   * @return The upload identifier
+   * @throws IOException Throws if the upload couldn't be started
+   */
+  String startMultipartUpload(String objectKey) throws IOException;
+
+  /**
+   * Upload the object part.
+   *
+   * @param objectKey  The object key
+   * @param uploadId   The upload identifier
+   * @param partNumber The part number, starting from 1
+   * @param content    The part content buffer
+   * @param length     The part content length inside the buffer
+   * @return The uploaded part entity tag
+   * @throws IOException Throws if the part couldn't be uploaded
+   */
+  String uploadPart(String objectKey, String uploadId, int partNumber, byte[] content, int length)
+      throws IOException;
+
+  /**
+   * Complete the object multipart upload. The object becomes visible after the completion only.
+   *
+   * @param objectKey The object key
+   * @param uploadId  The upload identifier
+   * @param partTags  The entity tags of the uploaded parts in the parts order
+   * @throws IOException Throws if the upload couldn't be completed
+   */
+  void completeMultipartUpload(String objectKey, String uploadId, List<String> partTags)
+      throws IOException;
+
+  /**
+   * Abort the object multipart upload and remove the uploaded parts.
+   *
+   * @param objectKey The object key
+   * @param uploadId  The upload identifier
+   * @throws IOException Throws if the upload couldn't be aborted
+   */
+  void abortMultipartUpload(String objectKey, String uploadId) throws IOException;
+
+  /**
+   * Get the object content range.
+   *
+   * @param objectKey The object key
+   * @param offset    The range offset
+   * @param length    The range length
+   * @return The range content stream
+   * @throws IOException Throws if the object couldn't be read
+   */
+  InputStream getObject(String objectKey, Long offset, Long length) throws IOException;
+
+  /**
+   * Delete the object. The missing object deletion is ignored.
+   *
+   * @param objectKey The object key
+   * @throws IOException Throws if the object couldn't be deleted
+   */
+  void deleteObject(String objectKey) throws IOException;
+
+  /**
+   * This interface describes the object store clients factory.
+   *
+   * @author Dmitry Mikhaylenko
+   *
+   */
+  interface Factory {
+    ObjectStoreClient create(ObjectStorageDescriptor storage);
+  }
+}
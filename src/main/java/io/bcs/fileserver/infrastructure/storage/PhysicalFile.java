@@ -2,8 +2,13 @@ package io.bcs.fileserver.infrastructure.storage;
 
 import io.bce.interaction.streaming.binary.BinaryDestination;
 import io.bce.interaction.streaming.binary.BinarySource;
+import io.bcs.fileserver.domain.model.storage.ContentFragment;
 import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptor;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This interface represents a physical file on a filesystem.
@@ -13,14 +18,17 @@ import java.io.IOException;
  */
 public interface PhysicalFile {
   /**
-   * Create new physical file.
+   * Create new physical file. The implementation may allocate the disk space for the whole content
+   * before the content is written.
    *
+   * @param contentLength The expected content length
    * @throws IOException Throws if something went wrong during creation
    */
-  void create() throws IOException;
+  void create(Long contentLength) throws IOException;
 
   /**
-   * Open physical file for read.
+   * Open physical file for read. If the returned source implements the {@link FileRegion}, the
+   * content may be transferred through the file channel directly.
    *
    * @param offset     The read offset
    * @param limit      The read limit
@@ -31,13 +39,50 @@ public interface PhysicalFile {
   BinarySource openForRead(Long offset, Long limit, Integer bufferSize) throws IOException;
 
   /**
-   * Open physical file for write.
+   * Open physical file for read of several fragments at once. The implementation may share the
+   * opened file between the fragment sources.
+   *
+   * @param fragments  The read fragments
+   * @param bufferSize The read buffer size
+   * @return The fragment sources in the order of the fragments
+   * @throws IOException Throws if something went wrong during read process
+   */
+  default List<BinarySource> openForRead(List<ContentFragment> fragments, Integer bufferSize)
+      throws IOException {
+    List<BinarySource> sources = new ArrayList<>(fragments.size());
+    for (ContentFragment fragment : fragments) {
+      sources.add(openForRead(fragment.getOffset(), fragment.getLength(), bufferSize));
+    }
+    return sources;
+  }
+
+  /**
+   * Open the whole physical file content for the synchronous read.
+   *
+   * @return The content input stream
+   * @throws IOException Throws if something went wrong during read process
+   */
+  InputStream openInputStream() throws IOException;
+
+  /**
+   * Open physical file for write. The file is cut to the written content length, when the
+   * destination is closed.
    *
    * @return The file read input stream
    * @throws IOException Throws if something went wrong during read process
    */
   BinaryDestination openForWrite() throws IOException;
 
+  /**
+   * Open physical file for write starting from the specified position. The file isn't cut on
+   * close, so the content written by the other destinations is kept.
+   *
+   * @param offset The write offset
+   * @return The file write destination
+   * @throws IOException Throws if something went wrong during write process
+   */
+  BinaryDestination openForWrite(Long offset) throws IOException;
+
   /**
    * Delete file from file system.
    */
@@ -53,10 +98,24 @@ public interface PhysicalFile {
     /**
      * Create new physical file.
      *
-     * @param baseDirectory  The storage base directory
+     * @param storage        The local storage descriptor
+     * @param contentLocator The content locator
+     * @return The created physical file
+     */
+    PhysicalFile create(LocalStorageDescriptor storage, ContentLocator contentLocator);
+
+    /**
+     * Create new physical file for the content of the media type. The factory may choose the
+     * physical file implementation by the media type.
+     *
+     * @param storage        The local storage descriptor
      * @param contentLocator The content locator
+     * @param mediaType      The file media type
      * @return The created physical file
      */
-    PhysicalFile create(String baseDirectory, ContentLocator contentLocator);
+    default PhysicalFile create(LocalStorageDescriptor storage, ContentLocator contentLocator,
+        String mediaType) {
+      return create(storage, contentLocator);
+    }
   }
 }
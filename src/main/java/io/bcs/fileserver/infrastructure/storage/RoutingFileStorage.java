@@ -0,0 +1,89 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bce.interaction.streaming.Destination;
+import io.bce.interaction.streaming.Source;
+import io.bce.interaction.streaming.binary.BinaryChunk;
+import io.bcs.fileserver.domain.errors.FileStorageException;
+import io.bcs.fileserver.domain.model.file.File;
+import io.bcs.fileserver.domain.model.storage.ContentFragment;
+import io.bcs.fileserver.domain.model.storage.ContentLocator;
+import io.bcs.fileserver.domain.model.storage.FileStorage;
+import io.bcs.fileserver.domain.model.storage.descriptor.ObjectStorageDescriptorRepository;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This class implements the file storage, which routes the files between the storage backends by
+ * the storage descriptor type. The new file is placed into the object storage, if the object
+ * storage is registered for the file media type, and into the local storages otherwise. The
+ * objects are written once, so the content, uploaded by the chunks, is always placed into the
+ * local storages. The file, which has been already placed, is routed by its storage name.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@RequiredArgsConstructor
+public class RoutingFileStorage implements FileStorage {
+  private final FileStorage localFileStorage;
+  private final ObjectFileStorage objectFileStorage;
+  private final ObjectStorageDescriptorRepository objectStorageDescriptorRepository;
+
+  @Override
+  public ContentLocator create(File file, Long contentLength) throws FileStorageException {
+    if (objectFileStorage.findStorageFor(file.getMediaType()).isPresent()) {
+      return objectFileStorage.create(file, contentLength);
+    }
+    return localFileStorage.create(file, contentLength);
+  }
+
+  @Override
+  public ContentLocator createChunked(File file, Long contentLength)
+      throws FileStorageException {
+    return localFileStorage.createChunked(file, contentLength);
+  }
+
+  @Override
+  public Destination<BinaryChunk> getAccessOnWrite(File file) throws FileStorageException {
+    return getStorageOf(file).getAccessOnWrite(file);
+  }
+
+  @Override
+  public Destination<BinaryChunk> getAccessOnWrite(File file, ContentFragment fragment)
+      throws FileStorageException {
+    return getStorageOf(file).getAccessOnWrite(file, fragment);
+  }
+
+  @Override
+  public Source<BinaryChunk> getAccessOnRead(File file, ContentFragment fragment)
+      throws FileStorageException {
+    return getStorageOf(file).getAccessOnRead(file, fragment);
+  }
+
+  @Override
+  public List<Source<BinaryChunk>> getAccessOnRead(File file, List<ContentFragment> fragments)
+      throws FileStorageException {
+    return getStorageOf(file).getAccessOnRead(file, fragments);
+  }
+
+  @Override
+  public void completeUpload(File file) throws FileStorageException {
+    getStorageOf(file).completeUpload(file);
+  }
+
+  @Override
+  public Optional<String> digestContent(File file) throws FileStorageException {
+    return getStorageOf(file).digestContent(file);
+  }
+
+  @Override
+  public void delete(File file) throws FileStorageException {
+    getStorageOf(file).delete(file);
+  }
+
+  private FileStorage getStorageOf(File file) {
+    boolean isObjectFile = file.getStorageName()
+        .flatMap(objectStorageDescriptorRepository::findByName).isPresent();
+    return isObjectFile ? objectFileStorage : localFileStorage;
+  }
+}
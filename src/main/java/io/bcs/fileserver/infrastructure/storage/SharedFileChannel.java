@@ -0,0 +1,91 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class represents the file channel, shared between several readers. Every reader obtains its
+ * own lease and the channel is closed when the last lease is released. Because the readers are
+ * reading the file by the absolute positions, they don't interfere with each other.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class SharedFileChannel {
+  private final FileChannel channel;
+  private final AtomicInteger leases = new AtomicInteger(0);
+
+  /**
+   * Create the shared file channel.
+   *
+   * @param channel The opened file channel
+   */
+  public SharedFileChannel(FileChannel channel) {
+    super();
+    this.channel = channel;
+  }
+
+  /**
+   * Obtain the channel lease.
+   *
+   * @return The channel lease
+   */
+  public Lease lease() {
+    leases.incrementAndGet();
+    return new Lease();
+  }
+
+  /**
+   * Check that the channel is still opened.
+   *
+   * @return True if the channel is opened
+   */
+  public boolean isOpen() {
+    return channel.isOpen();
+  }
+
+  private void release() throws IOException {
+    if (leases.decrementAndGet() == 0) {
+      channel.close();
+    }
+  }
+
+  /**
+   * This class represents the shared file channel lease. The lease is released only once,
+   * independently on how many times it is closed.
+   *
+   * @author Dmitry Mikhaylenko
+   *
+   */
+  public class Lease implements Closeable {
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    /**
+     * Get the leased file channel.
+     *
+     * @return The file channel
+     */
+    public FileChannel getChannel() {
+      return channel;
+    }
+
+    /**
+     * Get the shared file channel, which the lease belongs to.
+     *
+     * @return The shared file channel
+     */
+    public SharedFileChannel getSharedChannel() {
+      return SharedFileChannel.this;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (released.compareAndSet(false, true)) {
+        release();
+      }
+    }
+  }
+}
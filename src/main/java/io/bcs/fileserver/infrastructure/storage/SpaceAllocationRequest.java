@@ -0,0 +1,18 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This class describes the requested file space allocation.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@Getter
+@RequiredArgsConstructor
+public final class SpaceAllocationRequest {
+  private final String mediaType;
+  private final String storageFileName;
+  private final Long contentLength;
+}
@@ -0,0 +1,129 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bce.logging.ApplicationLogger;
+import io.bce.logging.Loggers;
+import io.bce.text.TextTemplates;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+
+/**
+ * This class compacts the space allocations history. The released allocation and its release
+ * don't affect the available storage space anymore, so the matched pairs, released before the
+ * retention period, are folded into the per storage snapshot row, moved to the archive and removed
+ * from the history. The not released allocations are never compacted, so the history size depends
+ * on the stored files count only, but not on the service age.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@RequiredArgsConstructor
+public class SpaceAllocationsHistoryCompactor {
+  private static final ApplicationLogger log =
+      Loggers.applicationLogger(SpaceAllocationsHistoryCompactor.class);
+  private static final String SELECT_RELEASES_QUERY =
+      "SELECT R.ID, R.ALLOCATION_REF_ID FROM SPACE_ALLOCATIONS_HISTORY R "
+          + "WHERE R.OPERATION_TYPE = 'RELEASE' "
+          + "AND R.OPERATION_DATE <= DATE_SUB(CURRENT_TIMESTAMP, INTERVAL ? SECOND) "
+          + "ORDER BY R.ID LIMIT ?";
+  private static final String UPDATE_SNAPSHOT_QUERY =
+      "INSERT INTO SPACE_ALLOCATIONS_SNAPSHOT(STORAGE_NAME, COMPACTED_ALLOCATIONS, "
+          + "COMPACTED_SIZE, LAST_COMPACTED_ID, COMPACTED_AT) "
+          + "SELECT A.STORAGE_NAME, COUNT(*), SUM(A.SIZE), MAX(A.ID), CURRENT_TIMESTAMP "
+          + "FROM SPACE_ALLOCATIONS_HISTORY A WHERE A.ID IN (%s) GROUP BY A.STORAGE_NAME "
+          + "ON DUPLICATE KEY UPDATE "
+          + "COMPACTED_ALLOCATIONS = COMPACTED_ALLOCATIONS + VALUES(COMPACTED_ALLOCATIONS), "
+          + "COMPACTED_SIZE = COMPACTED_SIZE + VALUES(COMPACTED_SIZE), "
+          + "LAST_COMPACTED_ID = GREATEST(LAST_COMPACTED_ID, VALUES(LAST_COMPACTED_ID)), "
+          + "COMPACTED_AT = VALUES(COMPACTED_AT)";
+  private static final String ARCHIVE_QUERY =
+      "INSERT INTO SPACE_ALLOCATIONS_ARCHIVE(ID, GUID, STORAGE_FILE_NAME, STORAGE_NAME, "
+          + "OPERATION_TYPE, SIZE, ALLOCATION_REF_ID, OPERATION_DATE) "
+          + "SELECT H.ID, H.GUID, H.STORAGE_FILE_NAME, H.STORAGE_NAME, H.OPERATION_TYPE, H.SIZE, "
+          + "H.ALLOCATION_REF_ID, H.OPERATION_DATE FROM SPACE_ALLOCATIONS_HISTORY H "
+          + "WHERE H.ID IN (%s)";
+  private static final String DELETE_QUERY =
+      "DELETE FROM SPACE_ALLOCATIONS_HISTORY WHERE ID IN (%s)";
+
+  private final DataSource dataSource;
+  private final Long retention;
+  private final int batchSize;
+
+  /**
+   * Compact the released allocations by batches. Every batch is compacted in its own transaction,
+   * so the history isn't locked for a long time.
+   *
+   * @return The compacted allocations count
+   */
+  @SneakyThrows
+  public long compact() {
+    long compacted = 0L;
+    try (Connection connection = dataSource.getConnection()) {
+      int batchCompacted;
+      do {
+        batchCompacted = compactBatch(connection);
+        compacted += batchCompacted;
+      } while (batchCompacted == batchSize);
+    }
+    if (compacted > 0) {
+      log.info(TextTemplates
+          .createBy("{{compacted}} released space allocations have been compacted.")
+          .withParameter("compacted", compacted));
+    }
+    return compacted;
+  }
+
+  private int compactBatch(Connection connection) throws SQLException {
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try {
+      List<Long> releases = new ArrayList<>();
+      List<Long> allocations = new ArrayList<>();
+      selectReleases(connection, releases, allocations);
+      if (!releases.isEmpty()) {
+        executeForIdentifiers(connection, UPDATE_SNAPSHOT_QUERY, allocations);
+        executeForIdentifiers(connection, ARCHIVE_QUERY, allocations);
+        executeForIdentifiers(connection, ARCHIVE_QUERY, releases);
+        executeForIdentifiers(connection, DELETE_QUERY, releases);
+        executeForIdentifiers(connection, DELETE_QUERY, allocations);
+      }
+      connection.commit();
+      return releases.size();
+    } catch (SQLException error) {
+      connection.rollback();
+      throw error;
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+  }
+
+  private void selectReleases(Connection connection, List<Long> releases, List<Long> allocations)
+      throws SQLException {
+    PreparedStatement statement = connection.prepareStatement(SELECT_RELEASES_QUERY);
+    statement.setLong(1, TimeUnit.MILLISECONDS.toSeconds(retention));
+    statement.setInt(2, batchSize);
+    ResultSet resultSet = statement.executeQuery();
+    while (resultSet.next()) {
+      releases.add(resultSet.getLong("ID"));
+      allocations.add(resultSet.getLong("ALLOCATION_REF_ID"));
+    }
+  }
+
+  private void executeForIdentifiers(Connection connection, String query, List<Long> identifiers)
+      throws SQLException {
+    String placeholders = String.join(", ", Collections.nCopies(identifiers.size(), "?"));
+    PreparedStatement statement = connection.prepareStatement(String.format(query, placeholders));
+    for (int i = 0; i < identifiers.size(); i++) {
+      statement.setLong(i + 1, identifiers.get(i));
+    }
+    statement.executeUpdate();
+  }
+}
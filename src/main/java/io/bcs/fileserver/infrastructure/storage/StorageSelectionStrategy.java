@@ -0,0 +1,46 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This interface describes the strategy, choosing the local storage for the allocated file space.
+ * The strategy only orders the candidates, and the disk quote is guarded by the space accounting.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public interface StorageSelectionStrategy {
+  /**
+   * Order the candidate storages by preference. The storages, which aren't applicable for the
+   * requested size, may be left out.
+   *
+   * @param candidates The candidate storages of the file media type
+   * @param size       The requested space size
+   * @return The names of the applicable storages, the most preferred first
+   */
+  List<String> rank(List<StorageCandidate> candidates, long size);
+
+  /**
+   * Notify the strategy, that the space has been reserved on the storage, chosen by the ranking.
+   *
+   * @param storageName The storage name
+   */
+  default void onSpaceReserved(String storageName) {
+  }
+
+  /**
+   * This class describes the candidate storage state at the moment of the selection.
+   *
+   * @author Dmitry Mikhaylenko
+   *
+   */
+  @Getter
+  @RequiredArgsConstructor
+  final class StorageCandidate {
+    private final String storageName;
+    private final String baseDirectory;
+    private final long availableSpace;
+  }
+}
@@ -0,0 +1,138 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bcs.fileserver.infrastructure.storage.StorageSelectionStrategy.StorageCandidate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import lombok.Getter;
+
+/**
+ * This class keeps the used space counters of the local storages in memory. The space is reserved
+ * atomically without locks, so the concurrent allocations never exceed the storage disk quote.
+ * The storages are tried in the order, chosen by the storage selection strategy.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class StorageSpaceAccounting {
+  private final Map<String, StorageSpace> storages = new ConcurrentHashMap<>();
+  private final StorageSelectionStrategy selectionStrategy;
+
+  /**
+   * Create the storages space accounting.
+   *
+   * @param selectionStrategy The storage selection strategy
+   */
+  public StorageSpaceAccounting(StorageSelectionStrategy selectionStrategy) {
+    super();
+    this.selectionStrategy = selectionStrategy;
+  }
+
+  /**
+   * Update the storage space counters. The storage is registered, if it isn't known yet.
+   *
+   * @param storageName   The storage name
+   * @param mediaType     The storage media type
+   * @param baseDirectory The storage base directory
+   * @param diskQuote     The storage disk quote
+   * @param usedSpace     The used storage space
+   */
+  public void update(String storageName, String mediaType, String baseDirectory, long diskQuote,
+      long usedSpace) {
+    storages.computeIfAbsent(storageName, StorageSpace::new).update(mediaType, baseDirectory,
+        diskQuote, usedSpace);
+  }
+
+  /**
+   * Reserve the space on the storage of the media type.
+   *
+   * @param mediaType The file media type
+   * @param size      The reserved size
+   * @param excluded  The names of the storages, which mustn't be chosen
+   * @return The name of the storage, on which the space is reserved, if there is enough space
+   */
+  public Optional<String> reserve(String mediaType, long size, Collection<String> excluded) {
+    List<StorageCandidate> candidates = storages.values().stream()
+        .filter(storage -> storage.getMediaType().equals(mediaType))
+        .filter(storage -> !excluded.contains(storage.getStorageName()))
+        .map(StorageSpace::toCandidate).collect(Collectors.toList());
+    for (String storageName : selectionStrategy.rank(candidates, size)) {
+      StorageSpace storage = storages.get(storageName);
+      if (storage != null && storage.tryReserve(size)) {
+        selectionStrategy.onSpaceReserved(storageName);
+        return Optional.of(storageName);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Return the reserved or the released space to the storage.
+   *
+   * @param storageName The storage name
+   * @param size        The released size
+   */
+  public void release(String storageName, long size) {
+    Optional.ofNullable(storages.get(storageName)).ifPresent(storage -> storage.release(size));
+  }
+
+  /**
+   * Get the available space of the storage.
+   *
+   * @param storageName The storage name
+   * @return The available space if the storage is known
+   */
+  public Optional<Long> getAvailableSpace(String storageName) {
+    return Optional.ofNullable(storages.get(storageName)).map(StorageSpace::getAvailableSpace);
+  }
+
+  private static class StorageSpace {
+    @Getter
+    private final String storageName;
+    private final AtomicLong usedSpace = new AtomicLong(0L);
+    @Getter
+    private volatile String mediaType = "";
+    private volatile String baseDirectory = "";
+    private volatile long diskQuote = 0L;
+
+    private StorageSpace(String storageName) {
+      super();
+      this.storageName = storageName;
+    }
+
+    private void update(String mediaType, String baseDirectory, long diskQuote, long usedSpace) {
+      this.mediaType = mediaType;
+      this.baseDirectory = baseDirectory;
+      this.diskQuote = diskQuote;
+      this.usedSpace.set(usedSpace);
+    }
+
+    private long getAvailableSpace() {
+      return diskQuote - usedSpace.get();
+    }
+
+    private StorageCandidate toCandidate() {
+      return new StorageCandidate(storageName, baseDirectory, getAvailableSpace());
+    }
+
+    private boolean tryReserve(long size) {
+      while (true) {
+        long used = usedSpace.get();
+        if (diskQuote - used < size) {
+          return false;
+        }
+        if (usedSpace.compareAndSet(used, used + size)) {
+          return true;
+        }
+      }
+    }
+
+    private void release(long size) {
+      usedSpace.addAndGet(-size);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class counts the files, which are being written to the local storages at the moment, and
+ * the files, which space has been reserved on the storage, but which write hasn't been started
+ * yet. The reservation is counted as the write load from the space allocation, so the burst of the
+ * allocations is spread across the storages before any of them starts writing. The reservation is
+ * consumed by the write start and expires, if the write isn't started during the timeout.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class StorageWriteLoad {
+  private static final long DEFAULT_RESERVATION_TIMEOUT = 60000L;
+
+  private final long reservationTimeout;
+  private final Map<String, AtomicInteger> inFlightWrites = new ConcurrentHashMap<>();
+  private final Map<String, Queue<Long>> pendingWrites = new ConcurrentHashMap<>();
+
+  /**
+   * Create the storages write load with the default reservation timeout.
+   */
+  public StorageWriteLoad() {
+    this(DEFAULT_RESERVATION_TIMEOUT);
+  }
+
+  /**
+   * Create the storages write load.
+   *
+   * @param reservationTimeout The timeout in milliseconds, after which the reservation, which
+   *                           write hasn't been started, isn't counted
+   */
+  public StorageWriteLoad(long reservationTimeout) {
+    super();
+    this.reservationTimeout = reservationTimeout;
+  }
+
+  /**
+   * Register the write, which space has been reserved on the storage.
+   *
+   * @param storageName The storage name
+   */
+  public void reserveWrite(String storageName) {
+    getPendingWrites(storageName).add(System.currentTimeMillis());
+  }
+
+  /**
+   * Register the started write. The earliest pending reservation of the storage is consumed.
+   *
+   * @param storageName The storage name
+   * @return The callback, which should be called, when the write is finished. The repeated calls
+   *         are ignored.
+   */
+  public Runnable startWrite(String storageName) {
+    AtomicInteger counter = inFlightWrites.computeIfAbsent(storageName, key -> new AtomicInteger());
+    AtomicBoolean finished = new AtomicBoolean(false);
+    counter.incrementAndGet();
+    getPendingWrites(storageName).poll();
+    return () -> {
+      if (finished.compareAndSet(false, true)) {
+        counter.decrementAndGet();
+      }
+    };
+  }
+
+  /**
+   * Get the count of the files, which are being written to the storage.
+   *
+   * @param storageName The storage name
+   * @return The in-flight writes count
+   */
+  public int getInFlightWrites(String storageName) {
+    return Optional.ofNullable(inFlightWrites.get(storageName)).map(AtomicInteger::get).orElse(0);
+  }
+
+  /**
+   * Get the write load of the storage, counting both the in-flight writes and the reserved writes,
+   * which haven't been started yet.
+   *
+   * @param storageName The storage name
+   * @return The write load
+   */
+  public int getWriteLoad(String storageName) {
+    return getInFlightWrites(storageName) + getPendingWritesCount(storageName);
+  }
+
+  private int getPendingWritesCount(String storageName) {
+    Queue<Long> pending = pendingWrites.get(storageName);
+    if (pending == null) {
+      return 0;
+    }
+    long expirationTime = System.currentTimeMillis() - reservationTimeout;
+    Long reservationTime;
+    while ((reservationTime = pending.peek()) != null && reservationTime <= expirationTime) {
+      pending.remove(reservationTime);
+    }
+    return pending.size();
+  }
+
+  private Queue<Long> getPendingWrites(String storageName) {
+    return pendingWrites.computeIfAbsent(storageName, key -> new ConcurrentLinkedQueue<>());
+  }
+}
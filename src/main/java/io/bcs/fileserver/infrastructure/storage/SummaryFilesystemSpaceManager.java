@@ -0,0 +1,363 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bce.logging.ApplicationLogger;
+import io.bce.logging.Loggers;
+import io.bce.text.TextTemplates;
+import io.bcs.fileserver.domain.errors.FileStorageException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import javax.sql.DataSource;
+import lombok.SneakyThrows;
+
+/**
+ * This class manages a filesystem space, using the materialized used space summary instead of
+ * the aggregation of the whole allocations history. The space is reserved in memory first and is
+ * then committed by the conditional update of the storage summary row, which guards the disk
+ * quote between the application nodes. Every allocation and release is journaled to the
+ * allocations history for audit, and the summary is reconciled against the history on startup.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class SummaryFilesystemSpaceManager implements FilesystemSpaceManager {
+  private static final ApplicationLogger log =
+      Loggers.applicationLogger(SummaryFilesystemSpaceManager.class);
+  private static final String INSERT_MISSING_SUMMARIES_QUERY =
+      "INSERT INTO LOCAL_STORAGES_SPACE(STORAGE_NAME, USED_SPACE) "
+          + "SELECT LS.STORAGE_NAME, 0 FROM REF_LOCAL_STORAGES LS WHERE NOT EXISTS ("
+          + "SELECT 1 FROM LOCAL_STORAGES_SPACE SP WHERE SP.STORAGE_NAME = LS.STORAGE_NAME)";
+  private static final String LOCK_SUMMARIES_QUERY =
+      "SELECT SP.STORAGE_NAME, SP.USED_SPACE FROM LOCAL_STORAGES_SPACE SP FOR UPDATE";
+  private static final String SELECT_HISTORY_USED_SPACE_QUERY =
+      "SELECT H.STORAGE_NAME, SUM(H.SIZE) AS HISTORY_USED_SPACE "
+          + "FROM SPACE_ALLOCATIONS_HISTORY H WHERE H.OPERATION_TYPE = 'ALLOC' "
+          + "AND NOT EXISTS (SELECT 1 FROM SPACE_ALLOCATIONS_HISTORY R "
+          + "WHERE R.ALLOCATION_REF_ID = H.ID) GROUP BY H.STORAGE_NAME";
+  private static final String CORRECT_SUMMARY_QUERY =
+      "UPDATE LOCAL_STORAGES_SPACE SET USED_SPACE = ? WHERE STORAGE_NAME = ?";
+  private static final String SELECT_SUMMARIES_QUERY =
+      "SELECT S.STORAGE_NAME, S.MEDIA_TYPE, LS.BASE_DIRECTORY, LS.DISK_QUOTE, SP.USED_SPACE "
+          + "FROM REF_STORAGES S "
+          + "INNER JOIN REF_LOCAL_STORAGES LS ON LS.STORAGE_NAME = S.STORAGE_NAME "
+          + "INNER JOIN LOCAL_STORAGES_SPACE SP ON SP.STORAGE_NAME = LS.STORAGE_NAME";
+  private static final String COMMIT_ALLOCATION_QUERY =
+      "UPDATE LOCAL_STORAGES_SPACE SET USED_SPACE = USED_SPACE + ? "
+          + "WHERE STORAGE_NAME = ? AND USED_SPACE + ? <= ("
+          + "SELECT LS.DISK_QUOTE FROM REF_LOCAL_STORAGES LS WHERE LS.STORAGE_NAME = ?)";
+  private static final String DECREASE_USED_SPACE_QUERY =
+      "UPDATE LOCAL_STORAGES_SPACE SET USED_SPACE = USED_SPACE - ? WHERE STORAGE_NAME = ?";
+  private static final String JOURNAL_ALLOCATION_QUERY =
+      "INSERT INTO SPACE_ALLOCATIONS_HISTORY"
+          + "(GUID, STORAGE_FILE_NAME, STORAGE_NAME, OPERATION_TYPE, SIZE) "
+          + "VALUES (?, ?, ?, 'ALLOC', ?)";
+  private static final String JOURNAL_RELEASE_QUERY =
+      "INSERT INTO SPACE_ALLOCATIONS_HISTORY"
+          + "(GUID, STORAGE_FILE_NAME, STORAGE_NAME, OPERATION_TYPE, ALLOCATION_REF_ID) "
+          + "SELECT ?, H.STORAGE_FILE_NAME, H.STORAGE_NAME, 'RELEASE', H.ID "
+          + "FROM SPACE_ALLOCATIONS_HISTORY H "
+          + "LEFT JOIN SPACE_ALLOCATIONS_HISTORY R ON H.ID = R.ALLOCATION_REF_ID "
+          + "WHERE R.ID IS NULL AND H.OPERATION_TYPE = 'ALLOC' "
+          + "AND H.STORAGE_NAME = ? AND H.STORAGE_FILE_NAME = ? ORDER BY H.ID DESC LIMIT 1";
+  private static final String SELECT_RELEASED_SIZE_QUERY =
+      "SELECT A.SIZE FROM SPACE_ALLOCATIONS_HISTORY R "
+          + "INNER JOIN SPACE_ALLOCATIONS_HISTORY A ON A.ID = R.ALLOCATION_REF_ID "
+          + "WHERE R.GUID = ?";
+
+  private final DataSource dataSource;
+  private final StorageSpaceAccounting accounting;
+
+  /**
+   * Create the summary based filesystem space manager. The space counters are empty until the
+   * manager is reconciled or reloaded. The storages are chosen by the best fit.
+   *
+   * @param dataSource The data source
+   */
+  public SummaryFilesystemSpaceManager(DataSource dataSource) {
+    this(dataSource, new BestFitSelectionStrategy());
+  }
+
+  /**
+   * Create the summary based filesystem space manager. The space counters are empty until the
+   * manager is reconciled or reloaded.
+   *
+   * @param dataSource        The data source
+   * @param selectionStrategy The storage selection strategy
+   */
+  public SummaryFilesystemSpaceManager(DataSource dataSource,
+      StorageSelectionStrategy selectionStrategy) {
+    super();
+    this.dataSource = dataSource;
+    this.accounting = new StorageSpaceAccounting(selectionStrategy);
+  }
+
+  @Override
+  @SneakyThrows
+  public String allocateSpace(String mediaType, String storageFileName, Long contentLength) {
+    try (Connection connection = dataSource.getConnection()) {
+      Optional<String> storageName = allocateSpace(connection, mediaType, storageFileName,
+          contentLength);
+      if (!storageName.isPresent()) {
+        reload(connection);
+        storageName = allocateSpace(connection, mediaType, storageFileName, contentLength);
+      }
+      return storageName.orElseThrow(() -> {
+        return new FileStorageException("Requested file space couldn't be allocated because "
+            + "there isn't enough space on local storages.");
+      });
+    }
+  }
+
+  /**
+   * Allocate space for the batch of files in one connection. The space is reserved in memory for
+   * every request first, and then it is committed by one summary update and one journal batch per
+   * storage. The requests of the refused storages are allocated one by one. The commit failure of
+   * the storage releases only the reservations of this storage and leaves its requests unallocated,
+   * the space, committed on the other storages, is kept.
+   *
+   * @param requests The space allocation requests
+   * @return The storage names, on which the space is allocated, in the requests order
+   */
+  @Override
+  @SneakyThrows
+  public List<Optional<String>> allocateSpace(List<SpaceAllocationRequest> requests) {
+    try (Connection connection = dataSource.getConnection()) {
+      List<Optional<String>> allocations =
+          new ArrayList<>(Collections.nCopies(requests.size(), Optional.empty()));
+      Map<String, List<Integer>> reservations = new LinkedHashMap<>();
+      Set<Integer> failedRequests = new HashSet<>();
+      for (int i = 0; i < requests.size(); i++) {
+        SpaceAllocationRequest request = requests.get(i);
+        Optional<String> reserved = accounting.reserve(request.getMediaType(),
+            request.getContentLength(), Collections.emptySet());
+        if (reserved.isPresent()) {
+          reservations.computeIfAbsent(reserved.get(), key -> new ArrayList<>()).add(i);
+        }
+      }
+
+      for (Map.Entry<String, List<Integer>> reservation : reservations.entrySet()) {
+        String storageName = reservation.getKey();
+        List<SpaceAllocationRequest> reservedRequests = new ArrayList<>();
+        reservation.getValue().forEach(index -> reservedRequests.add(requests.get(index)));
+        try {
+          if (commitAllocations(connection, storageName, reservedRequests)) {
+            reservation.getValue()
+                .forEach(index -> allocations.set(index, Optional.of(storageName)));
+          } else {
+            accounting.release(storageName, getTotalLength(reservedRequests));
+          }
+        } catch (SQLException error) {
+          log.warn(TextTemplates
+              .createBy("The space allocation on the storage {{storageName}} has been failed: "
+                  + "{{error}}")
+              .withParameter("storageName", storageName)
+              .withParameter("error", error.getMessage()));
+          failedRequests.addAll(reservation.getValue());
+        }
+      }
+
+      boolean reloaded = false;
+      for (int i = 0; i < requests.size(); i++) {
+        if (!allocations.get(i).isPresent() && !failedRequests.contains(i)) {
+          SpaceAllocationRequest request = requests.get(i);
+          try {
+            Optional<String> storageName = allocateSpace(connection, request.getMediaType(),
+                request.getStorageFileName(), request.getContentLength());
+            if (!storageName.isPresent() && !reloaded) {
+              reloaded = true;
+              reload(connection);
+              storageName = allocateSpace(connection, request.getMediaType(),
+                  request.getStorageFileName(), request.getContentLength());
+            }
+            allocations.set(i, storageName);
+          } catch (SQLException error) {
+            log.warn(TextTemplates
+                .createBy("The space allocation for the file {{storageFileName}} has been failed: "
+                    + "{{error}}")
+                .withParameter("storageFileName", request.getStorageFileName())
+                .withParameter("error", error.getMessage()));
+          }
+        }
+      }
+      return allocations;
+    }
+  }
+
+  @Override
+  @SneakyThrows
+  public void releaseSpace(String storageName, String storageFileName) {
+    try (Connection connection = dataSource.getConnection()) {
+      String releaseMarker = UUID.randomUUID().toString();
+      PreparedStatement journalStatement = connection.prepareStatement(JOURNAL_RELEASE_QUERY);
+      journalStatement.setString(1, releaseMarker);
+      journalStatement.setString(2, storageName);
+      journalStatement.setString(3, storageFileName);
+      if (journalStatement.executeUpdate() == 0) {
+        throw new FileStorageException("Space for specified file couldn't be released.");
+      }
+      long releasedSize = getReleasedSize(connection, releaseMarker);
+      decreaseUsedSpace(connection, storageName, releasedSize);
+      accounting.release(storageName, releasedSize);
+    }
+  }
+
+  /**
+   * Correct the used space summary of every storage by the allocations history and reload the
+   * space counters. The summary may differ from the history, if the application has been stopped
+   * between the summary update and the journal record. The summary rows are locked for the whole
+   * correction, so the nodes, started at the same time, reconcile one after another and the
+   * allocations of the running nodes wait for the correction instead of being overwritten by it.
+   */
+  @SneakyThrows
+  public void reconcile() {
+    try (Connection connection = dataSource.getConnection()) {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try {
+        connection.prepareStatement(INSERT_MISSING_SUMMARIES_QUERY).executeUpdate();
+        Map<String, Long> summaries = lockSummaries(connection);
+        Map<String, Long> history = getHistoryUsedSpace(connection);
+        for (Map.Entry<String, Long> summary : summaries.entrySet()) {
+          long summaryUsedSpace = summary.getValue();
+          long historyUsedSpace = history.getOrDefault(summary.getKey(), 0L);
+          if (summaryUsedSpace != historyUsedSpace) {
+            correctSummary(connection, summary.getKey(), summaryUsedSpace, historyUsedSpace);
+          }
+        }
+        connection.commit();
+      } catch (SQLException error) {
+        connection.rollback();
+        throw error;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+      reload(connection);
+    }
+  }
+
+  private Optional<String> allocateSpace(Connection connection, String mediaType,
+      String storageFileName, Long contentLength) throws SQLException {
+    Set<String> refusedStorages = new HashSet<>();
+    Optional<String> reserved;
+    while ((reserved = accounting.reserve(mediaType, contentLength, refusedStorages))
+        .isPresent()) {
+      String storageName = reserved.get();
+      if (commitAllocations(connection, storageName, Collections.singletonList(
+          new SpaceAllocationRequest(mediaType, storageFileName, contentLength)))) {
+        return reserved;
+      }
+      accounting.release(storageName, contentLength);
+      refusedStorages.add(storageName);
+    }
+    return Optional.empty();
+  }
+
+  private boolean commitAllocations(Connection connection, String storageName,
+      List<SpaceAllocationRequest> requests) throws SQLException {
+    long totalLength = getTotalLength(requests);
+    try {
+      PreparedStatement commitStatement = connection.prepareStatement(COMMIT_ALLOCATION_QUERY);
+      commitStatement.setLong(1, totalLength);
+      commitStatement.setString(2, storageName);
+      commitStatement.setLong(3, totalLength);
+      commitStatement.setString(4, storageName);
+      if (commitStatement.executeUpdate() == 0) {
+        return false;
+      }
+    } catch (SQLException error) {
+      accounting.release(storageName, totalLength);
+      throw error;
+    }
+
+    try {
+      PreparedStatement journalStatement = connection.prepareStatement(JOURNAL_ALLOCATION_QUERY);
+      for (SpaceAllocationRequest request : requests) {
+        journalStatement.setString(1, UUID.randomUUID().toString());
+        journalStatement.setString(2, request.getStorageFileName());
+        journalStatement.setString(3, storageName);
+        journalStatement.setLong(4, request.getContentLength());
+        journalStatement.addBatch();
+      }
+      journalStatement.executeBatch();
+      return true;
+    } catch (SQLException error) {
+      accounting.release(storageName, totalLength);
+      decreaseUsedSpace(connection, storageName, totalLength);
+      throw error;
+    }
+  }
+
+  private long getTotalLength(List<SpaceAllocationRequest> requests) {
+    return requests.stream().mapToLong(SpaceAllocationRequest::getContentLength).sum();
+  }
+
+  private long getReleasedSize(Connection connection, String releaseMarker)
+      throws SQLException {
+    PreparedStatement statement = connection.prepareStatement(SELECT_RELEASED_SIZE_QUERY);
+    statement.setString(1, releaseMarker);
+    ResultSet resultSet = statement.executeQuery();
+    return resultSet.next() ? resultSet.getLong("SIZE") : 0L;
+  }
+
+  private void decreaseUsedSpace(Connection connection, String storageName, long size)
+      throws SQLException {
+    PreparedStatement statement = connection.prepareStatement(DECREASE_USED_SPACE_QUERY);
+    statement.setLong(1, size);
+    statement.setString(2, storageName);
+    statement.executeUpdate();
+  }
+
+  private Map<String, Long> lockSummaries(Connection connection) throws SQLException {
+    Map<String, Long> summaries = new LinkedHashMap<>();
+    ResultSet resultSet = connection.prepareStatement(LOCK_SUMMARIES_QUERY).executeQuery();
+    while (resultSet.next()) {
+      summaries.put(resultSet.getString("STORAGE_NAME"), resultSet.getLong("USED_SPACE"));
+    }
+    return summaries;
+  }
+
+  private Map<String, Long> getHistoryUsedSpace(Connection connection) throws SQLException {
+    Map<String, Long> history = new HashMap<>();
+    ResultSet resultSet = connection.prepareStatement(SELECT_HISTORY_USED_SPACE_QUERY)
+        .executeQuery();
+    while (resultSet.next()) {
+      history.put(resultSet.getString("STORAGE_NAME"), resultSet.getLong("HISTORY_USED_SPACE"));
+    }
+    return history;
+  }
+
+  private void correctSummary(Connection connection, String storageName, long summaryUsedSpace,
+      long historyUsedSpace) throws SQLException {
+    log.warn(TextTemplates
+        .createBy("The used space summary of the storage {{storageName}} is {{summaryUsedSpace}}, "
+            + "but the allocations history has {{historyUsedSpace}}. The summary is corrected.")
+        .withParameter("storageName", storageName)
+        .withParameter("summaryUsedSpace", summaryUsedSpace)
+        .withParameter("historyUsedSpace", historyUsedSpace));
+    PreparedStatement statement = connection.prepareStatement(CORRECT_SUMMARY_QUERY);
+    statement.setLong(1, historyUsedSpace);
+    statement.setString(2, storageName);
+    statement.executeUpdate();
+  }
+
+  private void reload(Connection connection) throws SQLException {
+    connection.prepareStatement(INSERT_MISSING_SUMMARIES_QUERY).executeUpdate();
+    ResultSet resultSet = connection.prepareStatement(SELECT_SUMMARIES_QUERY).executeQuery();
+    while (resultSet.next()) {
+      accounting.update(resultSet.getString("STORAGE_NAME"), resultSet.getString("MEDIA_TYPE"),
+          resultSet.getString("BASE_DIRECTORY"), resultSet.getLong("DISK_QUOTE"),
+          resultSet.getLong("USED_SPACE"));
+    }
+  }
+}
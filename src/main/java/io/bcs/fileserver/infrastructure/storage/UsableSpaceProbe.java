@@ -0,0 +1,47 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bce.logging.ApplicationLogger;
+import io.bce.logging.Loggers;
+import io.bce.text.TextTemplates;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class obtains the real free space of the disks, on which the local storages are located.
+ * The file store resolving reads the mounted filesystems table, so the file stores are resolved
+ * once per base directory, and only the usable space is requested on every probe.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class UsableSpaceProbe {
+  private static final ApplicationLogger log = Loggers.applicationLogger(UsableSpaceProbe.class);
+
+  private final Map<String, FileStore> fileStores = new ConcurrentHashMap<>();
+
+  /**
+   * Get the usable space of the disk, on which the directory is located. If the disk state can't
+   * be obtained, the space is considered unlimited, so the storage is chosen by its quote only.
+   *
+   * @param baseDirectory The storage base directory
+   * @return The usable space in bytes
+   */
+  public long getUsableSpace(String baseDirectory) {
+    try {
+      FileStore fileStore = fileStores.get(baseDirectory);
+      if (fileStore == null) {
+        fileStore = Files.getFileStore(Paths.get(baseDirectory));
+        fileStores.put(baseDirectory, fileStore);
+      }
+      return fileStore.getUsableSpace();
+    } catch (IOException error) {
+      log.warn(TextTemplates.createBy("The usable space of {{baseDirectory}} can't be obtained.")
+          .withParameter("baseDirectory", baseDirectory));
+      return Long.MAX_VALUE;
+    }
+  }
+}
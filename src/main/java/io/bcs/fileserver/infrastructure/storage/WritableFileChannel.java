@@ -0,0 +1,20 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import java.io.Closeable;
+import java.nio.channels.FileChannel;
+
+/**
+ * This interface describes the physical file destination, which could be written through the file
+ * channel directly, bypassing the streamer.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public interface WritableFileChannel extends Closeable {
+  /**
+   * Get the file channel, opened for write.
+   *
+   * @return The file channel
+   */
+  FileChannel getChannel();
+}
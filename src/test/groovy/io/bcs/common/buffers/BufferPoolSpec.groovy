@@ -0,0 +1,62 @@
+package io.bcs.common.buffers
+
+import java.nio.ByteBuffer
+import spock.lang.Specification
+
+class BufferPoolSpec extends Specification {
+  def "Scenario: reuse the released buffer"() {
+    given: "The buffer pool"
+    BufferPool bufferPool = new BufferPool(16, 2, 1)
+
+    and: "The acquired and released buffer"
+    ByteBuffer buffer = bufferPool.acquire()
+    buffer.put("Hello".getBytes())
+    bufferPool.release(buffer)
+
+    when: "The buffer is acquired again"
+    ByteBuffer reusedBuffer = bufferPool.acquire()
+
+    then: "The released buffer should be reused in the cleared state"
+    reusedBuffer.is(buffer)
+    reusedBuffer.position() == 0
+    reusedBuffer.remaining() == 16
+
+    and: "The pool hit and miss should be counted"
+    bufferPool.getStatistic().getHits() == 1L
+    bufferPool.getStatistic().getMisses() == 1L
+  }
+
+  def "Scenario: drop the released buffer if the pool is full"() {
+    given: "The buffer pool, keeping one buffer"
+    BufferPool bufferPool = new BufferPool(16, 1, 1)
+
+    and: "Two acquired buffers"
+    ByteBuffer firstBuffer = bufferPool.acquire()
+    ByteBuffer secondBuffer = bufferPool.acquire()
+
+    when: "Both buffers are released"
+    bufferPool.release(firstBuffer)
+    bufferPool.release(secondBuffer)
+
+    then: "The second buffer should be dropped"
+    bufferPool.getStatistic().getDrops() == 1L
+    bufferPool.acquire().is(firstBuffer)
+  }
+
+  def "Scenario: release the buffers to their owning stripes from the other thread"() {
+    given: "The striped buffer pool, keeping one buffer per stripe"
+    BufferPool bufferPool = new BufferPool(16, 1, 4)
+
+    and: "The buffers, acquired by the current thread"
+    List<ByteBuffer> buffers = (0..<64).collect { bufferPool.acquire() }
+
+    when: "The buffers are released by the other thread"
+    Thread releasingThread = new Thread({ buffers.each { bufferPool.release(it) } })
+    releasingThread.start()
+    releasingThread.join()
+
+    then: "The buffers should be spread across the stripes instead of the releasing thread stripe"
+    bufferPool.getStatistic().getPooled() > 1
+    bufferPool.getStatistic().getPooled() + bufferPool.getStatistic().getDrops() == 64L
+  }
+}
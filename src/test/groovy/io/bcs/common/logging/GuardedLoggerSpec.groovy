@@ -0,0 +1,93 @@
+package io.bcs.common.logging
+
+import io.bce.logging.Loggers
+import io.bce.text.TextTemplate
+import io.bce.text.TextTemplates
+import java.util.function.Supplier
+import java.util.logging.Handler
+import java.util.logging.Level
+import java.util.logging.LogRecord
+import java.util.logging.Logger
+import spock.lang.Specification
+
+class GuardedLoggerSpec extends Specification {
+  private static final String MESSAGE = "Hello World!!!"
+
+  private Logger julLogger
+  private Level initialLevel
+  private List<LogRecord> records
+  private Handler handler
+
+  def setup() {
+    this.julLogger = Logger.getLogger(GuardedLoggerSpec.getName())
+    this.initialLevel = julLogger.getLevel()
+    this.records = []
+    this.handler = new Handler() {
+          @Override
+          void publish(LogRecord record) {
+            records.add(record)
+          }
+
+          @Override
+          void flush() {
+          }
+
+          @Override
+          void close() {
+          }
+        }
+    handler.setLevel(Level.ALL)
+    julLogger.addHandler(handler)
+  }
+
+  def cleanup() {
+    julLogger.removeHandler(handler)
+    julLogger.setLevel(initialLevel)
+  }
+
+  def "Scenario: the application logger writes through the JUL logger of the logging class"() {
+    given: "The JUL logger of the logging class with the enabled info level"
+    julLogger.setLevel(Level.INFO)
+
+    when: "The message is logged by the application logger"
+    Loggers.applicationLogger(GuardedLoggerSpec).info(MESSAGE)
+
+    then: "The message should be published by the JUL logger, which levels are checked by the guarded logger"
+    records.size() == 1
+    records[0].getMessage().contains(MESSAGE)
+  }
+
+  def "Scenario: don't create the message template of the disabled level"() {
+    given: "The JUL logger of the logging class with the disabled debug level"
+    julLogger.setLevel(Level.INFO)
+
+    and: "The message template supplier"
+    Supplier<TextTemplate> template = Mock(Supplier)
+
+    when: "The debug message is logged by the guarded logger"
+    GuardedLogger logger = GuardedLogger.of(GuardedLoggerSpec)
+    logger.debug(template)
+    logger.debug(MESSAGE)
+
+    then: "The template shouldn't be created"
+    0 * template.get()
+
+    and: "Nothing should be logged"
+    !logger.isDebugEnabled()
+    records.isEmpty()
+  }
+
+  def "Scenario: log the message template of the enabled level"() {
+    given: "The JUL logger of the logging class with the enabled debug level"
+    julLogger.setLevel(Level.FINE)
+
+    when: "The debug message is logged by the guarded logger"
+    GuardedLogger logger = GuardedLogger.of(GuardedLoggerSpec)
+    logger.debug({ TextTemplates.createBy(MESSAGE) } as Supplier<TextTemplate>)
+
+    then: "The message should be logged"
+    logger.isDebugEnabled()
+    records.size() == 1
+    records[0].getMessage().contains(MESSAGE)
+  }
+}
@@ -24,12 +24,17 @@ import io.bcs.fileserver.domain.errors.UnsatisfiableRangeFormatException
 import io.bcs.fileserver.domain.model.file.File
 import io.bcs.fileserver.domain.model.file.FileRepository
 import io.bcs.fileserver.domain.model.file.FileStatus
+import io.bcs.fileserver.domain.model.file.FragmentsPolicy
 import io.bcs.fileserver.domain.model.file.Range
+import io.bcs.fileserver.domain.model.file.content.ChunkedUploadStatistic
+import io.bcs.fileserver.domain.model.file.content.ContentChunk
 import io.bcs.fileserver.domain.model.file.content.FileContent
 import io.bcs.fileserver.domain.model.file.content.FileUploadStatistic
 import io.bcs.fileserver.domain.model.file.content.Downloader.ContentReceiver
 import io.bcs.fileserver.domain.model.file.content.FileContent.ContentPart
 import io.bcs.fileserver.domain.model.file.content.FileContent.ContentType
+import io.bcs.fileserver.domain.model.file.content.UploadedChunk
+import io.bcs.fileserver.domain.model.file.content.UploadedChunksRepository
 import io.bcs.fileserver.domain.model.file.content.Uploader.ContentSource
 import io.bcs.fileserver.domain.model.storage.ContentLocator
 import io.bcs.fileserver.domain.model.storage.FileStorage
@@ -46,6 +51,7 @@ class ContentServiceSpec extends Specification {
 
 
   private FileRepository fileRepository
+  private UploadedChunksRepository uploadedChunksRepository
   private FileStorage fileStorage
   private EventBus eventBus
   private EventPublisher eventPublisher
@@ -53,11 +59,12 @@ class ContentServiceSpec extends Specification {
 
   def setup() {
     this.fileRepository = Mock(FileRepository)
+    this.uploadedChunksRepository = Mock(UploadedChunksRepository)
     this.fileStorage = Mock(FileStorage)
     this.eventBus = Mock(EventBus)
     this.eventPublisher = Mock(EventPublisher)
     this.eventBus.getPublisher(_, _) >> eventPublisher
-    this.fileService = new ContentService(fileRepository, fileStorage, eventBus)
+    this.fileService = new ContentService(fileRepository, uploadedChunksRepository, fileStorage, eventBus)
   }
 
   def "Scenario: unsuccessfully upload file content to the unspecified file"() {
@@ -217,6 +224,208 @@ class ContentServiceSpec extends Specification {
     0 * fileStorage.getAccessOnWrite(_)
   }
 
+  def "Scenario: upload not last content chunk to the draft file"() {
+    ChunkedUploadStatistic statistic
+
+    given: "The draft file with allocated content placement"
+    File file = createFile(DRAFT, DISTRIBUTIONING_CONTENT_LENGTH)
+    this.fileRepository.findById(STORAGE_FILE_NAME) >> Optional.of(file)
+
+    and: "The first chunk has been received before"
+    uploadedChunksRepository.findByStorageFileName(STORAGE_FILE_NAME) >> [
+      new UploadedChunk(STORAGE_FILE_NAME, 0L, 10L),
+      new UploadedChunk(STORAGE_FILE_NAME, 50L, 10L)
+    ]
+
+    and: "The chunk content source"
+    ContentSource contentSource = Mock(ContentSource)
+    contentSource.sendContent(_, _) >> Promises.resolvedBy(fileUploadStatistic(10L))
+
+    and: "The response handler"
+    ResponseHandler responseHandler = Mock(ResponseHandler)
+
+    when: "The chunk is uploaded"
+    WaitingPromise.of(fileService.uploadChunk(Optional.of(STORAGE_FILE_NAME), contentChunk(50L, 10L), contentSource))
+        .then(responseHandler).await(100L)
+
+    then: "The chunk should be written at its offset"
+    1 * fileStorage.getAccessOnWrite(file, { it.getOffset() == 50L })
+
+    and: "The received chunk should be stored"
+    1 * uploadedChunksRepository.save(new UploadedChunk(STORAGE_FILE_NAME, 50L, 10L))
+
+    and: "The file distribution shouldn't be started"
+    0 * fileRepository.save(_)
+    0 * eventPublisher.publish(_)
+    file.getStatus() == DRAFT
+
+    and: "The received ranges should be returned"
+    1 * responseHandler.onResponse(_) >> {statistic = it[0]}
+    statistic.isCompleted() == false
+    statistic.getTotalLength() == 20L
+    statistic.getReceivedFragments().collect {[it.getOffset(), it.getLength()]} == [[0L, 10L], [50L, 10L]]
+  }
+
+  def "Scenario: upload the last missing content chunk to the draft file"() {
+    ChunkedUploadStatistic statistic
+
+    given: "The draft file with allocated content placement"
+    File file = createFile(DRAFT, DISTRIBUTIONING_CONTENT_LENGTH)
+    this.fileRepository.findById(STORAGE_FILE_NAME) >> Optional.of(file)
+
+    and: "All chunks have been received"
+    uploadedChunksRepository.findByStorageFileName(STORAGE_FILE_NAME) >> [
+      new UploadedChunk(STORAGE_FILE_NAME, 50L, 50L),
+      new UploadedChunk(STORAGE_FILE_NAME, 0L, 50L)
+    ]
+
+    and: "The chunk content source"
+    ContentSource contentSource = Mock(ContentSource)
+    contentSource.sendContent(_, _) >> Promises.resolvedBy(fileUploadStatistic(50L))
+
+    and: "The response handler"
+    ResponseHandler responseHandler = Mock(ResponseHandler)
+
+    when: "The last chunk is uploaded"
+    WaitingPromise.of(fileService.uploadChunk(Optional.of(STORAGE_FILE_NAME), contentChunk(0L, 50L), contentSource))
+        .then(responseHandler).await(100L)
+
+    then: "The file distribution should be started exclusively"
+    1 * fileRepository.updateExclusively(STORAGE_FILE_NAME, _) >> {
+      it[1].test(file) ? Optional.of(file) : Optional.empty()
+    }
+    1 * eventPublisher.publish(_)
+    file.getStatus() == DISTRIBUTING
+
+    and: "The assembled content should be digested and the upload should be completed"
+    1 * fileStorage.digestContent(file) >> Optional.of("content-digest")
+    1 * fileStorage.completeUpload(file)
+    file.getContentDigest() == Optional.of("content-digest")
+
+    and: "The received chunks should be cleared"
+    1 * uploadedChunksRepository.deleteByStorageFileName(STORAGE_FILE_NAME)
+
+    and: "The upload should be completed"
+    1 * responseHandler.onResponse(_) >> {statistic = it[0]}
+    statistic.isCompleted() == true
+    statistic.getTotalLength() == DISTRIBUTIONING_CONTENT_LENGTH
+  }
+
+  def "Scenario: upload the last missing content chunk to the file, distributed by the concurrent chunk"() {
+    ChunkedUploadStatistic statistic
+
+    given: "The draft file with allocated content placement"
+    File file = createFile(DRAFT, DISTRIBUTIONING_CONTENT_LENGTH)
+    this.fileRepository.findById(STORAGE_FILE_NAME) >> Optional.of(file)
+
+    and: "All chunks have been received"
+    uploadedChunksRepository.findByStorageFileName(STORAGE_FILE_NAME) >> [
+      new UploadedChunk(STORAGE_FILE_NAME, 50L, 50L),
+      new UploadedChunk(STORAGE_FILE_NAME, 0L, 50L)
+    ]
+
+    and: "The file distribution has been started by the concurrent chunk upload"
+    File lockedFile = createDistributedFile(DISTRIBUTIONING_CONTENT_LENGTH)
+
+    and: "The chunk content source"
+    ContentSource contentSource = Mock(ContentSource)
+    contentSource.sendContent(_, _) >> Promises.resolvedBy(fileUploadStatistic(50L))
+
+    and: "The response handler"
+    ResponseHandler responseHandler = Mock(ResponseHandler)
+
+    when: "The last chunk is uploaded"
+    WaitingPromise.of(fileService.uploadChunk(Optional.of(STORAGE_FILE_NAME), contentChunk(0L, 50L), contentSource))
+        .then(responseHandler).await(100L)
+
+    then: "The file distribution shouldn't be started again"
+    1 * fileRepository.updateExclusively(STORAGE_FILE_NAME, _) >> {
+      it[1].test(lockedFile) ? Optional.of(lockedFile) : Optional.empty()
+    }
+    0 * eventPublisher.publish(_)
+    0 * uploadedChunksRepository.deleteByStorageFileName(_)
+
+    and: "The content shouldn't be digested and completed again"
+    0 * fileStorage.digestContent(_)
+    0 * fileStorage.completeUpload(_)
+
+    and: "The upload should be completed"
+    1 * responseHandler.onResponse(_) >> {statistic = it[0]}
+    statistic.isCompleted() == true
+  }
+
+  def "Scenario: place the content of the draft file exclusively on the first chunk upload"() {
+    given: "The draft file without content placement"
+    File file = createFile(DRAFT, DEFAULT_CONTENT_LENGTH, null)
+    this.fileRepository.findById(STORAGE_FILE_NAME) >> Optional.of(file)
+    uploadedChunksRepository.findByStorageFileName(STORAGE_FILE_NAME) >> []
+
+    and: "The chunk content source"
+    ContentSource contentSource = Mock(ContentSource)
+    contentSource.sendContent(_, _) >> Promises.resolvedBy(fileUploadStatistic(10L))
+
+    when: "The first chunk is uploaded"
+    WaitingPromise.of(fileService.uploadChunk(Optional.of(STORAGE_FILE_NAME), contentChunk(0L, 10L), contentSource))
+        .await(100L)
+
+    then: "The content should be placed under the file lock"
+    1 * fileRepository.updateExclusively(STORAGE_FILE_NAME, _) >> {
+      it[1].test(file) ? Optional.of(file) : Optional.empty()
+    }
+    1 * fileStorage.createChunked(file, DISTRIBUTIONING_CONTENT_LENGTH) >> contentLocator()
+    file.getStorageName() == Optional.of(STORAGE_NAME)
+    file.getTotalLength() == DISTRIBUTIONING_CONTENT_LENGTH
+
+    and: "The chunk should be written at its offset"
+    1 * fileStorage.getAccessOnWrite(file, { it.getOffset() == 0L })
+  }
+
+  def "Scenario: don't place the content of the file, placed by the concurrent chunk upload"() {
+    given: "The draft file without content placement, which has been placed by the concurrent chunk upload"
+    File file = createFile(DRAFT, DEFAULT_CONTENT_LENGTH, null)
+    File placedFile = createFile(DRAFT, DISTRIBUTIONING_CONTENT_LENGTH)
+    this.fileRepository.findById(STORAGE_FILE_NAME) >> Optional.of(file) >> Optional.of(placedFile)
+    uploadedChunksRepository.findByStorageFileName(STORAGE_FILE_NAME) >> []
+
+    and: "The chunk content source"
+    ContentSource contentSource = Mock(ContentSource)
+    contentSource.sendContent(_, _) >> Promises.resolvedBy(fileUploadStatistic(10L))
+
+    when: "The first chunk is uploaded"
+    WaitingPromise.of(fileService.uploadChunk(Optional.of(STORAGE_FILE_NAME), contentChunk(0L, 10L), contentSource))
+        .await(100L)
+
+    then: "The content shouldn't be created again"
+    1 * fileRepository.updateExclusively(STORAGE_FILE_NAME, _) >> {
+      it[1].test(placedFile) ? Optional.of(placedFile) : Optional.empty()
+    }
+    0 * fileStorage.createChunked(_, _)
+
+    and: "The chunk should be written to the placed content"
+    1 * fileStorage.getAccessOnWrite(placedFile, { it.getOffset() == 0L })
+  }
+
+  def "Scenario: unsuccessfully upload content chunk, which is out of the content bounds"() {
+    UnsatisfiableRangeFormatException error
+
+    given: "The draft file with allocated content placement"
+    this.fileRepository.findById(STORAGE_FILE_NAME) >> Optional.of(createFile(DRAFT, DISTRIBUTIONING_CONTENT_LENGTH))
+
+    and: "The error handler"
+    ErrorHandler errorHandler = Mock(ErrorHandler)
+
+    when: "The chunk, crossing the content end, is uploaded"
+    WaitingPromise.of(fileService.uploadChunk(Optional.of(STORAGE_FILE_NAME), contentChunk(90L, 20L), Mock(ContentSource)))
+        .error(errorHandler).await()
+
+    then: "The unsatisfiable range error should be happened"
+    1 * errorHandler.onError(_) >> {error = it[0]}
+    error.getErrorCode() == Constants.UNSATISFIABLE_RANGES_FORMAT_ERROR
+
+    and: "Access on write shouldn't be requested"
+    0 * fileStorage.getAccessOnWrite(_, _)
+  }
+
   def "Scenario: unsuccessfully download file content from the unspecified file"() {
     FileNotSpecifiedException error
     given: "The file content receiver"
@@ -268,7 +477,7 @@ class ContentServiceSpec extends Specification {
 
 
     and: "The file storage is going get access on write"
-    fileStorage.getAccessOnRead(_, _) >> Stub(Source)
+    fileStorage.getAccessOnRead(_, _ as List) >> [Stub(Source)]
 
     and: "The promise reject error handler"
     ErrorHandler errorHandler = Mock(ErrorHandler)
@@ -296,7 +505,7 @@ class ContentServiceSpec extends Specification {
 
 
     and: "The file storage is going get access on write"
-    fileStorage.getAccessOnRead(_, _) >> Stub(Source)
+    fileStorage.getAccessOnRead(_, _ as List) >> [Stub(Source)]
 
     and: "The promise reject error handler"
     ErrorHandler errorHandler = Mock(ErrorHandler)
@@ -327,7 +536,7 @@ class ContentServiceSpec extends Specification {
 
     and: "The file storage is going get access on write"
     Source<BinaryChunk> source = Stub(Source)
-    fileStorage.getAccessOnRead(_, _) >> source
+    fileStorage.getAccessOnRead(_, _ as List) >> [source]
 
     and: "The response handler"
     ResponseHandler responseHandler = Mock(ResponseHandler)
@@ -380,7 +589,7 @@ class ContentServiceSpec extends Specification {
 
     and: "The file storage is going get access on write"
     Source<BinaryChunk> source = Stub(Source)
-    fileStorage.getAccessOnRead(_, _) >> source
+    fileStorage.getAccessOnRead(_, _ as List) >> [source]
 
     and: "The promise reject error handler"
     ErrorHandler errorHandler = Mock(ErrorHandler)
@@ -416,7 +625,7 @@ class ContentServiceSpec extends Specification {
 
     and: "The file storage is going get access on write"
     Source<BinaryChunk> source = Stub(Source)
-    fileStorage.getAccessOnRead(_, _) >> source
+    fileStorage.getAccessOnRead(_, _ as List) >> [source]
 
     and: "The promise reject error handler"
     ErrorHandler errorHandler = Mock(ErrorHandler)
@@ -451,7 +660,7 @@ class ContentServiceSpec extends Specification {
 
     and: "The file storage is going get access on write"
     Source<BinaryChunk> source = Stub(Source)
-    fileStorage.getAccessOnRead(_, _) >> source
+    fileStorage.getAccessOnRead(_, _ as List) >> [source]
 
     and: "The promise reject error handler"
     ErrorHandler errorHandler = Mock(ErrorHandler)
@@ -485,7 +694,7 @@ class ContentServiceSpec extends Specification {
 
     and: "The file storage is going get access on write"
     Source<BinaryChunk> source = Stub(Source)
-    fileStorage.getAccessOnRead(_, _) >> source
+    fileStorage.getAccessOnRead(_, _ as List) >> [source]
 
     and: "The response handler"
     ResponseHandler responseHandler = Mock(ResponseHandler)
@@ -538,8 +747,8 @@ class ContentServiceSpec extends Specification {
 
     and: "The content parts contains valid range"
     Collection<Range> contentParts = [
+      createRange(20L, 29L),
       createRange(0L, 9L),
-      createRange(10L, 19L),
     ]
 
     and: "The file content receiver"
@@ -548,7 +757,7 @@ class ContentServiceSpec extends Specification {
     and: "The file storage is going get access on write"
     Source<BinaryChunk> firstSource = Stub(Source)
     Source<BinaryChunk> secondSource = Stub(Source)
-    fileStorage.getAccessOnRead(_, _) >> firstSource >> secondSource
+    fileStorage.getAccessOnRead(_, _ as List) >> [firstSource, secondSource]
 
     and: "The response handler"
     ResponseHandler responseHandler = Mock(ResponseHandler)
@@ -580,9 +789,9 @@ class ContentServiceSpec extends Specification {
     firstContentPart.getContentFragment().getLength() == 10L
     firstContentPart.getContentSource() == firstSource
 
-    and: "The second content part should represent fragment: offset=10, size=10"
+    and: "The second content part should represent fragment: offset=20, size=10"
     ContentPart secondContentPart = fileContent.getParts()[1]
-    secondContentPart.getContentFragment().getOffset() == 10L
+    secondContentPart.getContentFragment().getOffset() == 20L
     secondContentPart.getContentFragment().getLength() == 10L
     secondContentPart.getContentSource() == secondSource
 
@@ -590,6 +799,104 @@ class ContentServiceSpec extends Specification {
     1 * responseHandler.onResponse(_)
   }
   
+  def "Scenario: download overlapping and adjacent ranges as the single part content"() {
+    FileContent fileContent
+    given: "The existing distributing file"
+    this.fileRepository.findById(STORAGE_FILE_NAME) >> Optional.of(createDistributedFile(DISTRIBUTIONING_CONTENT_LENGTH))
+
+    and: "The content parts contains overlapping, duplicated and adjacent ranges"
+    Collection<Range> contentParts = [
+      createRange(0L, 30L),
+      createRange(20L, 50L),
+      createRange(0L, 30L),
+      createRange(51L, 60L)
+    ]
+
+    and: "The file content receiver"
+    ContentReceiver contentReceiver = Mock(ContentReceiver)
+
+    and: "The file storage is going get access on read"
+    Source<BinaryChunk> source = Stub(Source)
+    fileStorage.getAccessOnRead(_, _ as List) >> [source]
+
+    when: "The file download is requested"
+    WaitingPromise.of(fileService.download(downloadCommand(Optional.of(STORAGE_FILE_NAME), contentParts), contentReceiver))
+        .await()
+
+    then: "The single-range file content downloading should be started"
+    1 * contentReceiver.receiveContentRange(_) >> {
+      fileContent = it[0]
+      return Promises.resolvedBy(null)
+    }
+
+    and: "The merged content part should represent fragment: offset=0, size=61"
+    fileContent.getType() == ContentType.RANGE
+    fileContent.getParts().size() == 1
+    ContentPart contentPart = fileContent.getParts()[0]
+    contentPart.getContentFragment().getOffset() == 0L
+    contentPart.getContentFragment().getLength() == 61L
+  }
+
+  def "Scenario: unsuccessfully download partial content if too many parts are requested"() {
+    UnsatisfiableRangeFormatException error
+    given: "The existing distributing file"
+    this.fileRepository.findById(STORAGE_FILE_NAME) >> Optional.of(createDistributedFile(DISTRIBUTIONING_CONTENT_LENGTH))
+
+    and: "The content service, accepting only two parts"
+    ContentService contentService = new ContentService(fileRepository, uploadedChunksRepository, fileStorage, eventBus,
+        new FragmentsPolicy(0L, 2))
+
+    and: "The content parts contains three separated ranges"
+    Collection<Range> contentParts = [
+      createRange(0L, 9L),
+      createRange(20L, 29L),
+      createRange(40L, 49L)
+    ]
+
+    and: "The error handler"
+    ErrorHandler errorHandler = Mock(ErrorHandler)
+
+    when: "The file download is requested"
+    WaitingPromise.of(contentService.download(downloadCommand(Optional.of(STORAGE_FILE_NAME), contentParts), Mock(ContentReceiver)))
+        .error(errorHandler).await()
+
+    then: "The unsatisfiable range error should be happened"
+    1 * errorHandler.onError(_) >> {error = it[0]}
+    error.getErrorCode() == Constants.UNSATISFIABLE_RANGES_FORMAT_ERROR
+  }
+
+  def "Scenario: merge separated ranges, which gap isn't greater than the threshold"() {
+    FileContent fileContent
+    given: "The existing distributing file"
+    this.fileRepository.findById(STORAGE_FILE_NAME) >> Optional.of(createDistributedFile(DISTRIBUTIONING_CONTENT_LENGTH))
+
+    and: "The content service, merging ranges separated by 10 bytes"
+    ContentService contentService = new ContentService(fileRepository, uploadedChunksRepository, fileStorage, eventBus,
+        new FragmentsPolicy(10L, 64))
+
+    and: "The content parts contains two ranges separated by 10 bytes"
+    Collection<Range> contentParts = [
+      createRange(0L, 9L),
+      createRange(20L, 29L)
+    ]
+
+    and: "The file content receiver"
+    ContentReceiver contentReceiver = Mock(ContentReceiver)
+    fileStorage.getAccessOnRead(_, _ as List) >> [Stub(Source)]
+
+    when: "The file download is requested"
+    WaitingPromise.of(contentService.download(downloadCommand(Optional.of(STORAGE_FILE_NAME), contentParts), contentReceiver))
+        .await()
+
+    then: "The single-range content, covering both ranges, should be downloaded"
+    1 * contentReceiver.receiveContentRange(_) >> {
+      fileContent = it[0]
+      return Promises.resolvedBy(null)
+    }
+    fileContent.getParts()[0].getContentFragment().getOffset() == 0L
+    fileContent.getParts()[0].getContentFragment().getLength() == 30L
+  }
+
   def "Scenario: clean disposed files"() {
     File file
     given: "The disposed file will be returned from repository"
@@ -600,6 +907,9 @@ class ContentServiceSpec extends Specification {
     
     then: "Polled file should be deleted"
     1 * fileStorage.delete(_)
+
+    and: "The uploaded chunks of the file should be deleted"
+    1 * uploadedChunksRepository.deleteByStorageFileName(STORAGE_FILE_NAME)
     
     and: "Polled file should be stored"
     1 * fileRepository.save(_) >> {file = it[0]}
@@ -665,8 +975,12 @@ class ContentServiceSpec extends Specification {
   }
 
   private File createFile(FileStatus status, Long contentLength) {
+    return createFile(status, contentLength, STORAGE_NAME)
+  }
+
+  private File createFile(FileStatus status, Long contentLength, String storageName) {
     return File.builder()
-        .storageName(STORAGE_NAME)
+        .storageName(storageName)
         .storageFileName(STORAGE_FILE_NAME)
         .status(status)
         .mediaType(MEDIA_TYPE)
@@ -682,6 +996,21 @@ class ContentServiceSpec extends Specification {
     }
   }
 
+  private FileUploadStatistic fileUploadStatistic(Long totalLength) {
+    return Stub(FileUploadStatistic) {
+      getLocator() >> contentLocator()
+      getTotalLength() >> totalLength
+    }
+  }
+
+  private ContentChunk contentChunk(Long offset, Long length) {
+    return Stub(ContentChunk) {
+      getOffset() >> offset
+      getLength() >> length
+      getTotalLength() >> DISTRIBUTIONING_CONTENT_LENGTH
+    }
+  }
+
   private ContentLocator contentLocator() {
     ContentLocator contentLocator = Stub(ContentLocator)
     contentLocator.getStorageName() >> STORAGE_NAME
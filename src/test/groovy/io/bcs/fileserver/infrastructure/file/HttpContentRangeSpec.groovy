@@ -0,0 +1,41 @@
+package io.bcs.fileserver.infrastructure.file
+
+import io.bcs.fileserver.domain.errors.UnsatisfiableRangeFormatException
+import io.bcs.fileserver.domain.model.file.content.ContentChunk
+import spock.lang.Specification
+
+class HttpContentRangeSpec extends Specification {
+  def "Scenario: successfully parse the uploaded chunk content range"() {
+    given: "The http content range value"
+    HttpContentRange contentRange = new HttpContentRange("bytes 100-199/1000")
+
+    expect: "The chunk should be correctly parsed"
+    ContentChunk chunk = contentRange.getChunk().get()
+    chunk.getOffset() == 100L
+    chunk.getLength() == 100L
+    chunk.getTotalLength() == 1000L
+    contentRange.getTotalLength() == 1000L
+  }
+
+  def "Scenario: parse the upload state content range"() {
+    given: "The http content range value without chunk"
+    HttpContentRange contentRange = new HttpContentRange("bytes */1000")
+
+    expect: "The total length should be parsed without chunk"
+    contentRange.getChunk().isPresent() == false
+    contentRange.getTotalLength() == 1000L
+  }
+
+  def "Scenario: parse wrong content range"() {
+    when: "The wrong content range is parsed"
+    new HttpContentRange(contentRangeValue)
+
+    then: "The unsatisfied range format should be happened"
+    thrown(UnsatisfiableRangeFormatException)
+
+    where:
+    contentRangeValue << ["bytes 10-5/100", "bytes 10-100/100", "bytes=10-20/100", "bytes 10-/100",
+        "bytes 10-20/99999999999999999999", "bytes 99999999999999999999-5/100",
+        "bytes */99999999999999999999"]
+  }
+}
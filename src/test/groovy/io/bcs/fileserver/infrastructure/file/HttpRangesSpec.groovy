@@ -32,9 +32,30 @@ class HttpRangesSpec extends Specification {
 
   def "Scenario: parse wrong format"() {
     when: "The wrong format is parsed"
-    new HttpRanges(Optional.of("bytes=11-12-12")).getRanges()
+    new HttpRanges(Optional.of(rangesValue)).getRanges()
 
     then: "The unsatisfied range format should be happened"
     thrown(UnsatisfiableRangeFormatException)
+
+    where:
+    rangesValue << [
+      "bytes=11-12-12",
+      "bytes=",
+      "bytes=1-2,",
+      "bytes=1-2, 3-4",
+      "items=1-2",
+      "bytes=99999999999999999999-"
+    ]
+  }
+
+  def "Scenario: parse range without bounds"() {
+    given: "The http ranges value without bounds"
+    HttpRanges ranges = new HttpRanges(Optional.of("bytes=-"))
+
+    expect: "The single range without bounds should be parsed"
+    List<Range> parsedRanges = new ArrayList(ranges.getRanges())
+    parsedRanges.size() == 1
+    parsedRanges[0].getStart().isPresent() == false
+    parsedRanges[0].getEnd().isPresent() == false
   }
 }
@@ -0,0 +1,40 @@
+package io.bcs.fileserver.infrastructure.file.content
+
+import javax.servlet.http.HttpServletRequest
+import spock.lang.Specification
+
+class HttpAcceptedEncodingsSpec extends Specification {
+  def "Scenario: the request without the accepted encodings"() {
+    given: "The request without the accept encoding header"
+    HttpAcceptedEncodings acceptedEncodings = new HttpAcceptedEncodings(createRequest(null))
+
+    expect: "The gzip encoding shouldn't be accepted"
+    !acceptedEncodings.isAccepted("gzip")
+  }
+
+  def "Scenario: the explicitly accepted encoding"() {
+    given: "The request, accepting the gzip encoding"
+    HttpAcceptedEncodings acceptedEncodings = new HttpAcceptedEncodings(
+        createRequest("deflate, GZIP;q=0.8"))
+
+    expect: "The gzip encoding should be accepted"
+    acceptedEncodings.isAccepted("gzip")
+    !acceptedEncodings.isAccepted("br")
+  }
+
+  def "Scenario: the encoding, rejected by the zero quality"() {
+    given: "The request, accepting any encoding except the gzip"
+    HttpAcceptedEncodings acceptedEncodings = new HttpAcceptedEncodings(
+        createRequest("*, gzip;q=0"))
+
+    expect: "The gzip encoding shouldn't be accepted"
+    !acceptedEncodings.isAccepted("gzip")
+    acceptedEncodings.isAccepted("br")
+  }
+
+  private HttpServletRequest createRequest(String acceptEncoding) {
+    return Stub(HttpServletRequest) {
+      getHeader("Accept-Encoding") >> acceptEncoding
+    }
+  }
+}
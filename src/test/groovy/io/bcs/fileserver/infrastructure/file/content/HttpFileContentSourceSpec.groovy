@@ -18,6 +18,8 @@ class HttpFileContentSourceSpec extends Specification {
   private static final String STORAGE_FILE_NAME = "flskdh1213120000.1234"
   private static final String STORAGE_NAME = "storage-1"
   private static final String TRANSFERRED_DATA = "Hello world!"
+  private static final String TRANSFERRED_DATA_DIGEST =
+      "c0535e4be2b79ffd93291305436bf889314e4a3faec05ecffcbb7df31ad9e51a"
 
   def "Scenario: upload content"() {
     FileUploadStatistic uploadStatistic
@@ -63,5 +65,6 @@ class HttpFileContentSourceSpec extends Specification {
     1 * responseHandler.onResponse(_) >> {uploadStatistic = it[0]}
     uploadStatistic.getLocator().getStorageFileName() == STORAGE_FILE_NAME
     uploadStatistic.getTotalLength() == TRANSFERRED_DATA.getBytes().length
+    uploadStatistic.getContentDigest().get() == TRANSFERRED_DATA_DIGEST
   }
 }
@@ -7,7 +7,16 @@ import io.bcs.fileserver.domain.model.file.metadata.Disposition
 import io.bcs.fileserver.infrastructure.file.content.FileMetadataProvider
 import io.bcs.fileserver.infrastructure.file.content.HttpFileDataReceiver
 import io.bcs.fileserver.infrastructure.file.content.HttpHeadersReceiver
+import io.bcs.fileserver.infrastructure.storage.FileRegionSource
+import io.bcs.fileserver.infrastructure.storage.MappedRegionSource
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.channels.WritableByteChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
 import javax.servlet.ServletOutputStream
+import javax.servlet.WriteListener
 import javax.servlet.http.HttpServletResponse
 
 class HttpFileDataReceiverSpec extends ContentReceiverSpecification {
@@ -66,6 +75,76 @@ class HttpFileDataReceiverSpec extends ContentReceiverSpecification {
     1 * servletResponse.setStatus(HttpServletResponse.SC_OK)
   }
 
+  def "Scenario: receive data for full content through the file channel"() {
+    given: "The channel-capable http servlet response"
+    ChannelServletOutputStream servletStream = new ChannelServletOutputStream()
+    HttpServletResponse servletResponse = Mock(HttpServletResponse)
+    servletResponse.getOutputStream() >> servletStream
+
+    and: "The full size file content, stored in the physical file"
+    Path physicalFile = Files.createTempFile("content", ".txt")
+    physicalFile.toFile().deleteOnExit()
+    Files.write(physicalFile, "Hello World!!!".getBytes())
+    FileChannel fileChannel = FileChannel.open(physicalFile, StandardOpenOption.READ)
+    FileContent fileContent = Stub(FileContent) {
+      getParts() >> [
+        createContentPart(0L, 14L, new FileRegionSource(fileChannel, 0L, 14L, 1000))
+      ]
+    }
+    metadataProvider.getMetadataFor(_) >> createFileMetadata(Disposition.INLINE, 14L)
+
+    and: "The file data receiver"
+    HttpFileDataReceiver receiver = new HttpFileDataReceiver(new DirectStreamer(), servletResponse, metadataProvider)
+
+    and: "The promise resolve response handler"
+    ResponseHandler<Void> responseHandler = Mock(ResponseHandler)
+
+    when: "The full content is received"
+    WaitingPromise.of(receiver.receiveFullContent(fileContent)).then(responseHandler).await()
+
+    then: "The response handler should be resolved"
+    1 * responseHandler.onResponse(_)
+
+    and: "The full content should be transferred through the channel"
+    servletStream.content.toString() == "Hello World!!!"
+    servletStream.channelWrites > 0
+
+    and: "The file channel should be closed"
+    !fileChannel.isOpen()
+  }
+
+  def "Scenario: receive data for full content from the memory mapping through the channel"() {
+    given: "The channel-capable http servlet response"
+    ChannelServletOutputStream servletStream = new ChannelServletOutputStream()
+    HttpServletResponse servletResponse = Mock(HttpServletResponse)
+    servletResponse.getOutputStream() >> servletStream
+
+    and: "The full size file content, read from the memory mapping"
+    FileContent fileContent = Stub(FileContent) {
+      getParts() >> [
+        createContentPart(0L, 14L, new MappedRegionSource(
+            ByteBuffer.wrap("Hello World!!!".getBytes()), 1000))
+      ]
+    }
+    metadataProvider.getMetadataFor(_) >> createFileMetadata(Disposition.INLINE, 14L)
+
+    and: "The file data receiver"
+    HttpFileDataReceiver receiver = new HttpFileDataReceiver(new DirectStreamer(), servletResponse, metadataProvider)
+
+    and: "The promise resolve response handler"
+    ResponseHandler<Void> responseHandler = Mock(ResponseHandler)
+
+    when: "The full content is received"
+    WaitingPromise.of(receiver.receiveFullContent(fileContent)).then(responseHandler).await()
+
+    then: "The response handler should be resolved"
+    1 * responseHandler.onResponse(_)
+
+    and: "The full content should be written to the channel from the mapping"
+    servletStream.content.toString() == "Hello World!!!"
+    servletStream.channelWrites == 1
+  }
+
   def "Scenario: receive data for single-range partial content"() {
     given: "The http servlet response"
     ByteArrayOutputStream destination = new ByteArrayOutputStream()
@@ -126,7 +205,7 @@ class HttpFileDataReceiverSpec extends ContentReceiverSpecification {
 
     and: "The multi-range file content parts"
     FileContent fileContent = super.createMultiRangeContent()
-    metadataProvider.getMetadataFor(_) >> createFileMetadata(Disposition.ATTACHMENT, DISTRIBUTIONING_CONTENT_LENGTH)
+    1 * metadataProvider.getMetadataFor(_) >> createFileMetadata(Disposition.ATTACHMENT, DISTRIBUTIONING_CONTENT_LENGTH)
 
     and: "The file data receiver"
     HttpFileDataReceiver receiver = new HttpFileDataReceiver(new DirectStreamer(), servletResponse, metadataProvider)
@@ -172,4 +251,38 @@ class HttpFileDataReceiverSpec extends ContentReceiverSpecification {
         .append(MULTIPART_ENDING + "\n")
         .toString()
   }
+
+  static class ChannelServletOutputStream extends ServletOutputStream implements WritableByteChannel {
+    ByteArrayOutputStream content = new ByteArrayOutputStream()
+    int channelWrites = 0
+
+    @Override
+    int write(ByteBuffer source) {
+      channelWrites++
+      int length = source.remaining()
+      byte[] data = new byte[length]
+      source.get(data)
+      content.write(data)
+      return length
+    }
+
+    @Override
+    void write(int b) {
+      content.write(b)
+    }
+
+    @Override
+    boolean isOpen() {
+      return true
+    }
+
+    @Override
+    boolean isReady() {
+      return true
+    }
+
+    @Override
+    void setWriteListener(WriteListener writeListener) {
+    }
+  }
 }
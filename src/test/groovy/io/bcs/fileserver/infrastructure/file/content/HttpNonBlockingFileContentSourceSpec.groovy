@@ -0,0 +1,114 @@
+package io.bcs.fileserver.infrastructure.file.content
+
+import io.bce.promises.WaitingPromise
+import io.bce.promises.Promise.ResponseHandler
+import io.bce.streaming.DirectStreamer
+import io.bcs.common.buffers.BufferPool
+import io.bcs.fileserver.domain.model.file.content.FileUploadStatistic
+import io.bcs.fileserver.domain.model.file.content.Uploader.ContentSource
+import io.bcs.fileserver.domain.model.storage.ContentLocator
+import io.bcs.fileserver.infrastructure.storage.FileChannelDestination
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import javax.servlet.ReadListener
+import javax.servlet.ServletInputStream
+import javax.servlet.http.HttpServletRequest
+import spock.lang.Specification
+
+class HttpNonBlockingFileContentSourceSpec extends Specification {
+  private static final String STORAGE_FILE_NAME = "flskdh1213120000.1234"
+  private static final String STORAGE_NAME = "storage-1"
+  private static final String TRANSFERRED_DATA = "Hello world!"
+
+  def "Scenario: upload content through the read listener"() {
+    FileUploadStatistic uploadStatistic
+    given: "The servlet request of file uploading, providing 5 bytes per notification"
+    HttpServletRequest servletRequest = Stub(HttpServletRequest)
+    servletRequest.getInputStream() >> new PortionedServletInputStream(TRANSFERRED_DATA.getBytes(), 5)
+
+    and: "The content locator"
+    ContentLocator locator = Stub(ContentLocator) {
+      getStorageFileName() >> STORAGE_FILE_NAME
+      getStorageName() >> STORAGE_NAME
+    }
+
+    and: "The physical file destination of the preallocated file, notifying the close listener"
+    Path physicalFile = Files.createTempFile("content", ".txt")
+    physicalFile.toFile().deleteOnExit()
+    Files.write(physicalFile, new byte[100])
+    FileChannel fileChannel = FileChannel.open(physicalFile, StandardOpenOption.WRITE)
+    Runnable closeListener = Mock(Runnable)
+    FileChannelDestination destination = new FileChannelDestination(fileChannel, true, closeListener)
+
+    and: "The non-blocking http file content source"
+    ContentSource contentSource = new HttpNonBlockingFileContentSource(new DirectStreamer(), servletRequest, new BufferPool(3, 1))
+
+    and: "The response handler"
+    ResponseHandler responseHandler = Mock(ResponseHandler)
+
+    when: "The promise is transmitted"
+    WaitingPromise.of(contentSource.sendContent(locator, destination)).then(responseHandler).await()
+
+    then: "The content should be transmitted and the file should be cut to the content length"
+    new String(Files.readAllBytes(physicalFile)) == TRANSFERRED_DATA
+
+    and: "The file channel should be closed and the close listener should be notified"
+    !fileChannel.isOpen()
+    (1.._) * closeListener.run()
+
+    and: "The promise should be resolved"
+    1 * responseHandler.onResponse(_) >> {uploadStatistic = it[0]}
+    uploadStatistic.getLocator().getStorageFileName() == STORAGE_FILE_NAME
+    uploadStatistic.getTotalLength() == TRANSFERRED_DATA.getBytes().length
+  }
+
+  /**
+   * The input stream makes available a limited data portion per listener notification,
+   * emulating the slowly sending client.
+   */
+  static class PortionedServletInputStream extends ServletInputStream {
+    private final ByteArrayInputStream data
+    private final int portionSize
+    private int availableInPortion = 0
+
+    PortionedServletInputStream(byte[] data, int portionSize) {
+      this.data = new ByteArrayInputStream(data)
+      this.portionSize = portionSize
+    }
+
+    @Override
+    int read() {
+      availableInPortion--
+      return data.read()
+    }
+
+    @Override
+    int read(byte[] buffer, int offset, int length) {
+      int portion = Math.min(length, availableInPortion)
+      int read = data.read(buffer, offset, portion)
+      availableInPortion -= Math.max(read, 0)
+      return read
+    }
+
+    @Override
+    boolean isFinished() {
+      return data.available() == 0
+    }
+
+    @Override
+    boolean isReady() {
+      return availableInPortion > 0
+    }
+
+    @Override
+    void setReadListener(ReadListener readListener) {
+      while (!isFinished()) {
+        availableInPortion = portionSize
+        readListener.onDataAvailable()
+      }
+      readListener.onAllDataRead()
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package io.bcs.fileserver.infrastructure.file.content
+
+import io.bce.promises.WaitingPromise
+import io.bce.promises.Promise.ResponseHandler
+import io.bce.streaming.DirectStreamer
+import io.bcs.common.buffers.BufferPool
+import io.bcs.fileserver.domain.model.file.content.FileContent
+import io.bcs.fileserver.domain.model.file.metadata.Disposition
+import io.bcs.fileserver.infrastructure.storage.FileRegionSource
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import javax.servlet.ServletOutputStream
+import javax.servlet.WriteListener
+import javax.servlet.http.HttpServletResponse
+
+class HttpNonBlockingFileDataReceiverSpec extends ContentReceiverSpecification {
+  private static final String MULTIPART_SEPARATOR = "--MULTIPART_BYTERANGES"
+  private static final String MULTIPART_ENDING = MULTIPART_SEPARATOR + "--"
+
+  private FileMetadataProvider metadataProvider
+  private Path physicalFile
+
+  def setup() {
+    this.metadataProvider = Mock(FileMetadataProvider)
+    this.physicalFile = Files.createTempFile("content", ".txt")
+    this.physicalFile.toFile().deleteOnExit()
+    Files.write(physicalFile, "Hello World!!!______Hello People!!!".getBytes())
+  }
+
+  def "Scenario: receive data for full content through the write listener"() {
+    given: "The http servlet response with the output stream, accepting 3 bytes per write"
+    ThrottledServletOutputStream servletStream = new ThrottledServletOutputStream()
+    HttpServletResponse servletResponse = Mock(HttpServletResponse)
+    servletResponse.getOutputStream() >> servletStream
+
+    and: "The full size file content, stored in the physical file"
+    FileChannel fileChannel = openChannel()
+    FileContent fileContent = Stub(FileContent) {
+      getParts() >> [
+        createContentPart(0L, 14L, new FileRegionSource(fileChannel, 0L, 14L, 1000))
+      ]
+    }
+    metadataProvider.getMetadataFor(_) >> createFileMetadata(Disposition.INLINE, 14L)
+
+    and: "The non-blocking file data receiver"
+    HttpFileDataReceiver receiver = new HttpNonBlockingFileDataReceiver(new DirectStreamer(), servletResponse, metadataProvider, new BufferPool(3, 1))
+
+    and: "The promise resolve response handler"
+    ResponseHandler<Void> responseHandler = Mock(ResponseHandler)
+
+    when: "The full content is received"
+    WaitingPromise.of(receiver.receiveFullContent(fileContent)).then(responseHandler).await()
+
+    then: "The response handler should be resolved"
+    1 * responseHandler.onResponse(_)
+
+    and: "The full content should be transferred"
+    servletStream.content.toString() == "Hello World!!!"
+
+    and: "The data should be written only when the output stream is ready"
+    servletStream.notReadyWrites == 0
+
+    and: "The file channel should be closed"
+    !fileChannel.isOpen()
+  }
+
+  def "Scenario: receive data for multi-range partial content through the write listener"() {
+    given: "The http servlet response with the output stream, accepting 3 bytes per write"
+    ThrottledServletOutputStream servletStream = new ThrottledServletOutputStream()
+    HttpServletResponse servletResponse = Mock(HttpServletResponse)
+    servletResponse.getOutputStream() >> servletStream
+
+    and: "The multi-range file content parts, stored in the physical file"
+    FileContent fileContent = Stub(FileContent) {
+      getParts() >> [
+        createContentPart(0L, 14L, new FileRegionSource(openChannel(), 0L, 14L, 1000)),
+        createContentPart(20L, 15L, new FileRegionSource(openChannel(), 20L, 15L, 1000))
+      ]
+    }
+    1 * metadataProvider.getMetadataFor(_) >> createFileMetadata(Disposition.ATTACHMENT, DISTRIBUTIONING_CONTENT_LENGTH)
+
+    and: "The non-blocking file data receiver"
+    HttpFileDataReceiver receiver = new HttpNonBlockingFileDataReceiver(new DirectStreamer(), servletResponse, metadataProvider, new BufferPool(3, 1))
+
+    and: "The promise resolve response handler"
+    ResponseHandler<Void> responseHandler = Mock(ResponseHandler)
+
+    when: "The multi-range content is received"
+    WaitingPromise.of(receiver.receiveContentRanges(fileContent)).then(responseHandler).await()
+
+    then: "The response handler should be resolved"
+    1 * responseHandler.onResponse(_)
+
+    and: "The multiple content parts should be transferred"
+    servletStream.content.toString() == createContentPartsBody()
+
+    and: "The data should be written only when the output stream is ready"
+    servletStream.notReadyWrites == 0
+  }
+
+  private FileChannel openChannel() {
+    return FileChannel.open(physicalFile, StandardOpenOption.READ)
+  }
+
+  private String createContentPartsBody() {
+    return new StringBuilder()
+        .append("\n")
+        .append("${MULTIPART_SEPARATOR}\n")
+        .append("Content-Type: ${MEDIA_TYPE}\n")
+        .append("Content-Range: bytes 0-13/${DISTRIBUTIONING_CONTENT_LENGTH}\n")
+        .append("Hello World!!!")
+        .append("\n")
+        .append("${MULTIPART_SEPARATOR}\n")
+        .append("Content-Type: ${MEDIA_TYPE}\n")
+        .append("Content-Range: bytes 20-34/${DISTRIBUTIONING_CONTENT_LENGTH}\n")
+        .append("Hello People!!!")
+        .append("\n")
+        .append(MULTIPART_ENDING + "\n")
+        .toString()
+  }
+
+  /**
+   * The output stream becomes not ready after each write and notifies the listener again,
+   * emulating the socket, which is drained by the slow client.
+   */
+  static class ThrottledServletOutputStream extends ServletOutputStream {
+    ByteArrayOutputStream content = new ByteArrayOutputStream()
+    WriteListener writeListener
+    boolean ready = true
+    int notReadyWrites = 0
+
+    @Override
+    void write(byte[] data, int offset, int length) {
+      if (!ready) {
+        notReadyWrites++
+      }
+      content.write(data, offset, length)
+      ready = false
+    }
+
+    @Override
+    void write(int b) {
+      content.write(b)
+    }
+
+    @Override
+    boolean isReady() {
+      if (!ready) {
+        ready = true
+        return false
+      }
+      return true
+    }
+
+    @Override
+    void setWriteListener(WriteListener writeListener) {
+      this.writeListener = writeListener
+      while (drain()) {
+        // The container notifies the listener each time when the stream becomes writable
+      }
+    }
+
+    private boolean drain() {
+      int written = content.size()
+      writeListener.onWritePossible()
+      return content.size() != written
+    }
+  }
+}
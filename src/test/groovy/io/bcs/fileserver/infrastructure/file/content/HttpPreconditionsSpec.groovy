@@ -0,0 +1,141 @@
+package io.bcs.fileserver.infrastructure.file.content
+
+import io.bcs.fileserver.domain.model.file.FileStatus
+import io.bcs.fileserver.domain.model.file.metadata.FileMetadata
+import java.time.LocalDateTime
+import java.time.ZoneId
+import javax.servlet.http.HttpServletRequest
+import javax.servlet.http.HttpServletResponse
+import spock.lang.Specification
+
+class HttpPreconditionsSpec extends Specification {
+  private static final String CONTENT_DIGEST = "c0535e4be2b79ffd93291305436bf889314e4a3f"
+  private static final String ENTITY_TAG = "\"${CONTENT_DIGEST}\""
+  private static final String OTHER_ENTITY_TAG = "\"0123456789abcdef\""
+  private static final LocalDateTime CREATED_AT = LocalDateTime.of(2021, 5, 10, 12, 30, 15)
+  private static final Long LAST_MODIFIED =
+      CREATED_AT.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+
+  def "Scenario: the request without conditional headers"() {
+    given: "The request without conditional headers"
+    HttpPreconditions preconditions = new HttpPreconditions(createRequest(null, -1L, null))
+
+    expect: "The request shouldn't be conditional"
+    !preconditions.isConditional()
+    !preconditions.isNotModified(createMetadata(CONTENT_DIGEST))
+    preconditions.isRangeApplicable(createMetadata(CONTENT_DIGEST))
+  }
+
+  def "Scenario: the content is not modified by the matching entity tag"() {
+    given: "The request with the matching entity tag"
+    HttpPreconditions preconditions = new HttpPreconditions(
+        createRequest("${OTHER_ENTITY_TAG}, W/${ENTITY_TAG}", -1L, null))
+
+    expect: "The content shouldn't be modified"
+    preconditions.isConditional()
+    preconditions.isNotModified(createMetadata(CONTENT_DIGEST))
+  }
+
+  def "Scenario: the content of the not distributed file is always modified"() {
+    given: "The request with the any entity tag and the modification date"
+    HttpPreconditions preconditions = new HttpPreconditions(
+        createRequest("*", LAST_MODIFIED, null))
+
+    expect: "The content should be modified"
+    !preconditions.isNotModified(createMetadata(CONTENT_DIGEST, status))
+
+    where:
+    status << [FileStatus.DRAFT, FileStatus.DISPOSED]
+  }
+
+  def "Scenario: the content is modified by the not matching entity tag"() {
+    given: "The request with the not matching entity tag and the later modification date"
+    HttpPreconditions preconditions = new HttpPreconditions(
+        createRequest(OTHER_ENTITY_TAG, LAST_MODIFIED + 1000L, null))
+
+    expect: "The content should be modified, because the entity tag takes precedence"
+    !preconditions.isNotModified(createMetadata(CONTENT_DIGEST))
+  }
+
+  def "Scenario: the content is not modified since the date"() {
+    given: "The request with the modification date"
+    HttpPreconditions preconditions = new HttpPreconditions(
+        createRequest(null, LAST_MODIFIED, null))
+
+    expect: "The content shouldn't be modified"
+    preconditions.isNotModified(createMetadata(CONTENT_DIGEST))
+  }
+
+  def "Scenario: the content without digest is always modified"() {
+    given: "The request with the any entity tag"
+    HttpPreconditions preconditions = new HttpPreconditions(createRequest("*", -1L, null))
+
+    expect: "The content should be modified"
+    !preconditions.isNotModified(createMetadata(null))
+  }
+
+  def "Scenario: the ranges are applicable for the matching range validator"() {
+    given: "The request with the matching range entity tag"
+    HttpPreconditions preconditions = new HttpPreconditions(createRequest(null, -1L, ENTITY_TAG))
+
+    expect: "The ranges should be applicable"
+    preconditions.isRangeApplicable(createMetadata(CONTENT_DIGEST))
+  }
+
+  def "Scenario: the ranges are not applicable for the not matching range validator"() {
+    given: "The request with the weak range entity tag"
+    HttpPreconditions preconditions = new HttpPreconditions(
+        createRequest(null, -1L, "W/${ENTITY_TAG}"))
+
+    expect: "The ranges shouldn't be applicable"
+    !preconditions.isRangeApplicable(createMetadata(CONTENT_DIGEST))
+    !preconditions.isRangeApplicable(createMetadata(null))
+  }
+
+  def "Scenario: write the validators"() {
+    given: "The http servlet response"
+    HttpServletResponse response = Mock(HttpServletResponse)
+
+    when: "The validators are written"
+    HttpPreconditions.writeValidators(response, createMetadata(CONTENT_DIGEST))
+
+    then: "The entity tag and the last modification date headers should be written"
+    1 * response.setHeader("ETag", ENTITY_TAG)
+    1 * response.setDateHeader("Last-Modified", LAST_MODIFIED)
+  }
+
+  def "Scenario: don't write the validators for the content without digest"() {
+    given: "The http servlet response"
+    HttpServletResponse response = Mock(HttpServletResponse)
+
+    when: "The validators are written"
+    HttpPreconditions.writeValidators(response, createMetadata(null))
+
+    then: "The headers shouldn't be written"
+    0 * response.setHeader(_, _)
+    0 * response.setDateHeader(_, _)
+  }
+
+  private HttpServletRequest createRequest(String ifNoneMatch, Long ifModifiedSince,
+      String ifRange) {
+    return Stub(HttpServletRequest) {
+      getHeader("If-None-Match") >> ifNoneMatch?.toString()
+      getHeader("If-Modified-Since") >> (ifModifiedSince < 0L ? null : "date")
+      getHeader("If-Range") >> ifRange?.toString()
+      getDateHeader("If-Modified-Since") >> ifModifiedSince
+      getDateHeader("If-Range") >> { throw new IllegalArgumentException() }
+    }
+  }
+
+  private FileMetadata createMetadata(String contentDigest) {
+    return createMetadata(contentDigest, FileStatus.DISTRIBUTING)
+  }
+
+  private FileMetadata createMetadata(String contentDigest, FileStatus status) {
+    return Stub(FileMetadata) {
+      getStatus() >> status
+      getContentDigest() >> Optional.ofNullable(contentDigest)
+      getCreatedAt() >> CREATED_AT
+    }
+  }
+}
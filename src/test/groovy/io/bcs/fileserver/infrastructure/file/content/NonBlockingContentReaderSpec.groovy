@@ -0,0 +1,43 @@
+package io.bcs.fileserver.infrastructure.file.content
+
+import io.bcs.common.buffers.BufferPool
+import io.bcs.fileserver.infrastructure.storage.WritableFileChannel
+import java.nio.ByteBuffer
+import java.util.function.Consumer
+import javax.servlet.ServletInputStream
+import spock.lang.Specification
+
+class NonBlockingContentReaderSpec extends Specification {
+  def "Scenario: release the read buffer once, if the error comes after the completion"() {
+    given: "The buffer pool"
+    BufferPool bufferPool = new BufferPool(3, 2)
+
+    and: "The target file channel"
+    WritableFileChannel target = Mock(WritableFileChannel)
+
+    and: "The completion and error handlers"
+    Consumer<Long> completionHandler = Mock(Consumer)
+    Consumer<Throwable> errorHandler = Mock(Consumer)
+
+    and: "The non-blocking content reader"
+    NonBlockingContentReader reader = new NonBlockingContentReader(Stub(ServletInputStream),
+        target, bufferPool, new ContentDigest(), completionHandler, errorHandler)
+
+    when: "All data is read, the error comes and two buffers are acquired from the pool"
+    reader.onAllDataRead()
+    reader.onError(new IOException("The connection has been reset"))
+    ByteBuffer first = bufferPool.acquire()
+    ByteBuffer second = bufferPool.acquire()
+
+    then: "The target should be closed"
+    (1.._) * target.close()
+
+    and: "The reading should be completed and the error should be handled"
+    1 * completionHandler.accept(0L)
+    1 * errorHandler.accept(_)
+
+    and: "The read buffer should be returned to the pool once"
+    !first.is(second)
+    bufferPool.getStatistic().getHits() == 1L
+  }
+}
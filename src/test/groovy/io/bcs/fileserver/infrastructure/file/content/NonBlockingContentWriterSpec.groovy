@@ -0,0 +1,44 @@
+package io.bcs.fileserver.infrastructure.file.content
+
+import io.bcs.common.buffers.BufferPool
+import io.bcs.fileserver.infrastructure.file.content.NonBlockingContentWriter.ByteArraySegment
+import io.bcs.fileserver.infrastructure.file.content.NonBlockingContentWriter.ContentSegment
+import java.nio.ByteBuffer
+import java.util.function.Consumer
+import javax.servlet.ServletOutputStream
+import spock.lang.Specification
+
+class NonBlockingContentWriterSpec extends Specification {
+  def "Scenario: release the write buffer once, if the error comes after the completion"() {
+    given: "The buffer pool"
+    BufferPool bufferPool = new BufferPool(3, 2)
+
+    and: "The ready servlet output stream"
+    ServletOutputStream outputStream = Stub(ServletOutputStream) {
+      isReady() >> true
+    }
+
+    and: "The completion and error handlers"
+    Runnable completionHandler = Mock(Runnable)
+    Consumer<Throwable> errorHandler = Mock(Consumer)
+
+    and: "The non-blocking content writer"
+    NonBlockingContentWriter writer = new NonBlockingContentWriter(outputStream,
+        new LinkedList<ContentSegment>([new ByteArraySegment("Hello".getBytes())]), bufferPool,
+        completionHandler, errorHandler)
+
+    when: "The content is written, the error comes and two buffers are acquired from the pool"
+    writer.onWritePossible()
+    writer.onError(new IOException("The connection has been reset"))
+    ByteBuffer first = bufferPool.acquire()
+    ByteBuffer second = bufferPool.acquire()
+
+    then: "The transfer should be completed and the error should be handled"
+    1 * completionHandler.run()
+    1 * errorHandler.accept(_)
+
+    and: "The write buffer should be returned to the pool once"
+    !first.is(second)
+    bufferPool.getStatistic().getHits() == 1L
+  }
+}
@@ -0,0 +1,103 @@
+package io.bcs.fileserver.infrastructure.file.content
+
+import io.bcs.fileserver.infrastructure.storage.FileRegionSource
+import io.bcs.fileserver.infrastructure.storage.SharedFileChannel
+import io.bcs.fileserver.infrastructure.storage.SharedFileChannel.Lease
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.channels.WritableByteChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import spock.lang.Specification
+
+class ZeroCopyTransferSpec extends Specification {
+  private static final int TRANSFERS_COUNT = 2
+  private static final long REGION_OFFSET = 1000L
+  private static final long REGION_LENGTH = 512L * 1024L
+
+  private Path file
+
+  def setup() {
+    this.file = Files.createTempFile("transfer", ".bin")
+    byte[] content = new byte[(int) (REGION_OFFSET + REGION_LENGTH + 1000L)]
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) (i % 251)
+    }
+    Files.write(file, content)
+  }
+
+  def cleanup() {
+    Files.deleteIfExists(file)
+  }
+
+  def "Scenario: the zero-copy transfer isn't available for the regular output stream"() {
+    expect: "The zero-copy transfer shouldn't be resolved"
+    !ZeroCopyTransfer.of(new ByteArrayOutputStream()).isPresent()
+  }
+
+  def "Scenario: transfer the same region of the shared channel concurrently"() {
+    given: "The shared file channel, held by the owner lease"
+    SharedFileChannel channel = new SharedFileChannel(FileChannel.open(file,
+        StandardOpenOption.READ))
+    Lease ownerLease = channel.lease()
+
+    and: "The concurrent transfers"
+    ExecutorService executor = Executors.newFixedThreadPool(TRANSFERS_COUNT)
+    CountDownLatch started = new CountDownLatch(1)
+
+    when: "The same region is transferred by every transfer at the same time"
+    List<Future<byte[]>> transfers = (1..TRANSFERS_COUNT).collect {
+      FileRegionSource region = new FileRegionSource(channel, REGION_OFFSET, REGION_LENGTH, 1000)
+      ChannelOutputStream outputStream = new ChannelOutputStream()
+      executor.submit({
+        started.await()
+        try {
+          ZeroCopyTransfer.of(outputStream).get().transfer(region)
+          return outputStream.toByteArray()
+        } finally {
+          region.close()
+        }
+      } as Callable<byte[]>)
+    }
+    started.countDown()
+    List<byte[]> contents = transfers.collect { it.get(10, TimeUnit.SECONDS) }
+
+    then: "Every transfer should receive the whole region"
+    contents.every { it == expectedRegion() }
+
+    and: "The shared channel position shouldn't be changed"
+    ownerLease.getChannel().position() == 0L
+
+    cleanup:
+    ownerLease.close()
+    executor.shutdownNow()
+  }
+
+  private byte[] expectedRegion() {
+    byte[] content = Files.readAllBytes(file)
+    return Arrays.copyOfRange(content, (int) REGION_OFFSET, (int) (REGION_OFFSET + REGION_LENGTH))
+  }
+
+  static class ChannelOutputStream extends ByteArrayOutputStream implements WritableByteChannel {
+    @Override
+    int write(ByteBuffer source) {
+      int length = source.remaining()
+      byte[] data = new byte[length]
+      source.get(data)
+      write(data, 0, length)
+      return length
+    }
+
+    @Override
+    boolean isOpen() {
+      return true
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package io.bcs.fileserver.infrastructure.repositories
+
+import io.bcs.fileserver.domain.model.file.FileStatus
+import io.bcs.fileserver.domain.model.file.metadata.FileMetadataRepository
+import io.bcs.fileserver.domain.model.file.metadata.FileMetadataView
+import java.util.function.LongSupplier
+import spock.lang.Specification
+
+class CachedFileMetadataRepositorySpec extends Specification {
+  private static final String STORAGE_FILE_NAME = "12345.FILE"
+  private static final String OTHER_STORAGE_FILE_NAME = "67890.FILE"
+  private static final Long TIME_TO_LIVE = 1000L
+
+  private FileMetadataRepository delegate
+  private LongSupplier clock
+  private Long currentTime
+
+  def setup() {
+    this.currentTime = 0L
+    this.delegate = Mock(FileMetadataRepository)
+    this.clock = { currentTime } as LongSupplier
+  }
+
+  def "Scenario: find the cached metadata"() {
+    given: "The cached file metadata repository"
+    CachedFileMetadataRepository repository = new CachedFileMetadataRepository(delegate, 10,
+        TIME_TO_LIVE, clock)
+
+    when: "The metadata is found twice"
+    Optional<FileMetadataView> first = repository.findById(STORAGE_FILE_NAME)
+    Optional<FileMetadataView> second = repository.findById(STORAGE_FILE_NAME)
+
+    then: "The metadata should be obtained from the original repository once"
+    1 * delegate.findById(STORAGE_FILE_NAME) >> Optional.of(createMetadata(STORAGE_FILE_NAME))
+
+    and: "The same metadata should be returned"
+    first.get().is(second.get())
+
+    and: "The cache hit and miss should be counted"
+    repository.getStatistic().getHits() == 1L
+    repository.getStatistic().getMisses() == 1L
+  }
+
+  def "Scenario: don't cache the missing metadata"() {
+    given: "The cached file metadata repository"
+    CachedFileMetadataRepository repository = new CachedFileMetadataRepository(delegate, 10,
+        TIME_TO_LIVE, clock)
+
+    when: "The missing metadata is found twice"
+    repository.findById(STORAGE_FILE_NAME)
+    repository.findById(STORAGE_FILE_NAME)
+
+    then: "The metadata should be obtained from the original repository every time"
+    2 * delegate.findById(STORAGE_FILE_NAME) >> Optional.empty()
+  }
+
+  def "Scenario: don't cache the draft file metadata"() {
+    given: "The cached file metadata repository"
+    CachedFileMetadataRepository repository = new CachedFileMetadataRepository(delegate, 10,
+        TIME_TO_LIVE, clock)
+
+    when: "The draft file metadata is found twice"
+    repository.findById(STORAGE_FILE_NAME)
+    repository.findById(STORAGE_FILE_NAME)
+
+    then: "The metadata should be obtained from the original repository every time"
+    2 * delegate.findById(STORAGE_FILE_NAME) >> Optional.of(
+        createMetadata(STORAGE_FILE_NAME, FileStatus.DRAFT))
+  }
+
+  def "Scenario: reload the invalidated metadata"() {
+    given: "The cached file metadata repository"
+    CachedFileMetadataRepository repository = new CachedFileMetadataRepository(delegate, 10,
+        TIME_TO_LIVE, clock)
+
+    when: "The metadata is found, invalidated and found again"
+    repository.findById(STORAGE_FILE_NAME)
+    repository.invalidate(STORAGE_FILE_NAME)
+    repository.findById(STORAGE_FILE_NAME)
+
+    then: "The metadata should be obtained from the original repository twice"
+    2 * delegate.findById(STORAGE_FILE_NAME) >> Optional.of(createMetadata(STORAGE_FILE_NAME))
+  }
+
+  def "Scenario: don't cache the metadata, loaded before the invalidation"() {
+    given: "The cached file metadata repository"
+    CachedFileMetadataRepository repository = new CachedFileMetadataRepository(delegate, 10,
+        TIME_TO_LIVE, clock)
+
+    when: "The metadata is invalidated while it is loaded and is found again"
+    repository.findById(STORAGE_FILE_NAME)
+    repository.findById(STORAGE_FILE_NAME)
+
+    then: "The loaded metadata shouldn't be cached"
+    2 * delegate.findById(STORAGE_FILE_NAME) >> {
+      FileMetadataView metadata = createMetadata(STORAGE_FILE_NAME)
+      repository.invalidate(STORAGE_FILE_NAME)
+      return Optional.of(metadata)
+    } >> Optional.of(createMetadata(STORAGE_FILE_NAME))
+  }
+
+  def "Scenario: reload the expired metadata"() {
+    given: "The cached file metadata repository"
+    CachedFileMetadataRepository repository = new CachedFileMetadataRepository(delegate, 10,
+        TIME_TO_LIVE, clock)
+
+    when: "The metadata is found before and after the time to live is exceeded"
+    repository.findById(STORAGE_FILE_NAME)
+    currentTime = TIME_TO_LIVE - 1
+    repository.findById(STORAGE_FILE_NAME)
+    currentTime = TIME_TO_LIVE
+    repository.findById(STORAGE_FILE_NAME)
+
+    then: "The metadata should be obtained from the original repository twice"
+    2 * delegate.findById(STORAGE_FILE_NAME) >> Optional.of(createMetadata(STORAGE_FILE_NAME))
+  }
+
+  def "Scenario: evict the least recently used metadata"() {
+    given: "The cached file metadata repository, keeping one metadata"
+    CachedFileMetadataRepository repository = new CachedFileMetadataRepository(delegate, 1,
+        TIME_TO_LIVE, clock)
+
+    when: "The metadata of two files is found and the first one is found again"
+    repository.findById(STORAGE_FILE_NAME)
+    repository.findById(OTHER_STORAGE_FILE_NAME)
+    repository.findById(STORAGE_FILE_NAME)
+
+    then: "The first metadata should be evicted and obtained from the original repository again"
+    2 * delegate.findById(STORAGE_FILE_NAME) >> Optional.of(createMetadata(STORAGE_FILE_NAME))
+    1 * delegate.findById(OTHER_STORAGE_FILE_NAME) >> Optional.of(
+        createMetadata(OTHER_STORAGE_FILE_NAME))
+  }
+
+  def "Scenario: don't cache the metadata if the cache is disabled"() {
+    given: "The disabled cached file metadata repository"
+    CachedFileMetadataRepository repository = new CachedFileMetadataRepository(delegate, 0,
+        TIME_TO_LIVE, clock)
+
+    when: "The metadata is found twice"
+    repository.findById(STORAGE_FILE_NAME)
+    repository.findById(STORAGE_FILE_NAME)
+
+    then: "The metadata should be obtained from the original repository every time"
+    2 * delegate.findById(STORAGE_FILE_NAME) >> Optional.of(createMetadata(STORAGE_FILE_NAME))
+  }
+
+  private FileMetadataView createMetadata(String storageFileName) {
+    return createMetadata(storageFileName, FileStatus.DISTRIBUTING)
+  }
+
+  private FileMetadataView createMetadata(String storageFileName, FileStatus status) {
+    return FileMetadataView.builder().storageFileName(storageFileName).status(status).build()
+  }
+}
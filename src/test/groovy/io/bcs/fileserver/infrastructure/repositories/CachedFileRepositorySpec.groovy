@@ -0,0 +1,113 @@
+package io.bcs.fileserver.infrastructure.repositories
+
+import io.bcs.common.cache.InProcessInvalidationChannel
+import io.bcs.common.cache.InvalidationChannel
+import io.bcs.fileserver.domain.model.file.File
+import io.bcs.fileserver.domain.model.file.FileRepository
+import io.bcs.fileserver.domain.model.file.FileStatus
+import spock.lang.Specification
+
+class CachedFileRepositorySpec extends Specification {
+  private static final String STORAGE_FILE_NAME = "12345.FILE"
+  private static final Long TIME_TO_LIVE = 1000L
+
+  private FileRepository delegate
+  private CachedFileRepository repository
+
+  def setup() {
+    this.delegate = Mock(FileRepository)
+    this.repository = new CachedFileRepository(delegate, 10, TIME_TO_LIVE)
+  }
+
+  def "Scenario: find the cached distributing file"() {
+    when: "The distributing file is found twice"
+    Optional<File> first = repository.findById(STORAGE_FILE_NAME)
+    Optional<File> second = repository.findById(STORAGE_FILE_NAME)
+
+    then: "The file should be obtained from the original repository once"
+    1 * delegate.findById(STORAGE_FILE_NAME) >> Optional.of(createFile(FileStatus.DISTRIBUTING))
+
+    and: "The equal file should be returned by its own instance"
+    first.get() == second.get()
+    !first.get().is(second.get())
+
+    and: "The cache hit and miss should be counted"
+    repository.getStatistic().getHits() == 1L
+    repository.getStatistic().getMisses() == 1L
+  }
+
+  def "Scenario: don't share the cached file state between the callers"() {
+    given: "The cached distributing file"
+    1 * delegate.findById(STORAGE_FILE_NAME) >> Optional.of(createFile(FileStatus.DISTRIBUTING))
+    repository.findById(STORAGE_FILE_NAME)
+
+    when: "The found file is modified by the caller"
+    repository.findById(STORAGE_FILE_NAME).get().dispose()
+
+    then: "The file of the other caller shouldn't be modified"
+    repository.findById(STORAGE_FILE_NAME).get().getStatus() == FileStatus.DISTRIBUTING
+  }
+
+  def "Scenario: don't cache the not distributing file"() {
+    when: "The file is found twice"
+    repository.findById(STORAGE_FILE_NAME)
+    repository.findById(STORAGE_FILE_NAME)
+
+    then: "The file should be obtained from the original repository every time"
+    2 * delegate.findById(STORAGE_FILE_NAME) >> Optional.of(createFile(status))
+
+    where:
+    status << [FileStatus.DRAFT, FileStatus.DISPOSED]
+  }
+
+  def "Scenario: invalidate the cached file on save"() {
+    given: "The cached distributing file"
+    File file = createFile(FileStatus.DISTRIBUTING)
+    repository.findById(STORAGE_FILE_NAME)
+
+    when: "The file is saved and found again"
+    repository.save(file)
+    repository.findById(STORAGE_FILE_NAME)
+
+    then: "The file should be saved to the original repository"
+    1 * delegate.save(file)
+
+    and: "The file should be obtained from the original repository again"
+    2 * delegate.findById(STORAGE_FILE_NAME) >> Optional.of(file)
+  }
+
+  def "Scenario: invalidate the cached file on the exclusive update"() {
+    given: "The cached distributing file"
+    repository.findById(STORAGE_FILE_NAME)
+
+    when: "The file is updated exclusively and found again"
+    repository.updateExclusively(STORAGE_FILE_NAME, { true })
+    repository.findById(STORAGE_FILE_NAME)
+
+    then: "The file should be updated by the original repository"
+    1 * delegate.updateExclusively(STORAGE_FILE_NAME, _) >> Optional.empty()
+
+    and: "The file should be obtained from the original repository again"
+    2 * delegate.findById(STORAGE_FILE_NAME) >> Optional.of(createFile(FileStatus.DISTRIBUTING))
+  }
+
+  def "Scenario: invalidate the cached file by the invalidation channel"() {
+    given: "The invalidation channel, invalidating the cached files"
+    InvalidationChannel invalidationChannel = new InProcessInvalidationChannel()
+    invalidationChannel.subscribe({ repository.invalidate(it) })
+
+    and: "The cached distributing file"
+    repository.findById(STORAGE_FILE_NAME)
+
+    when: "The file invalidation is published and the file is found again"
+    invalidationChannel.publish(STORAGE_FILE_NAME)
+    repository.findById(STORAGE_FILE_NAME)
+
+    then: "The file should be obtained from the original repository again"
+    2 * delegate.findById(STORAGE_FILE_NAME) >> Optional.of(createFile(FileStatus.DISTRIBUTING))
+  }
+
+  private File createFile(FileStatus status) {
+    return File.builder().storageFileName(STORAGE_FILE_NAME).status(status).build()
+  }
+}
@@ -107,6 +107,34 @@ class JpaFileRepositoryITSpec extends Specification {
     file.getTotalLength() == CONTENT_LENGTH
   }
   
+  def "Scenario: update file entity exclusively"() {
+    given: "The file media types and local storage is configured"
+    databaseConfigurer.setup(REF_MEDIATYPES_MIGRATION_SCRIPT)
+    databaseConfigurer.setup(REF_LOCAL_STORAGES_MIGRATION_SCRIPT)
+
+    and: "The stored file entity"
+    fileRepository.save(createFileEntity())
+
+    when: "The file is updated exclusively twice and the second update isn't applicable"
+    Optional<File> applied = fileRepository.updateExclusively(FILE_STORAGE_NAME, {
+      it.dispose()
+      return true
+    })
+    Optional<File> skipped = fileRepository.updateExclusively(FILE_STORAGE_NAME, {
+      it.getStatus() == FileStatus.DISTRIBUTING
+    })
+
+    then: "The applied update should be stored"
+    applied.isPresent()
+    !skipped.isPresent()
+    fileRepository.findById(FILE_STORAGE_NAME).get().getStatus() == FileStatus.DISPOSED
+  }
+
+  def "Scenario: don't update the missing file entity exclusively"() {
+    expect: "The missing file shouldn't be updated"
+    !fileRepository.updateExclusively(FILE_STORAGE_NAME, { true }).isPresent()
+  }
+
   def "Scenario: find non removed disposed files"() {
     given: "The file media types and local storage is configured"
     databaseConfigurer.setup(REF_MEDIATYPES_MIGRATION_SCRIPT)
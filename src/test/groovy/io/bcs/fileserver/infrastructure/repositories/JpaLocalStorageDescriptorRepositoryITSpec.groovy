@@ -96,4 +96,16 @@ class JpaLocalStorageDescriptorRepositoryITSpec extends Specification {
     expect: "File storage for unknown mediatype shouldn't be found"
     localStorageDescriptorRepository.findByName(FILE_STORAGE_UNKNOWN_NAME).isPresent() == false
   }
+
+  def "Scenario: find all local storage descriptors"() {
+    given: "The local file storages are configured"
+    databaseConfigurer.setup(REF_MEDIATYPES_MIGRATION_SCRIPT)
+    databaseConfigurer.setup(REF_LOCAL_STORAGES_MIGRATION_SCRIPT)
+
+    when: "All registered local storages are requested"
+    Collection<LocalStorageDescriptor> storageDescriptors = localStorageDescriptorRepository.findAll()
+
+    then: "All registered file storage descriptors should be received"
+    storageDescriptors*.getStorageName() as Set == [FILE_STORAGE, "OTHER_LOCAL"] as Set
+  }
 }
@@ -0,0 +1,66 @@
+package io.bcs.fileserver.infrastructure.repositories
+
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptor
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptorRepository
+import spock.lang.Specification
+
+class LocalStorageDescriptorsRegistrySpec extends Specification {
+  private static final String STORAGE_NAME = "LOCAL"
+  private static final String OTHER_STORAGE_NAME = "OTHER_LOCAL"
+  private static final String BASE_DIRECTORY = "/srv/bincloud/"
+
+  private LocalStorageDescriptorRepository delegate
+  private LocalStorageDescriptorsRegistry registry
+
+  def setup() {
+    this.delegate = Mock(LocalStorageDescriptorRepository)
+    this.registry = new LocalStorageDescriptorsRegistry(delegate)
+  }
+
+  def "Scenario: find the storage descriptor in the refreshed snapshot"() {
+    given: "The refreshed registry"
+    LocalStorageDescriptor descriptor = createDescriptor(STORAGE_NAME)
+    delegate.findAll() >> [descriptor]
+    registry.refresh()
+
+    when: "The storage descriptor is requested"
+    Optional<LocalStorageDescriptor> found = registry.findByName(STORAGE_NAME)
+
+    then: "The descriptor should be resolved from the snapshot"
+    found.get().is(descriptor)
+    0 * delegate.findByName(_)
+  }
+
+  def "Scenario: find the storage descriptor, registered after the refresh"() {
+    given: "The registry, refreshed before the storage is registered"
+    delegate.findAll() >> []
+    registry.refresh()
+
+    when: "The storage descriptor is requested"
+    Optional<LocalStorageDescriptor> found = registry.findByName(OTHER_STORAGE_NAME)
+
+    then: "The descriptor should be found in the original repository"
+    1 * delegate.findByName(OTHER_STORAGE_NAME) >> Optional.of(createDescriptor(OTHER_STORAGE_NAME))
+    found.get().getStorageName() == OTHER_STORAGE_NAME
+  }
+
+  def "Scenario: replace the snapshot on refresh"() {
+    given: "The registry, refreshed with one storage"
+    delegate.findAll() >>> [
+      [createDescriptor(STORAGE_NAME)],
+      [createDescriptor(STORAGE_NAME), createDescriptor(OTHER_STORAGE_NAME)]
+    ]
+    registry.refresh()
+
+    when: "The registry is refreshed again"
+    registry.refresh()
+
+    then: "The snapshot should contain the registered storages"
+    registry.findAll()*.getStorageName() as Set == [STORAGE_NAME, OTHER_STORAGE_NAME] as Set
+  }
+
+  private LocalStorageDescriptor createDescriptor(String storageName) {
+    return LocalStorageDescriptor.builder().storageName(storageName).baseDirectory(BASE_DIRECTORY)
+        .build()
+  }
+}
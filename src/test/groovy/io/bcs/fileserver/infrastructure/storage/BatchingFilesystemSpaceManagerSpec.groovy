@@ -0,0 +1,171 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import io.bcs.fileserver.domain.errors.FileStorageException
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import spock.lang.Specification
+
+class BatchingFilesystemSpaceManagerSpec extends Specification {
+  private static final String MEDIA_TYPE = "application/media"
+  private static final String STORAGE_NAME = "LOCAL"
+
+  private FilesystemSpaceManager delegate
+  private ExecutorService executor
+  private CountDownLatch firstDispatched
+  private CountDownLatch batchDispatched
+
+  def setup() {
+    this.delegate = Mock(FilesystemSpaceManager)
+    this.executor = Executors.newFixedThreadPool(4)
+    this.firstDispatched = new CountDownLatch(1)
+    this.batchDispatched = new CountDownLatch(1)
+  }
+
+  def "Scenario: coalesce the concurrent allocations into one batch"() {
+    given: "The batching space manager with the long window and the batch of three requests"
+    FilesystemSpaceManager spaceManager = new BatchingFilesystemSpaceManager(delegate, 10000L, 3)
+
+    when: "Three allocations are requested, while the first allocation is in progress"
+    List<Future<String>> allocations = requestConcurrently(spaceManager, 4)
+    List<String> storageNames = allocations.collect { it.get() }
+
+    then: "The first allocation should be dispatched immediately"
+    1 * delegate.allocateSpace(MEDIA_TYPE, "file_1", 10L) >> {
+      firstDispatched.countDown()
+      batchDispatched.await()
+      return STORAGE_NAME
+    }
+
+    and: "The full batch should be allocated by the original space manager once"
+    1 * delegate.allocateSpace({ it.size() == 3 }) >> {
+      batchDispatched.countDown()
+      return (1..3).collect { Optional.of(STORAGE_NAME) }
+    }
+
+    and: "Every request should get the allocated storage"
+    storageNames == [STORAGE_NAME] * 4
+  }
+
+  def "Scenario: dispatch the single request immediately"() {
+    given: "The batching space manager with the long window"
+    FilesystemSpaceManager spaceManager = new BatchingFilesystemSpaceManager(delegate, 10000L, 4)
+
+    when: "The allocation is requested"
+    String storageName = spaceManager.allocateSpace(MEDIA_TYPE, "file", 10L)
+
+    then: "The request should be allocated without the batching"
+    1 * delegate.allocateSpace(MEDIA_TYPE, "file", 10L) >> STORAGE_NAME
+    0 * delegate.allocateSpace(_ as List)
+
+    and: "The allocated storage should be returned"
+    storageName == STORAGE_NAME
+  }
+
+  def "Scenario: space allocation failure"() {
+    given: "The batching space manager with the short window"
+    FilesystemSpaceManager spaceManager = new BatchingFilesystemSpaceManager(delegate, 1L, 4)
+
+    and: "There isn't enough space for the request"
+    delegate.allocateSpace(MEDIA_TYPE, "file", 1000L) >> {
+      throw new FileStorageException("There isn't enough space on local storages.")
+    }
+
+    when: "The allocation is requested"
+    spaceManager.allocateSpace(MEDIA_TYPE, "file", 1000L)
+
+    then: "The file storage error should be happened"
+    thrown(FileStorageException)
+  }
+
+  def "Scenario: fail only the batch request, which hasn't been allocated"() {
+    given: "The batching space manager with the long window and the batch of three requests"
+    FilesystemSpaceManager spaceManager = new BatchingFilesystemSpaceManager(delegate, 10000L, 3)
+
+    and: "The first allocation is in progress, until the batch is dispatched"
+    delegate.allocateSpace(MEDIA_TYPE, "file_1", 10L) >> {
+      firstDispatched.countDown()
+      batchDispatched.await()
+      return STORAGE_NAME
+    }
+
+    and: "The batch is allocated partially"
+    delegate.allocateSpace(_ as List) >> { List<SpaceAllocationRequest> requests ->
+      batchDispatched.countDown()
+      return requests.collect {
+        it.getStorageFileName() == "file_3" ? Optional.empty() : Optional.of(STORAGE_NAME)
+      }
+    }
+
+    and: "The unallocated request fails alone"
+    delegate.allocateSpace(MEDIA_TYPE, "file_3", 10L) >> {
+      throw new FileStorageException("There isn't enough space on local storages.")
+    }
+
+    when: "Three allocations are requested, while the first allocation is in progress"
+    List<Future<String>> allocations = requestConcurrently(spaceManager, 4)
+
+    then: "The allocated requests should get the allocated storage"
+    allocations[0].get() == STORAGE_NAME
+    allocations[1].get() == STORAGE_NAME
+    allocations[3].get() == STORAGE_NAME
+
+    and: "Only the unallocated request should fail"
+    failureOf(allocations[2]) instanceof FileStorageException
+  }
+
+  def "Scenario: allocate the batch requests alone, if the batch allocation fails"() {
+    given: "The batching space manager with the long window and the batch of three requests"
+    FilesystemSpaceManager spaceManager = new BatchingFilesystemSpaceManager(delegate, 10000L, 3)
+
+    and: "The first allocation is in progress, until the batch is dispatched"
+    delegate.allocateSpace(MEDIA_TYPE, "file_1", 10L) >> {
+      firstDispatched.countDown()
+      batchDispatched.await()
+      return STORAGE_NAME
+    }
+
+    and: "The batch allocation fails"
+    delegate.allocateSpace(_ as List) >> {
+      batchDispatched.countDown()
+      throw new IllegalStateException("The batch couldn't be allocated")
+    }
+
+    when: "Three allocations are requested, while the first allocation is in progress"
+    List<String> storageNames = requestConcurrently(spaceManager, 4).collect { it.get() }
+
+    then: "Every batch request should be allocated alone"
+    1 * delegate.allocateSpace(MEDIA_TYPE, "file_2", 10L) >> STORAGE_NAME
+    1 * delegate.allocateSpace(MEDIA_TYPE, "file_3", 10L) >> STORAGE_NAME
+    1 * delegate.allocateSpace(MEDIA_TYPE, "file_4", 10L) >> STORAGE_NAME
+
+    and: "Every request should get the allocated storage"
+    storageNames == [STORAGE_NAME] * 4
+  }
+
+  def cleanup() {
+    executor.shutdownNow()
+  }
+
+  private List<Future<String>> requestConcurrently(FilesystemSpaceManager spaceManager,
+      int count) {
+    Future<String> first = executor.submit(
+        { spaceManager.allocateSpace(MEDIA_TYPE, "file_1", 10L) } as Callable)
+    firstDispatched.await()
+    return [first] + (2..count).collect { index ->
+      executor.submit({ spaceManager.allocateSpace(MEDIA_TYPE, "file_${index}", 10L) } as Callable)
+    }
+  }
+
+  private Throwable failureOf(Future<String> allocation) {
+    try {
+      allocation.get()
+      return null
+    } catch (ExecutionException error) {
+      return error.getCause()
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import io.bcs.fileserver.domain.model.storage.ContentLocator
+import io.bcs.fileserver.infrastructure.storage.BlockIndexCache.IndexLoader
+import spock.lang.Specification
+
+class BlockIndexCacheSpec extends Specification {
+  private static final String STORAGE_NAME = "storage-1"
+  private static final String STORAGE_FILE_NAME = "file-1"
+
+  def "Scenario: read the block index once"() {
+    given: "The block index cache"
+    BlockIndexCache indexCache = new BlockIndexCache()
+
+    and: "The block index loader"
+    BlockIndex blockIndex = new BlockIndex(16, 10L, [0L, 5L] as long[])
+    IndexLoader loader = Mock(IndexLoader)
+
+    when: "The block index is requested twice"
+    Optional<BlockIndex> firstIndex = indexCache.getIndex(createLocator(), loader)
+    Optional<BlockIndex> secondIndex = indexCache.getIndex(createLocator(), loader)
+
+    then: "The block index should be read only once"
+    1 * loader.load() >> Optional.of(blockIndex)
+
+    and: "The both requests should get the read index"
+    firstIndex.get().is(blockIndex)
+    secondIndex.get().is(blockIndex)
+  }
+
+  def "Scenario: remember the absent block index"() {
+    given: "The block index cache"
+    BlockIndexCache indexCache = new BlockIndexCache()
+
+    and: "The block index loader"
+    IndexLoader loader = Mock(IndexLoader)
+
+    when: "The block index of the not compressed file is requested twice"
+    Optional<BlockIndex> firstIndex = indexCache.getIndex(createLocator(), loader)
+    Optional<BlockIndex> secondIndex = indexCache.getIndex(createLocator(), loader)
+
+    then: "The block index should be looked for only once"
+    1 * loader.load() >> Optional.empty()
+
+    and: "The both requests should get the absent index"
+    !firstIndex.isPresent()
+    !secondIndex.isPresent()
+  }
+
+  def "Scenario: read the invalidated block index again"() {
+    given: "The block index cache with the cached absent index"
+    BlockIndexCache indexCache = new BlockIndexCache()
+    IndexLoader loader = Mock(IndexLoader)
+    indexCache.getIndex(createLocator(), { Optional.empty() } as IndexLoader)
+
+    when: "The block index is invalidated and requested"
+    indexCache.invalidate(createLocator())
+    Optional<BlockIndex> index = indexCache.getIndex(createLocator(), loader)
+
+    then: "The block index should be read again"
+    1 * loader.load() >> Optional.of(new BlockIndex(16, 10L, [0L, 5L] as long[]))
+    index.isPresent()
+  }
+
+  def "Scenario: don't keep the block index, read while the cache is invalidated"() {
+    given: "The block index cache"
+    BlockIndexCache indexCache = new BlockIndexCache()
+
+    and: "The block index loader, which is overtaken by the invalidation"
+    IndexLoader staleLoader = {
+      indexCache.invalidate(createLocator())
+      return Optional.empty()
+    } as IndexLoader
+    IndexLoader loader = Mock(IndexLoader)
+
+    when: "The block index is requested twice"
+    indexCache.getIndex(createLocator(), staleLoader)
+    indexCache.getIndex(createLocator(), loader)
+
+    then: "The stale block index shouldn't be kept"
+    1 * loader.load() >> Optional.empty()
+  }
+
+  def "Scenario: evict the least recently used block index"() {
+    given: "The block index cache of the single index"
+    BlockIndexCache indexCache = new BlockIndexCache(1)
+    IndexLoader loader = Mock(IndexLoader)
+
+    when: "The block indexes of two files are requested and the first one is requested again"
+    indexCache.getIndex(createLocator(), loader)
+    indexCache.getIndex(createLocator("file-2"), loader)
+    indexCache.getIndex(createLocator(), loader)
+
+    then: "The evicted block index should be read again"
+    3 * loader.load() >> Optional.empty()
+  }
+
+  private ContentLocator createLocator() {
+    return createLocator(STORAGE_FILE_NAME)
+  }
+
+  private ContentLocator createLocator(String storageFileName) {
+    return Stub(ContentLocator) {
+      getStorageName() >> STORAGE_NAME
+      getStorageFileName() >> storageFileName
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import io.bce.interaction.streaming.binary.BinaryDestination
+import io.bce.interaction.streaming.binary.BinarySource
+import io.bce.interaction.streaming.binary.InputStreamSource
+import io.bce.interaction.streaming.binary.OutputStreamDestination
+import io.bce.promises.WaitingPromise
+import io.bce.streaming.DirectStreamer
+import io.bcs.fileserver.domain.model.storage.ContentLocator
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptor
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.GZIPInputStream
+import spock.lang.Specification
+
+class CompressedPhysicalFileSpec extends Specification {
+  private static final String STORAGE_NAME = "storage-1"
+  private static final String STORAGE_FILE_NAME = "file-1"
+  private static final String TEXT_MEDIA_TYPE = "text/plain"
+  private static final String BINARY_MEDIA_TYPE = "application/octet-stream"
+  private static final String CONTENT = "Hello World!!!______Hello People!!!" * 10
+  private static final int BLOCK_SIZE = 16
+
+  private Path baseDirectory
+  private PhysicalFile.Factory factory
+
+  def setup() {
+    this.baseDirectory = Files.createTempDirectory("storage")
+    this.factory = CompressedPhysicalFile.factory(FilesystemPhysicalFile.factory(),
+        new CompressibleMediaTypes("text/*"), BLOCK_SIZE)
+  }
+
+  def cleanup() {
+    baseDirectory.toFile().deleteDir()
+  }
+
+  def "Scenario: read the whole compressed content"() {
+    given: "The compressed physical file with the written content"
+    PhysicalFile physicalFile = factory.create(createStorage(), createLocator(), TEXT_MEDIA_TYPE)
+    writeContent(physicalFile)
+
+    when: "The whole content is read"
+    BinarySource source = physicalFile.openForRead(0L, CONTENT.length(), 1000)
+
+    then: "The content should be decompressed"
+    source instanceof EncodedContent
+    readContent(source) == CONTENT
+  }
+
+  def "Scenario: read the whole content encoded as is"() {
+    given: "The compressed physical file with the written content"
+    PhysicalFile physicalFile = factory.create(createStorage(), createLocator(), TEXT_MEDIA_TYPE)
+    writeContent(physicalFile)
+
+    when: "The whole content is read encoded"
+    BinarySource source = physicalFile.openForRead(0L, CONTENT.length(), 1000)
+    EncodedContent encodedContent = (EncodedContent) source
+    encodedContent.switchToEncoded()
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream()
+    readContent(source, encoded)
+
+    then: "The gzip encoded content should be read"
+    encodedContent.getContentEncoding() == "gzip"
+    encodedContent.getEncodedLength() == encoded.size()
+    new GZIPInputStream(new ByteArrayInputStream(encoded.toByteArray())).getText() == CONTENT
+  }
+
+  def "Scenario: read the content range across the compressed blocks"() {
+    given: "The compressed physical file with the written content"
+    PhysicalFile physicalFile = factory.create(createStorage(), createLocator(), TEXT_MEDIA_TYPE)
+    writeContent(physicalFile)
+
+    when: "The content range, crossing the blocks boundary, is read"
+    BinarySource source = physicalFile.openForRead(10L, 30L, 1000)
+
+    then: "The range of the decompressed content should be read"
+    !(source instanceof EncodedContent)
+    readContent(source) == CONTENT.substring(10, 40)
+  }
+
+  def "Scenario: store the content of the not compressible media type raw"() {
+    given: "The physical file of the not compressible media type with the written content"
+    PhysicalFile physicalFile = factory.create(createStorage(), createLocator(), BINARY_MEDIA_TYPE)
+    Files.write(baseDirectory.resolve(STORAGE_FILE_NAME), CONTENT.getBytes())
+
+    when: "The file fragment is read"
+    BinarySource source = physicalFile.openForRead(20L, 15L, 1000)
+
+    then: "The fragment should be read from the raw file"
+    source instanceof FileRegion
+    readContent(source) == "Hello People!!!"
+  }
+
+  def "Scenario: read the compressed content regardless of the media type and the settings"() {
+    given: "The compressed content, written for the compressible media type"
+    writeContent(factory.create(createStorage(), createLocator(), TEXT_MEDIA_TYPE))
+
+    when: "The content is read through the not compressible media type physical file"
+    BinarySource source = readFactory.create(createStorage(), createLocator(), BINARY_MEDIA_TYPE)
+        .openForRead(0L, CONTENT.length(), 1000)
+
+    then: "The content should be decompressed"
+    readContent(source) == CONTENT
+
+    where:
+    readFactory << [
+      CompressedPhysicalFile.factory(FilesystemPhysicalFile.factory(),
+      new CompressibleMediaTypes("text/*"), BLOCK_SIZE),
+      CompressedPhysicalFile.factory(FilesystemPhysicalFile.factory(),
+      CompressibleMediaTypes.none(), BLOCK_SIZE)
+    ]
+  }
+
+  def "Scenario: read the rewritten content through the cached block index"() {
+    given: "The compressed content, which block index has been cached by the read"
+    writeContent(factory.create(createStorage(), createLocator(), TEXT_MEDIA_TYPE))
+    readContent(factory.create(createStorage(), createLocator(), TEXT_MEDIA_TYPE)
+        .openForRead(0L, CONTENT.length(), 1000))
+
+    when: "The content is rewritten raw and read again"
+    writeContent(factory.create(createStorage(), createLocator(), BINARY_MEDIA_TYPE))
+    BinarySource rawSource = factory.create(createStorage(), createLocator(), TEXT_MEDIA_TYPE)
+        .openForRead(0L, CONTENT.length(), 1000)
+
+    then: "The content should be read raw"
+    !(rawSource instanceof EncodedContent)
+    readContent(rawSource) == CONTENT
+
+    when: "The content is rewritten compressed and read again"
+    writeContent(factory.create(createStorage(), createLocator(), TEXT_MEDIA_TYPE))
+    BinarySource compressedSource = factory.create(createStorage(), createLocator(),
+        TEXT_MEDIA_TYPE).openForRead(0L, CONTENT.length(), 1000)
+
+    then: "The content should be decompressed through the new block index"
+    compressedSource instanceof EncodedContent
+    readContent(compressedSource) == CONTENT
+  }
+
+  def "Scenario: read the whole content by the input stream"() {
+    given: "The content, written for the media type"
+    writeContent(factory.create(createStorage(), createLocator(), mediaType))
+
+    when: "The content is read by the input stream"
+    InputStream inputStream = factory.create(createStorage(), createLocator(), mediaType)
+        .openInputStream()
+    String content = new String(inputStream.bytes)
+    inputStream.close()
+
+    then: "The decompressed content should be read"
+    content == CONTENT
+
+    where:
+    mediaType << [TEXT_MEDIA_TYPE, BINARY_MEDIA_TYPE]
+  }
+
+  def "Scenario: delete the block index with the raw physical file"() {
+    given: "The compressed content"
+    writeContent(factory.create(createStorage(), createLocator(), TEXT_MEDIA_TYPE))
+
+    when: "The file is deleted by the raw physical file"
+    FilesystemPhysicalFile.factory().create(createStorage(), createLocator()).delete()
+
+    then: "The content and the block index should be deleted"
+    !Files.exists(baseDirectory.resolve(STORAGE_FILE_NAME))
+    !Files.exists(baseDirectory.resolve(STORAGE_FILE_NAME + ".blocks"))
+  }
+
+  private void writeContent(PhysicalFile physicalFile) {
+    physicalFile.create(CONTENT.length())
+    BinaryDestination destination = physicalFile.openForWrite()
+    WaitingPromise.of(new DirectStreamer().createStream(
+        new InputStreamSource(new ByteArrayInputStream(CONTENT.getBytes()), 1000), destination)
+        .start()).await()
+    destination.close()
+  }
+
+  private String readContent(BinarySource source) {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+    readContent(source, outputStream)
+    return outputStream.toString()
+  }
+
+  private void readContent(BinarySource source, OutputStream outputStream) {
+    WaitingPromise.of(new DirectStreamer().createStream(source, new OutputStreamDestination(outputStream)).start()).await()
+  }
+
+  private LocalStorageDescriptor createStorage() {
+    return LocalStorageDescriptor.builder().storageName(STORAGE_NAME)
+        .baseDirectory(baseDirectory.toString()).build()
+  }
+
+  private ContentLocator createLocator() {
+    return Stub(ContentLocator) {
+      getStorageName() >> STORAGE_NAME
+      getStorageFileName() >> STORAGE_FILE_NAME
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import io.bcs.fileserver.domain.model.file.File
+import io.bcs.fileserver.domain.model.file.FileStatus
+import io.bcs.fileserver.domain.model.storage.ContentLocator
+import io.bcs.fileserver.domain.model.storage.FileStorage
+import spock.lang.Specification
+
+class DeduplicatingFileStorageSpec extends Specification {
+  private static final String STORAGE_NAME = "LOCAL"
+  private static final String BLOB_STORAGE_NAME = "OTHER_LOCAL"
+  private static final String STORAGE_FILE_NAME = "12345.FILE"
+  private static final String BLOB_FILE_NAME = "54321.FILE"
+  private static final String CONTENT_DIGEST = "c0535e4be2b79ffd93291305436bf889314e4a3f"
+  private static final Long CONTENT_LENGTH = 100L
+
+  private FileStorage delegate
+  private ContentBlobsRegistry blobsRegistry
+  private FilesystemSpaceManager spaceManager
+  private FileStorage fileStorage
+
+  def setup() {
+    this.delegate = Mock(FileStorage)
+    this.blobsRegistry = Mock(ContentBlobsRegistry)
+    this.spaceManager = Mock(FilesystemSpaceManager)
+    this.fileStorage = new DeduplicatingFileStorage(delegate, blobsRegistry, spaceManager)
+  }
+
+  def "Scenario: link the uploaded file to the existing blob"() {
+    given: "The uploaded file with the content digest"
+    File file = createUploadedFile()
+
+    when: "The upload is completed"
+    fileStorage.completeUpload(file)
+
+    then: "The reference to the existing blob should be added"
+    1 * blobsRegistry.addReference(CONTENT_DIGEST, CONTENT_LENGTH, _) >> Optional.of(
+        createLocator(BLOB_STORAGE_NAME, BLOB_FILE_NAME))
+
+    and: "The uploaded duplicate should be removed and its space should be released"
+    1 * delegate.delete(file)
+    1 * spaceManager.releaseSpace(STORAGE_NAME, STORAGE_FILE_NAME)
+
+    and: "The file should be linked to the blob"
+    file.getStorageName().get() == BLOB_STORAGE_NAME
+    file.getContentFileName().get() == BLOB_FILE_NAME
+  }
+
+  def "Scenario: the uploaded file becomes the blob"() {
+    given: "The uploaded file with the content digest"
+    File file = createUploadedFile()
+
+    when: "The upload is completed"
+    fileStorage.completeUpload(file)
+
+    then: "The uploaded content should be registered as the blob"
+    1 * blobsRegistry.addReference(CONTENT_DIGEST, CONTENT_LENGTH, _) >> Optional.of(
+        createLocator(STORAGE_NAME, STORAGE_FILE_NAME))
+
+    and: "The uploaded content shouldn't be removed"
+    0 * delegate.delete(_)
+    0 * spaceManager.releaseSpace(_, _)
+
+    and: "The file should refer to its own content"
+    file.getStorageName().get() == STORAGE_NAME
+    file.getContentFileName().get() == STORAGE_FILE_NAME
+  }
+
+  def "Scenario: keep the file without content digest as is"() {
+    given: "The uploaded file without content digest"
+    File file = File.builder().storageFileName(STORAGE_FILE_NAME).storageName(STORAGE_NAME)
+        .totalLength(CONTENT_LENGTH).build()
+
+    when: "The upload is completed"
+    fileStorage.completeUpload(file)
+
+    then: "The blob shouldn't be referred"
+    0 * blobsRegistry.addReference(_, _, _)
+    !file.getContentFileName().isPresent()
+  }
+
+  def "Scenario: keep the blob file while it is referred"() {
+    given: "The file, linked to the blob"
+    File file = createUploadedFile()
+    file.linkContent(BLOB_STORAGE_NAME, BLOB_FILE_NAME)
+
+    when: "The file is deleted"
+    fileStorage.delete(file)
+
+    then: "The reference should be removed"
+    1 * blobsRegistry.removeReference(CONTENT_DIGEST, {
+      it.getStorageName() == BLOB_STORAGE_NAME && it.getStorageFileName() == BLOB_FILE_NAME
+    }) >> false
+
+    and: "The blob file shouldn't be deleted"
+    0 * delegate.delete(_)
+  }
+
+  def "Scenario: delete the blob file by the last reference"() {
+    given: "The file, linked to the blob"
+    File file = createUploadedFile()
+    file.linkContent(BLOB_STORAGE_NAME, BLOB_FILE_NAME)
+
+    when: "The file is deleted"
+    fileStorage.delete(file)
+
+    then: "The last reference should be removed"
+    1 * blobsRegistry.removeReference(CONTENT_DIGEST, _) >> true
+
+    and: "The blob file should be deleted"
+    1 * delegate.delete(file)
+  }
+
+  private File createUploadedFile() {
+    File file = File.builder().storageFileName(STORAGE_FILE_NAME).storageName(STORAGE_NAME)
+        .status(FileStatus.DRAFT).totalLength(CONTENT_LENGTH).build()
+    file.specifyContentDigest(CONTENT_DIGEST)
+    return file
+  }
+
+  private ContentLocator createLocator(String storageName, String storageFileName) {
+    return Stub(ContentLocator) {
+      getStorageName() >> storageName
+      getStorageFileName() >> storageFileName
+    }
+  }
+}
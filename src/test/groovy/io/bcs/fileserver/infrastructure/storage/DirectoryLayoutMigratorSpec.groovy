@@ -0,0 +1,148 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptor
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptorRepository
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import spock.lang.Specification
+
+class DirectoryLayoutMigratorSpec extends Specification {
+  private static final String STORAGE_FILE_NAME = "12345.FILE"
+  private static final String CONTENT = "Hello World!!!"
+  private static final Long GRACE_PERIOD = 60000L
+
+  private Path baseDirectory
+  private LocalStorageDescriptorRepository descriptorRepository
+  private LayoutMigrationState migrationState
+
+  def setup() {
+    this.baseDirectory = Files.createTempDirectory("storage")
+    this.descriptorRepository = Stub(LocalStorageDescriptorRepository)
+    this.migrationState = new LayoutMigrationState()
+  }
+
+  def cleanup() {
+    baseDirectory.toFile().deleteDir()
+  }
+
+  def "Scenario: relocate the file to the hashed directory layout"() {
+    given: "The storage with the hashed directory layout"
+    descriptorRepository.findAll() >> [createStorage("LOCAL", 2)]
+
+    and: "The compressed file with its block index in the base directory"
+    Path file = createOutdatedFile(STORAGE_FILE_NAME)
+    createOutdatedFile(STORAGE_FILE_NAME + ".blocks")
+
+    when: "The storage is migrated"
+    long relocated = new DirectoryLayoutMigrator(descriptorRepository, GRACE_PERIOD, migrationState).migrate()
+
+    then: "The file should be relocated with its block index"
+    relocated == 1L
+    Path target = new DirectoryLayout(2, 2).resolve(baseDirectory, STORAGE_FILE_NAME)
+    new String(Files.readAllBytes(target)) == CONTENT
+    Files.exists(BlockIndex.getIndexPath(target))
+    !Files.exists(file)
+    !Files.exists(BlockIndex.getIndexPath(file))
+
+    and: "The storage should be marked migrated"
+    migrationState.isMigrated("LOCAL", new DirectoryLayout(2, 2))
+
+    and: "The layout marker should be persisted"
+    migrationState.readLayout(baseDirectory) == Optional.of(new DirectoryLayout(2, 2))
+  }
+
+  def "Scenario: load the persisted migration state after the restart"() {
+    given: "The migrated storage"
+    descriptorRepository.findAll() >> [createStorage("LOCAL", 2)]
+    new DirectoryLayoutMigrator(descriptorRepository, GRACE_PERIOD, migrationState).migrate()
+
+    and: "The migration state of the restarted node"
+    LayoutMigrationState restartedState = new LayoutMigrationState()
+
+    when: "The migration state is loaded"
+    restartedState.load([createStorage("LOCAL", 2)])
+
+    then: "The storage should be marked migrated"
+    restartedState.isMigrated("LOCAL", new DirectoryLayout(2, 2))
+  }
+
+  def "Scenario: refuse the storage, which directory layout has been changed"() {
+    given: "The storage, migrated to the hashed directory layout"
+    migrationState.markMigrated("LOCAL", baseDirectory, new DirectoryLayout(2, 2))
+
+    when: "The migration state is loaded for the changed directory layout"
+    new LayoutMigrationState().load([createStorage("LOCAL", 1)])
+
+    then: "The storage should be refused"
+    thrown(IllegalStateException)
+  }
+
+  def "Scenario: don't migrate the base directory, which files are stored in the other layout"() {
+    given: "The storage, migrated to the hashed directory layout"
+    migrationState.markMigrated("LOCAL", baseDirectory, new DirectoryLayout(2, 2))
+
+    and: "The storage, which directory layout has been changed"
+    descriptorRepository.findAll() >> [createStorage("LOCAL", 1)]
+
+    and: "The file in the base directory"
+    createOutdatedFile(STORAGE_FILE_NAME)
+
+    when: "The storage is migrated"
+    long relocated = new DirectoryLayoutMigrator(descriptorRepository, GRACE_PERIOD, migrationState).migrate()
+
+    then: "The file shouldn't be relocated"
+    relocated == 0L
+    Files.exists(baseDirectory.resolve(STORAGE_FILE_NAME))
+
+    and: "The storage shouldn't be marked migrated to the changed layout"
+    !migrationState.isMigrated("LOCAL", new DirectoryLayout(1, 2))
+    migrationState.readLayout(baseDirectory) == Optional.of(new DirectoryLayout(2, 2))
+  }
+
+  def "Scenario: keep the recently modified file in the base directory"() {
+    given: "The storage with the hashed directory layout"
+    descriptorRepository.findAll() >> [createStorage("LOCAL", 2)]
+
+    and: "The file, modified during the grace period"
+    Files.write(baseDirectory.resolve(STORAGE_FILE_NAME), CONTENT.getBytes())
+
+    when: "The storage is migrated"
+    long relocated = new DirectoryLayoutMigrator(descriptorRepository, GRACE_PERIOD, migrationState).migrate()
+
+    then: "The file shouldn't be relocated"
+    relocated == 0L
+    Files.exists(baseDirectory.resolve(STORAGE_FILE_NAME))
+
+    and: "The storage shouldn't be marked migrated"
+    !migrationState.isMigrated("LOCAL", new DirectoryLayout(2, 2))
+  }
+
+  def "Scenario: don't migrate the base directory, shared by the different layouts"() {
+    given: "The storages with the different directory layouts in the same base directory"
+    descriptorRepository.findAll() >> [createStorage("LOCAL", 2), createStorage("OTHER_LOCAL", 0)]
+
+    and: "The file in the base directory"
+    createOutdatedFile(STORAGE_FILE_NAME)
+
+    when: "The storages are migrated"
+    long relocated = new DirectoryLayoutMigrator(descriptorRepository, GRACE_PERIOD, migrationState).migrate()
+
+    then: "The file shouldn't be relocated"
+    relocated == 0L
+    Files.exists(baseDirectory.resolve(STORAGE_FILE_NAME))
+  }
+
+  private Path createOutdatedFile(String fileName) {
+    Path file = Files.write(baseDirectory.resolve(fileName), CONTENT.getBytes())
+    Files.setLastModifiedTime(file,
+        FileTime.fromMillis(System.currentTimeMillis() - GRACE_PERIOD * 2))
+    return file
+  }
+
+  private LocalStorageDescriptor createStorage(String storageName, int directoryDepth) {
+    return LocalStorageDescriptor.builder().storageName(storageName)
+        .baseDirectory(baseDirectory.toString()).directoryDepth(directoryDepth).directoryWidth(2)
+        .build()
+  }
+}
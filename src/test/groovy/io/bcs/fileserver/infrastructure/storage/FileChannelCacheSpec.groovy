@@ -0,0 +1,89 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import io.bcs.fileserver.domain.model.storage.ContentLocator
+import io.bcs.fileserver.infrastructure.storage.SharedFileChannel.Lease
+import java.nio.file.Files
+import java.nio.file.Path
+import spock.lang.Specification
+
+class FileChannelCacheSpec extends Specification {
+  private static final String STORAGE_NAME = "storage-1"
+
+  def "Scenario: share the cached channel between requests"() {
+    given: "The file channel cache"
+    FileChannelCache cache = new FileChannelCache(10, 60000L)
+
+    and: "The physical file"
+    Path path = createPhysicalFile()
+
+    when: "The file channel is leased twice"
+    Lease firstLease = cache.lease(createLocator("file-1"), path)
+    firstLease.close()
+    Lease secondLease = cache.lease(createLocator("file-1"), path)
+
+    then: "The same opened channel should be leased"
+    firstLease.getChannel().is(secondLease.getChannel())
+    secondLease.getChannel().isOpen()
+  }
+
+  def "Scenario: close the invalidated channel after the last reader releases it"() {
+    given: "The file channel cache"
+    FileChannelCache cache = new FileChannelCache(10, 60000L)
+
+    and: "The file channel, leased by the reader"
+    Lease lease = cache.lease(createLocator("file-1"), createPhysicalFile())
+
+    when: "The file channel is invalidated"
+    cache.invalidate(createLocator("file-1"))
+
+    then: "The channel should stay opened for the reader"
+    lease.getChannel().isOpen()
+
+    when: "The reader releases the channel"
+    lease.close()
+
+    then: "The channel should be closed"
+    !lease.getChannel().isOpen()
+  }
+
+  def "Scenario: evict the least recently used channel when the cache size is exceeded"() {
+    given: "The file channel cache, keeping one channel"
+    FileChannelCache cache = new FileChannelCache(1, 60000L)
+
+    and: "The released file channel lease"
+    Lease firstLease = cache.lease(createLocator("file-1"), createPhysicalFile())
+    firstLease.close()
+
+    when: "The other file channel is leased"
+    Lease secondLease = cache.lease(createLocator("file-2"), createPhysicalFile())
+
+    then: "The first channel should be evicted and closed"
+    !firstLease.getChannel().isOpen()
+    secondLease.getChannel().isOpen()
+  }
+
+  def "Scenario: open the new channel for each request if caching is disabled"() {
+    given: "The disabled file channel cache"
+    FileChannelCache cache = FileChannelCache.disabled()
+
+    when: "The file channel is leased and released"
+    Lease lease = cache.lease(createLocator("file-1"), createPhysicalFile())
+    lease.close()
+
+    then: "The channel should be closed"
+    !lease.getChannel().isOpen()
+  }
+
+  private Path createPhysicalFile() {
+    Path path = Files.createTempFile("content", ".bin")
+    path.toFile().deleteOnExit()
+    return path
+  }
+
+  private ContentLocator createLocator(String storageFileName) {
+    return Stub(ContentLocator) {
+      getStorageName() >> STORAGE_NAME
+      getStorageFileName() >> storageFileName
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import io.bcs.fileserver.infrastructure.storage.SharedFileChannel.Lease
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import spock.lang.Specification
+
+class FileRegionInputStreamSpec extends Specification {
+  private static final int REGIONS_COUNT = 16
+  private static final int REGION_LENGTH = 64 * 1024
+  private static final int READ_BUFFER_SIZE = 1000
+
+  private Path file
+
+  def setup() {
+    this.file = Files.createTempFile("region", ".bin")
+    byte[] content = new byte[REGIONS_COUNT * REGION_LENGTH]
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) (i.intdiv(REGION_LENGTH) + i % 7)
+    }
+    Files.write(file, content)
+  }
+
+  def cleanup() {
+    Files.deleteIfExists(file)
+  }
+
+  def "Scenario: read the file region without changing the channel position"() {
+    given: "The shared file channel"
+    SharedFileChannel channel = openChannel()
+    Lease ownerLease = channel.lease()
+
+    when: "The file region is read"
+    FileRegionInputStream inputStream = new FileRegionInputStream(channel.lease(), 10L, 100L)
+    byte[] region = readRegion(inputStream)
+    inputStream.close()
+
+    then: "The region content should be read"
+    region == expectedRegion(10, 100)
+
+    and: "The channel position shouldn't be changed"
+    ownerLease.getChannel().position() == 0L
+
+    cleanup:
+    ownerLease.close()
+  }
+
+  def "Scenario: read the different regions of the shared channel concurrently"() {
+    given: "The shared file channel, held by the owner lease"
+    SharedFileChannel channel = openChannel()
+    Lease ownerLease = channel.lease()
+
+    and: "The concurrent readers of the different regions"
+    ExecutorService executor = Executors.newFixedThreadPool(REGIONS_COUNT)
+    CountDownLatch started = new CountDownLatch(1)
+
+    when: "Every region is read by its own stream at the same time"
+    List<Future<byte[]>> readers = (0..<REGIONS_COUNT).collect { int index ->
+      FileRegionInputStream inputStream = new FileRegionInputStream(channel.lease(),
+          (long) index * REGION_LENGTH, (long) REGION_LENGTH)
+      executor.submit({
+        started.await()
+        try {
+          return readRegion(inputStream)
+        } finally {
+          inputStream.close()
+        }
+      } as Callable<byte[]>)
+    }
+    started.countDown()
+    List<byte[]> regions = readers.collect { it.get(10, TimeUnit.SECONDS) }
+
+    then: "Every stream should read its own region"
+    (0..<REGIONS_COUNT).every { int index ->
+      regions[index] == expectedRegion(index * REGION_LENGTH, REGION_LENGTH)
+    }
+
+    and: "The channel should stay opened for the owner only"
+    channel.isOpen()
+    ownerLease.getChannel().position() == 0L
+
+    when: "The owner lease is released"
+    ownerLease.close()
+
+    then: "The channel should be closed, because all streams have released their leases"
+    !channel.isOpen()
+
+    cleanup:
+    executor.shutdownNow()
+  }
+
+  def "Scenario: skip the region content"() {
+    given: "The file region input stream"
+    FileRegionInputStream inputStream = new FileRegionInputStream(openChannel().lease(), 0L,
+        100L)
+
+    when: "The part of the region is skipped"
+    long skipped = inputStream.skip(40L)
+
+    then: "The rest of the region should be available"
+    skipped == 40L
+    inputStream.available() == 60
+
+    and: "The rest of the region should be read"
+    readRegion(inputStream) == expectedRegion(40, 60)
+
+    and: "The skip over the region end should be bounded"
+    inputStream.skip(10L) == 0L
+    inputStream.read() == -1
+
+    cleanup:
+    inputStream.close()
+  }
+
+  def "Scenario: release the lease when the stream is closed"() {
+    given: "The file region input stream, holding the only lease"
+    SharedFileChannel channel = openChannel()
+    FileRegionInputStream inputStream = new FileRegionInputStream(channel.lease(), 0L, 100L)
+
+    when: "The stream is closed twice"
+    inputStream.close()
+    inputStream.close()
+
+    then: "The channel should be closed"
+    !channel.isOpen()
+  }
+
+  private SharedFileChannel openChannel() {
+    return new SharedFileChannel(FileChannel.open(file, StandardOpenOption.READ))
+  }
+
+  private byte[] readRegion(FileRegionInputStream inputStream) {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+    byte[] buffer = new byte[READ_BUFFER_SIZE]
+    int read
+    while ((read = inputStream.read(buffer, 0, buffer.length)) >= 0) {
+      outputStream.write(buffer, 0, read)
+    }
+    return outputStream.toByteArray()
+  }
+
+  private byte[] expectedRegion(int offset, int length) {
+    byte[] content = Files.readAllBytes(file)
+    return Arrays.copyOfRange(content, offset, offset + length)
+  }
+}
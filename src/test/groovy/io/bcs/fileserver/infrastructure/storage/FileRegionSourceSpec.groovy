@@ -0,0 +1,74 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import java.nio.channels.Channels
+import java.nio.channels.FileChannel
+import java.nio.channels.WritableByteChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import spock.lang.Specification
+
+class FileRegionSourceSpec extends Specification {
+  private static final String CONTENT = "Hello World!!!______Hello People!!!"
+
+  private Path file
+  private FileChannel channel
+
+  def setup() {
+    this.file = Files.createTempFile("region", ".bin")
+    Files.write(file, CONTENT.getBytes())
+    this.channel = FileChannel.open(file, StandardOpenOption.READ)
+  }
+
+  def cleanup() {
+    channel.close()
+    Files.deleteIfExists(file)
+  }
+
+  def "Scenario: transfer the file region to the target channel"() {
+    given: "The file region"
+    FileRegion region = new FileRegionSource(channel, 20L, 15L, 1000)
+
+    and: "The target channel"
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+
+    when: "The region is transferred"
+    long transferred = region.transferTo(Channels.newChannel(outputStream))
+
+    then: "The whole region should be transferred"
+    transferred == 15L
+    outputStream.toString() == "Hello People!!!"
+  }
+
+  def "Scenario: stop the transfer at the file end"() {
+    given: "The file region, exceeding the file end"
+    FileRegion region = new FileRegionSource(channel, 20L, 100L, 1000)
+
+    and: "The target channel"
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+
+    when: "The region is transferred"
+    long transferred = region.transferTo(Channels.newChannel(outputStream))
+
+    then: "The region should be transferred up to the file end"
+    transferred == 15L
+    outputStream.toString() == "Hello People!!!"
+  }
+
+  def "Scenario: fail the transfer to the target channel, which doesn't accept the content"() {
+    given: "The file region"
+    FileRegion region = new FileRegionSource(channel, 0L, 14L, 1000)
+
+    and: "The target channel, which doesn't accept anything"
+    WritableByteChannel target = Stub(WritableByteChannel) {
+      isOpen() >> true
+      write(_) >> 0
+    }
+
+    when: "The region is transferred"
+    region.transferTo(target)
+
+    then: "The transfer should fail instead of spinning"
+    thrown(IOException)
+  }
+}
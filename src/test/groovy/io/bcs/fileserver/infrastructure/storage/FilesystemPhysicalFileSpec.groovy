@@ -0,0 +1,165 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import io.bce.interaction.streaming.binary.BinaryDestination
+import io.bce.interaction.streaming.binary.BinarySource
+import io.bce.interaction.streaming.binary.OutputStreamDestination
+import io.bce.promises.WaitingPromise
+import io.bce.streaming.DirectStreamer
+import io.bcs.fileserver.domain.model.storage.ContentLocator
+import io.bcs.fileserver.domain.model.storage.descriptor.AllocationStrategy
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptor
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.NoSuchFileException
+import java.nio.file.Path
+import spock.lang.Specification
+
+class FilesystemPhysicalFileSpec extends Specification {
+  private static final String STORAGE_NAME = "storage-1"
+  private static final String STORAGE_FILE_NAME = "file-1"
+  private static final Long CONTENT_LENGTH = 100000L
+  private static final String CONTENT = "Hello World!!!"
+
+  private Path baseDirectory
+
+  def setup() {
+    this.baseDirectory = Files.createTempDirectory("storage")
+  }
+
+  def cleanup() {
+    baseDirectory.toFile().deleteDir()
+  }
+
+  def "Scenario: create the file without the space allocation"() {
+    given: "The physical file of the storage without allocation"
+    PhysicalFile physicalFile = createPhysicalFile(AllocationStrategy.NONE)
+
+    when: "The file is created"
+    physicalFile.create(CONTENT_LENGTH)
+
+    then: "The created file should be empty"
+    Files.size(baseDirectory.resolve(STORAGE_FILE_NAME)) == 0L
+  }
+
+  def "Scenario: create the file with the allocated space"() {
+    given: "The physical file of the storage with the extending allocation strategy"
+    PhysicalFile physicalFile = createPhysicalFile(AllocationStrategy.EXTEND)
+
+    when: "The file is created"
+    physicalFile.create(CONTENT_LENGTH)
+
+    then: "The created file should be extended to the content length"
+    Files.size(baseDirectory.resolve(STORAGE_FILE_NAME)) == CONTENT_LENGTH
+  }
+
+  def "Scenario: cut the allocated file to the written content length"() {
+    given: "The created physical file with the allocated space"
+    PhysicalFile physicalFile = createPhysicalFile(AllocationStrategy.EXTEND)
+    physicalFile.create(CONTENT_LENGTH)
+
+    when: "The content is written through the file channel"
+    BinaryDestination destination = physicalFile.openForWrite()
+    WritableFileChannel writableChannel = (WritableFileChannel) destination
+    writableChannel.getChannel().write(ByteBuffer.wrap(CONTENT.getBytes()))
+    writableChannel.close()
+
+    then: "The file should contain the written content only"
+    new String(Files.readAllBytes(baseDirectory.resolve(STORAGE_FILE_NAME))) == CONTENT
+  }
+
+  def "Scenario: create the file in the hashed directory layout"() {
+    given: "The physical file of the storage with the hashed directory layout"
+    PhysicalFile physicalFile = createHashedPhysicalFile()
+
+    when: "The file is created"
+    physicalFile.create(CONTENT_LENGTH)
+
+    then: "The file should be created in the nested directories"
+    Files.exists(new DirectoryLayout(2, 2).resolve(baseDirectory, STORAGE_FILE_NAME))
+    !Files.exists(baseDirectory.resolve(STORAGE_FILE_NAME))
+  }
+
+  def "Scenario: find the not relocated file in the base directory"() {
+    given: "The file, stored directly in the base directory"
+    Files.write(baseDirectory.resolve(STORAGE_FILE_NAME), CONTENT.getBytes())
+
+    when: "The physical file of the storage with the hashed directory layout is deleted"
+    createHashedPhysicalFile().delete()
+
+    then: "The file should be deleted from the base directory"
+    !Files.exists(baseDirectory.resolve(STORAGE_FILE_NAME))
+  }
+
+  def "Scenario: read the file, relocated after its location has been resolved"() {
+    given: "The physical file, resolved to the base directory"
+    Path flatPath = Files.write(baseDirectory.resolve(STORAGE_FILE_NAME), CONTENT.getBytes())
+    PhysicalFile physicalFile = createHashedPhysicalFile()
+
+    and: "The file, relocated to the hashed directory layout"
+    Path layoutPath = new DirectoryLayout(2, 2).resolve(baseDirectory, STORAGE_FILE_NAME)
+    Files.createDirectories(layoutPath.getParent())
+    Files.move(flatPath, layoutPath)
+
+    when: "The file is read"
+    BinarySource source = physicalFile.openForRead(0L, 14L, 1000)
+
+    then: "The file should be read by the relocated path"
+    readContent(source) == CONTENT
+
+    when: "The file is deleted"
+    physicalFile.delete()
+
+    then: "The relocated file should be deleted"
+    !Files.exists(layoutPath)
+  }
+
+  def "Scenario: don't look for the file of the migrated storage in the base directory"() {
+    given: "The file, stored directly in the base directory"
+    Files.write(baseDirectory.resolve(STORAGE_FILE_NAME), CONTENT.getBytes())
+
+    and: "The storage, which layout migration has been finished"
+    LayoutMigrationState migrationState = new LayoutMigrationState()
+    migrationState.markMigrated(STORAGE_NAME, baseDirectory, new DirectoryLayout(2, 2))
+
+    when: "The file is read"
+    FilesystemPhysicalFile.factory(FileChannelCache.disabled(), new StorageWriteLoad(),
+        migrationState).create(createHashedStorage(), createLocator()).openForRead(0L, 14L, 1000)
+
+    then: "The file should be looked for by the directory layout only"
+    thrown(NoSuchFileException)
+  }
+
+  private String readContent(BinarySource source) {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+    WaitingPromise.of(new DirectStreamer().createStream(source, new OutputStreamDestination(outputStream)).start()).await()
+    return outputStream.toString()
+  }
+
+  private PhysicalFile createPhysicalFile(AllocationStrategy allocationStrategy) {
+    LocalStorageDescriptor storage = LocalStorageDescriptor.builder()
+        .baseDirectory(baseDirectory.toString())
+        .allocationStrategy(allocationStrategy)
+        .build()
+    return FilesystemPhysicalFile.factory().create(storage, createLocator())
+  }
+
+  private PhysicalFile createHashedPhysicalFile() {
+    return FilesystemPhysicalFile.factory().create(createHashedStorage(), createLocator())
+  }
+
+  private LocalStorageDescriptor createHashedStorage() {
+    return LocalStorageDescriptor.builder()
+        .storageName(STORAGE_NAME)
+        .baseDirectory(baseDirectory.toString())
+        .directoryDepth(2)
+        .directoryWidth(2)
+        .build()
+  }
+
+  private ContentLocator createLocator() {
+    return Stub(ContentLocator) {
+      getStorageName() >> STORAGE_NAME
+      getStorageFileName() >> STORAGE_FILE_NAME
+    }
+  }
+}
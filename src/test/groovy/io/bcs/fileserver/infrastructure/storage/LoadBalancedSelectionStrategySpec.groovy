@@ -0,0 +1,118 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import io.bcs.fileserver.infrastructure.storage.StorageSelectionStrategy.StorageCandidate
+import spock.lang.Specification
+
+class LoadBalancedSelectionStrategySpec extends Specification {
+  private static final String FIRST_STORAGE = "first"
+  private static final String SECOND_STORAGE = "second"
+  private static final String FIRST_DIRECTORY = "/first"
+  private static final String SECOND_DIRECTORY = "/second"
+
+  private StorageWriteLoad writeLoad
+  private UsableSpaceProbe usableSpaceProbe
+  private StorageSelectionStrategy strategy
+
+  def setup() {
+    this.writeLoad = new StorageWriteLoad()
+    this.usableSpaceProbe = Stub(UsableSpaceProbe)
+    this.strategy = new LoadBalancedSelectionStrategy(writeLoad, usableSpaceProbe)
+  }
+
+  def "Scenario: prefer the storage with the most free space"() {
+    given: "The not loaded storages"
+    usableSpaceProbe.getUsableSpace(_) >> 1000L
+
+    expect: "The storage with the most available quote space should be chosen first"
+    strategy.rank(createCandidates(50L, 80L), 10L) == [SECOND_STORAGE, FIRST_STORAGE]
+  }
+
+  def "Scenario: prefer the storage with the least in-flight writes"() {
+    given: "The storage with the most free space is being written"
+    usableSpaceProbe.getUsableSpace(_) >> 1000L
+    writeLoad.startWrite(SECOND_STORAGE)
+
+    expect: "The not loaded storage should be chosen first"
+    strategy.rank(createCandidates(50L, 80L), 10L) == [FIRST_STORAGE, SECOND_STORAGE]
+  }
+
+  def "Scenario: count the reserved space as the write load"() {
+    given: "The space of the storage with the most free space has been reserved"
+    usableSpaceProbe.getUsableSpace(_) >> 1000L
+    strategy.onSpaceReserved(SECOND_STORAGE)
+
+    expect: "The not loaded storage should be chosen first, although nothing is written yet"
+    strategy.rank(createCandidates(50L, 80L), 10L) == [FIRST_STORAGE, SECOND_STORAGE]
+  }
+
+  def "Scenario: spread the burst of the allocations across the storages"() {
+    given: "The storages, one of which has much more free space"
+    usableSpaceProbe.getUsableSpace(_) >> 10000L
+    StorageSpaceAccounting accounting = new StorageSpaceAccounting(strategy)
+    accounting.update(FIRST_STORAGE, "text/plain", FIRST_DIRECTORY, 1000L, 0L)
+    accounting.update(SECOND_STORAGE, "text/plain", SECOND_DIRECTORY, 2000L, 0L)
+
+    when: "The space is reserved for four files before any of them is written"
+    List<String> storages = (1..4).collect {
+      accounting.reserve("text/plain", 10L, []).get()
+    }
+
+    then: "The files should be spread evenly instead of being placed to the freest storage"
+    storages.count(FIRST_STORAGE) == 2
+    storages.count(SECOND_STORAGE) == 2
+  }
+
+  def "Scenario: consume the reservation by the write start"() {
+    given: "The space has been reserved on the storage"
+    writeLoad.reserveWrite(FIRST_STORAGE)
+
+    when: "The write of the reserved file is started"
+    Runnable finishWrite = writeLoad.startWrite(FIRST_STORAGE)
+
+    then: "The file should be counted once"
+    writeLoad.getWriteLoad(FIRST_STORAGE) == 1
+
+    when: "The write is finished"
+    finishWrite.run()
+
+    then: "The storage shouldn't be loaded"
+    writeLoad.getWriteLoad(FIRST_STORAGE) == 0
+  }
+
+  def "Scenario: don't count the expired reservation"() {
+    given: "The write load, expiring the reservations at once"
+    StorageWriteLoad expiringLoad = new StorageWriteLoad(0L)
+
+    when: "The space is reserved, but the write isn't started"
+    expiringLoad.reserveWrite(FIRST_STORAGE)
+
+    then: "The storage shouldn't be loaded"
+    expiringLoad.getWriteLoad(FIRST_STORAGE) == 0
+  }
+
+  def "Scenario: count the finished write once"() {
+    given: "The storage write is finished twice"
+    Runnable finishWrite = writeLoad.startWrite(FIRST_STORAGE)
+    finishWrite.run()
+    finishWrite.run()
+
+    expect: "The storage shouldn't be loaded"
+    writeLoad.getInFlightWrites(FIRST_STORAGE) == 0
+  }
+
+  def "Scenario: leave out the storage without enough disk free space"() {
+    given: "The disk of the second storage is almost full"
+    usableSpaceProbe.getUsableSpace(FIRST_DIRECTORY) >> 1000L
+    usableSpaceProbe.getUsableSpace(SECOND_DIRECTORY) >> 5L
+
+    expect: "The second storage shouldn't be chosen, although its quote is enough"
+    strategy.rank(createCandidates(50L, 80L), 10L) == [FIRST_STORAGE]
+  }
+
+  private List<StorageCandidate> createCandidates(long firstAvailable, long secondAvailable) {
+    return [
+      new StorageCandidate(FIRST_STORAGE, FIRST_DIRECTORY, firstAvailable),
+      new StorageCandidate(SECOND_STORAGE, SECOND_DIRECTORY, secondAvailable)
+    ]
+  }
+}
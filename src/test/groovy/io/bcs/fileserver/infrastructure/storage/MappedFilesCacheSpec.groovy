@@ -0,0 +1,117 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import io.bcs.fileserver.domain.model.storage.ContentLocator
+import io.bcs.fileserver.infrastructure.storage.MappedFilesCache.ChannelLeases
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import spock.lang.Specification
+
+class MappedFilesCacheSpec extends Specification {
+  private static final String STORAGE_NAME = "storage-1"
+  private static final String STORAGE_FILE_NAME = "file-1"
+  private static final String CONTENT = "Hello World!!!"
+
+  private Path file
+
+  def setup() {
+    this.file = Files.createTempFile("mapped", ".file")
+    Files.write(file, CONTENT.getBytes())
+  }
+
+  def cleanup() {
+    Files.deleteIfExists(file)
+  }
+
+  def "Scenario: map the small file once"() {
+    given: "The mapped files cache, mapping files up to 1 KB"
+    MappedFilesCache mappedFilesCache = new MappedFilesCache(1024L, 4096L)
+
+    and: "The file channel leases"
+    ChannelLeases channels = Mock(ChannelLeases)
+
+    when: "The file mapping is requested twice"
+    Optional<ByteBuffer> firstMapping = mappedFilesCache.getMapping(createLocator(), channels)
+    Optional<ByteBuffer> secondMapping = mappedFilesCache.getMapping(createLocator(), channels)
+
+    then: "The file channel should be leased only once"
+    1 * channels.lease() >> { openChannel().lease() }
+
+    and: "The both mappings should contain the file content"
+    readContent(firstMapping.get()) == CONTENT
+    readContent(secondMapping.get()) == CONTENT
+  }
+
+  def "Scenario: remember the file, which is too large to be mapped"() {
+    given: "The mapped files cache, mapping files up to 10 bytes"
+    MappedFilesCache mappedFilesCache = new MappedFilesCache(10L, 4096L)
+
+    and: "The file channel leases"
+    ChannelLeases channels = Mock(ChannelLeases)
+
+    when: "The file mapping is requested twice"
+    Optional<ByteBuffer> firstMapping = mappedFilesCache.getMapping(createLocator(), channels)
+    Optional<ByteBuffer> secondMapping = mappedFilesCache.getMapping(createLocator(), channels)
+
+    then: "The file channel should be leased only once to get the file size"
+    1 * channels.lease() >> { openChannel().lease() }
+
+    and: "The file shouldn't be mapped"
+    !firstMapping.isPresent()
+    !secondMapping.isPresent()
+  }
+
+  def "Scenario: check the invalidated file again"() {
+    given: "The mapped files cache, mapping files up to 10 bytes"
+    MappedFilesCache mappedFilesCache = new MappedFilesCache(10L, 4096L)
+
+    and: "The file channel leases"
+    ChannelLeases channels = Mock(ChannelLeases)
+
+    and: "The file, remembered as too large to be mapped"
+    mappedFilesCache.getMapping(createLocator(), channels)
+
+    when: "The file is invalidated and its mapping is requested"
+    mappedFilesCache.invalidate(createLocator())
+    mappedFilesCache.getMapping(createLocator(), channels)
+
+    then: "The file channel should be leased again"
+    2 * channels.lease() >> { openChannel().lease() }
+  }
+
+  def "Scenario: release the leased channel after the file is mapped"() {
+    given: "The mapped files cache, mapping files up to 1 KB"
+    MappedFilesCache mappedFilesCache = new MappedFilesCache(1024L, 4096L)
+
+    and: "The shared file channel"
+    SharedFileChannel channel = openChannel()
+
+    when: "The file mapping is requested"
+    Optional<ByteBuffer> mapping = mappedFilesCache.getMapping(createLocator(), { channel.lease() })
+
+    then: "The channel should be closed by the released lease"
+    !channel.isOpen()
+
+    and: "The mapping should be still readable"
+    readContent(mapping.get()) == CONTENT
+  }
+
+  private SharedFileChannel openChannel() {
+    return new SharedFileChannel(FileChannel.open(file, StandardOpenOption.READ))
+  }
+
+  private String readContent(ByteBuffer mapping) {
+    byte[] content = new byte[mapping.remaining()]
+    mapping.get(content)
+    return new String(content)
+  }
+
+  private ContentLocator createLocator() {
+    return Stub(ContentLocator) {
+      getStorageName() >> STORAGE_NAME
+      getStorageFileName() >> STORAGE_FILE_NAME
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import io.bce.interaction.streaming.binary.BinarySource
+import io.bce.interaction.streaming.binary.OutputStreamDestination
+import io.bce.promises.WaitingPromise
+import io.bce.streaming.DirectStreamer
+import io.bcs.fileserver.domain.model.storage.ContentLocator
+import io.bcs.fileserver.domain.model.storage.descriptor.LocalStorageDescriptor
+import java.nio.channels.Channels
+import java.nio.file.Files
+import java.nio.file.Path
+import spock.lang.Specification
+
+class MemoryMappedPhysicalFileSpec extends Specification {
+  private static final String STORAGE_NAME = "storage-1"
+  private static final String STORAGE_FILE_NAME = "file-1"
+  private static final String CONTENT = "Hello World!!!______Hello People!!!"
+
+  private Path baseDirectory
+
+  def setup() {
+    this.baseDirectory = Files.createTempDirectory("storage")
+    Files.write(baseDirectory.resolve(STORAGE_FILE_NAME), CONTENT.getBytes())
+  }
+
+  def cleanup() {
+    baseDirectory.toFile().deleteDir()
+  }
+
+  def "Scenario: read the small file fragment from the memory mapping"() {
+    given: "The mapped files cache, mapping files up to 1 KB"
+    MappedFilesCache mappedFilesCache = new MappedFilesCache(1024L, 4096L)
+
+    and: "The memory mapped physical file"
+    PhysicalFile physicalFile = MemoryMappedPhysicalFile.factory(FileChannelCache.disabled(), mappedFilesCache)
+        .create(createStorage(), createLocator())
+
+    when: "The file fragment is read"
+    BinarySource source = physicalFile.openForRead(20L, 15L, 1000)
+
+    then: "The fragment should be read from the mapping"
+    !(source instanceof FileRegion)
+    readContent(source) == "Hello People!!!"
+  }
+
+  def "Scenario: write the mapped file fragment to the channel directly"() {
+    given: "The mapped files cache, mapping files up to 1 KB"
+    MappedFilesCache mappedFilesCache = new MappedFilesCache(1024L, 4096L)
+
+    and: "The memory mapped physical file"
+    PhysicalFile physicalFile = MemoryMappedPhysicalFile.factory(FileChannelCache.disabled(), mappedFilesCache)
+        .create(createStorage(), createLocator())
+
+    when: "The file fragment is written to the channel"
+    MappedRegion region = (MappedRegion) physicalFile.openForRead(20L, 15L, 1000)
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+    long transferred = region.transferTo(Channels.newChannel(outputStream))
+
+    then: "The fragment should be written from the mapping"
+    transferred == 15L
+    outputStream.toString() == "Hello People!!!"
+  }
+
+  def "Scenario: read the fragment, exceeding the mapped content, through the file channel"() {
+    given: "The mapped files cache, mapping files up to 1 KB"
+    MappedFilesCache mappedFilesCache = new MappedFilesCache(1024L, 4096L)
+
+    and: "The memory mapped physical file"
+    PhysicalFile physicalFile = MemoryMappedPhysicalFile.factory(FileChannelCache.disabled(), mappedFilesCache)
+        .create(createStorage(), createLocator())
+
+    when: "The fragment, exceeding the file end, is read"
+    BinarySource source = physicalFile.openForRead(20L, 100L, 1000)
+
+    then: "The fragment should be read through the file channel up to the file end"
+    source instanceof FileRegion
+    readContent(source) == "Hello People!!!"
+  }
+
+  def "Scenario: read the file, exceeding the mapping threshold, through the file channel"() {
+    given: "The mapped files cache, mapping files up to 10 bytes"
+    MappedFilesCache mappedFilesCache = new MappedFilesCache(10L, 4096L)
+
+    and: "The memory mapped physical file"
+    PhysicalFile physicalFile = MemoryMappedPhysicalFile.factory(FileChannelCache.disabled(), mappedFilesCache)
+        .create(createStorage(), createLocator())
+
+    when: "The file fragment is read"
+    BinarySource source = physicalFile.openForRead(0L, 14L, 1000)
+
+    then: "The fragment should be read through the file channel"
+    source instanceof FileRegion
+    readContent(source) == "Hello World!!!"
+  }
+
+  private String readContent(BinarySource source) {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+    WaitingPromise.of(new DirectStreamer().createStream(source, new OutputStreamDestination(outputStream)).start()).await()
+    return outputStream.toString()
+  }
+
+  private LocalStorageDescriptor createStorage() {
+    return LocalStorageDescriptor.builder().baseDirectory(baseDirectory.toString()).build()
+  }
+
+  private ContentLocator createLocator() {
+    return Stub(ContentLocator) {
+      getStorageName() >> STORAGE_NAME
+      getStorageFileName() >> STORAGE_FILE_NAME
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import io.bce.interaction.streaming.Destination
+import io.bce.interaction.streaming.Source
+import io.bce.interaction.streaming.binary.BinaryChunk
+import io.bce.interaction.streaming.binary.InputStreamSource
+import io.bce.interaction.streaming.binary.OutputStreamDestination
+import io.bce.promises.WaitingPromise
+import io.bce.streaming.DirectStreamer
+import io.bcs.fileserver.domain.errors.FileStorageException
+import io.bcs.fileserver.domain.model.file.File
+import io.bcs.fileserver.domain.model.storage.ContentFragment
+import io.bcs.fileserver.domain.model.storage.ContentLocator
+import io.bcs.fileserver.domain.model.storage.descriptor.ObjectStorageDescriptor
+import io.bcs.fileserver.domain.model.storage.descriptor.ObjectStorageDescriptorRepository
+import spock.lang.Specification
+
+class ObjectFileStorageSpec extends Specification {
+  private static final String STORAGE_NAME = "OBJECT"
+  private static final String STORAGE_FILE_NAME = "12345.FILE"
+  private static final String MEDIA_TYPE = "application/mediatype"
+  private static final String CONTENT = "Hello World!!!______Hello People!!!"
+  private static final int PART_SIZE = 8
+
+  private ObjectStorageDescriptorRepository descriptorRepository
+  private InMemoryObjectStore objectStore
+  private ObjectFileStorage fileStorage
+
+  def setup() {
+    ObjectStorageDescriptor descriptor = ObjectStorageDescriptor.builder()
+        .storageName(STORAGE_NAME).mediaType(MEDIA_TYPE).endpoint("http://localhost:9000")
+        .bucketName("files").build()
+    this.descriptorRepository = Stub(ObjectStorageDescriptorRepository) {
+      findAll() >> [descriptor]
+      findByName(STORAGE_NAME) >> Optional.of(descriptor)
+    }
+    this.objectStore = new InMemoryObjectStore()
+    this.fileStorage = new ObjectFileStorage(descriptorRepository, objectStore, PART_SIZE, 1000)
+  }
+
+  def "Scenario: create the file into the object storage of the media type"() {
+    when: "The file is created"
+    ContentLocator locator = fileStorage.create(createFile(), CONTENT.length())
+
+    then: "The file should be placed into the object storage"
+    locator.getStorageName() == STORAGE_NAME
+    locator.getStorageFileName() == STORAGE_FILE_NAME
+  }
+
+  def "Scenario: refuse the file creation for the media type without object storage"() {
+    when: "The file of the unknown media type is created"
+    fileStorage.create(File.builder().storageFileName(STORAGE_FILE_NAME)
+        .mediaType("application/unknown").build(), CONTENT.length())
+
+    then: "The file storage error should be thrown"
+    thrown(FileStorageException)
+  }
+
+  def "Scenario: upload the content by the parts and read the content range"() {
+    given: "The uploaded file content"
+    File file = createFile()
+    writeContent(fileStorage.getAccessOnWrite(file))
+
+    when: "The content range, crossing the parts boundary, is read"
+    Source<BinaryChunk> source = fileStorage.getAccessOnRead(file, createFragment(6L, 15L))
+
+    then: "The content range should be read"
+    readContent(source) == CONTENT.substring(6, 21)
+
+    and: "The multipart upload should be completed"
+    objectStore.getActiveUploadsCount() == 0
+  }
+
+  def "Scenario: abort the upload, closed before the whole content is written"() {
+    given: "The multipart upload of the file content"
+    File file = createFile()
+    MultipartUploadOutputStream outputStream = new MultipartUploadOutputStream(
+        objectStore.create(descriptorRepository.findByName(STORAGE_NAME).get()),
+        STORAGE_FILE_NAME, PART_SIZE, CONTENT.length())
+
+    when: "The stream is closed after the part of the content is written"
+    outputStream.write(CONTENT.getBytes(), 0, 20)
+    outputStream.close()
+
+    then: "The upload error should be thrown"
+    thrown(IOException)
+
+    and: "The multipart upload should be aborted"
+    objectStore.getActiveUploadsCount() == 0
+
+    when: "The file content is read"
+    fileStorage.getAccessOnRead(file, createFragment(0L, 5L))
+
+    then: "The file storage error should be thrown, because the object isn't visible"
+    thrown(FileStorageException)
+  }
+
+  def "Scenario: delete the file object"() {
+    given: "The uploaded file content"
+    File file = createFile()
+    writeContent(fileStorage.getAccessOnWrite(file))
+
+    when: "The file is deleted"
+    fileStorage.delete(file)
+
+    and: "The deleted file content is read"
+    fileStorage.getAccessOnRead(file, createFragment(0L, 5L))
+
+    then: "The file storage error should be thrown"
+    thrown(FileStorageException)
+  }
+
+  private File createFile() {
+    return File.builder().storageFileName(STORAGE_FILE_NAME).storageName(STORAGE_NAME)
+        .mediaType(MEDIA_TYPE).totalLength(CONTENT.length()).build()
+  }
+
+  private ContentFragment createFragment(Long offset, Long length) {
+    return Stub(ContentFragment) {
+      getOffset() >> offset
+      getLength() >> length
+    }
+  }
+
+  private void writeContent(Destination<BinaryChunk> destination) {
+    WaitingPromise.of(new DirectStreamer().createStream(
+        new InputStreamSource(new ByteArrayInputStream(CONTENT.getBytes()), 1000), destination)
+        .start()).await()
+    destination.close()
+  }
+
+  private String readContent(Source<BinaryChunk> source) {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+    WaitingPromise.of(new DirectStreamer().createStream(source, new OutputStreamDestination(outputStream)).start()).await()
+    return outputStream.toString()
+  }
+}
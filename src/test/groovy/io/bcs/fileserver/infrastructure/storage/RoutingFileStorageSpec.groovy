@@ -0,0 +1,85 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import io.bcs.fileserver.domain.model.file.File
+import io.bcs.fileserver.domain.model.storage.FileStorage
+import io.bcs.fileserver.domain.model.storage.descriptor.ObjectStorageDescriptor
+import io.bcs.fileserver.domain.model.storage.descriptor.ObjectStorageDescriptorRepository
+import spock.lang.Specification
+
+class RoutingFileStorageSpec extends Specification {
+  private static final String LOCAL_STORAGE_NAME = "LOCAL"
+  private static final String OBJECT_STORAGE_NAME = "OBJECT"
+  private static final String OBJECT_MEDIA_TYPE = "application/mediatype"
+  private static final String LOCAL_MEDIA_TYPE = "application/well-mediatype"
+
+  private FileStorage localFileStorage
+  private ObjectFileStorage objectFileStorage
+  private ObjectStorageDescriptorRepository descriptorRepository
+  private FileStorage fileStorage
+
+  def setup() {
+    this.localFileStorage = Mock(FileStorage)
+    this.objectFileStorage = Mock(ObjectFileStorage)
+    this.descriptorRepository = Stub(ObjectStorageDescriptorRepository) {
+      findByName(OBJECT_STORAGE_NAME) >> Optional.of(ObjectStorageDescriptor.builder()
+          .storageName(OBJECT_STORAGE_NAME).mediaType(OBJECT_MEDIA_TYPE).build())
+      findByName(_) >> Optional.empty()
+    }
+    this.fileStorage = new RoutingFileStorage(localFileStorage, objectFileStorage,
+        descriptorRepository)
+  }
+
+  def "Scenario: create the file into the object storage of the media type"() {
+    given: "The file of the media type with the object storage"
+    File file = File.builder().mediaType(OBJECT_MEDIA_TYPE).build()
+
+    when: "The file is created"
+    fileStorage.create(file, 100L)
+
+    then: "The file should be created into the object storage"
+    1 * objectFileStorage.findStorageFor(OBJECT_MEDIA_TYPE) >> Optional.of(
+        ObjectStorageDescriptor.builder().storageName(OBJECT_STORAGE_NAME).build())
+    1 * objectFileStorage.create(file, 100L)
+    0 * localFileStorage.create(_, _)
+  }
+
+  def "Scenario: create the file into the local storage if there isn't object storage"() {
+    given: "The file of the media type without the object storage"
+    File file = File.builder().mediaType(LOCAL_MEDIA_TYPE).build()
+
+    when: "The file is created"
+    fileStorage.create(file, 100L)
+
+    then: "The file should be created into the local storage"
+    1 * objectFileStorage.findStorageFor(LOCAL_MEDIA_TYPE) >> Optional.empty()
+    1 * localFileStorage.create(file, 100L)
+    0 * objectFileStorage.create(_, _)
+  }
+
+  def "Scenario: create the chunked file into the local storage"() {
+    given: "The file of the media type with the object storage"
+    File file = File.builder().mediaType(OBJECT_MEDIA_TYPE).build()
+
+    when: "The file, uploaded by the chunks, is created"
+    fileStorage.createChunked(file, 100L)
+
+    then: "The file should be created into the local storage"
+    1 * localFileStorage.createChunked(file, 100L)
+    0 * objectFileStorage.create(_, _)
+    0 * objectFileStorage.createChunked(_, _)
+  }
+
+  def "Scenario: route the placed file by its storage"() {
+    given: "The files, placed into the object and the local storages"
+    File objectFile = File.builder().storageName(OBJECT_STORAGE_NAME).build()
+    File localFile = File.builder().storageName(LOCAL_STORAGE_NAME).build()
+
+    when: "The files are deleted"
+    fileStorage.delete(objectFile)
+    fileStorage.delete(localFile)
+
+    then: "Every file should be deleted from its own storage"
+    1 * objectFileStorage.delete(objectFile)
+    1 * localFileStorage.delete(localFile)
+  }
+}
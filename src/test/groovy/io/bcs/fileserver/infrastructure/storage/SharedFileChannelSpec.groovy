@@ -0,0 +1,113 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import io.bcs.fileserver.infrastructure.storage.SharedFileChannel.Lease
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import spock.lang.Specification
+
+class SharedFileChannelSpec extends Specification {
+  private static final int READERS_COUNT = 8
+  private static final int LEASES_PER_READER = 1000
+
+  private Path file
+
+  def setup() {
+    this.file = Files.createTempFile("shared", ".bin")
+  }
+
+  def cleanup() {
+    Files.deleteIfExists(file)
+  }
+
+  def "Scenario: close the channel when the last lease is released"() {
+    given: "The shared file channel, leased twice"
+    SharedFileChannel channel = openChannel()
+    Lease firstLease = channel.lease()
+    Lease secondLease = channel.lease()
+
+    when: "The first lease is released"
+    firstLease.close()
+
+    then: "The channel should stay opened for the second lease"
+    channel.isOpen()
+
+    when: "The second lease is released"
+    secondLease.close()
+
+    then: "The channel should be closed"
+    !channel.isOpen()
+  }
+
+  def "Scenario: release the lease only once, however many times it is closed"() {
+    given: "The shared file channel, leased twice"
+    SharedFileChannel channel = openChannel()
+    Lease firstLease = channel.lease()
+    Lease secondLease = channel.lease()
+
+    when: "The first lease is closed several times"
+    firstLease.close()
+    firstLease.close()
+    firstLease.close()
+
+    then: "The channel should stay opened for the second lease"
+    channel.isOpen()
+
+    when: "The second lease is released"
+    secondLease.close()
+
+    then: "The channel should be closed"
+    !channel.isOpen()
+  }
+
+  def "Scenario: count the leases, obtained and released concurrently"() {
+    given: "The shared file channel, held by the owner lease"
+    SharedFileChannel channel = openChannel()
+    Lease ownerLease = channel.lease()
+
+    and: "The concurrent readers"
+    ExecutorService executor = Executors.newFixedThreadPool(READERS_COUNT)
+    CountDownLatch started = new CountDownLatch(1)
+
+    when: "The readers lease and release the channel concurrently"
+    List<Future<Boolean>> readers = (1..READERS_COUNT).collect {
+      executor.submit({
+        started.await()
+        boolean alwaysOpened = true
+        for (int i = 0; i < LEASES_PER_READER; i++) {
+          Lease lease = channel.lease()
+          alwaysOpened &= lease.getChannel().isOpen()
+          lease.close()
+          lease.close()
+        }
+        return alwaysOpened
+      } as Callable<Boolean>)
+    }
+    started.countDown()
+    List<Boolean> results = readers.collect { it.get(10, TimeUnit.SECONDS) }
+
+    then: "The channel should stay opened for every reader and for the owner"
+    results.every()
+    channel.isOpen()
+
+    when: "The owner lease is released"
+    ownerLease.close()
+
+    then: "The channel should be closed"
+    !channel.isOpen()
+
+    cleanup:
+    executor.shutdownNow()
+  }
+
+  private SharedFileChannel openChannel() {
+    return new SharedFileChannel(FileChannel.open(file, StandardOpenOption.READ))
+  }
+}
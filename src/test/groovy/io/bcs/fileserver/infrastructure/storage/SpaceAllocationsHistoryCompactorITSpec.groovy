@@ -0,0 +1,109 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import static org.jboss.shrinkwrap.resolver.api.maven.ScopeType.COMPILE
+import static org.jboss.shrinkwrap.resolver.api.maven.ScopeType.RUNTIME
+import static org.jboss.shrinkwrap.resolver.api.maven.ScopeType.TEST
+
+import io.bcs.fileserver.domain.Constants
+import io.bcs.fileserver.domain.errors.FileStorageException
+import io.bcs.testing.archive.ArchiveBuilder
+import io.bcs.testing.database.DatabaseConfigurer
+import io.bcs.testing.database.jdbc.cdi.JdbcLiquibase
+import javax.annotation.Resource
+import javax.inject.Inject
+import javax.sql.DataSource
+import org.jboss.arquillian.container.test.api.Deployment
+import org.jboss.arquillian.spock.ArquillianSputnik
+import org.jboss.shrinkwrap.api.Archive
+import org.junit.runner.RunWith
+import spock.lang.Specification
+
+@RunWith(ArquillianSputnik)
+class SpaceAllocationsHistoryCompactorITSpec extends Specification {
+  private static final String REF_MEDIATYPES_MIGRATION_SCRIPT = "db-init/file/ref.mediatypes.config.changelog.xml"
+  private static final String REF_LOCAL_STORAGES_MIGRATION_SCRIPT = "db-init/file/ref.local.storages.config.changelog.xml"
+  private static final String BCE_DATABASE_CONFIGURER_PACKAGE = DatabaseConfigurer.getPackage().getName()
+  private static final String BCS_DOMAIN_MODEL_PACKAGE = Constants.getPackage().getName()
+  private static final String MEDIA_TYPE = "application/mediatype"
+
+  @Deployment
+  public static Archive "create deployment"() {
+    return ArchiveBuilder.jar("space-allocations-history-compactor-spec.jar")
+        .resolveDependencies("pom.xml")
+        .withScopes(COMPILE, RUNTIME, TEST)
+        .resolveDependency("org.liquibase", "liquibase-core")
+        .resolveDependency("io.bce", "bce")
+        .resolveDependency("io.bce", "bce-test-kit")
+        .resolveDependency("io.bce", "bce-spock-ext")
+        .apply()
+        .appendPackagesRecursively(BCE_DATABASE_CONFIGURER_PACKAGE)
+        .appendPackagesRecursively(BCS_DOMAIN_MODEL_PACKAGE)
+        .appendClasses(FilesystemSpaceManager, JdbcFilesystemSpaceManager)
+        .appendClasses(SpaceAllocationsHistoryCompactor)
+        .appendManifestResource("META-INF/beans.xml", "beans.xml")
+        .appendResource("liquibase")
+        .appendResource("db-init")
+        .build()
+  }
+
+  @Inject
+  @JdbcLiquibase
+  private DatabaseConfigurer databaseConfigurer
+
+  @Resource(lookup="java:/jdbc/BC_CENTRAL")
+  private DataSource dataSource;
+
+  private FilesystemSpaceManager filesystemSpaceManager
+
+  def setup() {
+    databaseConfigurer.setup("liquibase/master.changelog.xml")
+    databaseConfigurer.setup(REF_MEDIATYPES_MIGRATION_SCRIPT)
+    databaseConfigurer.setup(REF_LOCAL_STORAGES_MIGRATION_SCRIPT)
+    this.filesystemSpaceManager = new JdbcFilesystemSpaceManager(dataSource)
+  }
+
+  def "Scenario: compact the released allocations"() {
+    given: "The released and the not released allocations"
+    filesystemSpaceManager.allocateSpace(MEDIA_TYPE, "released_file", 60)
+    filesystemSpaceManager.allocateSpace(MEDIA_TYPE, "stored_file", 10)
+    filesystemSpaceManager.releaseSpace("LOCAL", "released_file")
+
+    when: "The history is compacted"
+    long compacted = new SpaceAllocationsHistoryCompactor(dataSource, 0L, 1).compact()
+
+    then: "The released allocation should be compacted"
+    compacted == 1L
+
+    and: "The released space should be still available"
+    filesystemSpaceManager.allocateSpace(MEDIA_TYPE, "new_file", 90) == "LOCAL"
+
+    and: "The not released allocation should be still releasable"
+    filesystemSpaceManager.releaseSpace("LOCAL", "stored_file")
+  }
+
+  def "Scenario: don't compact the allocations released within the retention period"() {
+    given: "The released allocation"
+    filesystemSpaceManager.allocateSpace(MEDIA_TYPE, "released_file", 60)
+    filesystemSpaceManager.releaseSpace("LOCAL", "released_file")
+
+    expect: "The allocation shouldn't be compacted"
+    new SpaceAllocationsHistoryCompactor(dataSource, 3600000L, 10).compact() == 0L
+  }
+
+  def "Scenario: the compacted allocation can't be released twice"() {
+    given: "The compacted allocation"
+    filesystemSpaceManager.allocateSpace(MEDIA_TYPE, "released_file", 60)
+    filesystemSpaceManager.releaseSpace("LOCAL", "released_file")
+    new SpaceAllocationsHistoryCompactor(dataSource, 0L, 10).compact()
+
+    when: "The space release is requested again"
+    filesystemSpaceManager.releaseSpace("LOCAL", "released_file")
+
+    then: "The file storage error should be happened"
+    thrown(FileStorageException)
+  }
+
+  def cleanup() {
+    databaseConfigurer.tearDown()
+  }
+}
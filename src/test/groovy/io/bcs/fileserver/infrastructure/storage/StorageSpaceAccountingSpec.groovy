@@ -0,0 +1,62 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import spock.lang.Specification
+
+class StorageSpaceAccountingSpec extends Specification {
+  private static final String MEDIA_TYPE = "application/media"
+  private static final String FIRST_STORAGE = "first"
+  private static final String SECOND_STORAGE = "second"
+
+  private StorageSpaceAccounting accounting
+
+  def setup() {
+    this.accounting = new StorageSpaceAccounting(new BestFitSelectionStrategy())
+    this.accounting.update(FIRST_STORAGE, MEDIA_TYPE, "/first", 100L, 20L)
+    this.accounting.update(SECOND_STORAGE, MEDIA_TYPE, "/second", 100L, 50L)
+  }
+
+  def "Scenario: reserve the space on the storage with the least available space"() {
+    when: "The space is reserved"
+    Optional<String> storageName = accounting.reserve(MEDIA_TYPE, 30L, [])
+
+    then: "The storage with the least enough available space should be chosen"
+    storageName.get() == SECOND_STORAGE
+    accounting.getAvailableSpace(SECOND_STORAGE).get() == 20L
+    accounting.getAvailableSpace(FIRST_STORAGE).get() == 80L
+  }
+
+  def "Scenario: reserve the space on the next storage if the best one is excluded"() {
+    when: "The space is reserved, excluding the best storage"
+    Optional<String> storageName = accounting.reserve(MEDIA_TYPE, 30L, [SECOND_STORAGE])
+
+    then: "The next storage should be chosen"
+    storageName.get() == FIRST_STORAGE
+    accounting.getAvailableSpace(FIRST_STORAGE).get() == 50L
+  }
+
+  def "Scenario: refuse the space reservation if there isn't enough space"() {
+    when: "The space, exceeding every storage quote, is reserved"
+    Optional<String> storageName = accounting.reserve(MEDIA_TYPE, 90L, [])
+
+    then: "The space shouldn't be reserved"
+    !storageName.isPresent()
+    accounting.getAvailableSpace(FIRST_STORAGE).get() == 80L
+    accounting.getAvailableSpace(SECOND_STORAGE).get() == 50L
+  }
+
+  def "Scenario: refuse the space reservation for the unknown media type"() {
+    expect: "The space shouldn't be reserved"
+    !accounting.reserve("application/unknown", 10L, []).isPresent()
+  }
+
+  def "Scenario: release the reserved space"() {
+    given: "The reserved space"
+    String storageName = accounting.reserve(MEDIA_TYPE, 30L, []).get()
+
+    when: "The space is released"
+    accounting.release(storageName, 30L)
+
+    then: "The available space should be restored"
+    accounting.getAvailableSpace(storageName).get() == 50L
+  }
+}
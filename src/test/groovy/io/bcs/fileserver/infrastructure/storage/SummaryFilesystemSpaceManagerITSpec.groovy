@@ -0,0 +1,174 @@
+package io.bcs.fileserver.infrastructure.storage
+
+import static org.jboss.shrinkwrap.resolver.api.maven.ScopeType.COMPILE
+import static org.jboss.shrinkwrap.resolver.api.maven.ScopeType.RUNTIME
+import static org.jboss.shrinkwrap.resolver.api.maven.ScopeType.TEST
+
+import io.bcs.fileserver.domain.Constants
+import io.bcs.fileserver.domain.errors.FileStorageException
+import io.bcs.testing.archive.ArchiveBuilder
+import io.bcs.testing.database.DatabaseConfigurer
+import io.bcs.testing.database.jdbc.cdi.JdbcLiquibase
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.ResultSet
+import javax.annotation.Resource
+import javax.inject.Inject
+import javax.sql.DataSource
+import org.jboss.arquillian.container.test.api.Deployment
+import org.jboss.arquillian.spock.ArquillianSputnik
+import org.jboss.shrinkwrap.api.Archive
+import org.junit.runner.RunWith
+import spock.lang.Specification
+
+@RunWith(ArquillianSputnik)
+class SummaryFilesystemSpaceManagerITSpec extends Specification {
+  private static final String REF_MEDIATYPES_MIGRATION_SCRIPT = "db-init/file/ref.mediatypes.config.changelog.xml"
+  private static final String REF_LOCAL_STORAGES_MIGRATION_SCRIPT = "db-init/file/ref.local.storages.config.changelog.xml"
+  private static final String BCE_DATABASE_CONFIGURER_PACKAGE = DatabaseConfigurer.getPackage().getName()
+  private static final String BCS_DOMAIN_MODEL_PACKAGE = Constants.getPackage().getName()
+  private static final String MEDIA_TYPE = "application/mediatype"
+
+  @Deployment
+  public static Archive "create deployment"() {
+    return ArchiveBuilder.jar("summary-filesystem-space-manager-spec.jar")
+        .resolveDependencies("pom.xml")
+        .withScopes(COMPILE, RUNTIME, TEST)
+        .resolveDependency("org.liquibase", "liquibase-core")
+        .resolveDependency("io.bce", "bce")
+        .resolveDependency("io.bce", "bce-test-kit")
+        .resolveDependency("io.bce", "bce-spock-ext")
+        .apply()
+        .appendPackagesRecursively(BCE_DATABASE_CONFIGURER_PACKAGE)
+        .appendPackagesRecursively(BCS_DOMAIN_MODEL_PACKAGE)
+        .appendClasses(FilesystemSpaceManager, SummaryFilesystemSpaceManager)
+        .appendClasses(SpaceAllocationRequest, StorageSpaceAccounting)
+        .appendClasses(StorageSelectionStrategy, BestFitSelectionStrategy)
+        .appendManifestResource("META-INF/beans.xml", "beans.xml")
+        .appendResource("liquibase")
+        .appendResource("db-init")
+        .build()
+  }
+
+  @Inject
+  @JdbcLiquibase
+  private DatabaseConfigurer databaseConfigurer
+
+  @Resource(lookup="java:/jdbc/BC_CENTRAL")
+  private DataSource dataSource;
+
+  private SummaryFilesystemSpaceManager filesystemSpaceManager
+
+  def setup() {
+    databaseConfigurer.setup("liquibase/master.changelog.xml")
+    databaseConfigurer.setup(REF_MEDIATYPES_MIGRATION_SCRIPT)
+    databaseConfigurer.setup(REF_LOCAL_STORAGES_MIGRATION_SCRIPT)
+    this.filesystemSpaceManager = new SummaryFilesystemSpaceManager(dataSource)
+    this.filesystemSpaceManager.reconcile()
+  }
+
+  def "Scenario: allocate and release space by the summary"() {
+    when: "The space is allocated"
+    String storageName = filesystemSpaceManager.allocateSpace(MEDIA_TYPE, "stored_file", 60)
+
+    then: "The space should be allocated on the storage of the media type"
+    storageName == "LOCAL"
+
+    and: "The summary should contain the allocated space"
+    getUsedSpace("LOCAL") == 60L
+
+    when: "The space over the disk quote is requested"
+    filesystemSpaceManager.allocateSpace(MEDIA_TYPE, "large_file", 50)
+
+    then: "The file storage error should be happened"
+    thrown(FileStorageException)
+
+    and: "The summary shouldn't be changed"
+    getUsedSpace("LOCAL") == 60L
+
+    when: "The space is released"
+    filesystemSpaceManager.releaseSpace("LOCAL", "stored_file")
+
+    then: "The summary should be decreased"
+    getUsedSpace("LOCAL") == 0L
+
+    and: "The released space should be available"
+    filesystemSpaceManager.allocateSpace(MEDIA_TYPE, "large_file", 90) == "LOCAL"
+  }
+
+  def "Scenario: allocate space for the batch of files"() {
+    when: "The space for the batch is requested"
+    List<Optional<String>> allocations = filesystemSpaceManager.allocateSpace([
+      new SpaceAllocationRequest(MEDIA_TYPE, "file_1", 40),
+      new SpaceAllocationRequest(MEDIA_TYPE, "file_2", 50),
+      new SpaceAllocationRequest(MEDIA_TYPE, "file_3", 30)
+    ])
+
+    then: "The requests, fitting into the disk quote, should be allocated"
+    allocations == [Optional.of("LOCAL"), Optional.of("LOCAL"), Optional.empty()]
+
+    and: "The summary should contain the allocated space only"
+    getUsedSpace("LOCAL") == 90L
+
+    and: "The allocated space should be releasable by file"
+    filesystemSpaceManager.releaseSpace("LOCAL", "file_1")
+    getUsedSpace("LOCAL") == 50L
+  }
+
+  def "Scenario: reconcile the summary by the allocations history"() {
+    given: "The allocated space"
+    filesystemSpaceManager.allocateSpace(MEDIA_TYPE, "stored_file", 60)
+    filesystemSpaceManager.allocateSpace(MEDIA_TYPE, "released_file", 20)
+    filesystemSpaceManager.releaseSpace("LOCAL", "released_file")
+
+    and: "The summary, differed from the history"
+    setUsedSpace("LOCAL", 10L)
+
+    when: "The summary is reconciled by the other node"
+    SummaryFilesystemSpaceManager otherSpaceManager = new SummaryFilesystemSpaceManager(dataSource)
+    otherSpaceManager.reconcile()
+
+    then: "The summary should be corrected by the not released allocations"
+    getUsedSpace("LOCAL") == 60L
+
+    and: "The summary of the storage without allocations should be empty"
+    getUsedSpace("OTHER_LOCAL") == 0L
+
+    when: "The space over the corrected summary is requested"
+    otherSpaceManager.allocateSpace(MEDIA_TYPE, "large_file", 50)
+
+    then: "The file storage error should be happened"
+    thrown(FileStorageException)
+  }
+
+  def cleanup() {
+    databaseConfigurer.tearDown()
+  }
+
+  private long getUsedSpace(String storageName) {
+    Connection connection = dataSource.getConnection()
+    try {
+      PreparedStatement statement = connection.prepareStatement(
+          "SELECT USED_SPACE FROM LOCAL_STORAGES_SPACE WHERE STORAGE_NAME = ?")
+      statement.setString(1, storageName)
+      ResultSet resultSet = statement.executeQuery()
+      resultSet.next()
+      return resultSet.getLong("USED_SPACE")
+    } finally {
+      connection.close()
+    }
+  }
+
+  private void setUsedSpace(String storageName, long usedSpace) {
+    Connection connection = dataSource.getConnection()
+    try {
+      PreparedStatement statement = connection.prepareStatement(
+          "UPDATE LOCAL_STORAGES_SPACE SET USED_SPACE = ? WHERE STORAGE_NAME = ?")
+      statement.setLong(1, usedSpace)
+      statement.setString(2, storageName)
+      statement.executeUpdate()
+    } finally {
+      connection.close()
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package io.bcs.fileserver.domain.model.file;
+
+import io.bce.text.TextTemplates;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * This class measures the cost of the debug logging of the file fragments normalization, when the
+ * debug level is disabled. The "eager" benchmark additionally creates the templates, which were
+ * created for every fragment before the logging became guarded, so the difference of the
+ * normalized allocation rates is the allocation saved per request. The benchmark is run with the
+ * GC profiler from the test classpath:
+ * {@code java -cp <test-classpath> org.openjdk.jmh.Main FileFragmentsLoggingBenchmark -prof gc}.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.util.logging.config.file=/dev/null")
+public class FileFragmentsLoggingBenchmark {
+  private static final Long FILE_SIZE = 100000L;
+
+  private final Collection<Range> ranges = Arrays.asList(createRange(0L, 999L),
+      createRange(5000L, 5999L), createRange(null, 500L), createRange(90000L, null));
+
+  @Benchmark
+  public void normalizeWithGuardedLogging(Blackhole blackhole) {
+    blackhole.consume(new FileFragments(ranges, FILE_SIZE).getParts());
+  }
+
+  @Benchmark
+  public void normalizeWithEagerTemplates(Blackhole blackhole) {
+    for (Range range : ranges) {
+      blackhole.consume(createEagerTemplate("start", range));
+      blackhole.consume(createEagerTemplate("end", range));
+    }
+    blackhole.consume(new FileFragments(ranges, FILE_SIZE).getParts());
+  }
+
+  private Object createEagerTemplate(String bound, Range range) {
+    return TextTemplates
+        .createBy("Normalize " + bound + " of range fragment position for [start: "
+            + "{{startOfRange}}, end: {{endOfRange}}, fileSize: {{fileSize}}]")
+        .withParameter("startOfRange", range.getStart())
+        .withParameter("endOfRange", range.getEnd()).withParameter("fileSize", FILE_SIZE);
+  }
+
+  private static Range createRange(Long start, Long end) {
+    return new Range() {
+      @Override
+      public Optional<Long> getStart() {
+        return Optional.ofNullable(start);
+      }
+
+      @Override
+      public Optional<Long> getEnd() {
+        return Optional.ofNullable(end);
+      }
+    };
+  }
+}
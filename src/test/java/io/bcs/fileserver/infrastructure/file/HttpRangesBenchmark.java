@@ -0,0 +1,149 @@
+package io.bcs.fileserver.infrastructure.file;
+
+import io.bcs.fileserver.domain.errors.UnsatisfiableRangeFormatException;
+import io.bcs.fileserver.domain.model.file.Range;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * This class compares the single pass ranges header parser with the previous regular expressions
+ * based one. The benchmark is run from the test classpath:
+ * {@code java -cp <test-classpath> org.openjdk.jmh.Main HttpRangesBenchmark}.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpRangesBenchmark {
+  @Param({"SINGLE", "SUFFIX", "MULTIPLE", "ADVERSARIAL", "MALFORMED"})
+  private HeaderKind headerKind;
+
+  private String headerValue;
+
+  @Setup
+  public void setup() {
+    this.headerValue = headerKind.createHeaderValue();
+  }
+
+  @Benchmark
+  public void parseBySinglePass(Blackhole blackhole) {
+    try {
+      blackhole.consume(HttpRanges.parseBounds(headerValue));
+    } catch (UnsatisfiableRangeFormatException error) {
+      blackhole.consume(error);
+    }
+  }
+
+  @Benchmark
+  public void parseByRegularExpressions(Blackhole blackhole) {
+    try {
+      blackhole.consume(RegexHttpRanges.parseRanges(headerValue));
+    } catch (UnsatisfiableRangeFormatException error) {
+      blackhole.consume(error);
+    }
+  }
+
+  /**
+   * This enumeration describes the benchmarked header values.
+   */
+  public enum HeaderKind {
+    SINGLE {
+      @Override
+      String createHeaderValue() {
+        return "bytes=0-1023";
+      }
+    },
+    SUFFIX {
+      @Override
+      String createHeaderValue() {
+        return "bytes=-500";
+      }
+    },
+    MULTIPLE {
+      @Override
+      String createHeaderValue() {
+        return "bytes=0-99,200-299,1000-1999,5000-";
+      }
+    },
+    ADVERSARIAL {
+      @Override
+      String createHeaderValue() {
+        StringBuilder builder = new StringBuilder("bytes=0-0");
+        for (int index = 1; index < 1000; index++) {
+          builder.append(',').append(index).append('-').append(index);
+        }
+        return builder.toString();
+      }
+    },
+    MALFORMED {
+      @Override
+      String createHeaderValue() {
+        StringBuilder builder = new StringBuilder("bytes=");
+        for (int index = 0; index < 1000; index++) {
+          builder.append(index).append('-').append(index).append(',');
+        }
+        return builder.append("x").toString();
+      }
+    };
+
+    abstract String createHeaderValue();
+  }
+
+  private static final class RegexHttpRanges {
+    private static final String RANGES_HEADER_PATTERN = "^bytes=\\d*-\\d*(,\\d*-\\d*)*$";
+    private static final Pattern RANGE_PARSING_PATTERN = Pattern.compile("(\\d*)?-(\\d*)?");
+
+    private static Collection<Range> parseRanges(String value) {
+      if (!value.matches(RANGES_HEADER_PATTERN)) {
+        throw new UnsatisfiableRangeFormatException();
+      }
+      return Arrays.stream(value.substring(6).split(",")).map(String::trim)
+          .map(RegexHttpRanges::parseRange).collect(Collectors.toList());
+    }
+
+    private static Range parseRange(String range) {
+      Matcher parser = RANGE_PARSING_PATTERN.matcher(range);
+      parser.find();
+      Optional<Long> start = getParsedValue(parser, 1);
+      Optional<Long> end = getParsedValue(parser, 2);
+      return new Range() {
+        @Override
+        public Optional<Long> getStart() {
+          return start;
+        }
+
+        @Override
+        public Optional<Long> getEnd() {
+          return end;
+        }
+      };
+    }
+
+    private static Optional<Long> getParsedValue(Matcher parser, int group) {
+      return Optional.ofNullable(parser.group(group)).filter(value -> !value.isEmpty())
+          .map(Long::valueOf);
+    }
+  }
+}
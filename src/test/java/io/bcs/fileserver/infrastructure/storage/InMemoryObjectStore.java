@@ -0,0 +1,110 @@
+package io.bcs.fileserver.infrastructure.storage;
+
+import io.bcs.fileserver.domain.model.storage.descriptor.ObjectStorageDescriptor;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * This class implements the in-process fake of the S3-compatible object store for the tests. The
+ * objects and the uploaded parts are kept in memory. The buckets are identified by the storage
+ * endpoint and the bucket name.
+ *
+ * @author Dmitry Mikhaylenko
+ *
+ */
+public class InMemoryObjectStore implements ObjectStoreClient.Factory {
+  private final Map<String, Map<String, byte[]>> buckets = new ConcurrentHashMap<>();
+  private final Map<String, SortedMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+  @Override
+  public ObjectStoreClient create(ObjectStorageDescriptor storage) {
+    String bucketKey = String.format("%s/%s", storage.getEndpoint(), storage.getBucketName());
+    return new BucketClient(buckets.computeIfAbsent(bucketKey, key -> new ConcurrentHashMap<>()));
+  }
+
+  /**
+   * Get the count of the started and not finished multipart uploads.
+   *
+   * @return The uploads count
+   */
+  public int getActiveUploadsCount() {
+    return uploads.size();
+  }
+
+  private final class BucketClient implements ObjectStoreClient {
+    private final Map<String, byte[]> objects;
+
+    private BucketClient(Map<String, byte[]> objects) {
+      super();
+      this.objects = objects;
+    }
+
+    @Override
+    public String startMultipartUpload(String objectKey) {
+      String uploadId = UUID.randomUUID().toString();
+      uploads.put(uploadId, new ConcurrentSkipListMap<>());
+      return uploadId;
+    }
+
+    @Override
+    public String uploadPart(String objectKey, String uploadId, int partNumber, byte[] content,
+        int length) throws IOException {
+      getUploadParts(uploadId).put(partNumber, Arrays.copyOf(content, length));
+      return String.format("%s-%d", uploadId, partNumber);
+    }
+
+    @Override
+    public void completeMultipartUpload(String objectKey, String uploadId,
+        List<String> partTags) throws IOException {
+      SortedMap<Integer, byte[]> parts = getUploadParts(uploadId);
+      if (parts.size() != partTags.size()) {
+        throw new IOException("The uploaded parts don't match the completed parts");
+      }
+      ByteArrayOutputStream content = new ByteArrayOutputStream();
+      for (byte[] part : parts.values()) {
+        content.write(part);
+      }
+      objects.put(objectKey, content.toByteArray());
+      uploads.remove(uploadId);
+    }
+
+    @Override
+    public void abortMultipartUpload(String objectKey, String uploadId) {
+      uploads.remove(uploadId);
+    }
+
+    @Override
+    public InputStream getObject(String objectKey, Long offset, Long length) throws IOException {
+      byte[] content = objects.get(objectKey);
+      if (content == null) {
+        throw new FileNotFoundException(objectKey);
+      }
+      int from = (int) Math.min(offset, content.length);
+      int to = (int) Math.min(offset + length, content.length);
+      return new ByteArrayInputStream(content, from, to - from);
+    }
+
+    @Override
+    public void deleteObject(String objectKey) {
+      objects.remove(objectKey);
+    }
+
+    private SortedMap<Integer, byte[]> getUploadParts(String uploadId) throws IOException {
+      SortedMap<Integer, byte[]> parts = uploads.get(uploadId);
+      if (parts == null) {
+        throw new IOException(String.format("The multipart upload %s isn't found", uploadId));
+      }
+      return parts;
+    }
+  }
+}